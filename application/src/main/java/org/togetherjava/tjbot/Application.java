@@ -9,17 +9,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.config.MetricsConfig;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.features.Features;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
 import org.togetherjava.tjbot.features.system.BotCore;
 import org.togetherjava.tjbot.logging.LogMarkers;
 import org.togetherjava.tjbot.logging.discord.DiscordLogging;
+import org.togetherjava.tjbot.metrics.DatabaseMetrics;
+import org.togetherjava.tjbot.metrics.MetricsServer;
+import org.togetherjava.tjbot.rest.RestBudget;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main class of the application. Use {@link #main(String[])} to start an instance of it.
@@ -62,6 +67,7 @@ public class Application {
         Runtime.getRuntime().addShutdownHook(new Thread(Application::onShutdown));
         DiscordLogging.startDiscordLogging(config);
 
+        startMetricsServer(config);
         runBot(config);
     }
 
@@ -73,6 +79,7 @@ public class Application {
     @SuppressWarnings("WeakerAccess")
     public static void runBot(Config config) {
         logger.info("Starting bot...");
+        long startedAt = System.nanoTime();
 
         Path databasePath = Path.of(config.getDatabasePath());
         try {
@@ -81,12 +88,16 @@ public class Application {
                 Files.createDirectories(parentDatabasePath);
             }
             Database database = new Database("jdbc:sqlite:" + databasePath.toAbsolutePath());
+            database.setMetricsListener(new DatabaseMetrics());
 
-            JDA jda = JDABuilder.createDefault(config.getToken())
-                .enableIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.MESSAGE_CONTENT)
-                .build();
+            JDABuilder jdaBuilder = JDABuilder.createDefault(config.getToken())
+                .enableIntents(GatewayIntent.GUILD_MEMBERS, GatewayIntent.MESSAGE_CONTENT);
+            JdaCacheProfile.apply(jdaBuilder, config.getJdaCache());
+            RestBudget.trackHeadroom(jdaBuilder);
+            JDA jda = jdaBuilder.build();
 
             jda.awaitReady();
+            JdaCacheProfile.monitorCaches(jda);
 
             BotCore core = new BotCore(jda, database, config);
             CommandReloading.reloadCommands(jda, core);
@@ -94,7 +105,8 @@ public class Application {
 
             jda.addEventListener(core);
 
-            logger.info("Bot is ready");
+            logger.info("Bot is ready after {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
         } catch (InvalidTokenException e) {
             logger.error(LogMarkers.SENSITIVE, "Failed to login", e);
         } catch (InterruptedException e) {
@@ -108,6 +120,19 @@ public class Application {
         }
     }
 
+    private static void startMetricsServer(Config config) {
+        MetricsConfig metricsConfig = config.getMetrics();
+        if (!metricsConfig.enabled()) {
+            return;
+        }
+
+        try {
+            new MetricsServer(metricsConfig.port()).start();
+        } catch (IOException e) {
+            logger.error("Failed to start the metrics server on port {}", metricsConfig.port(), e);
+        }
+    }
+
     private static void onShutdown() {
         // This may be called during JVM shutdown via a hook and hence only has minimal time to
         // react.
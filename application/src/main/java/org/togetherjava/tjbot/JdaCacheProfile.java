@@ -0,0 +1,115 @@
+package org.togetherjava.tjbot;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.requests.GatewayIntent;
+import net.dv8tion.jda.api.utils.ChunkingFilter;
+import net.dv8tion.jda.api.utils.MemberCachePolicy;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.JdaCacheConfig;
+import org.togetherjava.tjbot.features.utils.MemberLookups;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Applies the configured cache profile to JDA, deciding which members and entities are cached and
+ * how many threads handle events.
+ * <p>
+ * Caching less saves memory, but entities that are not cached have to be requested from Discord
+ * when needed. To make this trade-off visible, the amount of cached entities is reported as
+ * metrics, next to the hit rate of member lookups reported by {@link MemberLookups}.
+ */
+final class JdaCacheProfile {
+    private static final Logger logger = LoggerFactory.getLogger(JdaCacheProfile.class);
+
+    private JdaCacheProfile() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Configures the given builder according to the cache profile.
+     *
+     * @param builder the builder to configure
+     * @param config the cache profile to apply
+     * @return the given builder, for chaining
+     */
+    static JDABuilder apply(JDABuilder builder, JdaCacheConfig config) {
+        builder.setMemberCachePolicy(toMemberCachePolicy(config.memberCachePolicy()))
+            .setChunkingFilter(config.chunkMembers() ? ChunkingFilter.ALL : ChunkingFilter.NONE)
+            .disableCache(config.disabledCacheFlags());
+
+        if (config.memberCachePolicy() == JdaCacheConfig.MemberCaching.ONLINE) {
+            builder.enableIntents(GatewayIntent.GUILD_PRESENCES)
+                .enableCache(CacheFlag.ONLINE_STATUS);
+        }
+
+        if (config.eventPoolSize() > 0) {
+            ExecutorService eventPool = createEventPool(config.eventPoolSize());
+            Metrics.monitorExecutor("jda_events", eventPool);
+            builder.setEventPool(eventPool, true);
+        }
+
+        logger.info(
+                "Caching members by policy {} (chunking: {}), disabled caches: {}, event threads: {}",
+                config.memberCachePolicy(), config.chunkMembers(), config.disabledCacheFlags(),
+                config.eventPoolSize() > 0 ? config.eventPoolSize() : "gateway thread");
+        return builder;
+    }
+
+    /**
+     * Reports the amount of cached entities of the given JDA instance as metrics.
+     *
+     * @param jda the JDA instance whose caches to report
+     */
+    static void monitorCaches(JDA jda) {
+        monitorCacheSize("guilds", () -> jda.getGuildCache().size());
+        monitorCacheSize("users", () -> jda.getUserCache().size());
+        monitorGuildCacheSize(jda, "members", guild -> guild.getMemberCache().size());
+        monitorGuildCacheSize(jda, "roles", guild -> guild.getRoleCache().size());
+        monitorGuildCacheSize(jda, "channels", guild -> guild.getChannels().size());
+        monitorGuildCacheSize(jda, "threads", guild -> guild.getThreadChannelCache().size());
+        monitorGuildCacheSize(jda, "emojis", guild -> guild.getEmojiCache().size());
+        monitorGuildCacheSize(jda, "voice_states", guild -> guild.getVoiceStates().size());
+    }
+
+    private static void monitorGuildCacheSize(JDA jda, String cache,
+            ToLongFunction<Guild> sizeInGuild) {
+        monitorCacheSize(cache, () -> jda.getGuildCache().stream().mapToLong(sizeInGuild).sum());
+    }
+
+    private static void monitorCacheSize(String cache, LongSupplier size) {
+        Metrics.gauge("tjbot_jda_cached_entities", "Amount of entities held in the JDA cache",
+                size::getAsLong, "cache", cache);
+    }
+
+    private static MemberCachePolicy toMemberCachePolicy(JdaCacheConfig.MemberCaching caching) {
+        return switch (caching) {
+            case NONE -> MemberCachePolicy.NONE;
+            case OWNER -> MemberCachePolicy.OWNER;
+            case VOICE -> MemberCachePolicy.VOICE;
+            case BOOSTER -> MemberCachePolicy.BOOSTER;
+            case PENDING -> MemberCachePolicy.PENDING;
+            case DEFAULT -> MemberCachePolicy.DEFAULT;
+            case ONLINE -> MemberCachePolicy.ONLINE;
+            case ALL -> MemberCachePolicy.ALL;
+        };
+    }
+
+    private static ExecutorService createEventPool(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "jda-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -46,6 +46,9 @@ public final class Config {
     private final RSSFeedsConfig rssFeedsConfig;
     private final String selectRolesChannelPattern;
     private final String memberCountCategoryPattern;
+    private final MetricsConfig metrics;
+    private final DatabaseSnapshotsConfig databaseSnapshots;
+    private final JdaCacheConfig jdaCache;
 
     @SuppressWarnings("ConstructorWithTooManyParameters")
     @JsonCreator(mode = JsonCreator.Mode.PROPERTIES)
@@ -94,7 +97,11 @@ public final class Config {
                     required = true) FeatureBlacklistConfig featureBlacklistConfig,
             @JsonProperty(value = "rssConfig", required = true) RSSFeedsConfig rssFeedsConfig,
             @JsonProperty(value = "selectRolesChannelPattern",
-                    required = true) String selectRolesChannelPattern) {
+                    required = true) String selectRolesChannelPattern,
+            @JsonProperty(value = "metrics", required = true) MetricsConfig metrics,
+            @JsonProperty(value = "databaseSnapshots",
+                    required = true) DatabaseSnapshotsConfig databaseSnapshots,
+            @JsonProperty(value = "jdaCache", required = true) JdaCacheConfig jdaCache) {
         this.token = Objects.requireNonNull(token);
         this.githubApiKey = Objects.requireNonNull(githubApiKey);
         this.databasePath = Objects.requireNonNull(databasePath);
@@ -127,6 +134,9 @@ public final class Config {
         this.featureBlacklistConfig = Objects.requireNonNull(featureBlacklistConfig);
         this.rssFeedsConfig = Objects.requireNonNull(rssFeedsConfig);
         this.selectRolesChannelPattern = Objects.requireNonNull(selectRolesChannelPattern);
+        this.metrics = Objects.requireNonNull(metrics);
+        this.databaseSnapshots = Objects.requireNonNull(databaseSnapshots);
+        this.jdaCache = Objects.requireNonNull(jdaCache);
     }
 
     /**
@@ -418,4 +428,31 @@ public final class Config {
     public RSSFeedsConfig getRSSFeedsConfig() {
         return rssFeedsConfig;
     }
+
+    /**
+     * Gets the configuration of the metrics system.
+     *
+     * @return the metrics configuration
+     */
+    public MetricsConfig getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the configuration of the database snapshots.
+     *
+     * @return the database snapshots configuration
+     */
+    public DatabaseSnapshotsConfig getDatabaseSnapshots() {
+        return databaseSnapshots;
+    }
+
+    /**
+     * Gets the configuration of what JDA caches.
+     *
+     * @return the JDA cache configuration
+     */
+    public JdaCacheConfig getJdaCache() {
+        return jdaCache;
+    }
 }
@@ -0,0 +1,39 @@
+package org.togetherjava.tjbot.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+/**
+ * Configuration of the snapshots of the database, which serve as backups.
+ *
+ * @param enabled whether snapshots should be created
+ * @param directory the directory to write snapshots to
+ * @param intervalHours the time between two snapshots, in hours
+ * @param retainedSnapshots the amount of latest snapshots to keep, older ones are deleted
+ */
+public record DatabaseSnapshotsConfig(
+        @JsonProperty(value = "enabled", required = true) boolean enabled,
+        @JsonProperty(value = "directory", required = true) String directory,
+        @JsonProperty(value = "intervalHours", required = true) int intervalHours,
+        @JsonProperty(value = "retainedSnapshots", required = true) int retainedSnapshots) {
+
+    /**
+     * Creates a database snapshots config.
+     *
+     * @param enabled whether snapshots should be created
+     * @param directory the directory to write snapshots to
+     * @param intervalHours the time between two snapshots, in hours, must be positive
+     * @param retainedSnapshots the amount of latest snapshots to keep, must be positive
+     */
+    public DatabaseSnapshotsConfig {
+        Objects.requireNonNull(directory);
+        if (intervalHours <= 0) {
+            throw new IllegalArgumentException("Illegal interval: " + intervalHours);
+        }
+        if (retainedSnapshots <= 0) {
+            throw new IllegalArgumentException(
+                    "Illegal amount of retained snapshots: " + retainedSnapshots);
+        }
+    }
+}
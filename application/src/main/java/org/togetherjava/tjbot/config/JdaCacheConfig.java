@@ -0,0 +1,87 @@
+package org.togetherjava.tjbot.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import net.dv8tion.jda.api.utils.cache.CacheFlag;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Configuration of what JDA caches, trading memory against REST requests for uncached entities.
+ *
+ * @param memberCachePolicy which members are kept in the cache
+ * @param chunkMembers whether all members of a guild are requested on startup, requires
+ *        {@link MemberCaching#ALL}
+ * @param disabledCacheFlags additional entity caches to disable, on top of the ones disabled by
+ *        default
+ * @param eventPoolSize the amount of threads handling events, {@code 0} to handle events on the
+ *        gateway thread, in the order they are received
+ */
+public record JdaCacheConfig(
+        @JsonProperty(value = "memberCachePolicy", required = true) MemberCaching memberCachePolicy,
+        @JsonProperty(value = "chunkMembers", required = true) boolean chunkMembers,
+        @JsonProperty(value = "disabledCacheFlags",
+                required = true) Set<CacheFlag> disabledCacheFlags,
+        @JsonProperty(value = "eventPoolSize", required = true) int eventPoolSize) {
+
+    /**
+     * Creates a JDA cache config.
+     *
+     * @param memberCachePolicy which members are kept in the cache
+     * @param chunkMembers whether all members of a guild are requested on startup, requires
+     *        {@link MemberCaching#ALL}
+     * @param disabledCacheFlags additional entity caches to disable
+     * @param eventPoolSize the amount of threads handling events, must not be negative
+     */
+    public JdaCacheConfig {
+        Objects.requireNonNull(memberCachePolicy);
+        disabledCacheFlags = Set.copyOf(disabledCacheFlags);
+        if (chunkMembers && memberCachePolicy != MemberCaching.ALL) {
+            throw new IllegalArgumentException(
+                    "Chunking members requires caching all of them, but the policy is "
+                            + memberCachePolicy);
+        }
+        if (eventPoolSize < 0) {
+            throw new IllegalArgumentException("Illegal event pool size: " + eventPoolSize);
+        }
+    }
+
+    /**
+     * Which members are kept in the cache. Members that are not cached are requested from Discord
+     * when needed.
+     */
+    public enum MemberCaching {
+        /**
+         * No members, except the bot itself.
+         */
+        NONE,
+        /**
+         * Owners of guilds.
+         */
+        OWNER,
+        /**
+         * Members who are connected to a voice channel.
+         */
+        VOICE,
+        /**
+         * Members who are boosting a guild.
+         */
+        BOOSTER,
+        /**
+         * Members who did not pass membership screening yet.
+         */
+        PENDING,
+        /**
+         * The default of JDA, owners, members in voice channels and pending members.
+         */
+        DEFAULT,
+        /**
+         * Members who are online. Requires receiving presences, which causes a lot of events.
+         */
+        ONLINE,
+        /**
+         * All members that were seen since startup, or all members if they are chunked.
+         */
+        ALL
+    }
+}
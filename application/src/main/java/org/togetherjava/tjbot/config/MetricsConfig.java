@@ -0,0 +1,27 @@
+package org.togetherjava.tjbot.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.togetherjava.tjbot.metrics.MetricsServer;
+
+/**
+ * Configuration of the metrics system, which serves metrics in the Prometheus text format.
+ *
+ * @param enabled whether the {@link MetricsServer} should be started
+ * @param port the port to serve metrics on
+ */
+public record MetricsConfig(@JsonProperty(value = "enabled", required = true) boolean enabled,
+        @JsonProperty(value = "port", required = true) int port) {
+
+    /**
+     * Creates a metrics config.
+     *
+     * @param enabled whether the {@link MetricsServer} should be started
+     * @param port the port to serve metrics on, must be a valid port number
+     */
+    public MetricsConfig {
+        if (port < 0 || port > 65_535) {
+            throw new IllegalArgumentException("Illegal port: " + port);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.togetherjava.tjbot.features;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the features of the application at startup and records how long each of them took.
+ * <p>
+ * Features that do not depend on each other are created concurrently, see {@link #add(Supplier)}.
+ * Systems that features depend on are created up front, see {@link #create(Supplier)}, and are
+ * added as feature with {@link #addCreated(Feature)} if they are one. Once all features are
+ * created, a breakdown of the startup time by feature is logged and exported as metric.
+ * <p>
+ * Features should not do blocking work, such as network requests, in their constructor. Expensive
+ * warm-up should instead happen in the background, with the feature degrading gracefully until it
+ * is done.
+ */
+final class FeatureStartup {
+    private static final Logger logger = LoggerFactory.getLogger(FeatureStartup.class);
+    private static final int STARTUP_THREADS = 4;
+    private static final int LOGGED_SLOWEST_FEATURES = 10;
+
+    private final ExecutorService startupService = createStartupService();
+    private final List<CompletableFuture<Feature>> pendingFeatures = new ArrayList<>();
+    private final Map<String, Duration> nameToStartupTime = new ConcurrentHashMap<>();
+    private final long startedAt = System.nanoTime();
+
+    /**
+     * Creates the given system right away, for example a store that multiple features share.
+     *
+     * @param constructor creates the system
+     * @param <T> the type of the system
+     * @return the created system
+     */
+    <T> T create(Supplier<? extends T> constructor) {
+        return timed(constructor);
+    }
+
+    /**
+     * Creates the given feature concurrently to other features. The feature must hence not depend
+     * on other features that are added to this instance.
+     *
+     * @param constructor creates the feature
+     */
+    void add(Supplier<? extends Feature> constructor) {
+        pendingFeatures
+            .add(CompletableFuture.supplyAsync(() -> timed(constructor), startupService));
+    }
+
+    /**
+     * Adds a feature that has already been created with {@link #create(Supplier)}, without
+     * recording its startup time again.
+     *
+     * @param feature the created feature
+     */
+    void addCreated(Feature feature) {
+        pendingFeatures.add(CompletableFuture.completedFuture(feature));
+    }
+
+    /**
+     * Waits until all added features are created and reports the startup time of each of them.
+     *
+     * @return all added features, in the order they have been added
+     * @throws RuntimeException the exception that creating a feature failed with, if any
+     */
+    List<Feature> awaitFeatures() {
+        List<Feature> features;
+        try {
+            features = pendingFeatures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            startupService.shutdown();
+        }
+
+        reportStartupTimes();
+        return features;
+    }
+
+    private static ExecutorService createStartupService() {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(STARTUP_THREADS, runnable -> {
+            Thread thread =
+                    new Thread(runnable, "feature-startup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private <T> T timed(Supplier<? extends T> constructor) {
+        long start = System.nanoTime();
+        T created = constructor.get();
+
+        Duration startupTime = Duration.ofNanos(System.nanoTime() - start);
+        nameToStartupTime.merge(created.getClass().getSimpleName(), startupTime, Duration::plus);
+        return created;
+    }
+
+    private void reportStartupTimes() {
+        nameToStartupTime.forEach((name, startupTime) -> {
+            double startupSeconds = startupTime.toNanos() / 1e9;
+            Metrics.gauge("tjbot_feature_startup_seconds",
+                    "Time it took to create the feature at startup", () -> startupSeconds,
+                    "feature", name);
+        });
+
+        if (logger.isInfoEnabled()) {
+            String slowestFeatures = nameToStartupTime.entrySet()
+                .stream()
+                .sorted(Map.Entry.<String, Duration>comparingByValue(Comparator.reverseOrder()))
+                .limit(LOGGED_SLOWEST_FEATURES)
+                .map(nameAndTime -> "%s (%d ms)".formatted(nameAndTime.getKey(),
+                        nameAndTime.getValue().toMillis()))
+                .collect(Collectors.joining(", "));
+            logger.info("Created {} features in {} ms, slowest were: {}", pendingFeatures.size(),
+                    Duration.ofNanos(System.nanoTime() - startedAt).toMillis(), slowestFeatures);
+        }
+    }
+}
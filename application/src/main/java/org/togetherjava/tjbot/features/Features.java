@@ -51,6 +51,7 @@ import org.togetherjava.tjbot.features.moderation.TransferQuestionCommand;
 import org.togetherjava.tjbot.features.moderation.UnbanCommand;
 import org.togetherjava.tjbot.features.moderation.UnmuteCommand;
 import org.togetherjava.tjbot.features.moderation.UnquarantineCommand;
+import org.togetherjava.tjbot.features.moderation.UserDisplayCache;
 import org.togetherjava.tjbot.features.moderation.WarnCommand;
 import org.togetherjava.tjbot.features.moderation.WhoIsCommand;
 import org.togetherjava.tjbot.features.moderation.attachment.BlacklistedAttachmentListener;
@@ -65,6 +66,8 @@ import org.togetherjava.tjbot.features.moderation.temp.TemporaryModerationRoutin
 import org.togetherjava.tjbot.features.reminder.RemindRoutine;
 import org.togetherjava.tjbot.features.reminder.ReminderCommand;
 import org.togetherjava.tjbot.features.system.BotCore;
+import org.togetherjava.tjbot.features.system.DatabaseMaintenanceRoutine;
+import org.togetherjava.tjbot.features.system.DatabaseSnapshotRoutine;
 import org.togetherjava.tjbot.features.system.LogLevelCommand;
 import org.togetherjava.tjbot.features.tags.TagCommand;
 import org.togetherjava.tjbot.features.tags.TagManageCommand;
@@ -74,8 +77,8 @@ import org.togetherjava.tjbot.features.tophelper.TopHelpersCommand;
 import org.togetherjava.tjbot.features.tophelper.TopHelpersMessageListener;
 import org.togetherjava.tjbot.features.tophelper.TopHelpersPurgeMessagesRoutine;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 /**
  * Utility class that offers all features that should be registered by the system, such as commands.
@@ -95,6 +98,9 @@ public class Features {
      * <p>
      * Calling this method multiple times will result in multiple features being created, which
      * generally should be avoided.
+     * <p>
+     * Features are created concurrently, features must hence only depend on the shared systems
+     * created up front, not on each other.
      *
      * @param jda the JDA instance commands will be registered at
      * @param database the database of the application, which features can use to persist data
@@ -103,95 +109,113 @@ public class Features {
      */
     public static Collection<Feature> createFeatures(JDA jda, Database database, Config config) {
         FeatureBlacklistConfig blacklistConfig = config.getFeatureBlacklistConfig();
-        JShellEval jshellEval = new JShellEval(config.getJshell(), config.getGitHubApiKey());
+        FeatureStartup startup = new FeatureStartup();
 
-        TagSystem tagSystem = new TagSystem(database);
-        BookmarksSystem bookmarksSystem = new BookmarksSystem(config, database);
-        ModerationActionsStore actionsStore = new ModerationActionsStore(database);
-        ModAuditLogWriter modAuditLogWriter = new ModAuditLogWriter(config);
-        ScamHistoryStore scamHistoryStore = new ScamHistoryStore(database);
-        GitHubReference githubReference = new GitHubReference(config);
-        CodeMessageHandler codeMessageHandler =
-                new CodeMessageHandler(blacklistConfig.special(), jshellEval);
-        ChatGptService chatGptService = new ChatGptService(config);
-        HelpSystemHelper helpSystemHelper = new HelpSystemHelper(config, database, chatGptService);
+        // Systems shared by multiple features
+        JShellEval jshellEval = startup
+            .create(() -> new JShellEval(config.getJshell(), config.getGitHubApiKey()));
+        TagSystem tagSystem = startup.create(() -> new TagSystem(database));
+        BookmarksSystem bookmarksSystem =
+                startup.create(() -> new BookmarksSystem(config, database));
+        ModerationActionsStore actionsStore =
+                startup.create(() -> new ModerationActionsStore(database));
+        UserDisplayCache userDisplayCache = startup.create(UserDisplayCache::new);
+        ModAuditLogWriter modAuditLogWriter = startup.create(() -> new ModAuditLogWriter(config));
+        ScamHistoryStore scamHistoryStore = startup.create(() -> new ScamHistoryStore(database));
+        GitHubReference githubReference = startup.create(() -> new GitHubReference(config));
+        CodeMessageHandler codeMessageHandler = startup
+            .create(() -> new CodeMessageHandler(blacklistConfig.special(), jshellEval));
+        ChatGptService chatGptService = startup.create(() -> new ChatGptService(config));
+        HelpSystemHelper helpSystemHelper =
+                startup.create(() -> new HelpSystemHelper(config, database, chatGptService));
         HelpThreadLifecycleListener helpThreadLifecycleListener =
-                new HelpThreadLifecycleListener(helpSystemHelper, database);
+                startup.create(() -> new HelpThreadLifecycleListener(helpSystemHelper, database));
+        HelpThreadActivityUpdater helpThreadActivityUpdater =
+                startup.create(() -> new HelpThreadActivityUpdater(helpSystemHelper));
 
         // NOTE The system can add special system relevant commands also by itself,
         // hence this list may not necessarily represent the full list of all commands actually
         // available.
-        Collection<Feature> features = new ArrayList<>();
 
         // Routines
-        features.add(new ModAuditLogRoutine(database, config, modAuditLogWriter));
-        features.add(new TemporaryModerationRoutine(jda, actionsStore, config));
-        features.add(new TopHelpersPurgeMessagesRoutine(database));
-        features.add(new RemindRoutine(database));
-        features.add(new ScamHistoryPurgeRoutine(scamHistoryStore));
-        features.add(new HelpThreadMetadataPurger(database));
-        features.add(new HelpThreadActivityUpdater(helpSystemHelper));
-        features.add(new HelpThreadAutoArchiver(helpSystemHelper));
-        features.add(new LeftoverBookmarksCleanupRoutine(bookmarksSystem));
-        features.add(new MarkHelpThreadCloseInDBRoutine(database, helpThreadLifecycleListener));
-        features.add(new MemberCountDisplayRoutine(config));
-        features.add(new RSSHandlerRoutine(config, database));
+        startup.add(() -> new ModAuditLogRoutine(database, config, modAuditLogWriter,
+                userDisplayCache));
+        startup.add(() -> new TemporaryModerationRoutine(jda, actionsStore, config));
+        startup.add(() -> new TopHelpersPurgeMessagesRoutine(database));
+        startup.add(() -> new RemindRoutine(database));
+        startup.add(() -> new ScamHistoryPurgeRoutine(scamHistoryStore));
+        startup.add(() -> new HelpThreadMetadataPurger(database));
+        startup.add(() -> new HelpThreadAutoArchiver(helpSystemHelper));
+        startup.add(() -> new DatabaseMaintenanceRoutine(database));
+        if (config.getDatabaseSnapshots().enabled()) {
+            startup.add(() -> new DatabaseSnapshotRoutine(config));
+        }
+        startup.add(() -> new LeftoverBookmarksCleanupRoutine(bookmarksSystem));
+        startup
+            .add(() -> new MarkHelpThreadCloseInDBRoutine(database, helpThreadLifecycleListener));
+        startup.add(() -> new MemberCountDisplayRoutine(config));
+        startup.add(() -> new RSSHandlerRoutine(config, database));
 
         // Message receivers
-        features.add(new TopHelpersMessageListener(database, config));
-        features.add(new SuggestionsUpDownVoter(config));
-        features.add(new ScamBlocker(actionsStore, scamHistoryStore, config));
-        features.add(new MediaOnlyChannelListener(config));
-        features.add(new FileSharingMessageListener(config));
-        features.add(new BlacklistedAttachmentListener(config, modAuditLogWriter));
-        features.add(githubReference);
-        features.add(codeMessageHandler);
-        features.add(new CodeMessageAutoDetection(config, codeMessageHandler));
-        features.add(new CodeMessageManualDetection(codeMessageHandler));
-        features.add(new SlashCommandEducator());
-        features.add(new PinnedNotificationRemover(config));
+        startup.add(() -> new TopHelpersMessageListener(database, config));
+        startup.add(() -> new SuggestionsUpDownVoter(config));
+        startup.add(() -> new ScamBlocker(actionsStore, scamHistoryStore, modAuditLogWriter,
+                config));
+        startup.add(() -> new MediaOnlyChannelListener(config));
+        startup.add(() -> new FileSharingMessageListener(config));
+        startup.add(() -> new BlacklistedAttachmentListener(config, modAuditLogWriter));
+        startup.addCreated(githubReference);
+        startup.addCreated(codeMessageHandler);
+        startup.add(() -> new CodeMessageAutoDetection(config, codeMessageHandler));
+        startup.add(() -> new CodeMessageManualDetection(codeMessageHandler));
+        startup.add(() -> new SlashCommandEducator());
+        startup.add(() -> new PinnedNotificationRemover(config));
+        startup.addCreated(helpThreadActivityUpdater);
 
         // Event receivers
-        features.add(new RejoinModerationRoleListener(actionsStore, config));
-        features.add(new GuildLeaveCloseThreadListener(config));
-        features.add(new LeftoverBookmarksListener(bookmarksSystem));
-        features.add(new HelpThreadCreatedListener(helpSystemHelper));
-        features.add(new HelpThreadLifecycleListener(helpSystemHelper, database));
+        startup.add(() -> new RejoinModerationRoleListener(actionsStore, config));
+        startup.add(() -> new GuildLeaveCloseThreadListener(config));
+        startup.add(() -> new LeftoverBookmarksListener(bookmarksSystem));
+        startup.add(() -> new HelpThreadCreatedListener(helpSystemHelper));
+        startup.add(() -> new HelpThreadLifecycleListener(helpSystemHelper, database));
 
         // Message context commands
-        features.add(new TransferQuestionCommand(config, chatGptService));
+        startup.add(() -> new TransferQuestionCommand(config, chatGptService));
 
         // User context commands
 
         // Slash commands
-        features.add(new LogLevelCommand());
-        features.add(new PingCommand());
-        features.add(new TeXCommand());
-        features.add(new TagCommand(tagSystem));
-        features.add(new TagManageCommand(tagSystem, modAuditLogWriter));
-        features.add(new TagsCommand(tagSystem));
-        features.add(new WarnCommand(actionsStore));
-        features.add(new KickCommand(actionsStore));
-        features.add(new BanCommand(actionsStore));
-        features.add(new UnbanCommand(actionsStore));
-        features.add(new AuditCommand(actionsStore));
-        features.add(new MuteCommand(actionsStore, config));
-        features.add(new UnmuteCommand(actionsStore, config));
-        features.add(new TopHelpersCommand(database));
-        features.add(new RoleSelectCommand());
-        features.add(new NoteCommand(actionsStore));
-        features.add(new ReminderCommand(database));
-        features.add(new QuarantineCommand(actionsStore, config));
-        features.add(new UnquarantineCommand(actionsStore, config));
-        features.add(new WhoIsCommand());
-        features.add(new WolframAlphaCommand(config));
-        features.add(new GitHubCommand(githubReference));
-        features.add(new ModMailCommand(jda, config));
-        features.add(new HelpThreadCommand(config, helpSystemHelper));
-        features.add(new ReportCommand(config));
-        features.add(new BookmarksCommand(bookmarksSystem));
-        features.add(new ChatGptCommand(chatGptService, helpSystemHelper));
-        features.add(new JShellCommand(jshellEval));
+        startup.add(() -> new LogLevelCommand());
+        startup.add(() -> new PingCommand());
+        startup.add(() -> new TeXCommand());
+        startup.add(() -> new TagCommand(tagSystem));
+        startup.add(() -> new TagManageCommand(tagSystem, modAuditLogWriter));
+        startup.add(() -> new TagsCommand(tagSystem));
+        startup.add(() -> new WarnCommand(actionsStore));
+        startup.add(() -> new KickCommand(actionsStore));
+        startup.add(() -> new BanCommand(actionsStore));
+        startup.add(() -> new UnbanCommand(actionsStore));
+        startup.add(() -> new AuditCommand(actionsStore, userDisplayCache));
+        startup.add(() -> new MuteCommand(actionsStore, config));
+        startup.add(() -> new UnmuteCommand(actionsStore, config));
+        startup.add(() -> new TopHelpersCommand(database));
+        startup.add(() -> new RoleSelectCommand());
+        startup.add(() -> new NoteCommand(actionsStore));
+        startup.add(() -> new ReminderCommand(database));
+        startup.add(() -> new QuarantineCommand(actionsStore, config));
+        startup.add(() -> new UnquarantineCommand(actionsStore, config));
+        startup.add(() -> new WhoIsCommand());
+        startup.add(() -> new WolframAlphaCommand(config));
+        startup.add(() -> new GitHubCommand(githubReference));
+        startup.add(() -> new ModMailCommand(jda, config));
+        startup.add(
+                () -> new HelpThreadCommand(config, helpSystemHelper, helpThreadActivityUpdater));
+        startup.add(() -> new ReportCommand(config));
+        startup.add(() -> new BookmarksCommand(bookmarksSystem));
+        startup.add(() -> new ChatGptCommand(chatGptService, helpSystemHelper));
+        startup.add(() -> new JShellCommand(jshellEval));
+
+        List<Feature> features = startup.awaitFeatures();
 
         FeatureBlacklist<Class<?>> blacklist = blacklistConfig.normal();
         return blacklist.filterStream(features.stream(), Object::getClass).toList();
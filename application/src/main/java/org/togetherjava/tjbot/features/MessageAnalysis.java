@@ -0,0 +1,133 @@
+package org.togetherjava.tjbot.features;
+
+import net.dv8tion.jda.api.entities.Message;
+
+import org.togetherjava.tjbot.features.utils.CodeFence;
+import org.togetherjava.tjbot.features.utils.LinkDetection;
+import org.togetherjava.tjbot.features.utils.MessageUtils;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Views on the content of a received message, shared by all {@link MessageReceiver}s the message is
+ * passed to.
+ * <p>
+ * Each view is computed when first requested and then remembered, so it is computed at most once
+ * per message, regardless of how many receivers need it.
+ */
+public final class MessageAnalysis {
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[\\s,]");
+    private static final Pattern INVISIBLE_CHARACTERS = Pattern.compile("\\p{C}");
+
+    private final Message message;
+
+    @Nullable
+    private List<String> tokens;
+    @Nullable
+    private List<String> lowercaseTokens;
+    @Nullable
+    private List<String> links;
+    @Nullable
+    private Optional<CodeFence> code;
+    @Nullable
+    private String printableContent;
+
+    /**
+     * Creates an analysis of the given message. Views are only computed once requested.
+     *
+     * @param message the message to analyze
+     */
+    public MessageAnalysis(Message message) {
+        this.message = message;
+    }
+
+    /**
+     * Removes all invisible characters, such as control characters, from the given text.
+     *
+     * @param text the text to remove invisible characters from
+     * @return the text without invisible characters
+     */
+    public static String removeInvisibleCharacters(CharSequence text) {
+        return INVISIBLE_CHARACTERS.matcher(text).replaceAll("");
+    }
+
+    /**
+     * Gets the analyzed message.
+     *
+     * @return the analyzed message
+     */
+    public Message getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the words of the displayed content, as separated by whitespace and commas.
+     *
+     * @return the non-blank words of the displayed content, in order
+     */
+    public synchronized List<String> getTokens() {
+        if (tokens == null) {
+            tokens = TOKEN_SEPARATOR.splitAsStream(message.getContentDisplay())
+                .filter(token -> !token.isBlank())
+                .toList();
+        }
+        return tokens;
+    }
+
+    /**
+     * Gets the words of the displayed content in lower case.
+     *
+     * @return the words as given by {@link #getTokens()}, each in lower case
+     */
+    public synchronized List<String> getLowercaseTokens() {
+        if (lowercaseTokens == null) {
+            lowercaseTokens =
+                    getTokens().stream().map(token -> token.toLowerCase(Locale.US)).toList();
+        }
+        return lowercaseTokens;
+    }
+
+    /**
+     * Gets all http and https links of the raw content.
+     *
+     * @return the links of the raw content, empty if there are none
+     */
+    public synchronized List<String> getLinks() {
+        if (links == null) {
+            links = LinkDetection.extractLinks(message.getContentRaw(),
+                    Set.of(LinkDetection.LinkFilter.NON_HTTP_SCHEME));
+        }
+        return links;
+    }
+
+    /**
+     * Gets the first code block of the raw content.
+     *
+     * @return the first code block, if there is any
+     */
+    @SuppressWarnings("OptionalAssignedToNull")
+    public synchronized Optional<CodeFence> getCode() {
+        if (code == null) {
+            code = MessageUtils.extractCode(message.getContentRaw());
+        }
+        return code;
+    }
+
+    /**
+     * Gets the raw content without invisible characters, such as control characters.
+     *
+     * @return the raw content without invisible characters
+     */
+    public synchronized String getPrintableContent() {
+        if (printableContent == null) {
+            printableContent = removeInvisibleCharacters(message.getContentRaw());
+        }
+        return printableContent;
+    }
+}
@@ -36,8 +36,10 @@ public interface MessageReceiver extends Feature {
      *
      * @param event the event that triggered this, containing information about the corresponding
      *        message that was sent and received
+     * @param analysis views on the content of the received message, shared with all other receivers
+     *        of the message
      */
-    void onMessageReceived(MessageReceivedEvent event);
+    void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis);
 
     /**
      * Triggered by the core system whenever an existing message was edited in a text channel of a
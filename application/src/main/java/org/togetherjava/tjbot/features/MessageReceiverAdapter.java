@@ -10,7 +10,7 @@ import java.util.regex.Pattern;
  * Adapter implementation of a {@link MessageReceiver}. A new receiver can then be registered by
  * adding it to {@link Features}.
  * <p>
- * {@link #onMessageReceived(MessageReceivedEvent)} and
+ * {@link #onMessageReceived(MessageReceivedEvent, MessageAnalysis)} and
  * {@link #onMessageUpdated(MessageUpdateEvent)} can be overridden if desired. The default
  * implementation is empty, the adapter will not react to such events.
  */
@@ -42,7 +42,7 @@ public abstract class MessageReceiverAdapter implements MessageReceiver {
 
     @SuppressWarnings("NoopMethodInAbstractClass")
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         // Adapter does not react by default, subclasses may change this behavior
     }
 
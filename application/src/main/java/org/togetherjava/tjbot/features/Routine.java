@@ -32,6 +32,19 @@ public interface Routine extends Feature {
      */
     void runRoutine(JDA jda);
 
+    /**
+     * Retrieves the priority of this routine. Called by the core system once during the startup in
+     * order to execute the routine accordingly.
+     * <p>
+     * Routines of different priorities are executed on separate threads, so that long running
+     * routines can not delay time critical ones.
+     *
+     * @return the priority of this routine
+     */
+    default Priority getPriority() {
+        return Priority.NORMAL;
+    }
+
     /**
      * The schedule of routines.
      *
@@ -62,4 +75,23 @@ public interface Routine extends Feature {
          */
         FIXED_DELAY
     }
+
+    /**
+     * How urgently a routine has to be executed on time, routines of different priorities do not
+     * compete for threads.
+     */
+    enum Priority {
+        /**
+         * Routines that have to be executed on time, such as sending reminders.
+         */
+        TIME_CRITICAL,
+        /**
+         * Routines without special requirements.
+         */
+        NORMAL,
+        /**
+         * Long running routines whose delay is not noticeable, such as purging old data.
+         */
+        BULK
+    }
 }
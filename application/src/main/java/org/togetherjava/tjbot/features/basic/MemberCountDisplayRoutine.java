@@ -5,6 +5,8 @@ import net.dv8tion.jda.api.entities.channel.concrete.Category;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.rest.RestBudget;
+import org.togetherjava.tjbot.rest.RestPriority;
 
 import java.text.NumberFormat;
 import java.util.concurrent.TimeUnit;
@@ -33,7 +35,8 @@ public class MemberCountDisplayRoutine implements Routine {
                 NumberFormat.getInstance().format(category.getGuild().getMemberCount());
         String baseName = category.getName().split("-")[0].trim();
 
-        category.getManager().setName("%s - %s Members".formatted(baseName, memberCount)).queue();
+        RestBudget.queue(RestPriority.COSMETIC,
+                category.getManager().setName("%s - %s Members".formatted(baseName, memberCount)));
     }
 
     @Override
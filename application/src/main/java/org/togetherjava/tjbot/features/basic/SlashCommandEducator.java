@@ -7,6 +7,7 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.requests.restaction.MessageCreateAction;
 import net.dv8tion.jda.api.utils.FileUpload;
 
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
 import org.togetherjava.tjbot.features.help.HelpSystemHelper;
 
@@ -28,7 +29,7 @@ public final class SlashCommandEducator extends MessageReceiverAdapter {
             """, Pattern.COMMENTS).asMatchPredicate();
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.getAuthor().isBot() || event.isWebhookMessage()) {
             return;
         }
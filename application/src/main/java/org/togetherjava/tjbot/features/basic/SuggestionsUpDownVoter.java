@@ -7,12 +7,16 @@ import net.dv8tion.jda.api.entities.emoji.RichCustomEmoji;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.exceptions.ErrorResponseException;
 import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.RestAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.config.SuggestionsConfig;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
+import org.togetherjava.tjbot.rest.RestBudget;
+import org.togetherjava.tjbot.rest.RestPriority;
 
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -41,7 +45,7 @@ public final class SuggestionsUpDownVoter extends MessageReceiverAdapter {
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.getAuthor().isBot() || event.isWebhookMessage() || !event.isFromGuild()) {
             return;
         }
@@ -72,12 +76,15 @@ public final class SuggestionsUpDownVoter extends MessageReceiverAdapter {
 
     private static void reactWith(String emojiName, Emoji fallbackEmoji, Guild guild,
             Message message) {
-        getEmojiByName(emojiName, guild).map(message::addReaction).orElseGet(() -> {
-            logger.warn(
-                    "Unable to vote on a suggestion with the configured emoji ('{}'), using fallback instead.",
-                    emojiName);
-            return message.addReaction(fallbackEmoji);
-        }).queue(ignored -> {
+        RestAction<Void> reaction =
+                getEmojiByName(emojiName, guild).map(message::addReaction).orElseGet(() -> {
+                    logger.warn(
+                            "Unable to vote on a suggestion with the configured emoji ('{}'), using fallback instead.",
+                            emojiName);
+                    return message.addReaction(fallbackEmoji);
+                });
+
+        RestBudget.queue(RestPriority.COSMETIC, reaction, ignored -> {
         }, exception -> {
             if (exception instanceof ErrorResponseException responseException
                     && responseException.getErrorResponse() == ErrorResponse.REACTION_BLOCKED) {
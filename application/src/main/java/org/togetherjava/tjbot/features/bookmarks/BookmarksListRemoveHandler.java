@@ -23,12 +23,13 @@ import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.function.Function;
-import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 final class BookmarksListRemoveHandler {
@@ -42,6 +43,8 @@ final class BookmarksListRemoveHandler {
     private static final String BUTTON_REMOVE_NAME = "button-remove";
     private static final String SELECT_MENU_REMOVE_NAME = "select-menu-remove";
 
+    private static final long NO_CHANNEL_ID = 0;
+
     private static final MessageEmbed NO_BOOKMARKS_EMBED =
             BookmarksSystem.createFailureEmbed("You don't have any bookmarks yet.");
 
@@ -67,28 +70,30 @@ final class BookmarksListRemoveHandler {
         JDA jda = event.getJDA();
         long userID = event.getUser().getIdLong();
 
-        List<BookmarksRecord> bookmarks = bookmarksSystem.getUsersBookmarks(userID);
-        if (bookmarks.isEmpty()) {
+        int bookmarkCount = bookmarksSystem.getUserBookmarkCount(userID);
+        Page page = firstPage(userID);
+        if (bookmarkCount == 0 || page.bookmarks().isEmpty()) {
             event.replyEmbeds(NO_BOOKMARKS_EMBED).setEphemeral(true).queue();
             return;
         }
 
-        MessageEmbed pageEmbed = generatePageEmbed(bookmarks, requestType, 0);
+        Request request = new Request(requestType, "", page.pageIndex(),
+                page.firstChannelID(), page.lastChannelID(), Set.of());
+        MessageEmbed pageEmbed = generatePageEmbed(page, requestType, bookmarkCount);
 
         Collection<LayoutComponent> components = new ArrayList<>();
-        components.add(generateNavigationComponent(requestType, 0));
+        components.add(generateNavigationComponent(request));
 
         if (requestType == RequestType.REMOVE) {
-            components
-                .addAll(generateRemoveComponents(jda, bookmarks, RequestType.REMOVE, 0, Set.of()));
+            components.addAll(generateRemoveComponents(jda, page, request));
         }
 
         event.replyEmbeds(pageEmbed).setComponents(components).setEphemeral(true).queue();
     }
 
-    private static MessageEmbed generatePageEmbed(List<BookmarksRecord> bookmarks,
-            RequestType requestType, int currentPageIndex) {
-        int lastPageIndex = getLastPageIndex(bookmarks);
+    private static MessageEmbed generatePageEmbed(Page page, RequestType requestType,
+            int bookmarkCount) {
+        int lastPageIndex = getLastPageIndex(bookmarkCount);
 
         String title;
         Color color;
@@ -106,7 +111,7 @@ final class BookmarksListRemoveHandler {
 
         StringJoiner descriptionJoiner = new StringJoiner("\n\n");
 
-        getPageEntries(bookmarks, currentPageIndex).forEach(pageEntry -> {
+        page.entries().forEach(pageEntry -> {
             int bookmarkNumber = pageEntry.bookmarkNumber;
             long channelID = pageEntry.bookmark.getChannelId();
             String note = pageEntry.bookmark.getNote();
@@ -123,7 +128,8 @@ final class BookmarksListRemoveHandler {
         });
 
         String description = descriptionJoiner.toString();
-        String footer = "Page %d/%d".formatted(currentPageIndex + 1, lastPageIndex + 1);
+        String footer = "Page %d/%d".formatted(Math.min(page.pageIndex(), lastPageIndex) + 1,
+                lastPageIndex + 1);
 
         return new EmbedBuilder().setTitle(title)
             .setDescription(description)
@@ -136,31 +142,38 @@ final class BookmarksListRemoveHandler {
         Request request = Request.fromArgs(args);
         long userID = event.getUser().getIdLong();
 
-        List<BookmarksRecord> bookmarks = bookmarksSystem.getUsersBookmarks(userID);
-
-        int nextPageIndex = switch (request.componentName) {
-            case BUTTON_PREV_NAME -> clampPageIndex(bookmarks, request.pageToDisplayIndex - 1);
-            case BUTTON_NEXT_NAME -> clampPageIndex(bookmarks, request.pageToDisplayIndex + 1);
-            case BUTTON_REMOVE_NAME -> {
-                removeSelectedBookmarks(bookmarks, event, request);
-                yield clampPageIndex(bookmarks, request.pageToDisplayIndex);
-            }
+        Page nextPage = switch (request.componentName) {
+            case BUTTON_PREV_NAME -> previousPage(userID, request);
+            case BUTTON_NEXT_NAME -> nextPage(userID, request);
+            case BUTTON_REMOVE_NAME -> removeSelectedBookmarks(userID, request);
             default ->
                 throw new IllegalArgumentException("Unknown button: " + request.componentName);
         };
 
-        updatePagination(event, request.atPage(nextPageIndex), bookmarks);
+        Set<Long> bookmarkIdsToRemove =
+                request.componentName.equals(BUTTON_REMOVE_NAME) ? Set.of()
+                        : request.bookmarkIdsToRemove;
+        updatePagination(event, request.atPage(nextPage, bookmarkIdsToRemove), nextPage);
     }
 
-    private void removeSelectedBookmarks(List<BookmarksRecord> bookmarks,
-            ComponentInteraction event, Request request) {
-        long userID = event.getUser().getIdLong();
+    private Page removeSelectedBookmarks(long userID, Request request) {
+        // The position has to be known before its bookmark is possibly removed
+        Optional<BookmarksSystem.BookmarkPosition> pageStart =
+                bookmarksSystem.findBookmarkPosition(userID, request.pageFirstChannelID);
 
-        Predicate<BookmarksRecord> isBookmarkSelectedForRemoval =
-                bookmark -> request.bookmarkIdsToRemove.contains(bookmark.getChannelId());
-
-        bookmarks.removeIf(isBookmarkSelectedForRemoval);
         bookmarksSystem.removeBookmarks(userID, request.bookmarkIdsToRemove);
+
+        if (pageStart.isEmpty()) {
+            return firstPage(userID);
+        }
+
+        Page page = pageStartingAt(userID, request.pageToDisplayIndex, pageStart.orElseThrow());
+        if (!page.bookmarks().isEmpty()) {
+            return page;
+        }
+
+        // All bookmarks of the last page were removed
+        return pageBefore(userID, request.pageToDisplayIndex, pageStart.orElseThrow());
     }
 
     void onSelectMenuSelection(StringSelectInteractionEvent event, List<String> args) {
@@ -180,39 +193,85 @@ final class BookmarksListRemoveHandler {
             .map(SelectOption::getValue)
             .map(Long::parseLong)
             .collect(Collectors.toSet());
-        request = request.withSelectedBookmarksToRemove(selectedBookmarkIdsToRemove);
 
-        List<BookmarksRecord> bookmarks =
-                bookmarksSystem.getUsersBookmarks(event.getUser().getIdLong());
-        int updatedPageIndex = clampPageIndex(bookmarks, request.pageToDisplayIndex);
+        Page page = currentPage(event.getUser().getIdLong(), request);
+
+        updatePagination(event, request.atPage(page, selectedBookmarkIdsToRemove), page);
+    }
+
+    private Page firstPage(long userID) {
+        return new Page(0,
+                bookmarksSystem.getUsersBookmarksStartingAt(userID, null, ENTRIES_PER_PAGE));
+    }
+
+    private Page currentPage(long userID, Request request) {
+        return bookmarksSystem.findBookmarkPosition(userID, request.pageFirstChannelID)
+            .map(pageStart -> pageStartingAt(userID, request.pageToDisplayIndex, pageStart))
+            .orElseGet(() -> firstPage(userID));
+    }
+
+    private Page pageStartingAt(long userID, int pageIndex,
+            BookmarksSystem.BookmarkPosition pageStart) {
+        return new Page(pageIndex, bookmarksSystem.getUsersBookmarksStartingAt(userID, pageStart,
+                ENTRIES_PER_PAGE));
+    }
+
+    private Page previousPage(long userID, Request request) {
+        return bookmarksSystem.findBookmarkPosition(userID, request.pageFirstChannelID)
+            .map(pageStart -> pageBefore(userID, request.pageToDisplayIndex, pageStart))
+            .orElseGet(() -> firstPage(userID));
+    }
+
+    private Page pageBefore(long userID, int pageIndex,
+            BookmarksSystem.BookmarkPosition pageStart) {
+        List<BookmarksRecord> newerBookmarks =
+                bookmarksSystem.getUsersBookmarksNewerThan(userID, pageStart, ENTRIES_PER_PAGE);
+        if (newerBookmarks.size() < ENTRIES_PER_PAGE) {
+            // Pages are aligned to the newest bookmark
+            return firstPage(userID);
+        }
+
+        return new Page(Math.max(pageIndex - 1, 0), newerBookmarks);
+    }
+
+    private Page nextPage(long userID, Request request) {
+        Optional<BookmarksSystem.BookmarkPosition> pageEnd =
+                bookmarksSystem.findBookmarkPosition(userID, request.pageLastChannelID);
+        if (pageEnd.isEmpty()) {
+            return currentPage(userID, request);
+        }
+
+        List<BookmarksRecord> olderBookmarks = bookmarksSystem.getUsersBookmarksOlderThan(userID,
+                pageEnd.orElseThrow(), ENTRIES_PER_PAGE);
+        if (olderBookmarks.isEmpty()) {
+            // Already at the last page
+            return currentPage(userID, request);
+        }
 
-        updatePagination(event, request.atPage(updatedPageIndex), bookmarks);
+        return new Page(request.pageToDisplayIndex + 1, olderBookmarks);
     }
 
-    private void updatePagination(ComponentInteraction event, Request request,
-            List<BookmarksRecord> bookmarks) {
-        if (bookmarks.isEmpty()) {
+    private void updatePagination(ComponentInteraction event, Request request, Page page) {
+        int bookmarkCount = bookmarksSystem.getUserBookmarkCount(event.getUser().getIdLong());
+        if (bookmarkCount == 0 || page.bookmarks().isEmpty()) {
             event.editMessageEmbeds(NO_BOOKMARKS_EMBED).setComponents().queue();
             return;
         }
 
-        MessageEmbed pageEmbed =
-                generatePageEmbed(bookmarks, request.type, request.pageToDisplayIndex);
+        MessageEmbed pageEmbed = generatePageEmbed(page, request.type, bookmarkCount);
 
         Collection<LayoutComponent> components = new ArrayList<>();
-        components.add(generateNavigationComponent(request.type, request.pageToDisplayIndex));
+        components.add(generateNavigationComponent(request));
         if (request.type == RequestType.REMOVE) {
-            components.addAll(generateRemoveComponents(event.getJDA(), bookmarks, request.type,
-                    request.pageToDisplayIndex, request.bookmarkIdsToRemove));
+            components.addAll(generateRemoveComponents(event.getJDA(), page, request));
         }
 
         event.editMessageEmbeds(pageEmbed).setComponents(components).queue();
     }
 
-    private LayoutComponent generateNavigationComponent(RequestType requestType,
-            int pageToDisplayIndex) {
+    private LayoutComponent generateNavigationComponent(Request pageRequest) {
         UnaryOperator<String> generateNavigationComponentId = name -> {
-            Request request = new Request(requestType, name, pageToDisplayIndex, Set.of());
+            Request request = pageRequest.withComponentName(name).withBookmarksToRemove(Set.of());
 
             return generateComponentId.apply(request.toArray());
         };
@@ -226,19 +285,12 @@ final class BookmarksListRemoveHandler {
         return ActionRow.of(buttonPrev, buttonNext);
     }
 
-    private List<LayoutComponent> generateRemoveComponents(JDA jda,
-            List<? extends BookmarksRecord> bookmarks, RequestType requestType,
-            int pageToDisplayIndex, Set<Long> bookmarksToRemoveChannelIDs) {
-        List<PageEntry> pageEntries = getPageEntries(bookmarks, pageToDisplayIndex);
+    private List<LayoutComponent> generateRemoveComponents(JDA jda, Page page,
+            Request pageRequest) {
+        UnaryOperator<String> generateRemoveComponentId =
+                name -> generateComponentId.apply(pageRequest.withComponentName(name).toArray());
 
-        UnaryOperator<String> generateRemoveComponentId = name -> {
-            Request request =
-                    new Request(requestType, name, pageToDisplayIndex, bookmarksToRemoveChannelIDs);
-
-            return generateComponentId.apply(request.toArray());
-        };
-
-        List<SelectOption> selectMenuRemoveOptions = pageEntries.stream().map(pageEntry -> {
+        List<SelectOption> selectMenuRemoveOptions = page.entries().stream().map(pageEntry -> {
             ThreadChannel channel = jda.getThreadChannelById(pageEntry.bookmark.getChannelId());
             String channelIDString = String.valueOf(pageEntry.bookmark.getChannelId());
             int bookmarkNumber = pageEntry.bookmarkNumber;
@@ -249,6 +301,7 @@ final class BookmarksListRemoveHandler {
             return SelectOption.of(label, channelIDString);
         }).toList();
 
+        Set<Long> bookmarksToRemoveChannelIDs = pageRequest.bookmarkIdsToRemove;
         String selectMenuRemoveId = generateRemoveComponentId.apply(SELECT_MENU_REMOVE_NAME);
         SelectMenu selectMenuRemove = StringSelectMenu.create(selectMenuRemoveId)
             .setPlaceholder("Select bookmarks to delete")
@@ -264,36 +317,18 @@ final class BookmarksListRemoveHandler {
         return List.of(ActionRow.of(selectMenuRemove), ActionRow.of(buttonRemove));
     }
 
-    private static List<PageEntry> getPageEntries(List<? extends BookmarksRecord> bookmarks,
-            int pageIndex) {
-        int indexStart = pageIndex * ENTRIES_PER_PAGE;
-        int indexEndMax = bookmarks.size();
-        int indexEnd = Math.min(indexStart + ENTRIES_PER_PAGE, indexEndMax);
-
-        return bookmarks.subList(indexStart, indexEnd)
-            .stream()
-            .map(bookmark -> new PageEntry(bookmarks.indexOf(bookmark) + 1, bookmark))
-            .toList();
-    }
-
-    private static int getLastPageIndex(List<BookmarksRecord> bookmarks) {
-        if (bookmarks.isEmpty()) {
+    private static int getLastPageIndex(int bookmarkCount) {
+        if (bookmarkCount == 0) {
             return 0;
         }
 
-        return getPageOfBookmark(bookmarks.size() - 1);
+        return getPageOfBookmark(bookmarkCount - 1);
     }
 
     private static int getPageOfBookmark(int bookmarkIndex) {
         return Math.floorDiv(bookmarkIndex, ENTRIES_PER_PAGE);
     }
 
-    private static int clampPageIndex(List<BookmarksRecord> bookmarks, int pageIndex) {
-        int maxPageIndex = getLastPageIndex(bookmarks);
-
-        return Math.clamp(pageIndex, 0, maxPageIndex);
-    }
-
     private enum RequestType {
         LIST,
         REMOVE
@@ -302,34 +337,79 @@ final class BookmarksListRemoveHandler {
     private record PageEntry(int bookmarkNumber, BookmarksRecord bookmark) {
     }
 
+    /**
+     * A page of bookmarks, newest first.
+     *
+     * @param pageIndex the index of the page, pages are aligned to the newest bookmark
+     * @param bookmarks the bookmarks on the page
+     */
+    private record Page(int pageIndex, List<BookmarksRecord> bookmarks) {
+        List<PageEntry> entries() {
+            int firstBookmarkNumber = pageIndex * ENTRIES_PER_PAGE + 1;
+
+            return IntStream.range(0, bookmarks.size())
+                .mapToObj(i -> new PageEntry(firstBookmarkNumber + i, bookmarks.get(i)))
+                .toList();
+        }
+
+        long firstChannelID() {
+            return bookmarks.isEmpty() ? NO_CHANNEL_ID : bookmarks.getFirst().getChannelId();
+        }
+
+        long lastChannelID() {
+            return bookmarks.isEmpty() ? NO_CHANNEL_ID : bookmarks.getLast().getChannelId();
+        }
+    }
+
+    /**
+     * Request of a page, identified by the first and last bookmark on it. Pages are looked up
+     * relative to these bookmarks, instead of by their index.
+     */
     private record Request(RequestType type, String componentName, int pageToDisplayIndex,
-            Set<Long> bookmarkIdsToRemove) {
-        Request atPage(int pageIndex) {
-            return new Request(type, componentName, pageIndex, bookmarkIdsToRemove);
+            long pageFirstChannelID, long pageLastChannelID, Set<Long> bookmarkIdsToRemove) {
+        private static final int PRIMARY_ARGS_COUNT = 5;
+
+        Request atPage(Page page, Set<Long> selectedBookmarkIdsToRemove) {
+            return new Request(type, componentName, page.pageIndex(), page.firstChannelID(),
+                    page.lastChannelID(), selectedBookmarkIdsToRemove);
+        }
+
+        Request withComponentName(String name) {
+            return new Request(type, name, pageToDisplayIndex, pageFirstChannelID,
+                    pageLastChannelID, bookmarkIdsToRemove);
         }
 
-        Request withSelectedBookmarksToRemove(Set<Long> selectedBookmarkIdsToRemove) {
-            return new Request(type, componentName, pageToDisplayIndex,
-                    selectedBookmarkIdsToRemove);
+        Request withBookmarksToRemove(Set<Long> selectedBookmarkIdsToRemove) {
+            return new Request(type, componentName, pageToDisplayIndex, pageFirstChannelID,
+                    pageLastChannelID, selectedBookmarkIdsToRemove);
         }
 
         static Request fromArgs(List<String> args) {
             RequestType requestType = RequestType.valueOf(args.getFirst());
             String componentName = args.get(1);
+            if (args.size() < PRIMARY_ARGS_COUNT) {
+                // Components created before pages were identified by bookmarks, start over
+                return new Request(requestType, componentName, 0, NO_CHANNEL_ID, NO_CHANNEL_ID,
+                        Set.of());
+            }
+
             int currentPageIndex = Integer.parseInt(args.get(2));
+            long pageFirstChannelID = Long.parseLong(args.get(3));
+            long pageLastChannelID = Long.parseLong(args.get(4));
 
-            Set<Long> bookmarkIdsToRemove = Set.of();
-            if (args.size() > 3) {
-                bookmarkIdsToRemove =
-                        args.stream().skip(3).map(Long::parseLong).collect(Collectors.toSet());
-            }
+            Set<Long> bookmarkIdsToRemove = args.stream()
+                .skip(PRIMARY_ARGS_COUNT)
+                .map(Long::parseLong)
+                .collect(Collectors.toSet());
 
-            return new Request(requestType, componentName, currentPageIndex, bookmarkIdsToRemove);
+            return new Request(requestType, componentName, currentPageIndex, pageFirstChannelID,
+                    pageLastChannelID, bookmarkIdsToRemove);
         }
 
         String[] toArray() {
-            Stream<String> primaryArgs =
-                    Stream.of(type.name(), componentName, Integer.toString(pageToDisplayIndex));
+            Stream<String> primaryArgs = Stream.of(type.name(), componentName,
+                    Integer.toString(pageToDisplayIndex), Long.toString(pageFirstChannelID),
+                    Long.toString(pageLastChannelID));
             Stream<String> secondaryArgs = bookmarkIdsToRemove.stream().map(String::valueOf);
 
             return Stream.concat(primaryArgs, secondaryArgs).toArray(String[]::new);
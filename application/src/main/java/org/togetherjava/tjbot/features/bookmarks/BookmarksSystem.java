@@ -5,10 +5,13 @@ import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.ChannelType;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.entities.channel.unions.MessageChannelUnion;
+import org.jooq.impl.DSL;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.records.BookmarksRecord;
+import org.togetherjava.tjbot.features.retention.RetentionPolicy;
+import org.togetherjava.tjbot.features.retention.RetentionPurger;
 
 import javax.annotation.Nullable;
 
@@ -16,15 +19,27 @@ import java.awt.Color;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static org.togetherjava.tjbot.db.generated.tables.Bookmarks.BOOKMARKS;
 
 /**
  * Maintains all bookmarks for all users and provides methods to create, query and remove them. Used
  * by the other bookmarks classes.
+ * <p>
+ * The amount of bookmarks, in total and per user, is counted in memory. The counts are loaded once
+ * and kept in sync with all changes made by this system, so that limits can be checked without
+ * accessing the database.
+ * <p>
+ * Bookmarks of a user are listed newest first and can be queried in pages, relative to the position
+ * of another bookmark, see {@link BookmarkPosition}.
  */
 public final class BookmarksSystem {
 
@@ -39,7 +54,10 @@ public final class BookmarksSystem {
     static final Color COLOR_FAILURE = new Color(238, 153, 160);
 
     private final Database database;
+    private final RetentionPurger retentionPurger;
     private final Predicate<String> isHelpForumName;
+    private final AtomicInteger totalBookmarkCount = new AtomicInteger();
+    private final Map<Long, Integer> authorIdToBookmarkCount = new ConcurrentHashMap<>();
 
     /**
      * Creates a new instance of the bookmarks system.
@@ -49,9 +67,37 @@ public final class BookmarksSystem {
      */
     public BookmarksSystem(Config config, Database database) {
         this.database = database;
+        retentionPurger = new RetentionPurger(database);
 
         isHelpForumName =
                 Pattern.compile(config.getHelpSystem().getHelpForumPattern()).asMatchPredicate();
+
+        loadBookmarkCounts();
+    }
+
+    private void loadBookmarkCounts() {
+        database.readAndConsume(context -> context
+            .select(BOOKMARKS.AUTHOR_ID, DSL.count())
+            .from(BOOKMARKS)
+            .groupBy(BOOKMARKS.AUTHOR_ID)
+            .forEach(authorCount -> changeBookmarkCount(authorCount.value1(),
+                    authorCount.value2())));
+    }
+
+    /**
+     * Changes the amount of bookmarks of the given user. Must only be called while holding the
+     * write lock of the database, in order to keep the counts consistent with it.
+     */
+    private void changeBookmarkCount(long authorID, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        totalBookmarkCount.addAndGet(delta);
+        authorIdToBookmarkCount.compute(authorID, (any, count) -> {
+            int newCount = (count == null ? 0 : count) + delta;
+            return newCount <= 0 ? null : newCount;
+        });
     }
 
     boolean isHelpThread(MessageChannelUnion channel) {
@@ -73,35 +119,111 @@ public final class BookmarksSystem {
     }
 
     void addBookmark(long authorID, long channelID, @Nullable String note) {
-        database.write(context -> context.newRecord(BOOKMARKS)
-            .setAuthorId(authorID)
-            .setChannelId(channelID)
-            .setCreatedAt(Instant.now())
-            .setNote(note)
-            .setDeleteAt(null)
-            .insert());
+        database.write(context -> {
+            int insertedCount = context.newRecord(BOOKMARKS)
+                .setAuthorId(authorID)
+                .setChannelId(channelID)
+                .setCreatedAt(Instant.now())
+                .setNote(note)
+                .setDeleteAt(null)
+                .insert();
+
+            changeBookmarkCount(authorID, insertedCount);
+        });
+    }
+
+    /**
+     * Gets the position of the given bookmark in the list of bookmarks of its user.
+     *
+     * @param authorID the id of the user who owns the bookmark
+     * @param channelID the id of the bookmarked channel
+     * @return the position of the bookmark, if it exists
+     */
+    Optional<BookmarkPosition> findBookmarkPosition(long authorID, long channelID) {
+        return database.read(context -> context.select(BOOKMARKS.CREATED_AT)
+            .from(BOOKMARKS)
+            .where(BOOKMARKS.AUTHOR_ID.eq(authorID), BOOKMARKS.CHANNEL_ID.eq(channelID))
+            .fetchOptional(BOOKMARKS.CREATED_AT)
+            .map(createdAt -> new BookmarkPosition(createdAt, channelID)));
     }
 
-    List<BookmarksRecord> getUsersBookmarks(long authorID) {
+    /**
+     * Gets the newest bookmarks of the given user, starting at the given position.
+     *
+     * @param authorID the id of the user to get bookmarks of
+     * @param start the position of the first bookmark to get, {@code null} to start with the newest
+     *        bookmark
+     * @param limit the maximal amount of bookmarks to get
+     * @return the bookmarks, newest first
+     */
+    List<BookmarksRecord> getUsersBookmarksStartingAt(long authorID,
+            @Nullable BookmarkPosition start, int limit) {
         return database.read(context -> context.selectFrom(BOOKMARKS)
             .where(BOOKMARKS.AUTHOR_ID.eq(authorID))
-            .orderBy(BOOKMARKS.CREATED_AT.desc())
+            .and(start == null ? DSL.noCondition()
+                    : DSL.row(BOOKMARKS.CREATED_AT, BOOKMARKS.CHANNEL_ID)
+                        .le(start.createdAt(), start.channelID()))
+            .orderBy(BOOKMARKS.CREATED_AT.desc(), BOOKMARKS.CHANNEL_ID.desc())
+            .limit(limit)
             .fetch());
     }
 
+    /**
+     * Gets the bookmarks of the given user that are older than the given position.
+     *
+     * @param authorID the id of the user to get bookmarks of
+     * @param position the position to get older bookmarks of, exclusive
+     * @param limit the maximal amount of bookmarks to get
+     * @return the bookmarks closest to the position, newest first
+     */
+    List<BookmarksRecord> getUsersBookmarksOlderThan(long authorID, BookmarkPosition position,
+            int limit) {
+        return database.read(context -> context.selectFrom(BOOKMARKS)
+            .where(BOOKMARKS.AUTHOR_ID.eq(authorID))
+            .and(DSL.row(BOOKMARKS.CREATED_AT, BOOKMARKS.CHANNEL_ID)
+                .lt(position.createdAt(), position.channelID()))
+            .orderBy(BOOKMARKS.CREATED_AT.desc(), BOOKMARKS.CHANNEL_ID.desc())
+            .limit(limit)
+            .fetch());
+    }
+
+    /**
+     * Gets the bookmarks of the given user that are newer than the given position.
+     *
+     * @param authorID the id of the user to get bookmarks of
+     * @param position the position to get newer bookmarks of, exclusive
+     * @param limit the maximal amount of bookmarks to get
+     * @return the bookmarks closest to the position, newest first
+     */
+    List<BookmarksRecord> getUsersBookmarksNewerThan(long authorID, BookmarkPosition position,
+            int limit) {
+        List<BookmarksRecord> bookmarks = database.read(context -> context.selectFrom(BOOKMARKS)
+            .where(BOOKMARKS.AUTHOR_ID.eq(authorID))
+            .and(DSL.row(BOOKMARKS.CREATED_AT, BOOKMARKS.CHANNEL_ID)
+                .gt(position.createdAt(), position.channelID()))
+            .orderBy(BOOKMARKS.CREATED_AT.asc(), BOOKMARKS.CHANNEL_ID.asc())
+            .limit(limit)
+            .fetch());
+
+        return bookmarks.reversed();
+    }
+
     void removeBookmarks(long authorID, Set<Long> channelIDs) {
-        database.write(context -> context.deleteFrom(BOOKMARKS)
-            .where(BOOKMARKS.AUTHOR_ID.eq(authorID), BOOKMARKS.CHANNEL_ID.in(channelIDs))
-            .execute());
+        database.write(context -> {
+            int deletedCount = context.deleteFrom(BOOKMARKS)
+                .where(BOOKMARKS.AUTHOR_ID.eq(authorID), BOOKMARKS.CHANNEL_ID.in(channelIDs))
+                .execute();
+
+            changeBookmarkCount(authorID, -deletedCount);
+        });
     }
 
     int getTotalBookmarkCount() {
-        return database.read(context -> context.fetchCount(BOOKMARKS));
+        return totalBookmarkCount.get();
     }
 
     int getUserBookmarkCount(long authorID) {
-        return database
-            .read(context -> context.fetchCount(BOOKMARKS, BOOKMARKS.AUTHOR_ID.eq(authorID)));
+        return authorIdToBookmarkCount.getOrDefault(authorID, 0);
     }
 
     void startDeletionPeriodForUser(long authorID) {
@@ -121,9 +243,15 @@ public final class BookmarksSystem {
     }
 
     void deleteLeftoverBookmarks() {
-        database.write(context -> context.deleteFrom(BOOKMARKS)
-            .where(BOOKMARKS.DELETE_AT.isNotNull(), BOOKMARKS.DELETE_AT.lessThan(Instant.now()))
-            .execute());
+        Instant now = Instant.now();
+
+        retentionPurger.purge(new RetentionPolicy<>("bookmarks", BOOKMARKS,
+                () -> BOOKMARKS.DELETE_AT.isNotNull().and(BOOKMARKS.DELETE_AT.lessThan(now)),
+                leftoverBookmarks -> leftoverBookmarks.stream()
+                    .collect(Collectors.groupingBy(BookmarksRecord::getAuthorId,
+                            Collectors.counting()))
+                    .forEach((authorID, leftoverCount) -> changeBookmarkCount(authorID,
+                            -leftoverCount.intValue()))));
     }
 
     private static MessageEmbed createColoredEmbed(String content, Color color) {
@@ -142,4 +270,16 @@ public final class BookmarksSystem {
         return createColoredEmbed(content, COLOR_FAILURE);
     }
 
+    /**
+     * Position of a bookmark in the list of bookmarks of a user, which is ordered by creation date,
+     * newest first.
+     *
+     * @param createdAt when the bookmark was created
+     * @param channelID the id of the bookmarked channel, orders bookmarks created at the same time
+     */
+    record BookmarkPosition(Instant createdAt, long channelID) {
+        static BookmarkPosition of(BookmarksRecord bookmark) {
+            return new BookmarkPosition(bookmark.getCreatedAt(), bookmark.getChannelId());
+        }
+    }
 }
@@ -27,6 +27,11 @@ public final class LeftoverBookmarksCleanupRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 6, TimeUnit.HOURS);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
         bookmarksSystem.deleteLeftoverBookmarks();
@@ -13,6 +13,7 @@ import net.dv8tion.jda.api.interactions.modals.Modal;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
 import org.togetherjava.tjbot.features.help.HelpSystemHelper;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -34,7 +35,11 @@ public final class ChatGptCommand extends SlashCommandAdapter {
     private final HelpSystemHelper helper;
 
     private final Cache<String, Instant> userIdToAskedAtCache =
-            Caffeine.newBuilder().maximumSize(1_000).expireAfterWrite(COMMAND_COOLDOWN).build();
+            Metrics.monitorCache("chatgpt_cooldown", Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterWrite(COMMAND_COOLDOWN)
+                .recordStats()
+                .build());
 
     /**
      * Creates an instance of the chatgpt command.
@@ -83,8 +88,13 @@ public final class ChatGptCommand extends SlashCommandAdapter {
         String context = "";
         String question = event.getValue(QUESTION_INPUT).getAsString();
 
-        Optional<String> optional = chatGptService.ask(question, context);
-        if (optional.isPresent()) {
+        chatGptService.askAsync(question, context)
+            .thenAccept(answer -> replyWithAnswer(event, question, answer));
+    }
+
+    private void replyWithAnswer(ModalInteractionEvent event, String question,
+            Optional<String> answer) {
+        if (answer.isPresent()) {
             userIdToAskedAtCache.put(event.getMember().getId(), Instant.now());
         }
 
@@ -93,7 +103,7 @@ public final class ChatGptCommand extends SlashCommandAdapter {
                     Please try again later.
                 """;
 
-        String response = optional.orElse(errorResponse);
+        String response = answer.orElse(errorResponse);
         SelfUser selfUser = event.getJDA().getSelfUser();
 
         MessageEmbed responseEmbed = helper.generateGptResponseEmbed(response, selfUser, question);
@@ -1,5 +1,7 @@
 package org.togetherjava.tjbot.features.chatgpt;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.theokanning.openai.OpenAiHttpException;
 import com.theokanning.openai.completion.chat.ChatCompletionRequest;
 import com.theokanning.openai.completion.chat.ChatMessage;
@@ -9,19 +11,42 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
 
 /**
  * Service used to communicate to OpenAI API to generate responses.
+ * <p>
+ * Requests are executed asynchronously on a dedicated, bounded executor, see
+ * {@link #askAsync(String, String)}. At most {@value MAX_CONCURRENT_REQUESTS} requests are sent to
+ * OpenAI at the same time, further requests are queued up to a limit and rejected afterwards.
+ * Answers are cached for a while, keyed by the normalized question and its context. Identical
+ * questions that are asked while the first one is still being answered share the same request.
  */
 public class ChatGptService {
     private static final Logger logger = LoggerFactory.getLogger(ChatGptService.class);
     private static final Duration TIMEOUT = Duration.ofSeconds(90);
 
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int MAX_QUEUED_REQUESTS = 32;
+    private static final int MAX_CACHED_ANSWERS = 500;
+    private static final Duration CACHE_ANSWERS_FOR = Duration.ofHours(6);
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
     /** The maximum number of tokens allowed for the generated answer. */
     private static final int MAX_TOKENS = 3_000;
 
@@ -50,6 +75,18 @@ public class ChatGptService {
     private boolean isDisabled = false;
     private OpenAiService openAiService;
 
+    private final ExecutorService requestService = createRequestService();
+    /**
+     * Answers to questions that have been asked before. Failed requests and requests without answer
+     * are not cached.
+     */
+    private final AsyncCache<Question, String> questionToAnswerCache =
+            Metrics.monitorCache("chatgpt_answers", Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_ANSWERS)
+                .expireAfterWrite(CACHE_ANSWERS_FOR)
+                .recordStats()
+                .buildAsync());
+
     /**
      * Creates instance of ChatGPTService
      *
@@ -77,25 +114,77 @@ public class ChatGptService {
             .n(MAX_NUMBER_OF_RESPONSES)
             .build();
 
-        // Sending the system setup message to ChatGPT.
-        openAiService.createChatCompletion(systemSetupRequest);
+        // Sending the system setup message to ChatGPT, without delaying the startup
+        CompletableFuture
+            .runAsync(() -> openAiService.createChatCompletion(systemSetupRequest), requestService)
+            .exceptionally(e -> {
+                logger.warn("Failed to send the setup message to the OpenAI API", e);
+                return null;
+            });
+    }
+
+    private static ExecutorService createRequestService() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread =
+                    new Thread(runnable, "chatgpt-request-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        return new ThreadPoolExecutor(MAX_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS, 0,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_REQUESTS),
+                threadFactory);
     }
 
     /**
-     * Prompt ChatGPT with a question and receive a response.
+     * Prompt ChatGPT with a question and receive a response asynchronously.
+     * <p>
+     * The request is executed on a dedicated executor, the calling thread is not blocked. Answers
+     * are cached, asking the same question within the same context again is cheap.
      *
      * @param question The question being asked of ChatGPT. Max is {@value MAX_TOKENS} tokens.
      * @param context The category of asked question, to set the context(eg. Java, Database, Other
      *        etc).
-     * @return response from ChatGPT as a String.
+     * @return response from ChatGPT as a String, or empty if the service is disabled, overloaded or
+     *         the request failed. The future never completes exceptionally.
      * @see <a href="https://platform.openai.com/docs/guides/chat/managing-tokens">ChatGPT
      *      Tokens</a>.
      */
-    public Optional<String> ask(String question, String context) {
+    public CompletableFuture<Optional<String>> askAsync(String question, String context) {
         if (isDisabled) {
-            return Optional.empty();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        Question key = Question.of(question, context);
+        return questionToAnswerCache.get(key, (any, executor) -> requestAnswer(question, context))
+            .thenApply(Optional::of)
+            .exceptionally(e -> {
+                if (e.getCause() instanceof RejectedExecutionException) {
+                    logger.warn("Too many pending requests to the OpenAI API, rejected a question");
+                }
+                return Optional.empty();
+            });
+    }
+
+    /**
+     * Sends the given question to ChatGPT on the {@link #requestService}.
+     *
+     * @param question the question to ask
+     * @param context the category of the question
+     * @return the answer, completes exceptionally if there is none, so that it is not cached
+     */
+    private CompletableFuture<String> requestAnswer(String question, String context) {
+        try {
+            return CompletableFuture
+                .supplyAsync(() -> requestAnswerBlocking(question, context), requestService)
+                .thenApply(Optional::orElseThrow);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
         }
+    }
 
+    private Optional<String> requestAnswerBlocking(String question, String context) {
         try {
             String instructions = "KEEP IT CONCISE, NOT MORE THAN 280 WORDS";
             String questionWithContext = "context: Category %s on a Java Q&A discord server. %s %s"
@@ -133,4 +222,21 @@ public class ChatGptService {
         }
         return Optional.empty();
     }
+
+    /**
+     * Key of a question in the answer cache. Questions are normalized, such that questions that
+     * only differ in casing or whitespace are considered equal.
+     *
+     * @param question the normalized question
+     * @param context the normalized category of the question
+     */
+    private record Question(String question, String context) {
+        private static Question of(String question, String context) {
+            return new Question(normalize(question), normalize(context));
+        }
+
+        private static String normalize(String text) {
+            return WHITESPACES.matcher(text.strip()).replaceAll(" ").toLowerCase(Locale.US);
+        }
+    }
 }
@@ -7,9 +7,9 @@ import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
 import org.togetherjava.tjbot.features.utils.CodeFence;
-import org.togetherjava.tjbot.features.utils.MessageUtils;
 
 import java.util.List;
 import java.util.Optional;
@@ -44,7 +44,7 @@ public final class CodeMessageAutoDetection extends MessageReceiverAdapter {
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.isWebhookMessage() || event.getAuthor().isBot() || !isHelpThread(event)
                 || isSentByExcludedRole(event.getMember().getRoles())) {
             return;
@@ -52,7 +52,7 @@ public final class CodeMessageAutoDetection extends MessageReceiverAdapter {
 
         Message originalMessage = event.getMessage();
 
-        Optional<CodeFence> maybeCode = MessageUtils.extractCode(originalMessage.getContentRaw());
+        Optional<CodeFence> maybeCode = analysis.getCode();
         if (maybeCode.isEmpty()) {
             // There is no code in the message, ignore it
             return;
@@ -22,6 +22,7 @@ import org.togetherjava.tjbot.features.componentids.ComponentIdInteractor;
 import org.togetherjava.tjbot.features.jshell.JShellEval;
 import org.togetherjava.tjbot.features.utils.CodeFence;
 import org.togetherjava.tjbot.features.utils.MessageUtils;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import javax.annotation.Nullable;
 
@@ -62,8 +63,8 @@ public final class CodeMessageHandler extends MessageReceiverAdapter implements
      * <p>
      * The feature is secondary though, which is why its kept in RAM and not in the DB.
      */
-    private final Cache<Long, Long> originalMessageToCodeReply =
-            Caffeine.newBuilder().maximumSize(2_000).build();
+    private final Cache<Long, Long> originalMessageToCodeReply = Metrics.monitorCache(
+            "code_replies", Caffeine.newBuilder().maximumSize(2_000).recordStats().build());
 
     /**
      * Creates a new instance.
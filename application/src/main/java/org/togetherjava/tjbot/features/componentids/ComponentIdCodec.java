@@ -0,0 +1,190 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes component IDs to the compact binary format they are persisted in, and decodes them back.
+ * <p>
+ * The format starts with a version byte, followed by the name of the user interactor and the
+ * elements. Each text is written as its length, encoded as variable-length integer, followed by its
+ * UTF-8 bytes. The amount of elements is written as variable-length integer as well.
+ * <p>
+ * Component IDs persisted before the binary format was introduced are CSV text. They never start
+ * with a version byte and are still decoded.
+ */
+final class ComponentIdCodec {
+    private static final byte VERSION_1 = 1;
+    private static final int VARINT_VALUE_BITS = 7;
+    private static final int VARINT_VALUE_MASK = 0x7F;
+    private static final int VARINT_CONTINUATION_BIT = 0x80;
+    /**
+     * Bounds the amount of interned names, in case of corrupt data. There are only a few user
+     * interactors.
+     */
+    private static final int MAX_INTERNED_NAMES = 1_000;
+    private static final CsvMapper LEGACY_CSV = new CsvMapper();
+
+    /**
+     * Names of user interactors, shared by all decoded component IDs instead of each holding its
+     * own copy.
+     */
+    private static final Map<String, String> internedNames = new ConcurrentHashMap<>();
+
+    private ComponentIdCodec() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Encodes the given component ID to the binary format.
+     *
+     * @param componentId the component ID to encode
+     * @return the encoded component ID
+     */
+    static byte[] encode(ComponentId componentId) {
+        byte[] name = componentId.userInteractorName().getBytes(StandardCharsets.UTF_8);
+        List<String> elements = componentId.elements();
+        byte[][] encodedElements = new byte[elements.size()][];
+
+        int size = 1 + sizeOfText(name) + sizeOfVarint(elements.size());
+        for (int i = 0; i < encodedElements.length; i++) {
+            encodedElements[i] = elements.get(i).getBytes(StandardCharsets.UTF_8);
+            size += sizeOfText(encodedElements[i]);
+        }
+
+        byte[] out = new byte[size];
+        out[0] = VERSION_1;
+        int position = writeText(out, 1, name);
+        position = writeVarint(out, position, elements.size());
+        for (byte[] element : encodedElements) {
+            position = writeText(out, position, element);
+        }
+        return out;
+    }
+
+    /**
+     * Decodes the given component ID, either in the binary format or in the legacy CSV format.
+     *
+     * @param encoded the encoded component ID
+     * @return the decoded component ID
+     * @throws InvalidComponentIdFormatException if the component ID is in neither format
+     */
+    static ComponentId decode(byte[] encoded) {
+        if (encoded.length == 0 || encoded[0] != VERSION_1) {
+            return decodeLegacyCsv(encoded);
+        }
+
+        try {
+            Reader reader = new Reader(encoded, 1);
+            String name = intern(reader.readText());
+
+            int elementCount = reader.readVarint();
+            List<String> elements = new ArrayList<>(elementCount);
+            for (int i = 0; i < elementCount; i++) {
+                elements.add(reader.readText());
+            }
+            return new ComponentId(name, elements);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new InvalidComponentIdFormatException(e);
+        }
+    }
+
+    private static ComponentId decodeLegacyCsv(byte[] encoded) {
+        try {
+            return LEGACY_CSV.readerFor(ComponentId.class)
+                .with(LEGACY_CSV.schemaFor(ComponentId.class))
+                .readValue(new String(encoded, StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new InvalidComponentIdFormatException(e);
+        }
+    }
+
+    private static String intern(String name) {
+        String internedName = internedNames.get(name);
+        if (internedName != null) {
+            return internedName;
+        }
+        if (internedNames.size() >= MAX_INTERNED_NAMES) {
+            return name;
+        }
+        return internedNames.computeIfAbsent(name, any -> name);
+    }
+
+    private static int sizeOfText(byte[] text) {
+        return sizeOfVarint(text.length) + text.length;
+    }
+
+    private static int sizeOfVarint(int value) {
+        int size = 1;
+        int remaining = value >>> VARINT_VALUE_BITS;
+        while (remaining != 0) {
+            size++;
+            remaining >>>= VARINT_VALUE_BITS;
+        }
+        return size;
+    }
+
+    private static int writeText(byte[] out, int position, byte[] text) {
+        int textPosition = writeVarint(out, position, text.length);
+        System.arraycopy(text, 0, out, textPosition, text.length);
+        return textPosition + text.length;
+    }
+
+    private static int writeVarint(byte[] out, int position, int value) {
+        int remaining = value;
+        int currentPosition = position;
+        while ((remaining & ~VARINT_VALUE_MASK) != 0) {
+            out[currentPosition] =
+                    (byte) ((remaining & VARINT_VALUE_MASK) | VARINT_CONTINUATION_BIT);
+            currentPosition++;
+            remaining >>>= VARINT_VALUE_BITS;
+        }
+        out[currentPosition] = (byte) remaining;
+        return currentPosition + 1;
+    }
+
+    /**
+     * Reads values of the binary format one after another.
+     */
+    private static final class Reader {
+        private static final int MAX_VARINT_SHIFT = 28;
+
+        private final byte[] encoded;
+        private int position;
+
+        Reader(byte[] encoded, int position) {
+            this.encoded = encoded;
+            this.position = position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift <= MAX_VARINT_SHIFT; shift += VARINT_VALUE_BITS) {
+                byte current = encoded[position];
+                position++;
+
+                value |= (current & VARINT_VALUE_MASK) << shift;
+                if ((current & VARINT_CONTINUATION_BIT) == 0) {
+                    if (value < 0) {
+                        throw new IllegalArgumentException("Negative length: " + value);
+                    }
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Variable-length integer is too long");
+        }
+
+        String readText() {
+            int length = readVarint();
+            String text = new String(encoded, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return text;
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package org.togetherjava.tjbot.features.componentids;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
@@ -13,7 +11,10 @@ import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.ComponentIds;
 import org.togetherjava.tjbot.db.generated.tables.records.ComponentIdsRecord;
 import org.togetherjava.tjbot.features.SlashCommand;
+import org.togetherjava.tjbot.features.retention.RetentionPolicy;
+import org.togetherjava.tjbot.features.retention.RetentionPurger;
 import org.togetherjava.tjbot.logging.LogMarkers;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -30,7 +31,6 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -59,7 +59,6 @@ import java.util.stream.Collectors;
 @SuppressWarnings("ClassWithTooManyFields")
 public final class ComponentIdStore implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(ComponentIdStore.class);
-    private static final CsvMapper CSV = new CsvMapper();
 
     private static final long EVICT_DATABASE_EVERY_INITIAL_DELAY = 1;
     private static final long EVICT_DATABASE_EVERY_DELAY = 15;
@@ -73,6 +72,7 @@ public final class ComponentIdStore implements AutoCloseable {
 
     private final Object storeLock = new Object();
     private final Database database;
+    private final RetentionPurger retentionPurger;
     /**
      * In-memory cache which is used as first stage before the database, to speedup look-ups. Should
      * cover the majority of all queries, as most queries (e.g. button clicks) come from messages
@@ -117,13 +117,15 @@ public final class ComponentIdStore implements AutoCloseable {
     public ComponentIdStore(Database database, long evictEveryInitialDelay, long evictEveryDelay,
             ChronoUnit evictEveryUnit, long evictOlderThan, ChronoUnit evictOlderThanUnit) {
         this.database = database;
+        retentionPurger = new RetentionPurger(database);
         evictDatabaseOlderThan = evictOlderThan;
         evictDatabaseOlderThanUnit = evictOlderThanUnit;
 
-        storeCache = Caffeine.newBuilder()
+        storeCache = Metrics.monitorCache("component_ids", Caffeine.newBuilder()
             .maximumSize(CACHE_SIZE)
             .expireAfterAccess(EVICT_CACHE_OLDER_THAN, TimeUnit.of(EVICT_CACHE_OLDER_THAN_UNIT))
-            .build();
+            .recordStats()
+            .build());
 
         Runnable evictCommand = () -> {
             try {
@@ -219,7 +221,7 @@ public final class ComponentIdStore implements AutoCloseable {
                 ComponentIdsRecord componentIdsRecord =
                         context.newRecord(ComponentIds.COMPONENT_IDS)
                             .setUuid(uuid.toString())
-                            .setComponentId(serializeComponentId(componentId))
+                            .setComponentId(ComponentIdCodec.encode(componentId))
                             .setLastUsed(Instant.now())
                             .setLifespan(lifespan.name());
                 componentIdsRecord.insert();
@@ -233,7 +235,7 @@ public final class ComponentIdStore implements AutoCloseable {
                 .where(ComponentIds.COMPONENT_IDS.UUID.eq(uuid.toString()))
                 .fetchOne())
             .map(ComponentIdsRecord::getComponentId)
-            .map(ComponentIdStore::deserializeComponentId));
+            .map(ComponentIdCodec::decode));
     }
 
     /**
@@ -264,63 +266,41 @@ public final class ComponentIdStore implements AutoCloseable {
 
     private void evictDatabase() {
         logger.debug("Evicting old non-permanent component ids from the database...");
-        AtomicInteger evictedCounter = new AtomicInteger(0);
-        synchronized (storeLock) {
-            database.write(context -> {
-                Result<ComponentIdsRecord> oldRecords = context
-                    .selectFrom(ComponentIds.COMPONENT_IDS)
-                    .where(ComponentIds.COMPONENT_IDS.LIFESPAN.notEqual(Lifespan.PERMANENT.name())
-                        .and(ComponentIds.COMPONENT_IDS.LAST_USED.lessOrEqual(Instant.now()
-                            .minus(evictDatabaseOlderThan, evictDatabaseOlderThanUnit))))
-                    .fetch();
-
-                oldRecords.forEach(recordToDelete -> {
-                    UUID uuid = UUID
-                        .fromString(recordToDelete.getValue(ComponentIds.COMPONENT_IDS.UUID));
-                    ComponentId componentId = deserializeComponentId(
-                            recordToDelete.getValue(ComponentIds.COMPONENT_IDS.COMPONENT_ID));
-                    Instant lastUsed = recordToDelete.getLastUsed();
-
-                    recordToDelete.delete();
-                    evictedCounter.getAndIncrement();
-                    logger.debug(
-                            "Evicted component id with uuid '{}' from user interactor '{}', last used '{}'",
-                            uuid, componentId.userInteractorName(), lastUsed);
-
-                    // Remove them from the cache if still in there
-                    storeCache.invalidate(uuid);
-                    // Notify all listeners, but non-blocking to not delay eviction
-                    componentIdRemovedListeners
-                        .forEach(listener -> componentIdRemovedListenerService
-                            .execute(() -> listener.accept(componentId)));
+        Instant evictOlderThan =
+                Instant.now().minus(evictDatabaseOlderThan, evictDatabaseOlderThanUnit);
+
+        // The store lock is held per chunk, so that lookups are only blocked briefly, while still
+        // not being able to put a component ID back into the cache that was just evicted
+        int evictedCount = retentionPurger.purge(new RetentionPolicy<>("component_ids",
+                ComponentIds.COMPONENT_IDS,
+                () -> ComponentIds.COMPONENT_IDS.LIFESPAN.notEqual(Lifespan.PERMANENT.name())
+                    .and(ComponentIds.COMPONENT_IDS.LAST_USED.lessOrEqual(evictOlderThan)),
+                this::onRecordsEvicted), purgeChunk -> {
+                    synchronized (storeLock) {
+                        return purgeChunk.getAsInt();
+                    }
                 });
-            });
-        }
 
-        if (evictedCounter.get() != 0) {
+        if (evictedCount != 0) {
             logger.info("Evicted {} old non-permanent component ids from the database",
-                    evictedCounter.get());
+                    evictedCount);
         }
     }
 
-    private static String serializeComponentId(ComponentId componentId) {
-        try {
-            return CSV.writerFor(ComponentId.class)
-                .with(CSV.schemaFor(ComponentId.class))
-                .writeValueAsString(componentId);
-        } catch (JsonProcessingException e) {
-            throw new InvalidComponentIdFormatException(e);
-        }
-    }
-
-    private static ComponentId deserializeComponentId(String componentId) {
-        try {
-            return CSV.readerFor(ComponentId.class)
-                .with(CSV.schemaFor(ComponentId.class))
-                .readValue(componentId);
-        } catch (JsonProcessingException e) {
-            throw new InvalidComponentIdFormatException(e);
-        }
+    private void onRecordsEvicted(Result<ComponentIdsRecord> evictedRecords) {
+        evictedRecords.forEach(evictedRecord -> {
+            UUID uuid = UUID.fromString(evictedRecord.getUuid());
+            ComponentId componentId = ComponentIdCodec.decode(evictedRecord.getComponentId());
+            logger.debug(
+                    "Evicted component id with uuid '{}' from user interactor '{}', last used '{}'",
+                    uuid, componentId.userInteractorName(), evictedRecord.getLastUsed());
+
+            // Remove them from the cache if still in there
+            storeCache.invalidate(uuid);
+            // Notify all listeners, but non-blocking to not delay eviction
+            componentIdRemovedListeners.forEach(listener -> componentIdRemovedListenerService
+                .execute(() -> listener.accept(componentId)));
+        });
     }
 
     private void logDebugSizeStatistics() {
@@ -5,6 +5,8 @@ import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEve
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import org.kohsuke.github.GHIssue;
 import org.kohsuke.github.GHIssueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
@@ -18,6 +20,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.ToIntFunction;
 import java.util.regex.Matcher;
 import java.util.stream.Stream;
@@ -27,6 +31,7 @@ import java.util.stream.Stream;
  * the config. It also auto suggests issues/PRs on trigger.
  */
 public final class GitHubCommand extends SlashCommandAdapter {
+    private static final Logger logger = LoggerFactory.getLogger(GitHubCommand.class);
     private static final Duration CACHE_EXPIRES_AFTER = Duration.ofMinutes(1);
 
     /**
@@ -44,15 +49,17 @@ public final class GitHubCommand extends SlashCommandAdapter {
 
     private final GitHubReference reference;
 
-    private Instant lastCacheUpdate;
-    private List<String> autocompleteGHIssueCache;
+    private volatile Instant lastCacheUpdate = Instant.MIN;
+    private volatile List<String> autocompleteGHIssueCache = List.of();
+    private final AtomicBoolean isUpdatingCache = new AtomicBoolean();
 
     /**
      * Constructs an instance of GitHubCommand.
      *
      * This constructor initializes a new GitHubCommand with the specified GitHubReference. It also
      * sets the command name to "github-search" and the command description to "Search configured
-     * GitHub repositories for an issue/pull request".
+     * GitHub repositories for an issue/pull request". The issues suggested during auto-completion
+     * are loaded in the background, once the repositories are available.
      *
      * @param reference The GitHubReference used for searching issue/pull request in configured
      *        repositories.
@@ -66,7 +73,7 @@ public final class GitHubCommand extends SlashCommandAdapter {
         getData().addOption(OptionType.STRING, TITLE_OPTION,
                 "Title of the issue you're looking for", true, true);
 
-        updateCache();
+        reference.whenRepositoriesAcquired().whenComplete((any, failure) -> requestCacheUpdate());
     }
 
     @Override
@@ -111,8 +118,8 @@ public final class GitHubCommand extends SlashCommandAdapter {
             event.replyChoiceStrings(choices).queue();
         }
 
-        if (lastCacheUpdate.isAfter(Instant.now().minus(CACHE_EXPIRES_AFTER))) {
-            updateCache();
+        if (lastCacheUpdate.isBefore(Instant.now().minus(CACHE_EXPIRES_AFTER))) {
+            requestCacheUpdate();
         }
     }
 
@@ -121,6 +128,20 @@ public final class GitHubCommand extends SlashCommandAdapter {
         return s -> StringDistances.editDistance(title, s.replaceFirst("\\[#\\d+] ", ""));
     }
 
+    private void requestCacheUpdate() {
+        if (!isUpdatingCache.compareAndSet(false, true)) {
+            return;
+        }
+
+        CompletableFuture.runAsync(this::updateCache, GitHubReference.BACKGROUND_SERVICE)
+            .whenComplete((any, failure) -> {
+                isUpdatingCache.set(false);
+                if (failure != null) {
+                    logger.warn("Failed to update the cache of GitHub issues", failure);
+                }
+            });
+    }
+
     private void updateCache() {
         autocompleteGHIssueCache = reference.getRepositories().stream().map(repo -> {
             try {
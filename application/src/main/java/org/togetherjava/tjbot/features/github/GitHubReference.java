@@ -20,7 +20,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.awt.Color;
 import java.io.FileNotFoundException;
@@ -32,6 +34,9 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -45,6 +50,20 @@ public final class GitHubReference extends MessageReceiverAdapter {
     private static final Logger logger = LoggerFactory.getLogger(GitHubReference.class);
     static final String ID_GROUP = "id";
 
+    /**
+     * Runs requests to GitHub that do not answer a user, such as warming up caches, so that they
+     * neither block the startup nor event handling.
+     */
+    static final ExecutorService BACKGROUND_SERVICE = Executors.newFixedThreadPool(1, runnable -> {
+        Thread thread = new Thread(runnable, "github-background");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        Metrics.monitorExecutor("github_background", BACKGROUND_SERVICE);
+    }
+
     /**
      * The pattern(#123) used to determine whether a message is referencing an issue.
      */
@@ -69,15 +88,18 @@ public final class GitHubReference extends MessageReceiverAdapter {
     private final Config config;
 
     /**
-     * The repositories that are searched when looking for an issue.
+     * The repositories that are searched when looking for an issue. Empty until they have been
+     * acquired.
      */
-    private List<GHRepository> repositories;
+    private volatile List<GHRepository> repositories = List.of();
+    private final CompletableFuture<Void> repositoriesAcquired;
 
     /**
      * Constructs an instance of GitHubReference.
      *
      * This constructor initializes a new GitHubReference with the specified Config. It also sets up
-     * a predicate for matching allowed channels for feature and acquires repositories.
+     * a predicate for matching allowed channels for feature and starts acquiring repositories in
+     * the background. Until then, references are not answered.
      *
      * @param config The Config to get allowed channel pattern for feature.
      */
@@ -86,30 +108,40 @@ public final class GitHubReference extends MessageReceiverAdapter {
         this.hasGithubIssueReferenceEnabled =
                 Pattern.compile(config.getGitHubReferencingEnabledChannelPattern())
                     .asMatchPredicate();
-        acquireRepositories();
+        repositoriesAcquired =
+                CompletableFuture.runAsync(this::acquireRepositories, BACKGROUND_SERVICE);
     }
 
     /**
      * Acquires the list of repositories to use as a source for lookup.
      */
     private void acquireRepositories() {
+        List<GHRepository> acquiredRepositories = new ArrayList<>();
         try {
-            repositories = new ArrayList<>();
-
             GitHub githubApi = GitHub.connectUsingOAuth(config.getGitHubApiKey());
 
             for (long repoId : config.getGitHubRepositories()) {
-                repositories.add(githubApi.getRepositoryById(repoId));
+                acquiredRepositories.add(githubApi.getRepositoryById(repoId));
             }
         } catch (IOException ex) {
             logger.warn(
                     "The GitHub key ({}) used in this config is invalid. Skipping GitHubReference feature – {}",
                     config.getGitHubApiKey(), ex.getMessage());
         }
+        repositories = List.copyOf(acquiredRepositories);
+    }
+
+    /**
+     * Completes once the repositories have been acquired, also if acquiring them failed.
+     *
+     * @return a future that completes once the repositories have been acquired
+     */
+    CompletableFuture<Void> whenRepositoriesAcquired() {
+        return repositoriesAcquired;
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.getAuthor().isBot() || !isAllowedChannelOrChildThread(event)) {
             return;
         }
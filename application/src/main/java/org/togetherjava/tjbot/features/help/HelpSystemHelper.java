@@ -1,5 +1,7 @@
 package org.togetherjava.tjbot.features.help;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Member;
@@ -27,6 +29,7 @@ import org.togetherjava.tjbot.db.generated.tables.records.HelpThreadsRecord;
 import org.togetherjava.tjbot.features.chatgpt.ChatGptCommand;
 import org.togetherjava.tjbot.features.chatgpt.ChatGptService;
 import org.togetherjava.tjbot.features.componentids.ComponentIdInteractor;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.awt.Color;
 import java.time.Instant;
@@ -34,10 +37,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -69,7 +74,21 @@ public final class HelpSystemHelper {
 
     private final Database database;
     private final ChatGptService chatGptService;
+    /**
+     * Warm copy of the authors stored in the database, filled when help threads are created or
+     * looked up. Authors of threads never change, so entries do not expire.
+     */
+    private final Cache<Long, Long> threadIdToAuthorId =
+            Metrics.monitorCache("help_thread_authors", Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_THREAD_AUTHORS)
+                .recordStats()
+                .build());
     private static final int MAX_QUESTION_LENGTH = 200;
+    private static final int MAX_CACHED_THREAD_AUTHORS = 10_000;
+    /**
+     * Stays well below the limit of variables SQLite allows in a single statement.
+     */
+    private static final int MAX_THREAD_IDS_PER_QUERY = 500;
     private static final int MIN_QUESTION_LENGTH = 10;
     private static final String CHATGPT_FAILURE_MESSAGE =
             "You can use %s to ask ChatGPT about your question while you wait for a human to respond.";
@@ -122,15 +141,15 @@ public final class HelpSystemHelper {
      *        asker.
      * @param threadChannel The thread in which the question was asked.
      * @return An answer for the user from the AI service or a message indicating either an error or
-     *         why the message wasn't used.
+     *         why the message wasn't used. Completes once the message was sent. The AI service is
+     *         asked asynchronously, the calling thread is not blocked.
      */
-    RestAction<Message> constructChatGptAttempt(ThreadChannel threadChannel,
+    CompletableFuture<Message> constructChatGptAttempt(ThreadChannel threadChannel,
             String originalQuestion, ComponentIdInteractor componentIdInteractor) {
         Optional<String> questionOptional = prepareChatGptQuestion(threadChannel, originalQuestion);
-        Optional<String> chatGPTAnswer;
 
         if (questionOptional.isEmpty()) {
-            return useChatGptFallbackMessage(threadChannel);
+            return useChatGptFallbackMessage(threadChannel).submit();
         }
         String question = questionOptional.get();
         logger.debug("The final question sent to chatGPT: {}", question);
@@ -139,12 +158,16 @@ public final class HelpSystemHelper {
         ForumTag matchingTag = getCategoryTagOfChannel(threadChannel).orElse(defaultTag);
 
         String context = matchingTag.getName();
-        chatGPTAnswer = chatGptService.ask(question, context);
-
-        if (chatGPTAnswer.isEmpty()) {
-            return useChatGptFallbackMessage(threadChannel);
-        }
+        return chatGptService.askAsync(question, context)
+            .thenCompose(chatGPTAnswer -> chatGPTAnswer
+                .map(answer -> sendChatGptAnswer(threadChannel, answer, originalQuestion,
+                        componentIdInteractor))
+                .orElseGet(() -> useChatGptFallbackMessage(threadChannel))
+                .submit());
+    }
 
+    private RestAction<Message> sendChatGptAnswer(ThreadChannel threadChannel, String answer,
+            String originalQuestion, ComponentIdInteractor componentIdInteractor) {
         StringBuilder idForDismissButton = new StringBuilder();
         RestAction<Message> message =
                 mentionGuildSlashCommand(threadChannel.getGuild(), ChatGptCommand.COMMAND_NAME)
@@ -156,15 +179,15 @@ public final class HelpSystemHelper {
                     .flatMap(threadChannel::sendMessage)
                     .onSuccess(m -> idForDismissButton.append(m.getId()));
 
-        String answer = chatGPTAnswer.orElseThrow();
         SelfUser selfUser = threadChannel.getJDA().getSelfUser();
 
         int responseCharLimit = MessageEmbed.DESCRIPTION_MAX_LENGTH;
-        if (answer.length() > responseCharLimit) {
-            answer = answer.substring(0, responseCharLimit);
-        }
+        String limitedAnswer = answer.length() > responseCharLimit
+                ? answer.substring(0, responseCharLimit)
+                : answer;
 
-        MessageEmbed responseEmbed = generateGptResponseEmbed(answer, selfUser, originalQuestion);
+        MessageEmbed responseEmbed =
+                generateGptResponseEmbed(limitedAnswer, selfUser, originalQuestion);
         return message.flatMap(any -> threadChannel.sendMessageEmbeds(responseEmbed)
             .addActionRow(
                     generateDismissButton(componentIdInteractor, idForDismissButton.toString())));
@@ -247,6 +270,7 @@ public final class HelpSystemHelper {
                 helpThreadsRecord.insert();
             }
         });
+        threadIdToAuthorId.put(threadChannel.getIdLong(), authorId);
     }
 
     Optional<Role> handleFindRoleForCategory(String category, Guild guild) {
@@ -403,14 +427,42 @@ public final class HelpSystemHelper {
         }
     }
 
-    Optional<Long> getAuthorByHelpThreadId(final long channelId) {
+    /**
+     * Looks up the authors of the given help threads. Authors that are not known yet are fetched
+     * from the database in bulk.
+     *
+     * @param channelIds the ids of the help threads to look up
+     * @return the author ids of the given help threads by their channel id, threads without a
+     *         record in the database are not contained
+     */
+    Map<Long, Long> getAuthorsByHelpThreadIds(Collection<Long> channelIds) {
+        Map<Long, Long> channelIdToAuthorId =
+                new HashMap<>(threadIdToAuthorId.getAllPresent(channelIds));
+
+        List<Long> unknownChannelIds = channelIds.stream()
+            .filter(Predicate.not(channelIdToAuthorId::containsKey))
+            .distinct()
+            .toList();
+        if (unknownChannelIds.isEmpty()) {
+            return channelIdToAuthorId;
+        }
 
-        logger.debug("Looking for thread-record using channel ID: {}", channelId);
+        logger.debug("Looking for thread-records using {} channel IDs", unknownChannelIds.size());
+        for (int i = 0; i < unknownChannelIds.size(); i += MAX_THREAD_IDS_PER_QUERY) {
+            List<Long> chunk = unknownChannelIds.subList(i,
+                    Math.min(i + MAX_THREAD_IDS_PER_QUERY, unknownChannelIds.size()));
 
-        return database.read(context -> context.select(HelpThreads.HELP_THREADS.AUTHOR_ID)
-            .from(HelpThreads.HELP_THREADS)
-            .where(HelpThreads.HELP_THREADS.CHANNEL_ID.eq(channelId))
-            .fetchOptional(HelpThreads.HELP_THREADS.AUTHOR_ID));
+            Map<Long, Long> fetchedChannelIdToAuthorId = database.read(context -> context
+                .select(HelpThreads.HELP_THREADS.CHANNEL_ID, HelpThreads.HELP_THREADS.AUTHOR_ID)
+                .from(HelpThreads.HELP_THREADS)
+                .where(HelpThreads.HELP_THREADS.CHANNEL_ID.in(chunk))
+                .fetchMap(HelpThreads.HELP_THREADS.CHANNEL_ID,
+                        HelpThreads.HELP_THREADS.AUTHOR_ID));
+
+            threadIdToAuthorId.putAll(fetchedChannelIdToAuthorId);
+            channelIdToAuthorId.putAll(fetchedChannelIdToAuthorId);
+        }
+        return channelIdToAuthorId;
     }
 
 
@@ -2,46 +2,54 @@ package org.togetherjava.tjbot.features.help;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import net.dv8tion.jda.api.JDA;
-import net.dv8tion.jda.api.entities.Guild;
-import net.dv8tion.jda.api.entities.Message;
-import net.dv8tion.jda.api.entities.MessageHistory;
-import net.dv8tion.jda.api.entities.User;
-import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.requests.RestAction;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.MessageAnalysis;
+import org.togetherjava.tjbot.features.MessageReceiverAdapter;
+import org.togetherjava.tjbot.metrics.Metrics;
+import org.togetherjava.tjbot.rest.RestBudget;
+import org.togetherjava.tjbot.rest.RestPriority;
 
-import java.time.temporal.ChronoUnit;
-import java.util.List;
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
- * Routine that periodically checks all help threads and updates their activity based on heuristics.
+ * Listener that keeps track of the messages sent in help threads and updates their activity based
+ * on heuristics.
  * <p>
  * The activity indicates to helpers which channels are in most need of help and which likely
  * already received attention by helpers.
+ * <p>
+ * Activity is tracked incrementally from incoming messages, no message history is requested. As
+ * more messages are sent, the activity of a thread can only increase. It is lowered again only when
+ * it is reset manually, see {@link #resetActivity(long)}.
+ * <p>
+ * Activity changes are not sent again later on, hence they are not sent as cosmetic actions, which
+ * may be dropped. If a change fails, it is sent again with the next message in the thread.
  */
-public final class HelpThreadActivityUpdater implements Routine {
-    private static final Logger logger = LoggerFactory.getLogger(HelpThreadActivityUpdater.class);
-    private static final int SCHEDULE_MINUTES = 30;
-    private static final int ACTIVITY_DETERMINE_MESSAGE_LIMIT = 11;
-    private static final int CHANNEL_ACTIVITY_CACHE_LIFETIME = 12;
-    private static final ChronoUnit CHANNEL_ACTIVITY_CACHE_LIFETIME_UNIT = ChronoUnit.HOURS;
+public final class HelpThreadActivityUpdater extends MessageReceiverAdapter {
+    /**
+     * Threads with at least this many messages are considered highly active.
+     */
+    private static final int HIGH_ACTIVITY_MESSAGE_THRESHOLD = 11;
+    private static final int MAX_TRACKED_THREADS = 10_000;
+    private static final Duration TRACK_INACTIVE_THREADS_FOR = Duration.ofDays(7);
+
     private final HelpSystemHelper helper;
-    public static final Cache<Long, Long> manuallyResetChannelActivityCache = Caffeine.newBuilder()
-        .maximumSize(1_000)
-        .expireAfterWrite(CHANNEL_ACTIVITY_CACHE_LIFETIME,
-                TimeUnit.of(CHANNEL_ACTIVITY_CACHE_LIFETIME_UNIT))
-        .build();
+    private final Cache<Long, ThreadActivityState> threadIdToActivityState =
+            Metrics.monitorCache("help_thread_activity", Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_THREADS)
+                .expireAfterAccess(TRACK_INACTIVE_THREADS_FOR)
+                .recordStats()
+                .build());
 
     /**
      * Creates a new instance.
@@ -53,72 +61,126 @@ public final class HelpThreadActivityUpdater implements Routine {
     }
 
     @Override
-    public Schedule createSchedule() {
-        return new Schedule(ScheduleMode.FIXED_RATE, 1, SCHEDULE_MINUTES, TimeUnit.MINUTES);
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
+        if (!isHelpThread(event.getChannel())) {
+            return;
+        }
+
+        ThreadChannel threadChannel = event.getChannel().asThreadChannel();
+        boolean isBotMessage = event.getAuthor().equals(event.getJDA().getSelfUser());
+
+        ThreadActivityState state = threadIdToActivityState.get(threadChannel.getIdLong(),
+                any -> ThreadActivityState.forUntrackedThread(threadChannel.getMessageCount(),
+                        getCurrentActivity(threadChannel).orElse(null)));
+
+        Optional<HelpSystemHelper.ThreadActivity> increasedActivity =
+                state.recordMessage(isBotMessage ? null : event.getAuthor().getIdLong());
+        increasedActivity.ifPresent(activity -> RestBudget.queue(RestPriority.NORMAL,
+                helper.changeChannelActivity(threadChannel, activity), null, failure -> {
+                    state.forgetAppliedActivity(activity);
+                    RestAction.getDefaultFailure().accept(failure);
+                }));
     }
 
-    @Override
-    public void runRoutine(JDA jda) {
-        jda.getGuildCache().forEach(this::updateActivityForGuild);
+    /**
+     * Resets the activity of the given help thread, only messages sent after this call are taken
+     * into account when determining its activity again.
+     *
+     * @param threadId the id of the help thread to reset
+     */
+    void resetActivity(long threadId) {
+        threadIdToActivityState.put(threadId, ThreadActivityState.afterReset());
     }
 
-    private void updateActivityForGuild(Guild guild) {
-        Optional<ForumChannel> maybeHelpForum = helper
-            .handleRequireHelpForum(guild, channelPattern -> logger.warn(
-                    "Unable to update help thread activities, did not find a help forum matching the configured pattern '{}' for guild '{}'",
-                    channelPattern, guild.getName()));
+    private boolean isHelpThread(MessageChannel channel) {
+        return channel instanceof ThreadChannel thread
+                && helper.isHelpForumName(thread.getParentChannel().getName());
+    }
 
-        if (maybeHelpForum.isEmpty()) {
-            return;
+    private Optional<HelpSystemHelper.ThreadActivity> getCurrentActivity(ThreadChannel thread) {
+        return helper.getActivityTagOfChannel(thread)
+            .flatMap(tag -> Arrays.stream(HelpSystemHelper.ThreadActivity.values())
+                .filter(activity -> activity.getTagName().equalsIgnoreCase(tag.getName()))
+                .findAny());
+    }
+
+    /**
+     * Messages sent in a help thread since it is tracked.
+     * <p>
+     * Instances are thread-safe.
+     */
+    private static final class ThreadActivityState {
+        private int messageCount;
+        private final Map<Long, Integer> authorIdToMessageCount = new HashMap<>();
+        @Nullable
+        private HelpSystemHelper.ThreadActivity appliedActivity;
+
+        private ThreadActivityState(int messageCount,
+                @Nullable HelpSystemHelper.ThreadActivity appliedActivity) {
+            this.messageCount = messageCount;
+            this.appliedActivity = appliedActivity;
         }
 
-        logger.debug("Updating activities of active questions");
+        /**
+         * State of a thread that was not tracked yet, for example because the bot restarted. The
+         * authors of its past messages are unknown, but Discord knows the amount of messages.
+         */
+        static ThreadActivityState forUntrackedThread(int messageCount,
+                @Nullable HelpSystemHelper.ThreadActivity appliedActivity) {
+            return new ThreadActivityState(messageCount, appliedActivity);
+        }
 
-        List<ThreadChannel> activeThreads = helper.getActiveThreadsIn(maybeHelpForum.orElseThrow());
-        logger.debug("Found {} active questions", activeThreads.size());
+        static ThreadActivityState afterReset() {
+            return new ThreadActivityState(0, HelpSystemHelper.ThreadActivity.LOW);
+        }
 
-        activeThreads.forEach(this::updateActivityForThread);
-    }
+        /**
+         * Records a message sent in the thread.
+         *
+         * @param authorId the id of the author of the message, {@code null} if sent by the bot
+         * @return the new activity of the thread, if it increased by this message
+         */
+        synchronized Optional<HelpSystemHelper.ThreadActivity> recordMessage(
+                @Nullable Long authorId) {
+            messageCount++;
+            if (authorId != null && messageCount < HIGH_ACTIVITY_MESSAGE_THRESHOLD) {
+                authorIdToMessageCount.merge(authorId, 1, Integer::sum);
+            }
 
-    private void updateActivityForThread(ThreadChannel threadChannel) {
-        determineActivity(threadChannel)
-            .flatMap(threadActivity -> helper.changeChannelActivity(threadChannel, threadActivity))
-            .queue();
-    }
+            HelpSystemHelper.ThreadActivity activity = determineActivity();
+            if (appliedActivity != null && activity.compareTo(appliedActivity) <= 0) {
+                return Optional.empty();
+            }
 
-    private static RestAction<HelpSystemHelper.ThreadActivity> determineActivity(
-            MessageChannel channel) {
+            appliedActivity = activity;
+            return Optional.of(activity);
+        }
 
-        return getRelevantHistory(channel).map(messages -> {
-            if (messages.size() >= ACTIVITY_DETERMINE_MESSAGE_LIMIT) {
-                // There are likely even more messages, but we hit the limit
-                return HelpSystemHelper.ThreadActivity.HIGH;
+        /**
+         * Forgets that the given activity was applied to the thread, for example because changing
+         * its tag failed. The activity is then applied again with the next message.
+         *
+         * @param activity the activity that was not applied
+         */
+        synchronized void forgetAppliedActivity(HelpSystemHelper.ThreadActivity activity) {
+            // A later change might have succeeded already
+            if (appliedActivity == activity) {
+                appliedActivity = null;
             }
+        }
 
-            Map<User, List<Message>> authorToMessages = messages.stream()
-                .filter(Predicate.not(HelpThreadActivityUpdater::isBotMessage))
-                .collect(Collectors.groupingBy(Message::getAuthor));
+        private HelpSystemHelper.ThreadActivity determineActivity() {
+            if (messageCount >= HIGH_ACTIVITY_MESSAGE_THRESHOLD) {
+                return HelpSystemHelper.ThreadActivity.HIGH;
+            }
 
-            boolean isThereActivity = authorToMessages.size() >= 2 && authorToMessages.values()
+            boolean isThereActivity = authorIdToMessageCount.size() >= 2 && authorIdToMessageCount
+                .values()
                 .stream()
-                .anyMatch(messagesByAuthor -> messagesByAuthor.size() >= 2);
+                .anyMatch(messagesByAuthor -> messagesByAuthor >= 2);
 
             return isThereActivity ? HelpSystemHelper.ThreadActivity.MEDIUM
                     : HelpSystemHelper.ThreadActivity.LOW;
-        });
-    }
-
-    private static RestAction<List<Message>> getRelevantHistory(MessageChannel channel) {
-        Long mostRecentMessageId =
-                manuallyResetChannelActivityCache.getIfPresent(channel.getIdLong());
-
-        return mostRecentMessageId != null
-                ? channel.getHistoryAfter(mostRecentMessageId, ACTIVITY_DETERMINE_MESSAGE_LIMIT)
-                    .map(MessageHistory::getRetrievedHistory)
-                : channel.getHistory().retrievePast(ACTIVITY_DETERMINE_MESSAGE_LIMIT);
-    }
-
-    private static boolean isBotMessage(Message message) {
-        return message.getAuthor().equals(message.getJDA().getSelfUser());
+        }
     }
 }
@@ -9,19 +9,24 @@ import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.concrete.ForumChannel;
 import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
 import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.Result;
 import net.dv8tion.jda.api.utils.TimeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.utils.MemberLookups;
+import org.togetherjava.tjbot.rest.RestBudget;
+import org.togetherjava.tjbot.rest.RestPriority;
+
+import javax.annotation.Nullable;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
-import java.util.function.Supplier;
 
 /**
  * Routine, which periodically checks all help threads and archives them if there has not been any
@@ -31,6 +36,7 @@ public final class HelpThreadAutoArchiver implements Routine {
     private static final Logger logger = LoggerFactory.getLogger(HelpThreadAutoArchiver.class);
     private static final int SCHEDULE_MINUTES = 60;
     private static final Duration ARCHIVE_AFTER_INACTIVITY_OF = Duration.ofHours(12);
+    private static final int MAX_CONCURRENT_ARCHIVES = 10;
 
     private final HelpSystemHelper helper;
 
@@ -69,21 +75,44 @@ public final class HelpThreadAutoArchiver implements Routine {
         logger.debug("Found {} active questions", activeThreads.size());
 
         Instant archiveAfterMoment = computeArchiveAfterMoment();
-        activeThreads.stream()
+        List<ThreadChannel> threadsToArchive = activeThreads.stream()
             .filter(activeThread -> shouldBeArchived(activeThread, archiveAfterMoment))
-            .forEach(this::autoArchiveForThread);
+            .toList();
+        if (threadsToArchive.isEmpty()) {
+            return;
+        }
+        logger.debug("Auto archiving {} help threads", threadsToArchive.size());
+
+        Map<Long, Long> threadIdToAuthorId = helper.getAuthorsByHelpThreadIds(
+                threadsToArchive.stream().map(ThreadChannel::getIdLong).toList());
+
+        MemberLookups.retrieveMembers(guild, threadIdToAuthorId.values())
+            .thenAccept(authorIdToMember -> {
+                MessageEmbed embed = createArchiveEmbed();
+                List<RestAction<Void>> archiveActions = threadsToArchive.stream()
+                    .map(threadChannel -> {
+                        Long authorId = threadIdToAuthorId.get(threadChannel.getIdLong());
+                        Member author = authorId == null ? null : authorIdToMember.get(authorId);
+                        return createArchiveFlow(threadChannel, authorId, author, embed);
+                    })
+                    .toList();
+
+                queueInBatches(archiveActions);
+            })
+            .exceptionally(failure -> {
+                logger.error("Unknown error while auto archiving help threads", failure);
+                return null;
+            });
     }
 
     private Instant computeArchiveAfterMoment() {
         return Instant.now().minus(ARCHIVE_AFTER_INACTIVITY_OF);
     }
 
-    private void autoArchiveForThread(ThreadChannel threadChannel) {
-        logger.debug("Auto archiving help thread {}", threadChannel.getId());
-
+    private static MessageEmbed createArchiveEmbed() {
         String linkHowToAsk = "https://stackoverflow.com/help/how-to-ask";
 
-        MessageEmbed embed = new EmbedBuilder()
+        return new EmbedBuilder()
             .setDescription(
                     """
                             Your question has been closed due to inactivity.
@@ -111,8 +140,6 @@ public final class HelpThreadAutoArchiver implements Routine {
                         .formatted(linkHowToAsk))
             .setColor(HelpSystemHelper.AMBIENT_COLOR)
             .build();
-
-        handleArchiveFlow(threadChannel, embed);
     }
 
     private static boolean shouldBeArchived(ThreadChannel channel, Instant archiveAfterMoment) {
@@ -122,47 +149,48 @@ public final class HelpThreadAutoArchiver implements Routine {
         return !channel.isPinned() && lastActivity.isBefore(archiveAfterMoment);
     }
 
-    private void handleArchiveFlow(ThreadChannel threadChannel, MessageEmbed embed) {
-        helper.getAuthorByHelpThreadId(threadChannel.getIdLong())
-            .ifPresentOrElse(authorId -> triggerArchiveFlow(threadChannel, authorId, embed),
-                    () -> triggerAuthorIdNotFoundArchiveFlow(threadChannel, embed));
-    }
-
-    private void triggerArchiveFlow(ThreadChannel threadChannel, long authorId,
-            MessageEmbed embed) {
-
-        Function<Member, RestAction<Message>> sendEmbedWithMention =
-                member -> threadChannel.sendMessage(member.getAsMention()).addEmbeds(embed);
-
-        Supplier<RestAction<Message>> sendEmbedWithoutMention =
-                () -> threadChannel.sendMessageEmbeds(embed);
-
-        threadChannel.getGuild()
-            .retrieveMemberById(authorId)
-            .mapToResult()
-            .flatMap(authorResults -> {
-                if (authorResults.isFailure()) {
-                    logger.info(
-                            "Trying to archive a thread ({}), but OP ({}) left the server, sending embed without mention",
-                            threadChannel.getId(), authorId, authorResults.getFailure());
+    private static RestAction<Void> createArchiveFlow(ThreadChannel threadChannel,
+            @Nullable Long authorId, @Nullable Member author, MessageEmbed embed) {
+        logger.debug("Auto archiving help thread {}", threadChannel.getId());
 
-                    return sendEmbedWithoutMention.get();
-                }
+        RestAction<Message> sendEmbed;
+        if (authorId == null) {
+            logger.info(
+                    "Was unable to find a matching thread for id: {} in DB, archiving thread without mentioning OP",
+                    threadChannel.getId());
+            sendEmbed = threadChannel.sendMessageEmbeds(embed);
+        } else if (author == null) {
+            logger.info(
+                    "Trying to archive a thread ({}), but OP ({}) left the server, sending embed without mention",
+                    threadChannel.getId(), authorId);
+            sendEmbed = threadChannel.sendMessageEmbeds(embed);
+        } else {
+            sendEmbed = threadChannel.sendMessage(author.getAsMention()).addEmbeds(embed);
+        }
 
-                return sendEmbedWithMention.apply(authorResults.get());
-            })
-            .flatMap(any -> threadChannel.getManager().setArchived(true))
-            .queue();
+        return sendEmbed.flatMap(any -> threadChannel.getManager().setArchived(true));
     }
 
-    private void triggerAuthorIdNotFoundArchiveFlow(ThreadChannel threadChannel,
-            MessageEmbed embed) {
+    /**
+     * Queues the given actions, with up to {@value #MAX_CONCURRENT_ARCHIVES} of them in flight at
+     * the same time. JDA takes care of the rate limits of the individual requests.
+     */
+    private static void queueInBatches(List<RestAction<Void>> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
 
-        logger.info(
-                "Was unable to find a matching thread for id: {} in DB, archiving thread without mentioning OP",
-                threadChannel.getId());
-        threadChannel.sendMessageEmbeds(embed)
-            .flatMap(sentEmbed -> threadChannel.getManager().setArchived(true))
-            .queue();
+        int batchSize = Math.min(MAX_CONCURRENT_ARCHIVES, actions.size());
+        List<RestAction<Result<Void>>> batch =
+                actions.subList(0, batchSize).stream().map(RestAction::mapToResult).toList();
+        List<RestAction<Void>> remainingActions = actions.subList(batchSize, actions.size());
+
+        RestBudget.queue(RestPriority.BULK, RestAction.allOf(batch), results -> {
+            results.stream()
+                .filter(Result::isFailure)
+                .forEach(result -> logger.warn("Failed to auto archive a help thread",
+                        result.getFailure()));
+            queueInBatches(remainingActions);
+        }, null);
     }
 }
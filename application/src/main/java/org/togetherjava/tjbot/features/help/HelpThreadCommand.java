@@ -20,12 +20,12 @@ import net.dv8tion.jda.api.requests.restaction.WebhookMessageEditAction;
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.EnumMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -33,12 +33,9 @@ import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import static org.togetherjava.tjbot.features.help.HelpThreadActivityUpdater.manuallyResetChannelActivityCache;
-
 /**
  * Implements the {@code /help-thread} command, used to maintain certain aspects of help threads,
  * such as renaming or closing them.
@@ -56,6 +53,7 @@ public final class HelpThreadCommand extends SlashCommandAdapter {
     public static final String COMMAND_NAME = "help-thread";
 
     private final HelpSystemHelper helper;
+    private final HelpThreadActivityUpdater activityUpdater;
     private final Map<String, Subcommand> nameToSubcommand;
     private final Map<Subcommand, Cache<Long, Instant>> subcommandToCooldownCache;
     private final Map<Subcommand, BiConsumer<SlashCommandInteractionEvent, ThreadChannel>> subcommandToEventHandler;
@@ -65,8 +63,10 @@ public final class HelpThreadCommand extends SlashCommandAdapter {
      *
      * @param config the config to use
      * @param helper the helper to use
+     * @param activityUpdater the updater keeping track of the activity of help threads
      */
-    public HelpThreadCommand(Config config, HelpSystemHelper helper) {
+    public HelpThreadCommand(Config config, HelpSystemHelper helper,
+            HelpThreadActivityUpdater activityUpdater) {
         super(COMMAND_NAME, "Help thread specific commands", CommandVisibility.GUILD);
 
         OptionData categoryChoices =
@@ -93,16 +93,22 @@ public final class HelpThreadCommand extends SlashCommandAdapter {
         getData().addSubcommands(Subcommand.RESET_ACTIVITY.toSubcommandData());
 
         this.helper = helper;
-
-        Supplier<Cache<Long, Instant>> createCooldownCache = () -> Caffeine.newBuilder()
-            .maximumSize(1_000)
-            .expireAfterAccess(COOLDOWN_DURATION_VALUE, TimeUnit.of(COOLDOWN_DURATION_UNIT))
-            .build();
+        this.activityUpdater = activityUpdater;
+
+        Function<Subcommand, Cache<Long, Instant>> createCooldownCache =
+                subcommand -> Metrics.monitorCache(
+                        "help_thread_cooldown_" + subcommand.name().toLowerCase(Locale.US),
+                        Caffeine.newBuilder()
+                            .maximumSize(1_000)
+                            .expireAfterAccess(COOLDOWN_DURATION_VALUE,
+                                    TimeUnit.of(COOLDOWN_DURATION_UNIT))
+                            .recordStats()
+                            .build());
         nameToSubcommand = streamSubcommands()
             .collect(Collectors.toMap(Subcommand::getCommandName, Function.identity()));
         subcommandToCooldownCache = new EnumMap<>(streamSubcommands()
             .filter(Subcommand::hasCooldown)
-            .collect(Collectors.toMap(Function.identity(), any -> createCooldownCache.get())));
+            .collect(Collectors.toMap(Function.identity(), createCooldownCache)));
         subcommandToEventHandler = new EnumMap<>(Map.of(Subcommand.CHANGE_CATEGORY,
                 this::changeCategory, Subcommand.CHANGE_TITLE, this::changeTitle, Subcommand.CLOSE,
                 this::closeThread, Subcommand.RESET_ACTIVITY, this::resetActivity));
@@ -212,13 +218,8 @@ public final class HelpThreadCommand extends SlashCommandAdapter {
     private void resetActivity(SlashCommandInteractionEvent event, ThreadChannel helpThread) {
         refreshCooldownFor(Subcommand.RESET_ACTIVITY, helpThread);
 
-        helpThread.getHistory()
-            .retrievePast(1)
-            .map(List::getFirst)
-            .queue(lastMessage -> manuallyResetChannelActivityCache.put(helpThread.getIdLong(),
-                    lastMessage.getIdLong()));
-
-        helper.changeChannelActivity(helpThread, HelpSystemHelper.ThreadActivity.LOW);
+        activityUpdater.resetActivity(helpThread.getIdLong());
+        helper.changeChannelActivity(helpThread, HelpSystemHelper.ThreadActivity.LOW).queue();
         event.reply("Activities have been reset.").queue();
     }
 
@@ -14,6 +14,8 @@ import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.hooks.ListenerAdapter;
 import net.dv8tion.jda.api.requests.RestAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.features.EventReceiver;
 import org.togetherjava.tjbot.features.UserInteractionType;
@@ -22,11 +24,13 @@ import org.togetherjava.tjbot.features.componentids.ComponentIdGenerator;
 import org.togetherjava.tjbot.features.componentids.ComponentIdInteractor;
 import org.togetherjava.tjbot.features.utils.LinkDetection;
 import org.togetherjava.tjbot.features.utils.MessageUtils;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -38,12 +42,16 @@ import java.util.stream.Collectors;
  */
 public final class HelpThreadCreatedListener extends ListenerAdapter
         implements EventReceiver, UserInteractor {
+    private static final Logger logger = LoggerFactory.getLogger(HelpThreadCreatedListener.class);
+
     private final HelpSystemHelper helper;
 
-    private final Cache<Long, Instant> threadIdToCreatedAtCache = Caffeine.newBuilder()
-        .maximumSize(1_000)
-        .expireAfterAccess(2, TimeUnit.of(ChronoUnit.MINUTES))
-        .build();
+    private final Cache<Long, Instant> threadIdToCreatedAtCache =
+            Metrics.monitorCache("help_thread_created_at", Caffeine.newBuilder()
+                .maximumSize(1_000)
+                .expireAfterAccess(2, TimeUnit.of(ChronoUnit.MINUTES))
+                .recordStats()
+                .build());
     private final ComponentIdInteractor componentIdInteractor =
             new ComponentIdInteractor(getInteractionType(), getName());
 
@@ -83,11 +91,21 @@ public final class HelpThreadCreatedListener extends ListenerAdapter
     private void handleHelpThreadCreated(ThreadChannel threadChannel) {
         threadChannel.retrieveStartMessage().flatMap(message -> {
             registerThreadDataInDB(message, threadChannel);
-            return sendHelperHeadsUp(threadChannel)
-                .flatMap(any -> HelpThreadCreatedListener.isContextSufficient(message),
-                        any -> createAIResponse(threadChannel, message))
-                .flatMap(any -> pinOriginalQuestion(message));
-        }).queue();
+            return sendHelperHeadsUp(threadChannel).map(any -> message);
+        }).queue(message -> {
+            // The AI response can take a while, it must not block JDAs callback threads
+            CompletableFuture<?> aiResponse = isContextSufficient(message)
+                    ? createAIResponse(threadChannel, message)
+                    : CompletableFuture.completedFuture(null);
+
+            aiResponse.whenComplete((any, failure) -> {
+                if (failure != null) {
+                    logger.warn("Failed to send the AI response in help thread {}",
+                            threadChannel.getId(), failure);
+                }
+                pinOriginalQuestion(message).queue();
+            });
+        });
     }
 
     private static User getMentionedAuthorByMessage(Message message) {
@@ -98,7 +116,8 @@ public final class HelpThreadCreatedListener extends ListenerAdapter
         return message.getJDA().getSelfUser().equals(message.getAuthor());
     }
 
-    private RestAction<Message> createAIResponse(ThreadChannel threadChannel, Message message) {
+    private CompletableFuture<Message> createAIResponse(ThreadChannel threadChannel,
+            Message message) {
         return helper.constructChatGptAttempt(threadChannel, getMessageContent(message),
                 componentIdInteractor);
     }
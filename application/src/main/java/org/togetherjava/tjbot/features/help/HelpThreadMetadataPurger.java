@@ -6,7 +6,10 @@ import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.HelpThreads;
+import org.togetherjava.tjbot.db.generated.tables.records.HelpThreadsRecord;
 import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.retention.RetentionPolicy;
+import org.togetherjava.tjbot.features.retention.RetentionPurger;
 
 import java.time.Instant;
 import java.time.Period;
@@ -16,9 +19,14 @@ import java.util.concurrent.TimeUnit;
  * Purge Routine to get rid of old thread creations in the database.
  */
 public class HelpThreadMetadataPurger implements Routine {
-    private final Database database;
     private static final Logger logger = LoggerFactory.getLogger(HelpThreadMetadataPurger.class);
     private static final Period DELETE_MESSAGE_RECORDS_AFTER = Period.ofDays(180);
+    private static final RetentionPolicy<HelpThreadsRecord> RETENTION_POLICY =
+            RetentionPolicy.of("help_threads", HelpThreads.HELP_THREADS,
+                    () -> HelpThreads.HELP_THREADS.CREATED_AT
+                        .lessOrEqual(Instant.now().minus(DELETE_MESSAGE_RECORDS_AFTER)));
+
+    private final RetentionPurger purger;
 
     /**
      * Creates a new instance.
@@ -26,7 +34,7 @@ public class HelpThreadMetadataPurger implements Routine {
      * @param database the database used to purge help thread metadata
      */
     public HelpThreadMetadataPurger(Database database) {
-        this.database = database;
+        purger = new RetentionPurger(database);
     }
 
     @Override
@@ -34,13 +42,14 @@ public class HelpThreadMetadataPurger implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 1, TimeUnit.DAYS);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
-        int recordsDeleted =
-                database.writeAndProvide(content -> content.deleteFrom(HelpThreads.HELP_THREADS))
-                    .where(HelpThreads.HELP_THREADS.CREATED_AT
-                        .lessOrEqual(Instant.now().minus(DELETE_MESSAGE_RECORDS_AFTER)))
-                    .execute();
+        int recordsDeleted = purger.purge(RETENTION_POLICY);
         if (recordsDeleted > 0) {
             logger.debug("{} old thread channels deleted because they are older than {}.",
                     recordsDeleted, DELETE_MESSAGE_RECORDS_AFTER);
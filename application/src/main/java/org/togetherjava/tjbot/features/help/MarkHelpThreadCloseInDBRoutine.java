@@ -43,6 +43,11 @@ public final class MarkHelpThreadCloseInDBRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 24, TimeUnit.HOURS);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
         updateTicketStatus(jda);
@@ -109,6 +109,11 @@ public final class RSSHandlerRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_DELAY, 0, interval, TimeUnit.MINUTES);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     @Override
     public void runRoutine(@Nonnull JDA jda) {
         this.config.feeds().forEach(feed -> sendRSS(jda, feed));
@@ -8,23 +8,18 @@ import net.dv8tion.jda.api.interactions.components.buttons.Button;
 import net.dv8tion.jda.api.interactions.components.buttons.ButtonStyle;
 import net.dv8tion.jda.api.utils.FileUpload;
 import org.scilab.forge.jlatexmath.ParseException;
-import org.scilab.forge.jlatexmath.TeXConstants;
-import org.scilab.forge.jlatexmath.TeXFormula;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
 
-import javax.imageio.ImageIO;
-
-import java.awt.Color;
-import java.awt.Image;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -48,32 +43,48 @@ public final class TeXCommand extends SlashCommandAdapter {
     static final String BAD_LATEX_ERROR_PREFIX = "That is an invalid latex: ";
     static final String INVALID_INLINE_FORMAT_ERROR_MESSAGE =
             "The amount of $-symbols must be divisible by two. Did you forget to close an expression?";
-    private static final float DEFAULT_IMAGE_SIZE = 40.0F;
-    private static final Color BACKGROUND_COLOR = Color.decode("#36393F");
-    private static final Color FOREGROUND_COLOR = Color.decode("#FFFFFF");
+    private static final String TOO_LARGE_ERROR =
+            "That formula is too large, please split it into smaller parts";
+    private static final String TOO_SLOW_ERROR =
+            "That formula took too long to render, please split it into smaller parts";
+    private static final String TOO_BUSY_ERROR =
+            "I am rendering too many formulas right now, please try again in a moment";
     private static final Logger logger = LoggerFactory.getLogger(TeXCommand.class);
 
+    private final TeXRenderer renderer;
+
     /**
      * Creates a new Instance.
      */
     public TeXCommand() {
+        this(new TeXRenderer());
+    }
+
+    /**
+     * Creates a new Instance.
+     *
+     * @param renderer the renderer to render formulas with
+     */
+    TeXCommand(TeXRenderer renderer) {
         super("tex", "Renders LaTeX, also supports inline $-regions like 'see this $\frac{x}{2}$'.",
                 CommandVisibility.GUILD);
         getData().addOption(OptionType.STRING, LATEX_OPTION,
                 "The latex which is rendered as an image", true);
+
+        this.renderer = renderer;
     }
 
     @Override
     public void onSlashCommand(final SlashCommandInteractionEvent event) {
         String latex = Objects.requireNonNull(event.getOption(LATEX_OPTION)).getAsString();
         String userID = (Objects.requireNonNull(event.getMember()).getId());
-        TeXFormula formula;
+        CompletableFuture<byte[]> image;
 
         try {
             if (latex.contains("$")) {
                 latex = convertInlineLatexToFull(latex);
             }
-            formula = new TeXFormula(latex);
+            image = renderer.render(latex);
         } catch (ParseException e) {
             event.reply(BAD_LATEX_ERROR_PREFIX + e.getMessage()).setEphemeral(true).queue();
             return;
@@ -81,56 +92,34 @@ public final class TeXCommand extends SlashCommandAdapter {
 
         event.deferReply().queue();
 
-        try {
-            Image image = renderImage(formula);
-            sendImage(event, userID, image);
-        } catch (IOException e) {
-            event.getHook().editOriginal(RENDERING_ERROR).queue();
-            logger.warn(
-                    "Unable to render latex, could not convert the image into an attachable form. Formula was {}",
-                    latex, e);
-
-        } catch (IllegalStateException e) {
-            event.getHook().editOriginal(RENDERING_ERROR).queue();
-
-            logger.warn(
-                    "Unable to render latex, image does not have an accessible width or height. Formula was {}",
-                    latex, e);
-        }
-    }
-
-    private Image renderImage(TeXFormula formula) {
-        Image image = formula.createBufferedImage(TeXConstants.STYLE_DISPLAY, DEFAULT_IMAGE_SIZE,
-                FOREGROUND_COLOR, BACKGROUND_COLOR);
+        String renderedLatex = latex;
+        image.whenComplete((png, failure) -> {
+            if (failure == null) {
+                sendImage(event, userID, png);
+                return;
+            }
 
-        if (image.getWidth(null) == -1 || image.getHeight(null) == -1) {
-            throw new IllegalStateException("Image has no height or width");
-        }
-        return image;
+            Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+            String errorMessage = switch (cause) {
+                case TeXRenderer.RenderBudgetExceededException ignored -> TOO_LARGE_ERROR;
+                case TimeoutException ignored -> TOO_SLOW_ERROR;
+                case RejectedExecutionException ignored -> TOO_BUSY_ERROR;
+                default -> {
+                    logger.warn("Unable to render latex. Formula was {}", renderedLatex, cause);
+                    yield RENDERING_ERROR;
+                }
+            };
+            event.getHook().editOriginal(errorMessage).queue();
+        });
     }
 
-    private void sendImage(IDeferrableCallback event, String userID, Image image)
-            throws IOException {
-        ByteArrayOutputStream renderedTextImageStream = getRenderedTextImageStream(image);
+    private void sendImage(IDeferrableCallback event, String userID, byte[] png) {
         event.getHook()
-            .editOriginalAttachments(
-                    FileUpload.fromData(renderedTextImageStream.toByteArray(), "tex.png"))
+            .editOriginalAttachments(FileUpload.fromData(png, "tex.png"))
             .setActionRow(Button.of(ButtonStyle.DANGER, generateComponentId(userID), "Delete"))
             .queue();
     }
 
-    private ByteArrayOutputStream getRenderedTextImageStream(Image image) throws IOException {
-        BufferedImage renderedTextImage = new BufferedImage(image.getWidth(null),
-                image.getHeight(null), BufferedImage.TYPE_4BYTE_ABGR);
-
-        renderedTextImage.getGraphics().drawImage(image, 0, 0, null);
-        ByteArrayOutputStream renderedTextImageStream = new ByteArrayOutputStream();
-
-        ImageIO.write(renderedTextImage, "png", renderedTextImageStream);
-
-        return renderedTextImageStream;
-    }
-
     /**
      * Converts inline latex like: {@code hello $\frac{x}{2}$ world} to full latex
      * {@code \text{hello}\frac{x}{2}\text{ world}}.
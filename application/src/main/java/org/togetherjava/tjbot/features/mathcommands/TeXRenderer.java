@@ -0,0 +1,247 @@
+package org.togetherjava.tjbot.features.mathcommands;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.scilab.forge.jlatexmath.ParseException;
+import org.scilab.forge.jlatexmath.TeXConstants;
+import org.scilab.forge.jlatexmath.TeXFormula;
+import org.scilab.forge.jlatexmath.TeXIcon;
+
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import javax.imageio.ImageIO;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serial;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders LaTeX formulas into PNG images.
+ * <p>
+ * Rendering happens on a dedicated executor with {@value RENDER_THREADS} threads, further renders
+ * are queued up to a limit and rejected afterwards. Each render has a budget. Overly long formulas
+ * are rejected before they are parsed, formulas that would result in overly large images are
+ * rejected before they are drawn. Renders that take too long, counted from when they start, fail
+ * with a timeout. The render itself can not be stopped and still occupies its thread until it is
+ * done. Formulas that timed out are hence rejected right away for a while, instead of being
+ * rendered again.
+ * <p>
+ * Rendered images are cached, keyed by the formula. The cache is bounded by the size of the images,
+ * least recently used images are evicted first. Identical formulas that are requested while the
+ * first one is still being rendered share the same render.
+ */
+final class TeXRenderer {
+    private static final int RENDER_THREADS = 2;
+    private static final int MAX_QUEUED_RENDERS = 16;
+    private static final Duration RENDER_TIMEOUT = Duration.ofSeconds(5);
+    private static final Duration REJECT_TIMED_OUT_FORMULAS_FOR = Duration.ofMinutes(30);
+    private static final int MAX_REMEMBERED_TIMED_OUT_FORMULAS = 1_000;
+    /**
+     * Bounds the time spent parsing and rendering a formula, which grows with its length.
+     */
+    static final int MAX_LATEX_LENGTH = 2_000;
+    static final int MAX_IMAGE_PIXELS = 4_000_000;
+    static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
+    private static final long MAX_CACHED_BYTES = 32L * 1024 * 1024;
+
+    private static final float IMAGE_SIZE = 40.0F;
+    private static final Insets IMAGE_INSETS = new Insets(2, 2, 2, 2);
+    private static final Color BACKGROUND_COLOR = Color.decode("#36393F");
+    private static final Color FOREGROUND_COLOR = Color.decode("#FFFFFF");
+
+    private static final ScheduledExecutorService TIMEOUT_SERVICE =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "tex-render-timeouts");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final Executor renderService;
+    private final ScheduledExecutorService timeoutService;
+    private final AsyncCache<String, byte[]> latexToImage =
+            Metrics.monitorCache("tex_images", Caffeine.newBuilder()
+                .maximumWeight(MAX_CACHED_BYTES)
+                .<String, byte[]>weigher((latex, image) -> image.length)
+                .recordStats()
+                .buildAsync());
+    private final Cache<String, Instant> timedOutLatexToTimedOutAt =
+            Metrics.monitorCache("tex_timed_out_formulas", Caffeine.newBuilder()
+                .maximumSize(MAX_REMEMBERED_TIMED_OUT_FORMULAS)
+                .expireAfterWrite(REJECT_TIMED_OUT_FORMULAS_FOR)
+                .recordStats()
+                .build());
+
+    /**
+     * Creates a new instance, rendering on a dedicated executor.
+     */
+    TeXRenderer() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(RENDER_THREADS, RENDER_THREADS, 0,
+                TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_RENDERS), runnable -> {
+                    Thread thread =
+                            new Thread(runnable, "tex-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Metrics.monitorExecutor("tex_rendering", executor);
+
+        renderService = executor;
+        timeoutService = TIMEOUT_SERVICE;
+    }
+
+    /**
+     * Creates a new instance, rendering on the given executor.
+     *
+     * @param renderService the executor to render on
+     */
+    TeXRenderer(Executor renderService) {
+        this(renderService, TIMEOUT_SERVICE);
+    }
+
+    /**
+     * Creates a new instance, rendering on the given executor and timing out renders with the given
+     * scheduler.
+     *
+     * @param renderService the executor to render on
+     * @param timeoutService the scheduler to time out renders with
+     */
+    TeXRenderer(Executor renderService, ScheduledExecutorService timeoutService) {
+        this.renderService = renderService;
+        this.timeoutService = timeoutService;
+    }
+
+    /**
+     * Renders the given formula into a PNG image.
+     * <p>
+     * The formula is only parsed if it is neither cached nor currently rendered.
+     *
+     * @param latex the formula to render
+     * @return the rendered image, encoded as PNG. Completes exceptionally with a
+     *         {@link RenderBudgetExceededException} if the formula or image would be too large, a
+     *         {@link TimeoutException} if the render took too long, also recently, and a
+     *         {@link RejectedExecutionException} if too many formulas are rendered already
+     * @throws ParseException if the formula is not valid LaTeX
+     */
+    CompletableFuture<byte[]> render(String latex) {
+        CompletableFuture<byte[]> knownImage = latexToImage.getIfPresent(latex);
+        if (knownImage != null) {
+            return knownImage;
+        }
+        if (latex.length() > MAX_LATEX_LENGTH) {
+            return CompletableFuture.failedFuture(new RenderBudgetExceededException(
+                    "The formula has %d characters, the limit is %d".formatted(latex.length(),
+                            MAX_LATEX_LENGTH)));
+        }
+        if (timedOutLatexToTimedOutAt.getIfPresent(latex) != null) {
+            return CompletableFuture.failedFuture(
+                    new TimeoutException("The formula took too long to render recently"));
+        }
+
+        TeXFormula formula = new TeXFormula(latex);
+        return latexToImage.get(latex, (any, executor) -> renderAsync(latex, formula));
+    }
+
+    private CompletableFuture<byte[]> renderAsync(String latex, TeXFormula formula) {
+        CompletableFuture<byte[]> image = new CompletableFuture<>();
+        try {
+            renderService.execute(() -> renderWithTimeout(latex, formula, image));
+        } catch (RejectedExecutionException e) {
+            image.completeExceptionally(e);
+        }
+        return image;
+    }
+
+    private void renderWithTimeout(String latex, TeXFormula formula,
+            CompletableFuture<byte[]> image) {
+        // The budget starts with the render, time spent waiting in the queue does not count
+        ScheduledFuture<?> timeout = timeoutService.schedule(() -> {
+            boolean isTimedOut = image.completeExceptionally(new TimeoutException(
+                    "The render took longer than " + RENDER_TIMEOUT.toMillis() + " ms"));
+            if (isTimedOut) {
+                // The render goes on regardless, retries must not start another one
+                timedOutLatexToTimedOutAt.put(latex, Instant.now());
+            }
+        }, RENDER_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            image.complete(renderImage(formula));
+        } catch (RuntimeException e) {
+            image.completeExceptionally(e);
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    private static byte[] renderImage(TeXFormula formula) {
+        TeXIcon icon = formula.createTeXIcon(TeXConstants.STYLE_DISPLAY, IMAGE_SIZE);
+        icon.setInsets(IMAGE_INSETS);
+
+        int widthPx = icon.getIconWidth();
+        int heightPx = icon.getIconHeight();
+        if (widthPx <= 0 || heightPx <= 0) {
+            throw new IllegalStateException("Image has no height or width");
+        }
+        if ((long) widthPx * heightPx > MAX_IMAGE_PIXELS) {
+            throw new RenderBudgetExceededException(
+                    "The image would be %dx%d pixels, the limit is %d pixels"
+                        .formatted(widthPx, heightPx, MAX_IMAGE_PIXELS));
+        }
+
+        BufferedImage image =
+                new BufferedImage(widthPx, heightPx, BufferedImage.TYPE_4BYTE_ABGR);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(BACKGROUND_COLOR);
+        graphics.fillRect(0, 0, widthPx, heightPx);
+        icon.setForeground(FOREGROUND_COLOR);
+        icon.paintIcon(null, graphics, 0, 0);
+        graphics.dispose();
+
+        byte[] png = encodeAsPng(image);
+        if (png.length > MAX_IMAGE_BYTES) {
+            throw new RenderBudgetExceededException("The image would be %d bytes, the limit is %d"
+                .formatted(png.length, MAX_IMAGE_BYTES));
+        }
+        return png;
+    }
+
+    private static byte[] encodeAsPng(BufferedImage image) {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            ImageIO.write(image, "png", outputStream);
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Thrown if rendering a formula would exceed the budget of a single render, for example because
+     * the resulting image would be too large.
+     */
+    static final class RenderBudgetExceededException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 6031546272513307385L;
+
+        RenderBudgetExceededException(String message) {
+            super(message);
+        }
+    }
+}
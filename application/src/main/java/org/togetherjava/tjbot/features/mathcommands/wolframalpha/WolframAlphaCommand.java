@@ -1,5 +1,7 @@
 package org.togetherjava.tjbot.features.mathcommands.wolframalpha;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.mikael.urlbuilder.UrlBuilder;
 import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
 import net.dv8tion.jda.api.interactions.callbacks.IDeferrableCallback;
@@ -9,16 +11,24 @@ import net.dv8tion.jda.api.utils.FileUpload;
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 /**
  * Command to send a query to the <a href="https://www.wolframalpha.com/">Wolfram Alpha</a> API.
  * Renders its response as images.
+ * <p>
+ * Rendered results are cached for a while, keyed by the normalized query, so that repeated queries
+ * neither contact the API nor download and render images again. The cache is bounded by the size of
+ * the rendered images.
  */
 public final class WolframAlphaCommand extends SlashCommandAdapter {
     private static final String QUERY_OPTION = "query";
@@ -31,6 +41,18 @@ public final class WolframAlphaCommand extends SlashCommandAdapter {
      */
     private static final String API_ENDPOINT = "http://api.wolframalpha.com/v2/query";
     private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static final long MAX_CACHED_RESULT_BYTES = 32L * 1024 * 1024;
+    private static final Duration CACHE_RESULTS_FOR = Duration.ofHours(12);
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private final Cache<String, WolframAlphaHandler.RenderedResult> queryToResult =
+            Metrics.monitorCache("wolfram_alpha_results", Caffeine.newBuilder()
+                .maximumWeight(MAX_CACHED_RESULT_BYTES)
+                .<String, WolframAlphaHandler.RenderedResult>weigher(
+                        (query, result) -> result.sizeInBytes())
+                .expireAfterWrite(CACHE_RESULTS_FOR)
+                .recordStats()
+                .build());
 
     private final String appId;
 
@@ -52,6 +74,16 @@ public final class WolframAlphaCommand extends SlashCommandAdapter {
         String query = event.getOption(QUERY_OPTION).getAsString();
         WolframAlphaHandler handler = new WolframAlphaHandler(query);
 
+        String normalizedQuery = normalizeQuery(query);
+        WolframAlphaHandler.RenderedResult cachedResult =
+                queryToResult.getIfPresent(normalizedQuery);
+        if (cachedResult != null) {
+            WolframAlphaHandler.HandlerResponse response =
+                    handler.handleRenderedResult(cachedResult);
+            event.replyEmbeds(response.embeds()).setFiles(toFileUploads(response)).queue();
+            return;
+        }
+
         // The API call takes a bit
         event.deferReply().queue();
 
@@ -69,17 +101,30 @@ public final class WolframAlphaCommand extends SlashCommandAdapter {
                 CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString());
 
         // Parse and respond
-        apiResponse.thenApply(handler::handleApiResponse)
-            .thenAccept(response -> sendResponse(response, event));
+        apiResponse.thenCompose(handler::handleApiResponse).thenAccept(response -> {
+            if (response.reusableResult() != null) {
+                queryToResult.put(normalizedQuery, response.reusableResult());
+            }
+            sendResponse(response, event);
+        });
+    }
+
+    private static String normalizeQuery(String query) {
+        return WHITESPACES.matcher(query.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
     }
 
     private static void sendResponse(WolframAlphaHandler.HandlerResponse response,
             IDeferrableCallback event) {
-        List<FileUpload> files = response.attachments()
+        event.getHook()
+            .editOriginalEmbeds(response.embeds())
+            .setFiles(toFileUploads(response))
+            .queue();
+    }
+
+    private static List<FileUpload> toFileUploads(WolframAlphaHandler.HandlerResponse response) {
+        return response.attachments()
             .stream()
             .map(attachment -> FileUpload.fromData(attachment.data(), attachment.name()))
             .toList();
-
-        event.getHook().editOriginalEmbeds(response.embeds()).setFiles(files).queue();
     }
 }
@@ -21,11 +21,12 @@ import org.togetherjava.tjbot.features.mathcommands.wolframalpha.api.SubPod;
 import org.togetherjava.tjbot.features.mathcommands.wolframalpha.api.Tip;
 import org.togetherjava.tjbot.features.mathcommands.wolframalpha.api.Tips;
 
+import javax.annotation.Nullable;
+
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.HttpURLConnection;
-import java.net.URISyntaxException;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -33,6 +34,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -80,15 +82,19 @@ final class WolframAlphaHandler {
     /**
      * Handles the given response and returns a user-friendly message that can be displayed.
      *
+     * The images of the results are downloaded in the background, the message is hence completed
+     * once they are ready.
+     *
      * @param apiResponse response of the Wolfram Alpha API query
      * @return user-friendly message for display, as list of embeds
      */
-    HandlerResponse handleApiResponse(HttpResponse<String> apiResponse) {
+    CompletableFuture<HandlerResponse> handleApiResponse(HttpResponse<String> apiResponse) {
         // Check status code
         int statusCode = apiResponse.statusCode();
         if (statusCode != HttpURLConnection.HTTP_OK) {
             LOGGER.warn("Wolfram Alpha API returned an unexpected status code: {}", statusCode);
-            return responseOf("Sorry, the Wolfram Alpha API failed for an unknown reason.");
+            return CompletableFuture.completedFuture(
+                    responseOf("Sorry, the Wolfram Alpha API failed for an unknown reason."));
         }
 
         // Parse XML response
@@ -100,8 +106,8 @@ final class WolframAlphaHandler {
             LOGGER.warn(
                     "Wolfram Alpha API returned a response (for query: '{}') that can not be parsed into a QueryResult: {}",
                     query, queryResultXml, e);
-            return responseOf(
-                    "Sorry, the Wolfram Alpha API responded with something I do not understand.");
+            return CompletableFuture.completedFuture(responseOf(
+                    "Sorry, the Wolfram Alpha API responded with something I do not understand."));
         }
 
         // Handle unsuccessful
@@ -111,10 +117,11 @@ final class WolframAlphaHandler {
                 LOGGER.error(
                         "Received an error from the Wolfram Alpha API (for query: '{}'). Code: {}, message: {}",
                         query, error.getCode(), error.getMessage());
-                return responseOf("Sorry, the Wolfram Alpha API responded with an error.");
+                return CompletableFuture.completedFuture(
+                        responseOf("Sorry, the Wolfram Alpha API responded with an error."));
             }
 
-            return handleMisunderstoodQuery(queryResult);
+            return CompletableFuture.completedFuture(handleMisunderstoodQuery(queryResult));
         }
 
         return handleSuccessfulResponse(queryResult);
@@ -168,32 +175,48 @@ final class WolframAlphaHandler {
             .collect(Collectors.joining("\n"));
     }
 
-    private HandlerResponse handleSuccessfulResponse(QueryResult queryResult) {
-        StringJoiner messages = new StringJoiner("\n\n");
-        messages.add("Click the link to see full results.");
-
-        if (!queryResult.getTimedOutPods().isEmpty()) {
-            messages.add("Some of my calculation took very long, so I cancelled them.");
-        }
-
-        // Render all the pods and sub-pods
-        Collection<BufferedImage> images = new ArrayList<>();
+    private CompletableFuture<HandlerResponse> handleSuccessfulResponse(QueryResult queryResult) {
+        // Render all the pods and sub-pods, the images of sub-pods are downloaded concurrently
+        List<CompletableFuture<BufferedImage>> imageTasks = new ArrayList<>();
         for (Pod pod : queryResult.getPods()) {
-            images.add(WolframAlphaImages.renderTitle(pod.getTitle() + ":"));
+            imageTasks.add(CompletableFuture
+                .completedFuture(WolframAlphaImages.renderTitle(pod.getTitle() + ":")));
 
             for (SubPod subPod : pod.getSubPods()) {
-                try {
-                    images.add(WolframAlphaImages.renderSubPod(subPod));
-                } catch (IOException | URISyntaxException e) {
-                    LOGGER.error(
-                            "Failed to render sub pod (title: '{}') from pod (title: '{}') from the WolframAlpha response (for query: '{}')",
-                            subPod.getTitle(), pod.getTitle(), query, e);
+                imageTasks.add(WolframAlphaImages.renderSubPod(subPod)
+                    .whenComplete((image, failure) -> {
+                        if (failure != null) {
+                            LOGGER.error(
+                                    "Failed to render sub pod (title: '{}') from pod (title: '{}') from the WolframAlpha response (for query: '{}')",
+                                    subPod.getTitle(), pod.getTitle(), query, failure);
+                        }
+                    }));
+            }
+        }
+        imageTasks.add(CompletableFuture.completedFuture(WolframAlphaImages.renderFooter()));
+
+        return CompletableFuture.allOf(imageTasks.toArray(CompletableFuture[]::new))
+            .handleAsync((ignored, failure) -> {
+                if (failure != null) {
                     return responseOf(
                             "Sorry, the Wolfram Alpha API responded with something I do not understand.");
                 }
-            }
+
+                // All downloads are done, hence none of these block
+                List<BufferedImage> images =
+                        imageTasks.stream().map(CompletableFuture::join).toList();
+                return handleRenderedImages(queryResult, images);
+            }, WolframAlphaImages.RENDER_SERVICE);
+    }
+
+    private HandlerResponse handleRenderedImages(QueryResult queryResult,
+            List<BufferedImage> images) {
+        StringJoiner messages = new StringJoiner("\n\n");
+        messages.add("Click the link to see full results.");
+
+        if (!queryResult.getTimedOutPods().isEmpty()) {
+            messages.add("Some of my calculation took very long, so I cancelled them.");
         }
-        images.add(WolframAlphaImages.renderFooter());
 
         // Images will be displayed as tiles in Discord embeds
         List<BufferedImage> tiles =
@@ -204,7 +227,29 @@ final class WolframAlphaHandler {
             messages.add("That's a lot of results, I had to cut off a few of them.");
         }
 
-        return responseOf(messages.toString(), tilesToDisplay);
+        List<Attachment> attachments = new ArrayList<>(tilesToDisplay.size());
+        int i = 0;
+        for (BufferedImage tile : tilesToDisplay) {
+            String tileTitle = "result%d.%s".formatted(i, WolframAlphaImages.IMAGE_FORMAT);
+            attachments.add(new Attachment(tileTitle, WolframAlphaImages.imageToBytes(tile)));
+
+            i++;
+        }
+
+        // Results with cancelled calculations might be complete when asked again
+        boolean isReusable = queryResult.getTimedOutPods().isEmpty();
+        return responseOf(new RenderedResult(messages.toString(), attachments), isReusable);
+    }
+
+    /**
+     * Creates a user-friendly message out of a result that was rendered before, for example for an
+     * equivalent query.
+     *
+     * @param result the previously rendered result
+     * @return user-friendly message for display, as list of embeds
+     */
+    HandlerResponse handleRenderedResult(RenderedResult result) {
+        return responseOf(result, true);
     }
 
     private HandlerResponse responseOf(CharSequence text) {
@@ -213,39 +258,52 @@ final class WolframAlphaHandler {
             .setColor(AMBIENT_COLOR)
             .build();
 
-        return new HandlerResponse(List.of(embed), List.of());
+        return new HandlerResponse(List.of(embed), List.of(), null);
     }
 
-    private HandlerResponse responseOf(CharSequence text,
-            Collection<? extends BufferedImage> tiles) {
+    private HandlerResponse responseOf(RenderedResult result, boolean isReusable) {
         List<MessageEmbed> embeds = new ArrayList<>();
         embeds.add(new EmbedBuilder().setTitle(buildTitle(), userApiQuery)
-            .setDescription(text)
+            .setDescription(result.message())
             .setColor(AMBIENT_COLOR)
             .build());
 
-        List<Attachment> attachments = new ArrayList<>(tiles.size());
-
-        int i = 0;
-        for (BufferedImage tile : tiles) {
-            String tileTitle = "result%d.%s".formatted(i, WolframAlphaImages.IMAGE_FORMAT);
-
-            attachments.add(new Attachment(tileTitle, WolframAlphaImages.imageToBytes(tile)));
+        for (Attachment tile : result.tiles()) {
             embeds.add(new EmbedBuilder().setColor(AMBIENT_COLOR)
-                .setImage("attachment://" + tileTitle)
+                .setImage("attachment://" + tile.name())
                 .build());
-
-            i++;
         }
 
-        return new HandlerResponse(embeds, attachments);
+        return new HandlerResponse(embeds, result.tiles(), isReusable ? result : null);
     }
 
     private String buildTitle() {
         return query + " - " + SERVICE_NAME;
     }
 
-    record HandlerResponse(List<MessageEmbed> embeds, List<Attachment> attachments) {
+    /**
+     * Response of the handler.
+     *
+     * @param embeds the embeds to display
+     * @param attachments the attachments referenced by the embeds
+     * @param reusableResult the rendered result, if it can be reused for equivalent queries,
+     *        {@code null} otherwise
+     */
+    record HandlerResponse(List<MessageEmbed> embeds, List<Attachment> attachments,
+            @Nullable RenderedResult reusableResult) {
+    }
+
+    /**
+     * Result of a successful query, rendered as tiles. Unlike the response, it does not depend on
+     * the exact spelling of the query.
+     *
+     * @param message the message to display above the tiles
+     * @param tiles the rendered tiles
+     */
+    record RenderedResult(String message, List<Attachment> tiles) {
+        int sizeInBytes() {
+            return message.length() + tiles.stream().mapToInt(tile -> tile.data().length).sum();
+        }
     }
 
     record Attachment(String name, byte[] data) {
@@ -2,6 +2,7 @@ package org.togetherjava.tjbot.features.mathcommands.wolframalpha;
 
 import org.togetherjava.tjbot.features.mathcommands.wolframalpha.api.SubPod;
 import org.togetherjava.tjbot.features.mathcommands.wolframalpha.api.WolframAlphaImage;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import javax.imageio.ImageIO;
 
@@ -13,21 +14,55 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class to work with images returned by the Wolfram Alpha API. For example to render and
  * combine them.
+ * <p>
+ * The images of sub-pods are downloaded concurrently on a dedicated executor, at most
+ * {@value MAX_CONCURRENT_DOWNLOADS} at the same time. Images larger than {@value MAX_IMAGE_BYTES}
+ * bytes are rejected. Combining and encoding the downloaded images happens on a separate executor,
+ * see {@link #RENDER_SERVICE}, so that slow downloads do not delay it for other queries.
  */
 class WolframAlphaImages {
     static final String IMAGE_FORMAT = "png";
+    private static final int MAX_CONCURRENT_DOWNLOADS = 6;
+    private static final int RENDER_THREADS = 2;
+    private static final int MAX_IMAGE_BYTES = 2 * 1024 * 1024;
+    private static final Duration DOWNLOAD_TIMEOUT = Duration.ofSeconds(10);
+    private static final ExecutorService DOWNLOAD_SERVICE =
+            createService("wolfram-alpha-download-", MAX_CONCURRENT_DOWNLOADS);
+    /**
+     * Executor to combine and encode the downloaded images on, which is CPU-bound work.
+     */
+    static final ExecutorService RENDER_SERVICE =
+            createService("wolfram-alpha-render-", RENDER_THREADS);
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .connectTimeout(DOWNLOAD_TIMEOUT)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+
     private static final Color IMAGE_BACKGROUND = Color.WHITE;
     private static final int IMAGE_MARGIN_PX = 10;
 
@@ -36,10 +71,24 @@ class WolframAlphaImages {
     private static final Color TITLE_COLOR = Color.decode("#3C3C3C");
     private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 15);
 
+    static {
+        Metrics.monitorExecutor("wolfram_alpha_images", DOWNLOAD_SERVICE);
+        Metrics.monitorExecutor("wolfram_alpha_rendering", RENDER_SERVICE);
+    }
+
     private WolframAlphaImages() {
         throw new UnsupportedOperationException("Utility class, construction not supported");
     }
 
+    private static ExecutorService createService(String threadNamePrefix, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
     static BufferedImage renderTitle(String title) {
         Rectangle2D titleBounds = TITLE_FONT.getStringBounds(title, TITLE_RENDER_CONTEXT);
         int widthPx = (int) Math.ceil(titleBounds.getWidth()) + 2 * IMAGE_MARGIN_PX;
@@ -56,9 +105,32 @@ class WolframAlphaImages {
         return image;
     }
 
-    static BufferedImage renderSubPod(SubPod subPod) throws IOException, URISyntaxException {
+    /**
+     * Downloads the image of the given sub-pod and renders it.
+     *
+     * @param subPod the sub-pod to render
+     * @return the rendered sub-pod, completes exceptionally if the image could not be downloaded or
+     *         is too large
+     */
+    static CompletableFuture<BufferedImage> renderSubPod(SubPod subPod) {
         WolframAlphaImage sourceImage = subPod.getImage();
 
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(new URI(sourceImage.getSource()))
+                .timeout(DOWNLOAD_TIMEOUT)
+                .GET()
+                .build();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return CompletableFuture.supplyAsync(() -> downloadImage(request), DOWNLOAD_SERVICE)
+            .thenApply(image -> renderSubPod(sourceImage, image));
+    }
+
+    private static BufferedImage renderSubPod(WolframAlphaImage sourceImage,
+            BufferedImage image) {
         int widthPx = sourceImage.getWidth() + 2 * IMAGE_MARGIN_PX;
         int heightPx = sourceImage.getHeight() + IMAGE_MARGIN_PX;
 
@@ -66,13 +138,53 @@ class WolframAlphaImages {
                 new BufferedImage(widthPx, heightPx, BufferedImage.TYPE_4BYTE_ABGR);
         Graphics graphics = destinationImage.getGraphics();
 
-        graphics.drawImage(ImageIO.read(new URI(sourceImage.getSource()).toURL()), IMAGE_MARGIN_PX,
-                IMAGE_MARGIN_PX, null);
-
+        graphics.drawImage(image, IMAGE_MARGIN_PX, IMAGE_MARGIN_PX, null);
 
         return destinationImage;
     }
 
+    private static BufferedImage downloadImage(HttpRequest request) {
+        try {
+            HttpResponse<InputStream> response =
+                    CLIENT.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+                    throw new IOException("Unexpected status code %d when downloading image %s"
+                        .formatted(response.statusCode(), request.uri()));
+                }
+
+                OptionalLong announcedBytes = response.headers().firstValueAsLong("Content-Length");
+                if (announcedBytes.isPresent() && announcedBytes.getAsLong() > MAX_IMAGE_BYTES) {
+                    throw imageTooLarge(request);
+                }
+
+                // Reading one byte more than allowed reveals images without announced length
+                byte[] data = body.readNBytes(MAX_IMAGE_BYTES + 1);
+                if (data.length > MAX_IMAGE_BYTES) {
+                    throw imageTooLarge(request);
+                }
+
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(data));
+                if (image == null) {
+                    throw new IOException(
+                            "The image %s has an unsupported format".formatted(request.uri()));
+                }
+                return image;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private static IOException imageTooLarge(HttpRequest request) {
+        return new IOException("The image %s is larger than the limit of %d bytes"
+            .formatted(request.uri(), MAX_IMAGE_BYTES));
+    }
+
     static BufferedImage renderFooter() {
         return new BufferedImage(1, IMAGE_MARGIN_PX, BufferedImage.TYPE_4BYTE_ABGR);
     }
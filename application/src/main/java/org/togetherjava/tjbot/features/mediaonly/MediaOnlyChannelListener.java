@@ -10,6 +10,7 @@ import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
 import net.dv8tion.jda.api.utils.messages.MessageCreateData;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
 
 import java.awt.Color;
@@ -35,7 +36,7 @@ public final class MediaOnlyChannelListener extends MessageReceiverAdapter {
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.getAuthor().isBot() || event.isWebhookMessage()) {
             return;
         }
@@ -45,15 +46,15 @@ public final class MediaOnlyChannelListener extends MessageReceiverAdapter {
             return;
         }
 
-        if (messageHasNoMediaAttached(message)) {
+        if (messageHasNoMediaAttached(message, analysis)) {
             message.delete().flatMap(any -> dmUser(message)).queue(any -> {
             }, failure -> tempNotifyUserInChannel(message));
         }
     }
 
-    private boolean messageHasNoMediaAttached(Message message) {
+    private static boolean messageHasNoMediaAttached(Message message, MessageAnalysis analysis) {
         return message.getAttachments().isEmpty() && message.getEmbeds().isEmpty()
-                && !message.getContentRaw().contains("http");
+                && analysis.getLinks().isEmpty();
     }
 
     private MessageCreateData createNotificationMessage(Message message) {
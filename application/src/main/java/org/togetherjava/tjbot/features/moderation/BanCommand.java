@@ -22,6 +22,8 @@ import org.slf4j.LoggerFactory;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
 import org.togetherjava.tjbot.logging.LogMarkers;
+import org.togetherjava.tjbot.rest.RestBudget;
+import org.togetherjava.tjbot.rest.RestPriority;
 
 import javax.annotation.Nullable;
 
@@ -208,15 +210,16 @@ public final class BanCommand extends SlashCommandAdapter {
         event.deferReply().queue();
         InteractionHook hook = event.getHook();
         // Ban the user, but only if not already banned
-        guild.retrieveBan(target).mapToResult().flatMap(alreadyBanned -> {
-            if (alreadyBanned.isSuccess()) {
-                return handleAlreadyBanned(alreadyBanned.get(), hook);
-            }
-
-            return handleNotAlreadyBannedResponse(
-                    Objects.requireNonNull(alreadyBanned.getFailure()), hook, guild, target)
-                .orElseGet(() -> banUserFlow(target, author, temporaryData.orElse(null), reason,
-                        deleteHistoryDays, guild, event));
-        }).queue();
+        RestBudget.queue(RestPriority.URGENT,
+                guild.retrieveBan(target).mapToResult().flatMap(alreadyBanned -> {
+                    if (alreadyBanned.isSuccess()) {
+                        return handleAlreadyBanned(alreadyBanned.get(), hook);
+                    }
+
+                    return handleNotAlreadyBannedResponse(
+                            Objects.requireNonNull(alreadyBanned.getFailure()), hook, guild, target)
+                        .orElseGet(() -> banUserFlow(target, author, temporaryData.orElse(null),
+                                reason, deleteHistoryDays, guild, event));
+                }));
     }
 }
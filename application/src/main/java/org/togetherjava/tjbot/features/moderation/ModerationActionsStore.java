@@ -1,6 +1,9 @@
 package org.togetherjava.tjbot.features.moderation;
 
 import org.jooq.Condition;
+import org.jooq.Record2;
+import org.jooq.SortField;
+import org.jooq.impl.DSL;
 
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.ModerationActions;
@@ -10,6 +13,7 @@ import javax.annotation.Nullable;
 
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -83,6 +87,87 @@ public final class ModerationActionsStore {
                 ModerationActions.MODERATION_ACTIONS.TARGET_ID.eq(targetId));
     }
 
+    /**
+     * Counts the actions executed against a given target that have been written to the store,
+     * grouped by their type.
+     *
+     * @param guildId the id of the guild, only actions that happened in the context of that guild
+     *        will be counted
+     * @param targetId the id of the target user to filter for
+     * @return the amount of actions executed against the target per type, types without any action
+     *         are not contained
+     */
+    public Map<ModerationAction, Integer> countActionsByTargetPerType(long guildId, long targetId) {
+        ModerationActions actions = ModerationActions.MODERATION_ACTIONS;
+
+        return database.read(context -> context.select(actions.ACTION_TYPE, DSL.count())
+            .from(actions)
+            .where(actions.GUILD_ID.eq(guildId).and(actions.TARGET_ID.eq(targetId)))
+            .groupBy(actions.ACTION_TYPE)
+            .fetchMap(actionTypeAndCount -> ModerationAction.valueOf(actionTypeAndCount.value1()),
+                    Record2::value2));
+    }
+
+    /**
+     * Gets the latest actions executed against a given target, chronologically ascending with the
+     * earliest action first.
+     * <p>
+     * Together with {@link #getActionsByTargetBefore(long, long, ActionRecord, int)} and
+     * {@link #getActionsByTargetAfter(long, long, ActionRecord, int)} this allows paging through
+     * the actions against a target without loading all of them.
+     *
+     * @param guildId the id of the guild, only actions that happened in the context of that guild
+     *        will be retrieved
+     * @param targetId the id of the target user to filter for
+     * @param limit the maximal amount of actions to retrieve
+     * @return a list of the latest actions executed against the target, chronologically ascending
+     */
+    public List<ActionRecord> getLatestActionsByTarget(long guildId, long targetId, int limit) {
+        return getActionsByTargetPage(guildId, targetId, DSL.noCondition(), true, limit);
+    }
+
+    /**
+     * Gets the actions executed against a given target right before the given action,
+     * chronologically ascending with the earliest action first.
+     *
+     * @param guildId the id of the guild, only actions that happened in the context of that guild
+     *        will be retrieved
+     * @param targetId the id of the target user to filter for
+     * @param before the action to retrieve the actions before of, exclusive
+     * @param limit the maximal amount of actions to retrieve
+     * @return a list of the actions executed against the target right before the given action,
+     *         chronologically ascending
+     */
+    public List<ActionRecord> getActionsByTargetBefore(long guildId, long targetId,
+            ActionRecord before, int limit) {
+        ModerationActions actions = ModerationActions.MODERATION_ACTIONS;
+
+        return getActionsByTargetPage(guildId, targetId,
+                DSL.row(actions.ISSUED_AT, actions.CASE_ID).lt(before.issuedAt(), before.caseId()),
+                true, limit);
+    }
+
+    /**
+     * Gets the actions executed against a given target right after the given action,
+     * chronologically ascending with the earliest action first.
+     *
+     * @param guildId the id of the guild, only actions that happened in the context of that guild
+     *        will be retrieved
+     * @param targetId the id of the target user to filter for
+     * @param after the action to retrieve the actions after of, exclusive
+     * @param limit the maximal amount of actions to retrieve
+     * @return a list of the actions executed against the target right after the given action,
+     *         chronologically ascending
+     */
+    public List<ActionRecord> getActionsByTargetAfter(long guildId, long targetId,
+            ActionRecord after, int limit) {
+        ModerationActions actions = ModerationActions.MODERATION_ACTIONS;
+
+        return getActionsByTargetPage(guildId, targetId,
+                DSL.row(actions.ISSUED_AT, actions.CASE_ID).gt(after.issuedAt(), after.caseId()),
+                false, limit);
+    }
+
     /**
      * Gets all actions executed by a given author that have been written to the store,
      * chronologically ascending with the earliest action first.
@@ -179,6 +264,33 @@ public final class ModerationActionsStore {
                 ModerationActions.MODERATION_ACTIONS.GUILD_ID.eq(guildId).and(condition));
     }
 
+    /**
+     * Keyset pagination over the actions against a target, using the index on
+     * {@code (guild_id, target_id, issued_at, case_id)}.
+     *
+     * @param fromLatest whether to take the latest actions matching the condition instead of the
+     *        earliest
+     */
+    private List<ActionRecord> getActionsByTargetPage(long guildId, long targetId,
+            Condition keysetCondition, boolean fromLatest, int limit) {
+        ModerationActions actions = ModerationActions.MODERATION_ACTIONS;
+        List<SortField<?>> order = fromLatest
+                ? List.of(actions.ISSUED_AT.desc(), actions.CASE_ID.desc())
+                : List.of(actions.ISSUED_AT.asc(), actions.CASE_ID.asc());
+
+        List<ActionRecord> page = database.read(context -> context.selectFrom(actions)
+            .where(actions.GUILD_ID.eq(guildId)
+                .and(actions.TARGET_ID.eq(targetId))
+                .and(keysetCondition))
+            .orderBy(order)
+            .limit(limit)
+            .stream()
+            .map(ActionRecord::of)
+            .toList());
+
+        return fromLatest ? page.reversed() : page;
+    }
+
     private List<ActionRecord> getActionsAscendingWhere(Condition condition) {
         Objects.requireNonNull(condition);
 
@@ -0,0 +1,88 @@
+package org.togetherjava.tjbot.features.moderation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.togetherjava.tjbot.features.chatgpt.ChatGptService;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Suggests titles for questions that are transferred to the helper forum, using ChatGPT.
+ * <p>
+ * Interactions have to be answered within 3 seconds. ChatGPT is hence only given until a deadline
+ * to suggest a title, otherwise a fallback title is suggested instead. Suggestions by ChatGPT are
+ * cached per message, also if they arrive after the deadline, so that transferring the same message
+ * again uses them right away.
+ */
+final class QuestionTitleSuggester {
+    /**
+     * Leaves enough time to reply to the interaction after the deadline.
+     */
+    private static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(2);
+    private static final int MAX_CACHED_TITLES = 1_000;
+    private static final Duration CACHE_TITLES_FOR = Duration.ofHours(1);
+    private static final String TITLE_PROMPT =
+            "Summarize the following text into a concise title or heading not more than 4-5 words, remove quotations if any: %s";
+
+    private final ChatGptService chatGptService;
+    private final Duration deadline;
+    private final Cache<String, String> messageIdToTitle =
+            Metrics.monitorCache("transfer_question_titles", Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_TITLES)
+                .expireAfterWrite(CACHE_TITLES_FOR)
+                .recordStats()
+                .build());
+
+    /**
+     * Creates a new instance.
+     *
+     * @param chatGptService the service used to ask ChatGPT for titles
+     */
+    QuestionTitleSuggester(ChatGptService chatGptService) {
+        this(chatGptService, DEFAULT_DEADLINE);
+    }
+
+    /**
+     * Creates a new instance with the given deadline.
+     *
+     * @param chatGptService the service used to ask ChatGPT for titles
+     * @param deadline the time ChatGPT is given to suggest a title
+     */
+    QuestionTitleSuggester(ChatGptService chatGptService, Duration deadline) {
+        this.chatGptService = chatGptService;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Suggests a title for the given message.
+     *
+     * @param messageId the id of the message, suggestions are cached by it
+     * @param message the content of the message
+     * @param fallbackTitle the title to suggest if ChatGPT does not suggest one in time
+     * @return the suggested title, completes at the latest once the deadline is over. Never
+     *         completes exceptionally.
+     */
+    CompletableFuture<String> suggestTitle(String messageId, String message,
+            String fallbackTitle) {
+        String knownTitle = messageIdToTitle.getIfPresent(messageId);
+        if (knownTitle != null) {
+            return CompletableFuture.completedFuture(knownTitle);
+        }
+
+        CompletableFuture<Optional<String>> suggestedTitle = chatGptService
+            .askAsync(TITLE_PROMPT.formatted(message), "")
+            .thenApply(title -> title.map(String::strip).filter(Predicate.not(String::isEmpty)));
+        // Also remembered if it arrives too late for this transfer
+        suggestedTitle
+            .thenAccept(title -> title.ifPresent(value -> messageIdToTitle.put(messageId, value)));
+
+        return suggestedTitle.thenApply(title -> title.orElse(fallbackTitle))
+            .completeOnTimeout(fallbackTitle, deadline.toMillis(), TimeUnit.MILLISECONDS);
+    }
+}
@@ -26,6 +26,7 @@ import org.togetherjava.tjbot.features.BotCommandAdapter;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.MessageContextCommand;
 import org.togetherjava.tjbot.features.utils.MessageUtils;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.awt.Color;
 import java.time.Instant;
@@ -72,10 +73,11 @@ public final class ReportCommand extends BotCommandAdapter implements MessageCon
     }
 
     private Cache<Long, Instant> createCooldownCache() {
-        return Caffeine.newBuilder()
+        return Metrics.monitorCache("report_cooldown", Caffeine.newBuilder()
             .maximumSize(1_000)
             .expireAfterAccess(COOLDOWN_DURATION_VALUE, TimeUnit.of(COOLDOWN_DURATION_UNIT))
-            .build();
+            .recordStats()
+            .build());
     }
 
     @Override
@@ -65,7 +65,7 @@ public final class TransferQuestionCommand extends BotCommandAdapter
     private static final int INPUT_MIN_LENGTH = 3;
     private final Predicate<String> isHelpForumName;
     private final List<String> tags;
-    private final ChatGptService chatGptService;
+    private final QuestionTitleSuggester titleSuggester;
 
 
     /**
@@ -81,7 +81,7 @@ public final class TransferQuestionCommand extends BotCommandAdapter
                 Pattern.compile(config.getHelpSystem().getHelpForumPattern()).asMatchPredicate();
 
         tags = config.getHelpSystem().getCategories();
-        this.chatGptService = chatGptService;
+        titleSuggester = new QuestionTitleSuggester(chatGptService);
     }
 
     @Override
@@ -95,12 +95,19 @@ public final class TransferQuestionCommand extends BotCommandAdapter
         String originalMessageId = event.getTarget().getId();
         String originalChannelId = event.getTarget().getChannel().getId();
         String authorId = event.getTarget().getAuthor().getId();
-        String mostCommonTag = tags.getFirst();
-        String chatGptPrompt =
-                "Summarize the following text into a concise title or heading not more than 4-5 words, remove quotations if any: %s"
-                    .formatted(originalMessage);
-        Optional<String> chatGptResponse = chatGptService.ask(chatGptPrompt, "");
-        String title = chatGptResponse.orElse(createTitle(originalMessage));
+
+        // Only waits for ChatGPT until a deadline, the interaction would expire otherwise
+        titleSuggester
+            .suggestTitle(originalMessageId, originalMessage, createTitle(originalMessage))
+            .thenAccept(title -> event
+                .replyModal(createTransferModal(title, originalMessage, authorId,
+                        originalMessageId, originalChannelId))
+                .queue());
+    }
+
+    private Modal createTransferModal(String suggestedTitle, String originalMessage,
+            String authorId, String originalMessageId, String originalChannelId) {
+        String title = suggestedTitle;
         if (title.length() > TITLE_MAX_LENGTH) {
             title = title.substring(0, TITLE_MAX_LENGTH);
         }
@@ -123,19 +130,17 @@ public final class TransferQuestionCommand extends BotCommandAdapter
         }
 
         TextInput modalTag = TextInput.create(MODAL_TAG, "Most fitting tag", TextInputStyle.SHORT)
-            .setValue(mostCommonTag)
+            .setValue(tags.getFirst())
             .setPlaceholder("Suitable tag for the question")
             .build();
 
         String modalComponentId =
                 generateComponentId(authorId, originalMessageId, originalChannelId);
-        Modal transferModal = Modal.create(modalComponentId, "Transfer this question")
+        return Modal.create(modalComponentId, "Transfer this question")
             .addActionRow(modalTitle)
             .addActionRow(modalInputBuilder.build())
             .addActionRow(modalTag)
             .build();
-
-        event.replyModal(transferModal).queue();
     }
 
     @Override
@@ -0,0 +1,115 @@
+package org.togetherjava.tjbot.features.moderation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.internal.requests.CompletedRestAction;
+
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded cache of how users are displayed, i.e. their name and avatar, shared across moderation
+ * features.
+ * <p>
+ * Moderation features often have to display users by their id only, for example the authors of past
+ * moderation actions or the targets of audit log entries. Looking them up one by one via
+ * {@link JDA#retrieveUserById(long)} costs a REST request each, which this cache avoids for
+ * recently displayed users. Users that are in the cache of JDA are never requested either.
+ * <p>
+ * The cache is thread safe.
+ */
+public final class UserDisplayCache {
+    private static final String UNKNOWN_USER_NAME = "(unknown user)";
+    private static final int MAX_CACHED_USERS = 5_000;
+    private static final Duration CACHE_USERS_FOR = Duration.ofHours(6);
+
+    private final Cache<Long, UserDisplay> userIdToDisplay =
+            Metrics.monitorCache("moderation_user_display", Caffeine.newBuilder()
+                .maximumSize(MAX_CACHED_USERS)
+                .expireAfterWrite(CACHE_USERS_FOR)
+                .recordStats()
+                .build());
+
+    /**
+     * Retrieves how the given user is displayed.
+     * <p>
+     * Users that do not exist anymore are displayed as {@value #UNKNOWN_USER_NAME}.
+     *
+     * @param jda the JDA instance to retrieve users with
+     * @param userId the id of the user to display
+     * @return how the user is displayed, completes without a REST request if the user is cached
+     */
+    public RestAction<UserDisplay> retrieve(JDA jda, long userId) {
+        UserDisplay cachedDisplay = getCached(jda, userId);
+        if (cachedDisplay != null) {
+            return new CompletedRestAction<>(jda, cachedDisplay);
+        }
+
+        return jda.retrieveUserById(userId)
+            .map(UserDisplay::of)
+            .onErrorMap(ErrorResponse.UNKNOWN_USER::test, any -> UserDisplay.UNKNOWN)
+            .map(display -> {
+                userIdToDisplay.put(userId, display);
+                return display;
+            });
+    }
+
+    /**
+     * Retrieves how the given users are displayed, requesting only those that are not cached.
+     *
+     * @param jda the JDA instance to retrieve users with
+     * @param userIds the ids of the users to display, may contain duplicates
+     * @return how each of the given users is displayed, by their id
+     */
+    public RestAction<Map<Long, UserDisplay>> retrieveAll(JDA jda, Collection<Long> userIds) {
+        Set<Long> distinctUserIds = new LinkedHashSet<>(userIds);
+        if (distinctUserIds.isEmpty()) {
+            return new CompletedRestAction<>(jda, Map.of());
+        }
+
+        List<RestAction<Map.Entry<Long, UserDisplay>>> displayTasks = distinctUserIds.stream()
+            .map(userId -> retrieve(jda, userId).map(display -> Map.entry(userId, display)))
+            .toList();
+
+        return RestAction.allOf(displayTasks)
+            .map(idsAndDisplays -> idsAndDisplays.stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+    }
+
+    @Nullable
+    private UserDisplay getCached(JDA jda, long userId) {
+        User user = jda.getUserById(userId);
+        if (user != null) {
+            return UserDisplay.of(user);
+        }
+        return userIdToDisplay.getIfPresent(userId);
+    }
+
+    /**
+     * How a user is displayed.
+     *
+     * @param name the name of the user
+     * @param avatarUrl the URL to the avatar of the user, {@code null} if unknown
+     * @param isBot whether the user is a bot
+     */
+    public record UserDisplay(String name, @Nullable String avatarUrl, boolean isBot) {
+        private static final UserDisplay UNKNOWN = new UserDisplay(UNKNOWN_USER_NAME, null, false);
+
+        private static UserDisplay of(User user) {
+            return new UserDisplay(user.getName(), user.getEffectiveAvatarUrl(), user.isBot());
+        }
+    }
+}
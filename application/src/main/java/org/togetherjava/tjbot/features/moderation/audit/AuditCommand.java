@@ -17,7 +17,6 @@ import net.dv8tion.jda.api.utils.TimeUtil;
 import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
 import net.dv8tion.jda.api.utils.messages.MessageEditBuilder;
 import net.dv8tion.jda.api.utils.messages.MessageRequest;
-import net.dv8tion.jda.internal.requests.CompletedRestAction;
 
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
@@ -25,6 +24,8 @@ import org.togetherjava.tjbot.features.moderation.ActionRecord;
 import org.togetherjava.tjbot.features.moderation.ModerationAction;
 import org.togetherjava.tjbot.features.moderation.ModerationActionsStore;
 import org.togetherjava.tjbot.features.moderation.ModerationUtils;
+import org.togetherjava.tjbot.features.moderation.UserDisplayCache;
+import org.togetherjava.tjbot.features.moderation.UserDisplayCache.UserDisplay;
 
 import javax.annotation.Nullable;
 
@@ -53,13 +54,15 @@ public final class AuditCommand extends SlashCommandAdapter {
     private static final String PREVIOUS_BUTTON_LABEL = "⬅";
     private static final String NEXT_BUTTON_LABEL = "➡";
     private final ModerationActionsStore actionsStore;
+    private final UserDisplayCache userDisplayCache;
 
     /**
      * Constructs an instance.
      *
      * @param actionsStore used to store actions issued by this command
+     * @param userDisplayCache used to display the authors of the actions
      */
-    public AuditCommand(ModerationActionsStore actionsStore) {
+    public AuditCommand(ModerationActionsStore actionsStore, UserDisplayCache userDisplayCache) {
         super(COMMAND_NAME, "Lists all moderation actions that have been taken against a user",
                 CommandVisibility.GUILD);
 
@@ -67,6 +70,7 @@ public final class AuditCommand extends SlashCommandAdapter {
                 true);
 
         this.actionsStore = Objects.requireNonNull(actionsStore);
+        this.userDisplayCache = Objects.requireNonNull(userDisplayCache);
     }
 
     @Override
@@ -84,7 +88,7 @@ public final class AuditCommand extends SlashCommandAdapter {
         }
 
         auditUser(MessageCreateBuilder::new, guild.getIdLong(), target.getIdLong(),
-                event.getMember().getIdLong(), -1, event.getJDA())
+                event.getMember().getIdLong(), PageRequest.LAST_PAGE, event.getJDA())
             .map(MessageCreateBuilder::build)
             .flatMap(event::reply)
             .queue();
@@ -100,56 +104,90 @@ public final class AuditCommand extends SlashCommandAdapter {
     }
 
     /**
-     * @param pageNumber page number to display when actions are divided into pages and each page
-     *        can contain {@link AuditCommand#MAX_PAGE_LENGTH} actions, {@code -1} encodes the last
-     *        page
+     * Creates the audit message of the given target, showing the requested page only.
+     * <p>
+     * Pages are aligned to the earliest action, each page can contain
+     * {@link AuditCommand#MAX_PAGE_LENGTH} actions. Only the actions of the requested page are
+     * loaded, by paging from the neighbouring page's first or last action.
      */
     private <R extends MessageRequest<R>> RestAction<R> auditUser(
             Supplier<R> messageBuilderSupplier, long guildId, long targetId, long callerId,
-            int pageNumber, JDA jda) {
-        List<ActionRecord> actions = actionsStore.getActionsByTargetAscending(guildId, targetId);
-        List<List<ActionRecord>> groupedActions = groupActionsByPages(actions);
-        int totalPages = groupedActions.size();
-
-        int pageNumberInLimits;
-        if (pageNumber == -1) {
-            pageNumberInLimits = totalPages;
+            PageRequest pageRequest, JDA jda) {
+        Map<ModerationAction, Integer> actionTypeToCount =
+                actionsStore.countActionsByTargetPerType(guildId, targetId);
+        int totalActions = actionTypeToCount.values().stream().mapToInt(Integer::intValue).sum();
+        int totalPages = Math.ceilDiv(totalActions, MAX_PAGE_LENGTH);
+
+        List<ActionRecord> pageActions = fetchPage(guildId, targetId, pageRequest, totalActions);
+        int pageNumber;
+        if (pageRequest.isLastPage() || pageActions.isEmpty()) {
+            // The requested page might be gone, for example if actions have been purged
+            pageActions = fetchLastPage(guildId, targetId, totalActions);
+            pageNumber = totalPages;
         } else {
-            pageNumberInLimits = Math.clamp(pageNumber, 1, totalPages);
+            pageNumber = Math.clamp(pageRequest.pageNumber(), 1, totalPages);
         }
-
-        return jda.retrieveUserById(targetId)
-            .map(user -> createSummaryEmbed(user, actions))
-            .flatMap(auditEmbed -> attachEmbedFields(auditEmbed, groupedActions, pageNumberInLimits,
-                    totalPages, jda))
-            .map(auditEmbed -> attachPageTurnButtons(messageBuilderSupplier, auditEmbed,
-                    pageNumberInLimits, totalPages, guildId, targetId, callerId));
+        List<ActionRecord> actions = pageActions;
+
+        List<Long> userIdsToDisplay = new ArrayList<>();
+        userIdsToDisplay.add(targetId);
+        actions.stream().map(ActionRecord::authorId).forEach(userIdsToDisplay::add);
+
+        return userDisplayCache.retrieveAll(jda, userIdsToDisplay).map(userIdToDisplay -> {
+            EmbedBuilder auditEmbed =
+                    createSummaryEmbed(userIdToDisplay.get(targetId), actionTypeToCount);
+            attachEmbedFields(auditEmbed, actions, userIdToDisplay, pageNumber, totalPages);
+            return attachPageTurnButtons(messageBuilderSupplier, auditEmbed, actions, pageNumber,
+                    totalPages, guildId, targetId, callerId);
+        });
     }
 
-    private List<List<ActionRecord>> groupActionsByPages(List<ActionRecord> actions) {
-        List<List<ActionRecord>> groupedActions = new ArrayList<>();
-        for (int i = 0; i < actions.size(); i++) {
-            if (i % AuditCommand.MAX_PAGE_LENGTH == 0) {
-                groupedActions.add(new ArrayList<>(AuditCommand.MAX_PAGE_LENGTH));
-            }
+    private List<ActionRecord> fetchPage(long guildId, long targetId, PageRequest pageRequest,
+            int totalActions) {
+        if (pageRequest.isLastPage()) {
+            return List.of();
+        }
 
-            groupedActions.getLast().add(actions.get(i));
+        ActionRecord cursor = actionsStore.findActionByCaseId(pageRequest.cursorCaseId())
+            .filter(action -> action.guildId() == guildId && action.targetId() == targetId)
+            .orElse(null);
+        if (cursor == null) {
+            return List.of();
         }
 
-        return groupedActions;
+        return switch (pageRequest.turn()) {
+            case BEFORE ->
+                actionsStore.getActionsByTargetBefore(guildId, targetId, cursor, MAX_PAGE_LENGTH);
+            case AFTER ->
+                actionsStore.getActionsByTargetAfter(guildId, targetId, cursor, MAX_PAGE_LENGTH);
+            case LAST -> fetchLastPage(guildId, targetId, totalActions);
+        };
     }
 
-    private static EmbedBuilder createSummaryEmbed(User user, Collection<ActionRecord> actions) {
-        String avatarOrDefaultUrl = user.getEffectiveAvatarUrl();
+    private List<ActionRecord> fetchLastPage(long guildId, long targetId, int totalActions) {
+        if (totalActions == 0) {
+            return List.of();
+        }
+
+        // Pages are aligned to the earliest action, so the last page might not be full
+        int lastPageLength = totalActions % MAX_PAGE_LENGTH;
+        if (lastPageLength == 0) {
+            lastPageLength = MAX_PAGE_LENGTH;
+        }
+        return actionsStore.getLatestActionsByTarget(guildId, targetId, lastPageLength);
+    }
 
-        return new EmbedBuilder().setTitle("Audit log of **%s**".formatted(user.getName()))
-            .setAuthor(user.getName(), null, avatarOrDefaultUrl)
-            .setDescription(createSummaryMessageDescription(actions))
+    private static EmbedBuilder createSummaryEmbed(UserDisplay user,
+            Map<ModerationAction, Integer> actionTypeToCount) {
+        return new EmbedBuilder().setTitle("Audit log of **%s**".formatted(user.name()))
+            .setAuthor(user.name(), null, user.avatarUrl())
+            .setDescription(createSummaryMessageDescription(actionTypeToCount))
             .setColor(ModerationUtils.AMBIENT_COLOR);
     }
 
-    private static String createSummaryMessageDescription(Collection<ActionRecord> actions) {
-        int actionAmount = actions.size();
+    private static String createSummaryMessageDescription(
+            Map<ModerationAction, Integer> actionTypeToCount) {
+        int actionAmount = actionTypeToCount.values().stream().mapToInt(Integer::intValue).sum();
 
         String shortSummary = "There are **%s actions** against the user."
             .formatted(actionAmount == 0 ? "no" : actionAmount);
@@ -159,13 +197,10 @@ public final class AuditCommand extends SlashCommandAdapter {
         }
 
         // Summary of all actions with their count, like "- Warn: 5", descending
-        Map<ModerationAction, Long> actionTypeToCount = actions.stream()
-            .collect(Collectors.groupingBy(ActionRecord::actionType, Collectors.counting()));
-
         String typeCountSummary = actionTypeToCount.entrySet()
             .stream()
             .filter(typeAndCount -> typeAndCount.getValue() > 0)
-            .sorted(Map.Entry.<ModerationAction, Long>comparingByValue().reversed())
+            .sorted(Map.Entry.<ModerationAction, Integer>comparingByValue().reversed())
             .map(typeAndCount -> "- **%s**: %d".formatted(typeAndCount.getKey(),
                     typeAndCount.getValue()))
             .collect(Collectors.joining("\n"));
@@ -173,41 +208,30 @@ public final class AuditCommand extends SlashCommandAdapter {
         return shortSummary + "\n" + typeCountSummary;
     }
 
-    private RestAction<EmbedBuilder> attachEmbedFields(EmbedBuilder auditEmbed,
-            List<? extends List<ActionRecord>> groupedActions, int pageNumber, int totalPages,
-            JDA jda) {
-        if (groupedActions.isEmpty()) {
-            return new CompletedRestAction<>(jda, auditEmbed);
+    private static void attachEmbedFields(EmbedBuilder auditEmbed,
+            Collection<ActionRecord> actions, Map<Long, UserDisplay> userIdToDisplay,
+            int pageNumber, int totalPages) {
+        if (actions.isEmpty()) {
+            return;
         }
 
-        List<RestAction<MessageEmbed.Field>> embedFieldTasks = new ArrayList<>();
-        groupedActions.get(pageNumber - 1)
-            .forEach(action -> embedFieldTasks.add(actionToField(action, jda)));
+        actions.stream()
+            .map(action -> actionToField(action, userIdToDisplay.get(action.authorId())))
+            .forEach(auditEmbed::addField);
+        auditEmbed.setFooter("Page: " + pageNumber + "/" + totalPages);
+    }
 
-        return RestAction.allOf(embedFieldTasks).map(embedFields -> {
-            embedFields.forEach(auditEmbed::addField);
+    private static MessageEmbed.Field actionToField(ActionRecord action, UserDisplay author) {
+        String expiresAtFormatted = action.actionExpiresAt() == null ? ""
+                : "\nTemporary action, expires at: " + formatTime(action.actionExpiresAt());
 
-            auditEmbed.setFooter("Page: " + pageNumber + "/" + totalPages);
-            return auditEmbed;
-        });
-    }
+        String fieldName = "%s by %s".formatted(action.actionType().name(), author.name());
+        String fieldDescription = """
+                %s
+                Issued at: %s%s
+                """.formatted(action.reason(), formatTime(action.issuedAt()), expiresAtFormatted);
 
-    private static RestAction<MessageEmbed.Field> actionToField(ActionRecord action, JDA jda) {
-        return jda.retrieveUserById(action.authorId())
-            .map(author -> author == null ? "(unknown user)" : author.getName())
-            .map(authorText -> {
-                String expiresAtFormatted = action.actionExpiresAt() == null ? ""
-                        : "\nTemporary action, expires at: " + formatTime(action.actionExpiresAt());
-
-                String fieldName = "%s by %s".formatted(action.actionType().name(), authorText);
-                String fieldDescription = """
-                        %s
-                        Issued at: %s%s
-                        """.formatted(action.reason(), formatTime(action.issuedAt()),
-                        expiresAtFormatted);
-
-                return new MessageEmbed.Field(fieldName, fieldDescription, false);
-            });
+        return new MessageEmbed.Field(fieldName, fieldDescription, false);
     }
 
     private static String formatTime(Instant when) {
@@ -215,32 +239,32 @@ public final class AuditCommand extends SlashCommandAdapter {
     }
 
     private <R extends MessageRequest<R>> R attachPageTurnButtons(
-            Supplier<R> messageBuilderSupplier, EmbedBuilder auditEmbed, int pageNumber,
-            int totalPages, long guildId, long targetId, long callerId) {
+            Supplier<R> messageBuilderSupplier, EmbedBuilder auditEmbed,
+            List<ActionRecord> pageActions, int pageNumber, int totalPages, long guildId,
+            long targetId, long callerId) {
         var messageBuilder = messageBuilderSupplier.get();
         messageBuilder.setEmbeds(auditEmbed.build());
 
         if (totalPages <= 1) {
             return messageBuilder;
         }
-        List<Button> pageTurnButtons =
-                createPageTurnButtons(guildId, targetId, callerId, pageNumber, totalPages);
+        List<Button> pageTurnButtons = createPageTurnButtons(guildId, targetId, callerId,
+                pageActions, pageNumber, totalPages);
 
         return messageBuilder.setActionRow(pageTurnButtons);
     }
 
     private List<Button> createPageTurnButtons(long guildId, long targetId, long callerId,
-            int pageNumber, int totalPages) {
-        int previousButtonTurnPageBy = -1;
+            List<ActionRecord> pageActions, int pageNumber, int totalPages) {
         Button previousButton = createPageTurnButton(PREVIOUS_BUTTON_LABEL, guildId, targetId,
-                callerId, pageNumber, previousButtonTurnPageBy);
+                callerId, new PageRequest(pageNumber - 1, PageTurn.BEFORE,
+                        pageActions.getFirst().caseId()));
         if (pageNumber <= 1) {
             previousButton = previousButton.asDisabled();
         }
 
-        int nextButtonTurnPageBy = 1;
         Button nextButton = createPageTurnButton(NEXT_BUTTON_LABEL, guildId, targetId, callerId,
-                pageNumber, nextButtonTurnPageBy);
+                new PageRequest(pageNumber + 1, PageTurn.AFTER, pageActions.getLast().caseId()));
         if (pageNumber >= totalPages) {
             nextButton = nextButton.asDisabled();
         }
@@ -249,10 +273,10 @@ public final class AuditCommand extends SlashCommandAdapter {
     }
 
     private Button createPageTurnButton(String label, long guildId, long targetId, long callerId,
-            long pageNumber, int turnPageBy) {
+            PageRequest pageRequest) {
         return Button.primary(generateComponentId(String.valueOf(guildId), String.valueOf(targetId),
-                String.valueOf(callerId), String.valueOf(pageNumber), String.valueOf(turnPageBy)),
-                label);
+                String.valueOf(callerId), String.valueOf(pageRequest.pageNumber()),
+                pageRequest.turn().name(), String.valueOf(pageRequest.cursorCaseId())), label);
     }
 
     @Override
@@ -268,17 +292,46 @@ public final class AuditCommand extends SlashCommandAdapter {
             return;
         }
 
-        int currentPage = Integer.parseInt(args.get(3));
-        int turnPageBy = Integer.parseInt(args.get(4));
-
         long guildId = Long.parseLong(args.getFirst());
         long targetId = Long.parseLong(args.get(1));
-        int pageToDisplay = currentPage + turnPageBy;
+        PageRequest pageRequest = PageRequest.fromArgs(args);
 
-        auditUser(MessageEditBuilder::new, guildId, targetId, buttonUserId, pageToDisplay,
+        auditUser(MessageEditBuilder::new, guildId, targetId, buttonUserId, pageRequest,
                 event.getJDA())
             .map(MessageEditBuilder::build)
             .flatMap(event::editMessage)
             .queue();
     }
+
+    private enum PageTurn {
+        BEFORE,
+        AFTER,
+        LAST
+    }
+
+    /**
+     * A page to display.
+     *
+     * @param pageNumber the number of the page, starting at 1, only used for display
+     * @param turn how to reach the page from the cursor
+     * @param cursorCaseId the case id of the action to page from, exclusive
+     */
+    private record PageRequest(int pageNumber, PageTurn turn, int cursorCaseId) {
+        private static final PageRequest LAST_PAGE = new PageRequest(-1, PageTurn.LAST, -1);
+        private static final int ARGS_WITH_CURSOR = 6;
+
+        static PageRequest fromArgs(List<String> args) {
+            if (args.size() < ARGS_WITH_CURSOR) {
+                // Buttons created before paging by cursor, fall back to the last page
+                return LAST_PAGE;
+            }
+
+            return new PageRequest(Integer.parseInt(args.get(3)), PageTurn.valueOf(args.get(4)),
+                    Integer.parseInt(args.get(5)));
+        }
+
+        boolean isLastPage() {
+            return turn == PageTurn.LAST;
+        }
+    }
 }
@@ -24,6 +24,8 @@ import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.ModAuditLogGuildProcess;
 import org.togetherjava.tjbot.features.Routine;
 import org.togetherjava.tjbot.features.moderation.ModerationUtils;
+import org.togetherjava.tjbot.features.moderation.UserDisplayCache;
+import org.togetherjava.tjbot.features.moderation.UserDisplayCache.UserDisplay;
 
 import javax.annotation.Nullable;
 
@@ -66,6 +68,7 @@ public final class ModAuditLogRoutine implements Routine {
     private final Database database;
     private final Config config;
     private final ModAuditLogWriter modAuditLogWriter;
+    private final UserDisplayCache userDisplayCache;
 
     /**
      * Creates a new instance.
@@ -73,22 +76,25 @@ public final class ModAuditLogRoutine implements Routine {
      * @param database the database for memorizing audit log dates
      * @param config the config to use for this
      * @param modAuditLogWriter to log tag changes for audition
+     * @param userDisplayCache used to display the targets of the actions
      */
     public ModAuditLogRoutine(Database database, Config config,
-            ModAuditLogWriter modAuditLogWriter) {
+            ModAuditLogWriter modAuditLogWriter, UserDisplayCache userDisplayCache) {
         this.config = config;
         this.database = database;
         this.modAuditLogWriter = modAuditLogWriter;
+        this.userDisplayCache = userDisplayCache;
     }
 
-    private static RestAction<AuditLogMessage> handleAction(Action action, AuditLogEntry entry) {
+    private RestAction<AuditLogMessage> handleAction(Action action, AuditLogEntry entry) {
         User author = Objects.requireNonNull(entry.getUser());
         return getTargetFromEntryOrNull(entry).map(target -> new AuditLogMessage(author, action,
                 target, entry.getReason(), entry.getTimeCreated()));
     }
 
-    private static RestAction<User> getTargetFromEntryOrNull(AuditLogEntry entry) {
-        return entry.getJDA().retrieveUserById(entry.getTargetIdLong()).onErrorMap(error -> null);
+    private RestAction<UserDisplay> getTargetFromEntryOrNull(AuditLogEntry entry) {
+        return userDisplayCache.retrieve(entry.getJDA(), entry.getTargetIdLong())
+            .onErrorMap(error -> null);
     }
 
     private static boolean isSnowflakeAfter(ISnowflake snowflake, Instant timestamp) {
@@ -163,32 +169,31 @@ public final class ModAuditLogRoutine implements Routine {
             .orElseThrow();
     }
 
-    private static Optional<RestAction<MessageEmbed>> handleBanEntry(AuditLogEntry entry) {
+    private Optional<RestAction<MessageEmbed>> handleBanEntry(AuditLogEntry entry) {
         // NOTE Temporary bans are realized as permanent bans with automated unban,
         // hence we can not differentiate a permanent or a temporary ban here
         return Optional.of(handleAction(Action.BAN, entry).map(AuditLogMessage::toEmbed));
     }
 
-    private static Optional<RestAction<MessageEmbed>> handleUnbanEntry(AuditLogEntry entry) {
+    private Optional<RestAction<MessageEmbed>> handleUnbanEntry(AuditLogEntry entry) {
         return Optional.of(handleAction(Action.UNBAN, entry).map(AuditLogMessage::toEmbed));
     }
 
-    private static Optional<RestAction<MessageEmbed>> handleKickEntry(AuditLogEntry entry) {
+    private Optional<RestAction<MessageEmbed>> handleKickEntry(AuditLogEntry entry) {
         return Optional.of(handleAction(Action.KICK, entry).map(AuditLogMessage::toEmbed));
     }
 
-    private static Optional<RestAction<MessageEmbed>> handleMuteEntry(AuditLogEntry entry) {
+    private Optional<RestAction<MessageEmbed>> handleMuteEntry(AuditLogEntry entry) {
         // NOTE Temporary mutes are realized as permanent mutes with automated unmute,
         // hence we can not differentiate a permanent or a temporary mute here
         return Optional.of(handleAction(Action.MUTE, entry).map(AuditLogMessage::toEmbed));
     }
 
-    private static Optional<RestAction<MessageEmbed>> handleUnmuteEntry(AuditLogEntry entry) {
+    private Optional<RestAction<MessageEmbed>> handleUnmuteEntry(AuditLogEntry entry) {
         return Optional.of(handleAction(Action.UNMUTE, entry).map(AuditLogMessage::toEmbed));
     }
 
-    private static Optional<RestAction<MessageEmbed>> handleMessageDeleteEntry(
-            AuditLogEntry entry) {
+    private Optional<RestAction<MessageEmbed>> handleMessageDeleteEntry(AuditLogEntry entry) {
         return Optional.of(handleAction(Action.MESSAGE_DELETION, entry).map(message -> {
             if (message.target() != null && message.target().isBot()) {
                 // Message deletions against bots should be skipped. Cancel action.
@@ -212,6 +217,11 @@ public final class ModAuditLogRoutine implements Routine {
         return schedule;
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     private void checkAuditLogsRoutine(JDA jda) {
         logger.info("Checking audit logs of all guilds...");
 
@@ -341,10 +351,10 @@ public final class ModAuditLogRoutine implements Routine {
         }
     }
 
-    private record AuditLogMessage(User author, Action action, @Nullable User target,
+    private record AuditLogMessage(User author, Action action, @Nullable UserDisplay target,
             @Nullable String reason, TemporalAccessor timestamp) {
         MessageEmbed toEmbed() {
-            String targetTag = target == null ? "(user unknown)" : target.getName();
+            String targetTag = target == null ? "(user unknown)" : target.name();
             String description = "%s **%s**.".formatted(action.getVerb(), targetTag);
 
             if (reason != null && !reason.isBlank()) {
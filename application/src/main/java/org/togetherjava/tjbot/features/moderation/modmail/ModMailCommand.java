@@ -26,6 +26,7 @@ import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.features.CommandVisibility;
 import org.togetherjava.tjbot.features.SlashCommandAdapter;
 import org.togetherjava.tjbot.features.utils.DiscordClientAction;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.awt.Color;
 import java.time.Instant;
@@ -92,10 +93,11 @@ public final class ModMailCommand extends SlashCommandAdapter {
     }
 
     private Cache<Long, Instant> createCooldownCache() {
-        return Caffeine.newBuilder()
+        return Metrics.monitorCache("modmail_cooldown", Caffeine.newBuilder()
             .maximumSize(1_000)
             .expireAfterAccess(COOLDOWN_DURATION_VALUE, TimeUnit.of(COOLDOWN_DURATION_UNIT))
-            .build();
+            .recordStats()
+            .build());
     }
 
     @Override
@@ -25,6 +25,7 @@ import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.config.ScamBlockerConfig;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
 import org.togetherjava.tjbot.features.UserInteractionType;
 import org.togetherjava.tjbot.features.UserInteractor;
@@ -33,11 +34,16 @@ import org.togetherjava.tjbot.features.componentids.ComponentIdInteractor;
 import org.togetherjava.tjbot.features.moderation.ModerationAction;
 import org.togetherjava.tjbot.features.moderation.ModerationActionsStore;
 import org.togetherjava.tjbot.features.moderation.ModerationUtils;
+import org.togetherjava.tjbot.features.moderation.audit.ModAuditLogWriter;
 import org.togetherjava.tjbot.features.moderation.modmail.ModMailCommand;
+import org.togetherjava.tjbot.features.utils.MemberLookups;
 import org.togetherjava.tjbot.features.utils.MessageUtils;
 import org.togetherjava.tjbot.logging.LogMarkers;
+import org.togetherjava.tjbot.rest.RestBudget;
+import org.togetherjava.tjbot.rest.RestPriority;
 
 import java.awt.Color;
+import java.time.Instant;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
@@ -47,6 +53,7 @@ import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Listener that receives all sent messages from channels, checks them for scam and takes
@@ -55,7 +62,8 @@ import java.util.regex.Pattern;
  * If scam is detected, depending on the configuration, the blockers actions range from deleting the
  * message and banning the author to just logging the message for auditing.
  */
-public final class ScamBlocker extends MessageReceiverAdapter implements UserInteractor {
+public final class ScamBlocker extends MessageReceiverAdapter
+        implements UserInteractor, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(ScamBlocker.class);
     private static final Color AMBIENT_COLOR = Color.decode("#CFBFF5");
     private static final Set<ScamBlockerConfig.Mode> MODES_WITH_IMMEDIATE_DELETION =
@@ -69,6 +77,7 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
     private final Config config;
     private final ModerationActionsStore actionsStore;
     private final ScamHistoryStore scamHistoryStore;
+    private final ModAuditLogWriter modAuditLogWriter;
     private final Predicate<String> hasRequiredRole;
 
     private final ComponentIdInteractor componentIdInteractor;
@@ -78,12 +87,14 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
      *
      * @param actionsStore to store quarantine actions in
      * @param scamHistoryStore to store and retrieve scam history from
+     * @param modAuditLogWriter to log purges of confirmed scam to
      * @param config the config to use for this
      */
     public ScamBlocker(ModerationActionsStore actionsStore, ScamHistoryStore scamHistoryStore,
-            Config config) {
+            ModAuditLogWriter modAuditLogWriter, Config config) {
         this.actionsStore = actionsStore;
         this.scamHistoryStore = scamHistoryStore;
+        this.modAuditLogWriter = modAuditLogWriter;
         this.config = config;
         mode = config.getScamBlocker().getMode();
         scamDetector = new ScamDetector(config);
@@ -97,6 +108,15 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
         componentIdInteractor = new ComponentIdInteractor(getInteractionType(), getName());
     }
 
+    /**
+     * Stops the scam history store that this blocker writes to, writing all pending scam right
+     * away.
+     */
+    @Override
+    public void close() {
+        scamHistoryStore.close();
+    }
+
     @Override
     public String getName() {
         return "scam-blocker";
@@ -113,7 +133,7 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (event.getAuthor().isBot() || event.isWebhookMessage()) {
             return;
         }
@@ -122,23 +142,24 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
             return;
         }
 
-        Message message = event.getMessage();
-        String content = message.getContentDisplay();
-        if (!scamDetector.isScam(content)) {
+        if (!scamDetector.isScam(analysis)) {
             return;
         }
 
-        if (scamHistoryStore.hasRecentScamDuplicate(message)) {
-            takeActionWasAlreadyReported(event);
+        Message message = event.getMessage();
+
+        String contentHash = ScamHistoryStore.hashMessageContent(message);
+        if (scamHistoryStore.hasRecentScamDuplicate(message, contentHash)) {
+            takeActionWasAlreadyReported(event, contentHash);
             return;
         }
 
-        takeAction(event);
+        takeAction(event, contentHash);
     }
 
-    private void takeActionWasAlreadyReported(MessageReceivedEvent event) {
+    private void takeActionWasAlreadyReported(MessageReceivedEvent event, String contentHash) {
         // The user recently send the same scam already, and that was already reported and handled
-        addScamToHistory(event);
+        addScamToHistory(event, contentHash);
 
         boolean shouldDeleteMessage = MODES_WITH_IMMEDIATE_DELETION.contains(mode);
         if (shouldDeleteMessage) {
@@ -146,39 +167,43 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
         }
     }
 
-    private void takeAction(MessageReceivedEvent event) {
+    private void takeAction(MessageReceivedEvent event, String contentHash) {
         switch (mode) {
             case OFF -> throw new AssertionError(
                     "The OFF-mode should be detected earlier already to prevent expensive computation");
-            case ONLY_LOG -> takeActionLogOnly(event);
-            case APPROVE_FIRST -> takeActionApproveFirst(event);
+            case ONLY_LOG -> takeActionLogOnly(event, contentHash);
+            case APPROVE_FIRST -> takeActionApproveFirst(event, contentHash);
             case AUTO_DELETE_BUT_APPROVE_QUARANTINE ->
-                takeActionAutoDeleteButApproveQuarantine(event);
-            case AUTO_DELETE_AND_QUARANTINE -> takeActionAutoDeleteAndQuarantine(event);
+                takeActionAutoDeleteButApproveQuarantine(event, contentHash);
+            case AUTO_DELETE_AND_QUARANTINE ->
+                takeActionAutoDeleteAndQuarantine(event, contentHash);
             default -> throw new IllegalArgumentException("Mode not supported: " + mode);
         }
     }
 
-    private void takeActionLogOnly(MessageReceivedEvent event) {
-        addScamToHistory(event);
+    private void takeActionLogOnly(MessageReceivedEvent event, String contentHash) {
+        addScamToHistory(event, contentHash);
         logScamMessage(event);
     }
 
-    private void takeActionApproveFirst(MessageReceivedEvent event) {
-        addScamToHistory(event);
+    private void takeActionApproveFirst(MessageReceivedEvent event, String contentHash) {
+        addScamToHistory(event, contentHash);
         logScamMessage(event);
-        reportScamMessage(event, "Is this scam?", createConfirmDialog(event));
+        reportScamMessage(event, "Is this scam?", createConfirmDialog(event, contentHash));
     }
 
-    private void takeActionAutoDeleteButApproveQuarantine(MessageReceivedEvent event) {
-        addScamToHistory(event);
+    private void takeActionAutoDeleteButApproveQuarantine(MessageReceivedEvent event,
+            String contentHash) {
+        addScamToHistory(event, contentHash);
         logScamMessage(event);
         deleteMessage(event);
-        reportScamMessage(event, "Is this scam? (already deleted)", createConfirmDialog(event));
+        reportScamMessage(event, "Is this scam? (already deleted)",
+                createConfirmDialog(event, contentHash));
     }
 
-    private void takeActionAutoDeleteAndQuarantine(MessageReceivedEvent event) {
-        addScamToHistory(event);
+    private void takeActionAutoDeleteAndQuarantine(MessageReceivedEvent event,
+            String contentHash) {
+        addScamToHistory(event, contentHash);
         logScamMessage(event);
         deleteMessage(event);
         quarantineAuthor(event);
@@ -186,8 +211,9 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
         reportScamMessage(event, "Detected and handled scam", List.of());
     }
 
-    private void addScamToHistory(MessageReceivedEvent event) {
-        scamHistoryStore.addScam(event.getMessage(), MODES_WITH_IMMEDIATE_DELETION.contains(mode));
+    private void addScamToHistory(MessageReceivedEvent event, String contentHash) {
+        scamHistoryStore.addScam(event.getMessage(), MODES_WITH_IMMEDIATE_DELETION.contains(mode),
+                contentHash);
     }
 
     private void logScamMessage(MessageReceivedEvent event) {
@@ -198,7 +224,7 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
     }
 
     private void deleteMessage(MessageReceivedEvent event) {
-        event.getMessage().delete().queue();
+        RestBudget.queue(RestPriority.URGENT, event.getMessage().delete());
     }
 
     private void quarantineAuthor(MessageReceivedEvent event) {
@@ -282,11 +308,10 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
         return guild.getTextChannelCache().stream().filter(isReportChannel).findAny();
     }
 
-    private List<Button> createConfirmDialog(MessageReceivedEvent event) {
+    private List<Button> createConfirmDialog(MessageReceivedEvent event, String contentHash) {
         ComponentIdArguments args = new ComponentIdArguments(mode, event.getGuild().getIdLong(),
                 event.getChannel().getIdLong(), event.getMessageIdLong(),
-                event.getAuthor().getIdLong(),
-                ScamHistoryStore.hashMessageContent(event.getMessage()));
+                event.getAuthor().getIdLong(), contentHash);
 
         return List.of(Button.success(generateComponentId(args), "Yes"),
                 Button.danger(generateComponentId(args), "No"));
@@ -331,18 +356,8 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
             // Delete all messages like this
             Collection<ScamHistoryStore.ScamIdentification> scamMessages = scamHistoryStore
                 .markScamDuplicatesDeleted(args.guildId, args.authorId, args.contentHash);
-
-            scamMessages.forEach(scamMessage -> {
-                TextChannel channel = guild.getTextChannelById(scamMessage.channelId());
-                if (channel == null) {
-                    logger.debug(
-                            "Attempted to delete scam messages, but the channel '{}' does not exist anymore, skipping deleting messages for this channel.",
-                            scamMessage.channelId());
-                    return;
-                }
-
-                channel.deleteMessageById(scamMessage.messageId()).mapToResult().queue();
-            });
+            ScamPurge.purge(guild, scamMessages)
+                .queue(purge -> auditScamPurge(guild, author, event.getUser(), purge));
         };
 
         Consumer<Throwable> onRetrieveAuthorFailure = new ErrorHandler()
@@ -354,10 +369,36 @@ public final class ScamBlocker extends MessageReceiverAdapter implements UserInt
                     "Attempted to handle scam, but user '{}' is not a member of the guild anymore.",
                     args.authorId));
 
-        guild.retrieveMemberById(args.authorId)
+        MemberLookups.retrieveMember(guild, args.authorId)
             .queue(onRetrieveAuthorSuccess, onRetrieveAuthorFailure);
     }
 
+    private void auditScamPurge(Guild guild, Member author, User moderator,
+            ScamPurge.Result purge) {
+        logger.info(LogMarkers.SENSITIVE,
+                "Purged {} scam messages from {} channels sent by author '{}' in guild '{}', {} could not be deleted",
+                purge.deletedMessages(), purge.channelIdToDeletedMessages().size(),
+                author.getId(), guild.getId(), purge.failedMessages());
+
+        String deletedPerChannel = purge.channelIdToDeletedMessages()
+            .entrySet()
+            .stream()
+            .map(channelIdAndDeletedMessages -> "%s: %d".formatted(
+                    MessageUtils.mentionChannelById(channelIdAndDeletedMessages.getKey()),
+                    channelIdAndDeletedMessages.getValue()))
+            .collect(Collectors.joining("\n"));
+        String description = """
+                Deleted %d scam messages sent by %s in %d channels, %d could not be deleted.
+                %s"""
+            .formatted(purge.deletedMessages(), author.getAsMention(),
+                    purge.channelIdToDeletedMessages().size(), purge.failedMessages(),
+                    deletedPerChannel);
+
+        modAuditLogWriter.write("Scam purged",
+                MessageUtils.abbreviate(description, MessageEmbed.DESCRIPTION_MAX_LENGTH),
+                moderator, Instant.now(), guild);
+    }
+
     private record ComponentIdArguments(ScamBlockerConfig.Mode mode, long guildId, long channelId,
             long messageId, long authorId, String contentHash) {
 
@@ -2,9 +2,11 @@ package org.togetherjava.tjbot.features.moderation.scam;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.config.ScamBlockerConfig;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.utils.StringDistances;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Locale;
 import java.util.regex.Pattern;
 
@@ -12,11 +14,12 @@ import java.util.regex.Pattern;
  * Detects whether a text message classifies as scam or not, using certain heuristics.
  *
  * Highly configurable, using {@link ScamBlockerConfig}. Main method to use is
- * {@link #isScam(CharSequence)}.
+ * {@link #isScam(MessageAnalysis)}.
  */
 public final class ScamDetector {
     private static final Pattern TOKENIZER = Pattern.compile("[\\s,]");
     private final ScamBlockerConfig config;
+    private final List<String> lowercaseSuspiciousKeywords;
 
     /**
      * Creates a new instance with the given configuration
@@ -25,6 +28,22 @@ public final class ScamDetector {
      */
     public ScamDetector(Config config) {
         this.config = config.getScamBlocker();
+        lowercaseSuspiciousKeywords = this.config.getSuspiciousKeywords()
+            .stream()
+            .map(keyword -> keyword.toLowerCase(Locale.US))
+            .toList();
+    }
+
+    /**
+     * Detects whether the analyzed message classifies as scam or not, using certain heuristics.
+     * <p>
+     * Reuses the words of the message, as already split by the analysis.
+     *
+     * @param analysis the analysis of the message
+     * @return Whether the message classifies as scam
+     */
+    public boolean isScam(MessageAnalysis analysis) {
+        return isScam(analysis.getTokens(), analysis.getLowercaseTokens());
     }
 
     /**
@@ -34,8 +53,18 @@ public final class ScamDetector {
      * @return Whether the message classifies as scam
      */
     public boolean isScam(CharSequence message) {
+        List<String> tokens =
+                TOKENIZER.splitAsStream(message).filter(token -> !token.isBlank()).toList();
+        List<String> lowercaseTokens =
+                tokens.stream().map(token -> token.toLowerCase(Locale.US)).toList();
+        return isScam(tokens, lowercaseTokens);
+    }
+
+    private boolean isScam(List<String> tokens, List<String> lowercaseTokens) {
         AnalyseResults results = new AnalyseResults();
-        TOKENIZER.splitAsStream(message).forEach(token -> analyzeToken(token, results));
+        for (int i = 0; i < tokens.size(); i++) {
+            analyzeToken(tokens.get(i), lowercaseTokens.get(i), results);
+        }
         return isScam(results);
     }
 
@@ -46,16 +75,12 @@ public final class ScamDetector {
         return results.containsSuspiciousKeyword && results.hasSuspiciousUrl;
     }
 
-    private void analyzeToken(String token, AnalyseResults results) {
-        if (token.isBlank()) {
-            return;
-        }
-
-        if (!results.pingsEveryone && "@everyone".equalsIgnoreCase(token)) {
+    private void analyzeToken(String token, String lowercaseToken, AnalyseResults results) {
+        if (!results.pingsEveryone && "@everyone".equals(lowercaseToken)) {
             results.pingsEveryone = true;
         }
 
-        if (!results.containsSuspiciousKeyword && containsSuspiciousKeyword(token)) {
+        if (!results.containsSuspiciousKeyword && containsSuspiciousKeyword(lowercaseToken)) {
             results.containsSuspiciousKeyword = true;
         }
 
@@ -96,13 +121,8 @@ public final class ScamDetector {
         }
     }
 
-    private boolean containsSuspiciousKeyword(String token) {
-        String preparedToken = token.toLowerCase(Locale.US);
-
-        return config.getSuspiciousKeywords()
-            .stream()
-            .map(keyword -> keyword.toLowerCase(Locale.US))
-            .anyMatch(preparedToken::contains);
+    private boolean containsSuspiciousKeyword(String lowercaseToken) {
+        return lowercaseSuspiciousKeywords.stream().anyMatch(lowercaseToken::contains);
     }
 
     private boolean isHostSimilarToKeyword(String host, String keyword) {
@@ -29,6 +29,11 @@ public final class ScamHistoryPurgeRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 1, TimeUnit.DAYS);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
         scamHistoryStore.deleteHistoryOlderThan(Instant.now().minus(DELETE_SCAM_RECORDS_AFTER));
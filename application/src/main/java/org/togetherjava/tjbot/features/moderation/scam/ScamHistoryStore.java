@@ -1,17 +1,33 @@
 package org.togetherjava.tjbot.features.moderation.scam;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import net.dv8tion.jda.api.entities.Message;
+import org.jooq.Condition;
 import org.jooq.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.db.generated.tables.records.ScamHistoryRecord;
+import org.togetherjava.tjbot.features.retention.RetentionPolicy;
+import org.togetherjava.tjbot.features.retention.RetentionPurger;
 import org.togetherjava.tjbot.features.utils.Hashing;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTORY;
 
@@ -20,19 +36,54 @@ import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTOR
  * events and further processing and handling of scam. For example, to delete a group of duplicate
  * scam messages after a moderator confirmed that it actually is scam and decided for an action.
  * <p>
- * Scam has to be added to the store using {@link #addScam(Message, boolean)} and can then be used
- * to determine {@link #hasRecentScamDuplicate(Message)} or for further processing, such as
- * {@link #markScamDuplicatesDeleted(Message)}.
+ * Scam has to be added to the store using {@link #addScam(Message, boolean, String)} and can then
+ * be used to determine {@link #hasRecentScamDuplicate(Message, String)} or for further processing,
+ * such as {@link #markScamDuplicatesDeleted(Message)}.
+ * <p>
+ * Recent scam is additionally kept in memory, per guild, author and content, so that duplicates can
+ * be detected without accessing the database. This matters during waves of the same scam. Scam is
+ * written to the database asynchronously in batches, shortly after it was added. If a batch fails
+ * to be written, its scam is written one by one instead, so that a single bad record does not hold
+ * back the others. Scam that still fails to be written is retried with the next batches, up to
+ * {@value MAX_WRITE_ATTEMPTS} attempts, and then dropped. Scam that is still pending when the store
+ * is closed, or the application shuts down, is written right away.
  * <p>
  * Entries are only kept for a certain amount of time and will be purged regularly by
  * {@link ScamHistoryPurgeRoutine}.
  * <p>
  * The store persists the actions and is thread safe.
  */
-public final class ScamHistoryStore {
-    private final Database database;
+public final class ScamHistoryStore implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ScamHistoryStore.class);
     private static final Duration RECENT_SCAM_DURATION = Duration.ofMinutes(15);
     private static final String HASH_METHOD = "SHA";
+    private static final int MAX_RECENT_SCAM = 10_000;
+    private static final Duration FLUSH_PENDING_SCAM_EVERY = Duration.ofSeconds(2);
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final Database database;
+    private final RetentionPurger retentionPurger;
+    /**
+     * Recent scam, by when its latest duplicate was sent. Entries expire once they are not recent
+     * anymore.
+     */
+    private final Cache<ScamFingerprint, Instant> recentScamToSentAt =
+            Metrics.monitorCache("scam_recent_fingerprints", Caffeine.newBuilder()
+                .maximumSize(MAX_RECENT_SCAM)
+                .expireAfter(new RecentScamExpiry())
+                .recordStats()
+                .build());
+    private final Queue<PendingScam> pendingScam = new ConcurrentLinkedQueue<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flushService =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "scam-history-flush");
+                // Pending scam is flushed by the shutdown hook instead
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Thread shutdownHook =
+            new Thread(this::flushPendingScam, "scam-history-shutdown");
 
     /**
      * Creates a new instance.
@@ -41,26 +92,101 @@ public final class ScamHistoryStore {
      */
     public ScamHistoryStore(Database database) {
         this.database = database;
+        retentionPurger = new RetentionPurger(database);
+
+        loadRecentScam();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        flushService.scheduleWithFixedDelay(this::flushPendingScam,
+                FLUSH_PENDING_SCAM_EVERY.toMillis(), FLUSH_PENDING_SCAM_EVERY.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    private void loadRecentScam() {
+        Instant recentScamThreshold = Instant.now().minus(RECENT_SCAM_DURATION);
+
+        database
+            .read(context -> context.selectFrom(SCAM_HISTORY)
+                .where(SCAM_HISTORY.SENT_AT.greaterOrEqual(recentScamThreshold))
+                .fetch())
+            .forEach(scamRecord -> rememberRecentScam(ScamFingerprint.of(scamRecord),
+                    scamRecord.getSentAt()));
     }
 
     /**
      * Adds the given scam message to the store.
+     * <p>
+     * The message is written to the database asynchronously, but is considered by all methods of
+     * this store immediately.
      *
      * @param scam the message to add
      * @param isDeleted whether the message is already, or about to get, deleted
+     * @param contentHash a hash identifying the content of the message, as determined by
+     *        {@link #hashMessageContent(Message)}
      */
-    public void addScam(Message scam, boolean isDeleted) {
+    public void addScam(Message scam, boolean isDeleted, String contentHash) {
         Objects.requireNonNull(scam);
 
-        database.write(context -> context.newRecord(SCAM_HISTORY)
-            .setSentAt(scam.getTimeCreated().toInstant())
+        Instant sentAt = scam.getTimeCreated().toInstant();
+        ScamHistoryRecord scamRecord = new ScamHistoryRecord().setSentAt(sentAt)
             .setGuildId(scam.getGuild().getIdLong())
             .setChannelId(scam.getChannel().getIdLong())
             .setMessageId(scam.getIdLong())
             .setAuthorId(scam.getAuthor().getIdLong())
-            .setContentHash(hashMessageContent(scam))
-            .setIsDeleted(isDeleted)
-            .insert());
+            .setContentHash(contentHash)
+            .setIsDeleted(isDeleted);
+
+        rememberRecentScam(ScamFingerprint.of(scamRecord), sentAt);
+        pendingScam.add(new PendingScam(scamRecord, 0));
+    }
+
+    private void rememberRecentScam(ScamFingerprint fingerprint, Instant sentAt) {
+        recentScamToSentAt.asMap()
+            .merge(fingerprint, sentAt, (sentAtBefore, sentAtNow) -> sentAtBefore
+                .isAfter(sentAtNow) ? sentAtBefore : sentAtNow);
+    }
+
+    private void flushPendingScam() {
+        synchronized (flushLock) {
+            List<PendingScam> scamToWrite = new ArrayList<>();
+            PendingScam scam;
+            while ((scam = pendingScam.poll()) != null) {
+                scamToWrite.add(scam);
+            }
+            if (scamToWrite.isEmpty()) {
+                return;
+            }
+
+            List<ScamHistoryRecord> scamRecords =
+                    scamToWrite.stream().map(PendingScam::scamRecord).toList();
+            try {
+                // A failed batch is not partially written in a transaction, it can hence be retried
+                database.writeTransaction(context -> context.batchInsert(scamRecords).execute());
+            } catch (RuntimeException e) {
+                logger.warn(
+                        "Failed to write {} scam messages to the history, writing them one by one",
+                        scamToWrite.size(), e);
+                scamToWrite.forEach(this::writePendingScam);
+            }
+        }
+    }
+
+    private void writePendingScam(PendingScam scam) {
+        try {
+            database.write(context -> context.executeInsert(scam.scamRecord()));
+        } catch (RuntimeException e) {
+            int failedWrites = scam.failedWrites() + 1;
+            if (failedWrites >= MAX_WRITE_ATTEMPTS) {
+                logger.error("Failed to write scam message {} to the history {} times, dropping it",
+                        scam.scamRecord().getMessageId(), failedWrites, e);
+                return;
+            }
+
+            // The history is evidence for moderation, so it is kept to be retried later
+            pendingScam.add(new PendingScam(scam.scamRecord(), failedWrites));
+            logger.warn(
+                    "Failed to write scam message {} to the history, retrying with the next batch",
+                    scam.scamRecord().getMessageId(), e);
+        }
     }
 
     /**
@@ -88,16 +214,23 @@ public final class ScamHistoryStore {
      */
     public Collection<ScamIdentification> markScamDuplicatesDeleted(long guildId, long authorId,
             String contentHash) {
+        // Duplicates that are not written yet must be marked as well
+        flushPendingScam();
+
+        Condition isUndeletedDuplicate = SCAM_HISTORY.GUILD_ID.eq(guildId)
+            .and(SCAM_HISTORY.AUTHOR_ID.eq(authorId))
+            .and(SCAM_HISTORY.CONTENT_HASH.eq(contentHash))
+            .and(SCAM_HISTORY.IS_DELETED.isFalse());
+
         return database.writeAndProvide(context -> {
-            Result<ScamHistoryRecord> undeletedDuplicates = context.selectFrom(SCAM_HISTORY)
-                .where(SCAM_HISTORY.GUILD_ID.eq(guildId)
-                    .and(SCAM_HISTORY.AUTHOR_ID.eq(authorId))
-                    .and(SCAM_HISTORY.CONTENT_HASH.eq(contentHash))
-                    .and(SCAM_HISTORY.IS_DELETED.isFalse()))
-                .fetch();
+            Result<ScamHistoryRecord> undeletedDuplicates =
+                    context.selectFrom(SCAM_HISTORY).where(isUndeletedDuplicate).fetch();
 
-            undeletedDuplicates
-                .forEach(undeletedDuplicate -> undeletedDuplicate.setIsDeleted(true).update());
+            // All duplicates are marked at once, the write lock keeps the selection accurate
+            context.update(SCAM_HISTORY)
+                .set(SCAM_HISTORY.IS_DELETED, true)
+                .where(isUndeletedDuplicate)
+                .execute();
 
             return undeletedDuplicates.stream().map(ScamIdentification::ofDatabaseRecord).toList();
         });
@@ -106,29 +239,31 @@ public final class ScamHistoryStore {
     /**
      * Whether there are recent (a few minutes) duplicates to the given scam message (i.e. same
      * guild, author, content, ...).
+     * <p>
+     * This does not access the database.
      *
      * @param scam the scam message to look for duplicates
+     * @param contentHash a hash identifying the content of the message, as determined by
+     *        {@link #hashMessageContent(Message)}
      * @return whether there are recent duplicates
      */
-    public boolean hasRecentScamDuplicate(Message scam) {
-        Instant recentScamThreshold = Instant.now().minus(RECENT_SCAM_DURATION);
+    public boolean hasRecentScamDuplicate(Message scam, String contentHash) {
+        ScamFingerprint fingerprint = new ScamFingerprint(scam.getGuild().getIdLong(),
+                scam.getAuthor().getIdLong(), contentHash);
 
-        return database.read(context -> context.fetchCount(SCAM_HISTORY,
-                SCAM_HISTORY.SENT_AT.greaterOrEqual(recentScamThreshold)
-                    .and(SCAM_HISTORY.GUILD_ID.eq(scam.getGuild().getIdLong()))
-                    .and(SCAM_HISTORY.AUTHOR_ID.eq(scam.getAuthor().getIdLong()))
-                    .and(SCAM_HISTORY.CONTENT_HASH.eq(hashMessageContent(scam))))) != 0;
+        return recentScamToSentAt.getIfPresent(fingerprint) != null;
     }
 
     /**
      * Deletes all scam records from the history, which have been sent earlier than the given time.
+     * <p>
+     * Records are deleted in chunks, see {@link RetentionPurger}.
      *
      * @param olderThan all records older than this will be deleted
      */
     public void deleteHistoryOlderThan(Instant olderThan) {
-        database.write(context -> context.deleteFrom(SCAM_HISTORY)
-            .where(SCAM_HISTORY.SENT_AT.lessOrEqual(olderThan))
-            .execute());
+        retentionPurger.purge(RetentionPolicy.of("scam_history", SCAM_HISTORY,
+                () -> SCAM_HISTORY.SENT_AT.lessOrEqual(olderThan)));
     }
 
     /**
@@ -142,6 +277,70 @@ public final class ScamHistoryStore {
                 message.getContentRaw().getBytes(StandardCharsets.UTF_8)));
     }
 
+    /**
+     * Stops writing scam in the background and writes all pending scam right away.
+     */
+    @Override
+    public void close() {
+        flushService.shutdown();
+        flushPendingScam();
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, the hook is running or ran already
+        }
+    }
+
+    /**
+     * Identifies duplicates of scam, i.e. scam with the same content sent by the same author in the
+     * same guild.
+     *
+     * @param guildId the id of the guild the scam was sent in
+     * @param authorId the id of the author who sent the scam
+     * @param contentHash the unique hash of the scam content
+     */
+    private record ScamFingerprint(long guildId, long authorId, String contentHash) {
+        private static ScamFingerprint of(ScamHistoryRecord scamRecord) {
+            return new ScamFingerprint(scamRecord.getGuildId(), scamRecord.getAuthorId(),
+                    scamRecord.getContentHash());
+        }
+    }
+
+    /**
+     * Scam that is not written to the database yet.
+     *
+     * @param scamRecord the record to write
+     * @param failedWrites how often writing the record failed already
+     */
+    private record PendingScam(ScamHistoryRecord scamRecord, int failedWrites) {
+    }
+
+    /**
+     * Expires recent scam once it was sent longer than {@link #RECENT_SCAM_DURATION} ago.
+     */
+    private static final class RecentScamExpiry implements Expiry<ScamFingerprint, Instant> {
+        @Override
+        public long expireAfterCreate(ScamFingerprint fingerprint, Instant sentAt,
+                long currentTime) {
+            Duration stillRecentFor =
+                    Duration.between(Instant.now(), sentAt.plus(RECENT_SCAM_DURATION));
+            return Math.max(0, stillRecentFor.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(ScamFingerprint fingerprint, Instant sentAt,
+                long currentTime, long currentDuration) {
+            return expireAfterCreate(fingerprint, sentAt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ScamFingerprint fingerprint, Instant sentAt,
+                long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     /**
      * Identification of a scam message, consisting mostly of IDs that uniquely identify it.
      *
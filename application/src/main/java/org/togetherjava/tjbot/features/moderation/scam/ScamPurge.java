@@ -0,0 +1,145 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import net.dv8tion.jda.api.Permission;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import net.dv8tion.jda.internal.requests.CompletedRestAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes confirmed scam messages, which may be spread over many channels.
+ * <p>
+ * Messages are grouped by their channel. Within a channel, messages that are young enough are
+ * deleted with Discord's bulk-delete endpoint, up to 100 at once. Only older messages are deleted
+ * one by one. Compared to deleting every message on its own, this keeps the amount of requests low,
+ * so that the scam disappears quickly also if it was spammed across the whole guild.
+ */
+final class ScamPurge {
+    private static final Logger logger = LoggerFactory.getLogger(ScamPurge.class);
+    /**
+     * Discord refuses to bulk-delete messages older than 14 days. The margin accounts for the time
+     * until the request is sent and for clock drift.
+     */
+    private static final Duration MAX_BULK_DELETE_AGE = Duration.ofDays(14).minusHours(1);
+    private static final int MAX_BULK_DELETE_MESSAGES = 100;
+
+    private ScamPurge() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Deletes the given scam messages.
+     *
+     * @param guild the guild the messages were sent in
+     * @param scamMessages the messages to delete
+     * @return the outcome of the purge, the action never fails
+     */
+    static RestAction<Result> purge(Guild guild,
+            Collection<ScamHistoryStore.ScamIdentification> scamMessages) {
+        Map<Long, List<Long>> channelIdToMessageIds = scamMessages.stream()
+            .collect(Collectors.groupingBy(ScamHistoryStore.ScamIdentification::channelId,
+                    Collectors.mapping(ScamHistoryStore.ScamIdentification::messageId,
+                            Collectors.toList())));
+
+        List<RestAction<Map.Entry<Long, Integer>>> channelPurges = new ArrayList<>();
+        channelIdToMessageIds.forEach((channelId, messageIds) -> {
+            TextChannel channel = guild.getTextChannelById(channelId);
+            if (channel == null) {
+                logger.debug(
+                        "Attempted to delete scam messages, but the channel '{}' does not exist anymore, skipping deleting messages for this channel.",
+                        channelId);
+                return;
+            }
+
+            channelPurges.add(purgeChannel(channel, messageIds)
+                .map(deletedMessages -> Map.entry(channelId, deletedMessages)));
+        });
+
+        int totalMessages = scamMessages.size();
+        if (channelPurges.isEmpty()) {
+            return new CompletedRestAction<>(guild.getJDA(), new Result(Map.of(), totalMessages));
+        }
+
+        return RestAction.allOf(channelPurges).map(channelIdsAndDeletedMessages -> {
+            Map<Long, Integer> channelIdToDeletedMessages = channelIdsAndDeletedMessages.stream()
+                .filter(channelIdAndDeletedMessages -> channelIdAndDeletedMessages.getValue() > 0)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+            int deletedMessages = channelIdToDeletedMessages.values()
+                .stream()
+                .mapToInt(Integer::intValue)
+                .sum();
+            return new Result(channelIdToDeletedMessages, totalMessages - deletedMessages);
+        });
+    }
+
+    private static RestAction<Integer> purgeChannel(TextChannel channel, List<Long> messageIds) {
+        if (!channel.getGuild().getSelfMember().hasPermission(channel, Permission.MESSAGE_MANAGE)) {
+            logger.warn(
+                    "Attempted to delete scam messages, but the bot lacks the permission to manage messages in channel '{}', skipping deleting messages for this channel.",
+                    channel.getId());
+            return new CompletedRestAction<>(channel.getJDA(), 0);
+        }
+
+        OffsetDateTime oldestBulkDeletable = OffsetDateTime.now().minus(MAX_BULK_DELETE_AGE);
+        Map<Boolean, List<String>> isBulkDeletableToMessageIds = messageIds.stream()
+            .collect(Collectors.partitioningBy(
+                    messageId -> TimeUtil.getTimeCreated(messageId).isAfter(oldestBulkDeletable),
+                    Collectors.mapping(String::valueOf, Collectors.toList())));
+
+        List<RestAction<Integer>> deletions = new ArrayList<>();
+        List<String> bulkDeletableMessageIds = isBulkDeletableToMessageIds.get(true);
+        for (int i = 0; i < bulkDeletableMessageIds.size(); i += MAX_BULK_DELETE_MESSAGES) {
+            List<String> chunk = bulkDeletableMessageIds.subList(i,
+                    Math.min(i + MAX_BULK_DELETE_MESSAGES, bulkDeletableMessageIds.size()));
+            // The bulk-delete endpoint requires at least two messages
+            if (chunk.size() == 1) {
+                deletions.add(deleteMessage(channel, chunk.getFirst()));
+            } else {
+                deletions.add(channel.deleteMessagesByIds(chunk)
+                    .mapToResult()
+                    .map(result -> result.isSuccess() ? chunk.size() : 0));
+            }
+        }
+        isBulkDeletableToMessageIds.get(false)
+            .forEach(messageId -> deletions.add(deleteMessage(channel, messageId)));
+
+        return RestAction.allOf(deletions)
+            .map(deletedMessages -> deletedMessages.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private static RestAction<Integer> deleteMessage(TextChannel channel, String messageId) {
+        return channel.deleteMessageById(messageId)
+            .mapToResult()
+            .map(result -> result.isSuccess() ? 1 : 0);
+    }
+
+    /**
+     * Outcome of a purge.
+     *
+     * @param channelIdToDeletedMessages the amount of deleted messages, by the id of the channel
+     *        they were deleted in. Channels without deleted messages are not included.
+     * @param failedMessages the amount of messages that could not be deleted, for example because
+     *        they have already been deleted by someone else
+     */
+    record Result(Map<Long, Integer> channelIdToDeletedMessages, int failedMessages) {
+        /**
+         * Gets the total amount of deleted messages, over all channels.
+         *
+         * @return the amount of deleted messages
+         */
+        int deletedMessages() {
+            return channelIdToDeletedMessages.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+}
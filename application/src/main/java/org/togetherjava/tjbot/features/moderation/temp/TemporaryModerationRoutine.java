@@ -65,6 +65,11 @@ public final class TemporaryModerationRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_DELAY, 5, 5, TimeUnit.MINUTES);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.TIME_CRITICAL;
+    }
+
     private void checkExpiredActions() {
         logger.debug("Checking expired temporary moderation actions to revoke...");
 
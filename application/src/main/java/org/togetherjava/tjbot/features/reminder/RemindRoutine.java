@@ -54,6 +54,11 @@ public final class RemindRoutine implements Routine {
                 TimeUnit.SECONDS);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.TIME_CRITICAL;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
         Instant now = Instant.now();
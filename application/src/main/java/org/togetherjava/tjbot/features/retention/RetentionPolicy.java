@@ -0,0 +1,39 @@
+package org.togetherjava.tjbot.features.retention;
+
+import org.jooq.Condition;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.Table;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Declares when the rows of a table expire. Expired rows are deleted by {@link RetentionPurger}.
+ *
+ * @param name the name of the policy, for example used to label metrics
+ * @param table the table to delete expired rows from
+ * @param isExpired creates the condition matching expired rows, called once per purge, for example
+ *        to compare against the current time
+ * @param purgeListener called with every chunk of deleted rows, right after they were deleted.
+ *        Called while holding the write lock of the database, it must hence be fast.
+ * @param <R> the type of the rows of the table
+ */
+public record RetentionPolicy<R extends Record>(String name, Table<R> table,
+        Supplier<Condition> isExpired, Consumer<? super Result<R>> purgeListener) {
+
+    /**
+     * Creates a policy that does not react to deleted rows.
+     *
+     * @param name the name of the policy, for example used to label metrics
+     * @param table the table to delete expired rows from
+     * @param isExpired creates the condition matching expired rows, called once per purge
+     * @param <R> the type of the rows of the table
+     * @return the created policy
+     */
+    public static <R extends Record> RetentionPolicy<R> of(String name, Table<R> table,
+            Supplier<Condition> isExpired) {
+        return new RetentionPolicy<>(name, table, isExpired, purgedRows -> {
+        });
+    }
+}
@@ -0,0 +1,164 @@
+package org.togetherjava.tjbot.features.retention;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.Result;
+import org.jooq.impl.DSL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.metrics.Counter;
+import org.togetherjava.tjbot.metrics.LatencyHistogram;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Deletes expired rows, as declared by {@link RetentionPolicy}.
+ * <p>
+ * Rows are deleted in chunks of bounded size, each holding the write lock of the database only
+ * briefly. The purger pauses between chunks, so that other writes are not held up, also while a
+ * large backlog of expired rows drains. A single purge gives up after a while, leaving remaining
+ * rows to the next purge.
+ * <p>
+ * Callers that keep state derived from the purged rows, for example a cache, can guard each chunk
+ * with their own lock, see {@link #purge(RetentionPolicy, ChunkGuard)}.
+ * <p>
+ * The amount of deleted rows and the time the write lock was held per chunk are reported as
+ * metrics, labeled by the name of the policy.
+ */
+public final class RetentionPurger {
+    private static final Logger logger = LoggerFactory.getLogger(RetentionPurger.class);
+    private static final int CHUNK_SIZE = 500;
+    private static final Duration PAUSE_BETWEEN_CHUNKS = Duration.ofMillis(100);
+    private static final Duration MAX_PURGE_DURATION = Duration.ofMinutes(5);
+    /**
+     * Identifies rows of any table regardless of its primary key, all tables are rowid tables.
+     */
+    private static final Field<Long> ROWID = DSL.field(DSL.name("rowid"), Long.class);
+
+    private final Database database;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param database the database to delete expired rows from
+     */
+    public RetentionPurger(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Deletes the rows that expired according to the given policy.
+     *
+     * @param policy the policy declaring which rows expired
+     * @param <R> the type of the rows
+     * @return the amount of deleted rows
+     */
+    public <R extends Record> int purge(RetentionPolicy<R> policy) {
+        return purge(policy, IntSupplier::getAsInt);
+    }
+
+    /**
+     * Deletes the rows that expired according to the given policy, purging each chunk through the
+     * given guard.
+     *
+     * @param policy the policy declaring which rows expired
+     * @param chunkGuard purges each chunk, for example while holding a lock of the caller
+     * @param <R> the type of the rows
+     * @return the amount of deleted rows
+     */
+    public <R extends Record> int purge(RetentionPolicy<R> policy, ChunkGuard chunkGuard) {
+        Counter deletedRows = Metrics.counter("tjbot_retention_deleted_rows_total",
+                "Amount of rows deleted because they expired", "policy", policy.name());
+        LatencyHistogram chunkLockHold = Metrics.histogram("tjbot_retention_chunk_seconds",
+                "Time the database write lock was held to delete a chunk of expired rows",
+                "policy", policy.name());
+
+        // Evaluated once, so that all chunks agree on which rows expired
+        Condition isExpired = policy.isExpired().get();
+        long start = System.nanoTime();
+        long deadline = start + MAX_PURGE_DURATION.toNanos();
+
+        int totalDeletedRows = 0;
+        while (true) {
+            int chunkDeletedRows =
+                    chunkGuard.purge(() -> database.writeAndProvide(context -> {
+                        long chunkStart = System.nanoTime();
+                        try {
+                            return purgeChunk(context, policy, isExpired);
+                        } finally {
+                            chunkLockHold.recordNanos(System.nanoTime() - chunkStart);
+                        }
+                    }));
+            deletedRows.add(chunkDeletedRows);
+            totalDeletedRows += chunkDeletedRows;
+
+            if (chunkDeletedRows < CHUNK_SIZE) {
+                break;
+            }
+            if (System.nanoTime() >= deadline) {
+                logger.debug("Stopped purging '{}' after {} rows, continuing next time",
+                        policy.name(), totalDeletedRows);
+                break;
+            }
+            if (!pauseBetweenChunks()) {
+                break;
+            }
+        }
+
+        if (totalDeletedRows > 0) {
+            double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+            logger.debug("Purged {} expired rows of '{}' ({} rows/s)", totalDeletedRows,
+                    policy.name(), Math.round(totalDeletedRows / seconds));
+        }
+        return totalDeletedRows;
+    }
+
+    private static <R extends Record> int purgeChunk(DSLContext context,
+            RetentionPolicy<R> policy, Condition isExpired) {
+        Result<Record> chunk = context.select(ROWID, policy.table().asterisk())
+            .from(policy.table())
+            .where(isExpired)
+            .limit(CHUNK_SIZE)
+            .fetch();
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+
+        context.deleteFrom(policy.table()).where(ROWID.in(chunk.getValues(ROWID))).execute();
+        policy.purgeListener().accept(chunk.into(policy.table()));
+        return chunk.size();
+    }
+
+    private static boolean pauseBetweenChunks() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(PAUSE_BETWEEN_CHUNKS.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Purges a single chunk of expired rows, for example while holding a lock. The guard is entered
+     * before the write lock of the database is acquired, so that callers can take their own locks
+     * in the same order as for their other database accesses.
+     */
+    @FunctionalInterface
+    public interface ChunkGuard {
+        /**
+         * Purges a single chunk of expired rows.
+         *
+         * @param purgeChunk purges the chunk and provides the amount of deleted rows
+         * @return the amount of deleted rows, as provided by the given action
+         */
+        int purge(IntSupplier purgeChunk);
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * This package offers the retention system, which deletes expired rows from the database in bounded
+ * chunks. Tables declare their retention by a
+ * {@link org.togetherjava.tjbot.features.retention.RetentionPolicy}, which is then enforced by
+ * {@link org.togetherjava.tjbot.features.retention.RetentionPurger}.
+ */
+@MethodsReturnNonnullByDefault
+@ParametersAreNonnullByDefault
+package org.togetherjava.tjbot.features.retention;
+
+import org.togetherjava.tjbot.annotations.MethodsReturnNonnullByDefault;
+
+import javax.annotation.ParametersAreNonnullByDefault;
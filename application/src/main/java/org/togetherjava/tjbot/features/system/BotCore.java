@@ -25,6 +25,7 @@ import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.features.EventReceiver;
 import org.togetherjava.tjbot.features.Feature;
 import org.togetherjava.tjbot.features.Features;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageContextCommand;
 import org.togetherjava.tjbot.features.MessageReceiver;
 import org.togetherjava.tjbot.features.Routine;
@@ -36,6 +37,7 @@ import org.togetherjava.tjbot.features.componentids.ComponentId;
 import org.togetherjava.tjbot.features.componentids.ComponentIdParser;
 import org.togetherjava.tjbot.features.componentids.ComponentIdStore;
 import org.togetherjava.tjbot.features.componentids.InvalidComponentIdFormatException;
+import org.togetherjava.tjbot.metrics.Metrics;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -46,7 +48,6 @@ import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
@@ -64,14 +65,26 @@ import java.util.stream.Stream;
  * event listener, using {@link net.dv8tion.jda.api.JDA#addEventListener(Object...)}. Afterwards,
  * the system is ready and will correctly forward events to all commands.
  */
-public final class BotCore extends ListenerAdapter implements CommandProvider {
+public final class BotCore extends ListenerAdapter implements CommandProvider, AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(BotCore.class);
     private static final ExecutorService COMMAND_SERVICE = Executors.newCachedThreadPool();
-    private static final ScheduledExecutorService ROUTINE_SERVICE =
-            Executors.newScheduledThreadPool(5);
+    private static final RoutineScheduler ROUTINE_SCHEDULER = new RoutineScheduler();
+    private static final String INTERACTOR_DURATION_METRIC = "tjbot_interactor_duration_seconds";
+    private static final String INTERACTOR_DURATION_HELP =
+            "Time spent by user interactors handling events";
+    private static final String RECEIVER_DURATION_METRIC =
+            "tjbot_message_receiver_duration_seconds";
+    private static final String RECEIVER_DURATION_HELP =
+            "Time spent by message receivers handling events";
+
+    static {
+        Metrics.monitorExecutor("commands", COMMAND_SERVICE);
+    }
+
     private final Config config;
     private final Map<String, UserInteractor> prefixedNameToInteractor;
     private final List<Routine> routines;
+    private final List<AutoCloseable> closeableFeatures;
     private final ComponentIdParser componentIdParser;
     private final ComponentIdStore componentIdStore;
     private final Map<Pattern, MessageReceiver> channelNameToMessageReceiver = new HashMap<>();
@@ -87,6 +100,10 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
      */
     public BotCore(JDA jda, Database database, Config config) {
         this.config = config;
+        // JDA queues rate limited REST requests on this pool
+        Metrics.monitorExecutor("jda_rate_limit", jda.getRateLimitPool());
+        Metrics.monitorExecutor("jda_callbacks", jda.getCallbackPool());
+
         Collection<Feature> features = Features.createFeatures(jda, database, config);
 
         // Message receivers
@@ -108,6 +125,12 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
             .map(Routine.class::cast)
             .toList();
 
+        // Features that hold resources, such as executors (are closed with the core)
+        closeableFeatures = features.stream()
+            .filter(AutoCloseable.class::isInstance)
+            .map(AutoCloseable.class::cast)
+            .toList();
+
         // User Interactors (e.g. slash commands)
         prefixedNameToInteractor =
                 features.stream()
@@ -191,34 +214,36 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
      * @param jda a ready JDA instance
      */
     public void scheduleRoutines(JDA jda) {
-        routines.forEach(routine -> {
-            Runnable command = () -> {
-                String routineName = routine.getClass().getSimpleName();
-                try {
-                    logger.debug("Running routine %s...".formatted(routineName));
-                    routine.runRoutine(jda);
-                    logger.debug("Finished routine %s.".formatted(routineName));
-                } catch (Exception e) {
-                    logger.error("Unknown error in routine {}.", routineName, e);
-                }
-            };
-
-            Routine.Schedule schedule = routine.createSchedule();
-            switch (schedule.mode()) {
-                case FIXED_RATE -> ROUTINE_SERVICE.scheduleAtFixedRate(command,
-                        schedule.initialDuration(), schedule.duration(), schedule.unit());
-                case FIXED_DELAY -> ROUTINE_SERVICE.scheduleWithFixedDelay(command,
-                        schedule.initialDuration(), schedule.duration(), schedule.unit());
-                default -> throw new AssertionError("Unsupported schedule mode");
+        routines.forEach(routine -> ROUTINE_SCHEDULER.schedule(routine, jda));
+    }
+
+    /**
+     * Releases the resources held by this core and its features, such as their executors.
+     * <p>
+     * Routines scheduled by {@link #scheduleRoutines(JDA)} are not stopped, they run on a scheduler
+     * shared by all instances.
+     */
+    @Override
+    public void close() {
+        componentIdStore.close();
+
+        for (AutoCloseable feature : closeableFeatures) {
+            try {
+                feature.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close the feature {}", feature.getClass().getSimpleName(),
+                        e);
             }
-        });
+        }
     }
 
     @Override
     public void onMessageReceived(final MessageReceivedEvent event) {
         if (event.isFromGuild()) {
+            MessageAnalysis analysis = new MessageAnalysis(event.getMessage());
             getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageReceived(event));
+                .forEach(messageReceiver -> timeMessageReceiver(messageReceiver, "received",
+                        () -> messageReceiver.onMessageReceived(event, analysis)));
         }
     }
 
@@ -226,7 +251,8 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
     public void onMessageUpdate(final MessageUpdateEvent event) {
         if (event.isFromGuild()) {
             getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageUpdated(event));
+                .forEach(messageReceiver -> timeMessageReceiver(messageReceiver, "updated",
+                        () -> messageReceiver.onMessageUpdated(event)));
         }
     }
 
@@ -234,7 +260,8 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
     public void onMessageDelete(final MessageDeleteEvent event) {
         if (event.isFromGuild()) {
             getMessageReceiversSubscribedTo(event.getChannel())
-                .forEach(messageReceiver -> messageReceiver.onMessageDeleted(event));
+                .forEach(messageReceiver -> timeMessageReceiver(messageReceiver, "deleted",
+                        () -> messageReceiver.onMessageDeleted(event)));
         }
     }
 
@@ -254,10 +281,11 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received slash command '{}' (#{}) on guild '{}'", name, event.getId(),
                 event.getGuild());
-        COMMAND_SERVICE.execute(
-                () -> requireUserInteractor(UserInteractionType.SLASH_COMMAND.getPrefixedName(name),
-                        SlashCommand.class)
-                    .onSlashCommand(event));
+        COMMAND_SERVICE.execute(() -> {
+            SlashCommand command = requireUserInteractor(
+                    UserInteractionType.SLASH_COMMAND.getPrefixedName(name), SlashCommand.class);
+            timeInteractor(command, "slash_command", () -> command.onSlashCommand(event));
+        });
     }
 
     @Override
@@ -266,34 +294,35 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received auto completion from command '{}' (#{}) on guild '{}'",
                 event.getFullCommandName(), event.getId(), event.getGuild());
-        COMMAND_SERVICE.execute(
-                () -> requireUserInteractor(UserInteractionType.SLASH_COMMAND.getPrefixedName(name),
-                        SlashCommand.class)
-                    .onAutoComplete(event));
+        COMMAND_SERVICE.execute(() -> {
+            SlashCommand command = requireUserInteractor(
+                    UserInteractionType.SLASH_COMMAND.getPrefixedName(name), SlashCommand.class);
+            timeInteractor(command, "auto_complete", () -> command.onAutoComplete(event));
+        });
     }
 
     @Override
     public void onButtonInteraction(ButtonInteractionEvent event) {
         logger.debug("Received button click '{}' (#{}) on guild '{}'", event.getComponentId(),
                 event.getId(), event.getGuild());
-        COMMAND_SERVICE
-            .execute(() -> forwardComponentCommand(event, UserInteractor::onButtonClick));
+        COMMAND_SERVICE.execute(
+                () -> forwardComponentCommand(event, "button", UserInteractor::onButtonClick));
     }
 
     @Override
     public void onEntitySelectInteraction(EntitySelectInteractionEvent event) {
         logger.debug("Received entity selection menu event '{}' (#{}) on guild '{}'",
                 event.getComponentId(), event.getId(), event.getGuild());
-        COMMAND_SERVICE
-            .execute(() -> forwardComponentCommand(event, UserInteractor::onEntitySelectSelection));
+        COMMAND_SERVICE.execute(() -> forwardComponentCommand(event, "entity_select",
+                UserInteractor::onEntitySelectSelection));
     }
 
     @Override
     public void onStringSelectInteraction(StringSelectInteractionEvent event) {
         logger.debug("Received string selection menu event '{}' (#{}) on guild '{}'",
                 event.getComponentId(), event.getId(), event.getGuild());
-        COMMAND_SERVICE
-            .execute(() -> forwardComponentCommand(event, UserInteractor::onStringSelectSelection));
+        COMMAND_SERVICE.execute(() -> forwardComponentCommand(event, "string_select",
+                UserInteractor::onStringSelectSelection));
     }
 
     @Override
@@ -314,7 +343,8 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
                     requireUserInteractor(componentId.userInteractorName(), UserInteractor.class);
             logger.trace("Routing a modal event with id '{}' back to user interactor '{}'",
                     event.getModalId(), interactor.getName());
-            interactor.onModalSubmitted(event, componentId.elements());
+            timeInteractor(interactor, "modal",
+                    () -> interactor.onModalSubmitted(event, componentId.elements()));
         });
     }
 
@@ -324,10 +354,12 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received message context command '{}' (#{}) on guild '{}'", name,
                 event.getId(), event.getGuild());
-        COMMAND_SERVICE.execute(() -> requireUserInteractor(
-                UserInteractionType.MESSAGE_CONTEXT_COMMAND.getPrefixedName(name),
-                MessageContextCommand.class)
-            .onMessageContext(event));
+        COMMAND_SERVICE.execute(() -> {
+            MessageContextCommand command = requireUserInteractor(
+                    UserInteractionType.MESSAGE_CONTEXT_COMMAND.getPrefixedName(name),
+                    MessageContextCommand.class);
+            timeInteractor(command, "message_context", () -> command.onMessageContext(event));
+        });
     }
 
     @Override
@@ -336,10 +368,12 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
 
         logger.debug("Received user context command '{}' (#{}) on guild '{}'", name, event.getId(),
                 event.getGuild());
-        COMMAND_SERVICE.execute(() -> requireUserInteractor(
-                UserInteractionType.USER_CONTEXT_COMMAND.getPrefixedName(name),
-                UserContextCommand.class)
-            .onUserContext(event));
+        COMMAND_SERVICE.execute(() -> {
+            UserContextCommand command = requireUserInteractor(
+                    UserInteractionType.USER_CONTEXT_COMMAND.getPrefixedName(name),
+                    UserContextCommand.class);
+            timeInteractor(command, "user_context", () -> command.onUserContext(event));
+        });
     }
 
     /**
@@ -386,16 +420,17 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
      *
      * <pre>
      * {@code
-     * forwardComponentCommand(event, UserInteractor::onSelectionMenu);
+     * forwardComponentCommand(event, "string_select", UserInteractor::onSelectionMenu);
      * }
      * </pre>
      *
      * @param event the component event that should be forwarded
+     * @param eventType the type of the event, used to label metrics
      * @param interactorArgumentConsumer the action to trigger on the associated user interactor,
      *        providing the event and list of arguments for consumption
      * @param <T> the type of the component interaction that should be forwarded
      */
-    private <T extends ComponentInteraction> void forwardComponentCommand(T event,
+    private <T extends ComponentInteraction> void forwardComponentCommand(T event, String eventType,
             TriConsumer<? super UserInteractor, ? super T, ? super List<String>> interactorArgumentConsumer) {
 
         Optional<ComponentId> componentIdOptional =
@@ -411,7 +446,8 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
                 requireUserInteractor(componentId.userInteractorName(), UserInteractor.class);
         logger.trace("Routing a component event with id '{}' back to user interactor '{}'",
                 event.getComponentId(), interactor.getName());
-        interactorArgumentConsumer.accept(interactor, event, componentId.elements());
+        timeInteractor(interactor, eventType,
+                () -> interactorArgumentConsumer.accept(interactor, event, componentId.elements()));
     }
 
     /**
@@ -439,6 +475,22 @@ public final class BotCore extends ListenerAdapter implements CommandProvider {
     }
 
 
+    private static void timeInteractor(UserInteractor interactor, String eventType,
+            Runnable handler) {
+        Metrics
+            .histogram(INTERACTOR_DURATION_METRIC, INTERACTOR_DURATION_HELP, "interactor",
+                    interactor.getName(), "event", eventType)
+            .time(handler);
+    }
+
+    private static void timeMessageReceiver(MessageReceiver messageReceiver, String eventType,
+            Runnable handler) {
+        Metrics
+            .histogram(RECEIVER_DURATION_METRIC, RECEIVER_DURATION_HELP, "receiver",
+                    messageReceiver.getClass().getSimpleName(), "event", eventType)
+            .time(handler);
+    }
+
     @SuppressWarnings("EmptyMethod")
     private static void onComponentIdRemoved(ComponentId componentId) {
         // NOTE As of now, we do not act on this event, but we could use it
@@ -0,0 +1,97 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseMaintenance;
+import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routine that keeps the database in shape. It checkpoints the write-ahead log, refreshes the
+ * statistics of the query planner and reclaims free pages, which pile up as tables churn.
+ * <p>
+ * All work is split into short steps, so that the database stays responsive for other accesses.
+ * Checkpoints never wait for readers of the write-ahead log. Reclaiming free pages additionally
+ * stops once its time budget is used up, continuing on the next run. The sizes of the database
+ * file, the write-ahead log and the free pages are reported as metrics.
+ */
+public final class DatabaseMaintenanceRoutine implements Routine {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMaintenanceRoutine.class);
+    private static final Duration VACUUM_BUDGET = Duration.ofSeconds(2);
+    private static final int VACUUM_PAGES_PER_STEP = 256;
+
+    private final DatabaseMaintenance maintenance;
+    private final AtomicLong fileBytes = new AtomicLong();
+    private final AtomicLong walBytes = new AtomicLong();
+    private final AtomicLong freeBytes = new AtomicLong();
+    private final boolean isIncrementalVacuumEnabled;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param database the database to maintain
+     */
+    public DatabaseMaintenanceRoutine(Database database) {
+        maintenance = new DatabaseMaintenance(database);
+        isIncrementalVacuumEnabled = maintenance.isIncrementalVacuumEnabled();
+        if (!isIncrementalVacuumEnabled) {
+            logger.warn(
+                    "Incremental vacuum is not enabled for the database, free pages will not be reclaimed");
+        }
+
+        Metrics.gauge("tjbot_database_file_bytes", "Size of the database file", fileBytes::get);
+        Metrics.gauge("tjbot_database_wal_bytes",
+                "Size of the write-ahead log before it was last checkpointed", walBytes::get);
+        Metrics.gauge("tjbot_database_free_bytes",
+                "Size of unused pages in the database file that were not reclaimed yet",
+                freeBytes::get);
+    }
+
+    @Override
+    public Schedule createSchedule() {
+        return new Schedule(ScheduleMode.FIXED_DELAY, 5, 15, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
+    @Override
+    public void runRoutine(JDA jda) {
+        long start = System.nanoTime();
+
+        // Checkpointing often keeps each checkpoint short
+        DatabaseMaintenance.Checkpoint checkpoint = maintenance.checkpoint();
+        walBytes.set(checkpoint.logBytes());
+        maintenance.optimize();
+        if (isIncrementalVacuumEnabled) {
+            vacuum();
+        }
+
+        DatabaseMaintenance.Size size = maintenance.readSize();
+        fileBytes.set(size.fileBytes());
+        freeBytes.set(size.freeBytes());
+
+        logger.debug(
+                "Maintained the database in {} ms, file has {} bytes ({} bytes free), write-ahead log had {} bytes (truncated: {})",
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), size.fileBytes(),
+                size.freeBytes(), checkpoint.logBytes(), checkpoint.isTruncated());
+    }
+
+    private void vacuum() {
+        long deadline = System.nanoTime() + VACUUM_BUDGET.toNanos();
+        long freePages;
+        do {
+            // The write lock is released between steps
+            freePages = maintenance.vacuumIncrementally(VACUUM_PAGES_PER_STEP);
+        } while (freePages > 0 && System.nanoTime() < deadline);
+    }
+}
@@ -0,0 +1,98 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.config.DatabaseSnapshotsConfig;
+import org.togetherjava.tjbot.db.DatabaseSnapshots;
+import org.togetherjava.tjbot.features.Routine;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routine that regularly creates snapshots of the database, as configured by
+ * {@link DatabaseSnapshotsConfig}. Snapshots are created while the bot keeps running, without
+ * blocking its writes, see {@link DatabaseSnapshots}.
+ * <p>
+ * The first snapshot after a start is due one interval after the latest existing snapshot, so that
+ * frequent restarts neither skip nor pile up snapshots.
+ */
+public final class DatabaseSnapshotRoutine implements Routine {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseSnapshotRoutine.class);
+    static final Duration MIN_INITIAL_DELAY = Duration.ofMinutes(5);
+
+    private final DatabaseSnapshots snapshots;
+    private final int intervalHours;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param config the config to use for this
+     */
+    public DatabaseSnapshotRoutine(Config config) {
+        DatabaseSnapshotsConfig snapshotsConfig = config.getDatabaseSnapshots();
+
+        snapshots = new DatabaseSnapshots(Path.of(config.getDatabasePath()),
+                Path.of(snapshotsConfig.directory()), snapshotsConfig.retainedSnapshots());
+        intervalHours = snapshotsConfig.intervalHours();
+    }
+
+    @Override
+    public Schedule createSchedule() {
+        Duration interval = Duration.ofHours(intervalHours);
+        Duration initialDelay =
+                computeInitialDelay(findLatestSnapshotTime(), Instant.now(), interval);
+
+        return new Schedule(ScheduleMode.FIXED_RATE, initialDelay.toMinutes(),
+                interval.toMinutes(), TimeUnit.MINUTES);
+    }
+
+    private Optional<Instant> findLatestSnapshotTime() {
+        try {
+            return snapshots.findLatestSnapshotTime();
+        } catch (UncheckedIOException e) {
+            logger.warn("Unable to find the latest database snapshot, creating one soon", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Computes the delay until the first snapshot after a start.
+     *
+     * @param latestSnapshotTime the time the latest existing snapshot was created at, if any
+     * @param now the current time
+     * @param interval the time between two snapshots
+     * @return the delay until one interval after the latest snapshot, at least
+     *         {@link #MIN_INITIAL_DELAY} and at most one interval
+     */
+    static Duration computeInitialDelay(Optional<Instant> latestSnapshotTime, Instant now,
+            Duration interval) {
+        return latestSnapshotTime
+            .map(latestTime -> interval.minus(Duration.between(latestTime, now)))
+            .filter(delay -> delay.compareTo(MIN_INITIAL_DELAY) > 0)
+            // Snapshots from the future, for example after a clock change, are not waited for
+            .map(delay -> delay.compareTo(interval) > 0 ? interval : delay)
+            .orElse(MIN_INITIAL_DELAY);
+    }
+
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
+    @Override
+    public void runRoutine(JDA jda) {
+        long start = System.nanoTime();
+        Path snapshot = snapshots.createSnapshot();
+
+        logger.info("Created a database snapshot at '{}' in {} ms", snapshot.toAbsolutePath(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+}
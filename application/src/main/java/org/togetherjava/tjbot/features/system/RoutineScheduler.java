@@ -0,0 +1,216 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.metrics.Counter;
+import org.togetherjava.tjbot.metrics.LatencyHistogram;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+/**
+ * Executes {@link Routine}s on their schedule.
+ * <p>
+ * Each {@link Routine.Priority} has its own threads, so that long running routines can not delay
+ * routines of another priority. A routine never runs concurrently to itself. Instead of catching up
+ * on executions missed while a run took longer than its period, the next run starts right away and
+ * the missed ones are skipped. The first run of each routine is delayed by a small random amount,
+ * so that routines do not all start at once.
+ * <p>
+ * The duration of each run is reported as metric. Runs that take longer than the period of their
+ * routine are logged as overruns.
+ */
+final class RoutineScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(RoutineScheduler.class);
+    private static final int THREADS_PER_PRIORITY = 2;
+    static final Duration MAX_START_JITTER = Duration.ofMinutes(1);
+    /**
+     * The start jitter is at most this fraction of the period of a routine, so that frequent
+     * routines are not delayed too much.
+     */
+    static final int MAX_START_JITTER_PERIOD_DIVISOR = 10;
+
+    private final Map<Routine.Priority, ScheduledExecutorService> priorityToService =
+            new EnumMap<>(Routine.Priority.class);
+
+    /**
+     * Creates a new scheduler, with separate threads for each priority.
+     */
+    RoutineScheduler() {
+        for (Routine.Priority priority : Routine.Priority.values()) {
+            String priorityName = priority.name().toLowerCase(Locale.US);
+            ScheduledExecutorService service = createService(priorityName);
+
+            Metrics.monitorExecutor("routines_" + priorityName, service);
+            priorityToService.put(priority, service);
+        }
+    }
+
+    private static ScheduledExecutorService createService(String priorityName) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ScheduledThreadPoolExecutor(THREADS_PER_PRIORITY,
+                runnable -> new Thread(runnable,
+                        "routines-%s-%d".formatted(priorityName, threadCount.incrementAndGet())));
+    }
+
+    /**
+     * Schedules the given routine according to its schedule and priority.
+     *
+     * @param routine the routine to schedule
+     * @param jda the JDA instance to run the routine with
+     */
+    void schedule(Routine routine, JDA jda) {
+        new ScheduledRoutine(routine, jda, priorityToService.get(routine.getPriority())).start();
+    }
+
+    /**
+     * Draws the random delay added to the first run of a routine.
+     *
+     * @param periodNanos the period of the routine, in nanoseconds
+     * @param random the source of randomness to use
+     * @return the delay in nanoseconds, less than {@link #MAX_START_JITTER} and less than a
+     *         fraction of the period given by {@link #MAX_START_JITTER_PERIOD_DIVISOR}
+     */
+    static long drawStartJitterNanos(long periodNanos, RandomGenerator random) {
+        long maxJitterNanos =
+                Math.min(MAX_START_JITTER.toNanos(), periodNanos / MAX_START_JITTER_PERIOD_DIVISOR);
+        return maxJitterNanos > 0 ? random.nextLong(maxJitterNanos) : 0;
+    }
+
+    /**
+     * Computes when a routine scheduled at a fixed rate runs next, after a run finished.
+     * <p>
+     * If the routine is behind schedule, it runs once right away and continues its schedule from
+     * then on, instead of catching up on all runs it missed.
+     *
+     * @param plannedStart the time the finished run was planned to start at, as given by
+     *        {@link System#nanoTime()}
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @param periodNanos the period of the routine, in nanoseconds
+     * @return the next run of the routine
+     */
+    static NextRun computeNextFixedRateRun(long plannedStart, long now, long periodNanos) {
+        long nextPlannedStart = plannedStart + periodNanos;
+        long untilPlannedStart = nextPlannedStart - now;
+        if (untilPlannedStart >= 0) {
+            return new NextRun(nextPlannedStart, untilPlannedStart, 0);
+        }
+
+        long missedRuns = -untilPlannedStart / periodNanos;
+        return new NextRun(now, 0, missedRuns);
+    }
+
+    /**
+     * The next run of a routine.
+     *
+     * @param plannedStart the time the run is planned to start at, as given by
+     *        {@link System#nanoTime()}
+     * @param delayNanos the delay until the run, in nanoseconds
+     * @param skippedRuns the amount of runs skipped because the routine is behind schedule
+     */
+    record NextRun(long plannedStart, long delayNanos, long skippedRuns) {
+    }
+
+    /**
+     * A routine with its schedule, reschedules itself after each run.
+     */
+    private static final class ScheduledRoutine implements Runnable {
+        private final Routine routine;
+        private final String routineName;
+        private final JDA jda;
+        private final Routine.Schedule schedule;
+        private final long periodNanos;
+        private final ScheduledExecutorService service;
+
+        private final LatencyHistogram runDuration;
+        private final Counter runFailures;
+        private final Counter runOverruns;
+        private final Counter skippedRuns;
+
+        /**
+         * The time the current run was planned to start at, as given by {@link System#nanoTime()}.
+         * Only accessed by runs of this routine, which never run concurrently.
+         */
+        private long plannedStart;
+
+        ScheduledRoutine(Routine routine, JDA jda, ScheduledExecutorService service) {
+            this.routine = routine;
+            this.jda = jda;
+            this.service = service;
+            routineName = routine.getClass().getSimpleName();
+            schedule = routine.createSchedule();
+            periodNanos = schedule.unit().toNanos(schedule.duration());
+
+            runDuration = Metrics.histogram("tjbot_routine_duration_seconds",
+                    "Duration of routine runs", "routine", routineName);
+            runFailures = Metrics.counter("tjbot_routine_failures_total",
+                    "Amount of routine runs that failed", "routine", routineName);
+            runOverruns = Metrics.counter("tjbot_routine_overruns_total",
+                    "Amount of routine runs that took longer than the period of the routine",
+                    "routine", routineName);
+            skippedRuns = Metrics.counter("tjbot_routine_skipped_runs_total",
+                    "Amount of routine runs skipped because a previous run overran", "routine",
+                    routineName);
+        }
+
+        void start() {
+            long jitterNanos = drawStartJitterNanos(periodNanos, ThreadLocalRandom.current());
+            long initialDelayNanos =
+                    schedule.unit().toNanos(schedule.initialDuration()) + jitterNanos;
+
+            plannedStart = System.nanoTime() + initialDelayNanos;
+            service.schedule(this, initialDelayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                logger.debug("Running routine {}...", routineName);
+                routine.runRoutine(jda);
+                logger.debug("Finished routine {}.", routineName);
+            } catch (Exception e) {
+                runFailures.increment();
+                logger.error("Unknown error in routine {}.", routineName, e);
+            } finally {
+                long end = System.nanoTime();
+                runDuration.recordNanos(end - start);
+                if (end - start > periodNanos) {
+                    runOverruns.increment();
+                    logger.warn("Routine {} took {} ms, longer than its period of {} ms",
+                            routineName, TimeUnit.NANOSECONDS.toMillis(end - start),
+                            TimeUnit.NANOSECONDS.toMillis(periodNanos));
+                }
+
+                scheduleNextRun(end);
+            }
+        }
+
+        private void scheduleNextRun(long now) {
+            long delayNanos = switch (schedule.mode()) {
+                case FIXED_DELAY -> periodNanos;
+                case FIXED_RATE -> {
+                    NextRun nextRun = computeNextFixedRateRun(plannedStart, now, periodNanos);
+                    if (nextRun.skippedRuns() > 0) {
+                        skippedRuns.add(nextRun.skippedRuns());
+                    }
+                    plannedStart = nextRun.plannedStart();
+                    yield nextRun.delayNanos();
+                }
+            };
+            service.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
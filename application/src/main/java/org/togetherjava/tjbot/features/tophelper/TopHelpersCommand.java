@@ -10,6 +10,7 @@ import net.dv8tion.jda.api.interactions.callbacks.IDeferrableCallback;
 import net.dv8tion.jda.api.interactions.commands.OptionMapping;
 import net.dv8tion.jda.api.interactions.commands.OptionType;
 import net.dv8tion.jda.api.interactions.commands.build.OptionData;
+import org.jooq.Condition;
 import org.jooq.Records;
 import org.jooq.impl.DSL;
 import org.slf4j.Logger;
@@ -24,7 +25,6 @@ import javax.annotation.Nullable;
 
 import java.math.BigDecimal;
 import java.time.Instant;
-import java.time.LocalTime;
 import java.time.Month;
 import java.time.YearMonth;
 import java.time.ZoneOffset;
@@ -40,18 +40,20 @@ import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HELP_CHANNEL_MESSAGES;
+import static org.togetherjava.tjbot.db.generated.tables.TopHelperRollups.TOP_HELPER_ROLLUPS;
 
 /**
  * Command that displays the top helpers of a given time range.
  * <p>
  * Top helpers are measured by their message length in help channels, as set by
- * {@link TopHelpersMessageListener}.
+ * {@link TopHelpersMessageListener}. The leaderboard is computed from the monthly rollups
+ * maintained by the listener, hence it can also span whole years or all time.
  */
 public final class TopHelpersCommand extends SlashCommandAdapter {
     private static final Logger logger = LoggerFactory.getLogger(TopHelpersCommand.class);
     private static final String COMMAND_NAME = "top-helpers";
     private static final String MONTH_OPTION = "at-month";
+    private static final String PERIOD_OPTION = "period";
     private static final int TOP_HELPER_LIMIT = 18;
 
     private static final int MAX_USER_NAME_LIMIT = 15;
@@ -64,7 +66,7 @@ public final class TopHelpersCommand extends SlashCommandAdapter {
      * @param database the database containing the message records of top helpers
      */
     public TopHelpersCommand(Database database) {
-        super(COMMAND_NAME, "Lists top helpers for the last month, or a given month",
+        super(COMMAND_NAME, "Lists top helpers for the last month, or a given month or year",
                 CommandVisibility.GUILD);
 
         OptionData monthData = new OptionData(OptionType.STRING, MONTH_OPTION,
@@ -72,7 +74,13 @@ public final class TopHelpersCommand extends SlashCommandAdapter {
         Arrays.stream(Month.values())
             .forEach(month -> monthData.addChoice(
                     month.getDisplayName(TextStyle.FULL_STANDALONE, Locale.US), month.name()));
-        getData().addOptions(monthData);
+
+        OptionData periodData = new OptionData(OptionType.STRING, PERIOD_OPTION,
+                "the period to compute for, by default only the selected month", false);
+        Arrays.stream(Period.values())
+            .forEach(period -> periodData.addChoice(period.getDisplayName(), period.name()));
+
+        getData().addOptions(monthData, periodData);
 
         this.database = database;
     }
@@ -80,8 +88,10 @@ public final class TopHelpersCommand extends SlashCommandAdapter {
     @Override
     public void onSlashCommand(SlashCommandInteractionEvent event) {
         OptionMapping atMonthData = event.getOption(MONTH_OPTION);
+        OptionMapping periodData = event.getOption(PERIOD_OPTION);
 
-        TimeRange timeRange = computeTimeRange(computeMonth(atMonthData));
+        TimeRange timeRange =
+                computeTimeRange(computeMonth(atMonthData), computePeriod(periodData));
         List<TopHelperResult> topHelpers =
                 computeTopHelpersDescending(event.getGuild().getIdLong(), timeRange);
 
@@ -110,7 +120,15 @@ public final class TopHelpersCommand extends SlashCommandAdapter {
         return Instant.now().atZone(ZoneOffset.UTC).minusMonths(1).getMonth();
     }
 
-    private static TimeRange computeTimeRange(Month atMonth) {
+    private static Period computePeriod(@Nullable OptionMapping periodData) {
+        if (periodData != null) {
+            return Period.valueOf(periodData.getAsString());
+        }
+
+        return Period.MONTH;
+    }
+
+    private static TimeRange computeTimeRange(Month atMonth, Period period) {
         ZonedDateTime now = Instant.now().atZone(ZoneOffset.UTC);
 
         int atYear = now.getYear();
@@ -118,23 +136,37 @@ public final class TopHelpersCommand extends SlashCommandAdapter {
         if (atMonth.compareTo(now.getMonth()) > 0) {
             atYear--;
         }
-        YearMonth atYearMonth = YearMonth.of(atYear, atMonth);
-
-        Instant start = atYearMonth.atDay(1).atTime(LocalTime.MIN).toInstant(ZoneOffset.UTC);
-        Instant end = atYearMonth.atEndOfMonth().atTime(LocalTime.MAX).toInstant(ZoneOffset.UTC);
-        String description = "%s %d"
-            .formatted(atMonth.getDisplayName(TextStyle.FULL_STANDALONE, Locale.US), atYear);
 
-        return new TimeRange(start, end, description);
+        return switch (period) {
+            case MONTH -> {
+                YearMonth atYearMonth = YearMonth.of(atYear, atMonth);
+                String description = "%s %d".formatted(
+                        atMonth.getDisplayName(TextStyle.FULL_STANDALONE, Locale.US), atYear);
+                yield new TimeRange(atYearMonth, atYearMonth, description);
+            }
+            case YEAR -> new TimeRange(YearMonth.of(atYear, Month.JANUARY),
+                    YearMonth.of(atYear, Month.DECEMBER), Integer.toString(atYear));
+            case ALL_TIME -> new TimeRange(null, null, "all time");
+        };
     }
 
-    private List<TopHelperResult> computeTopHelpersDescending(long guildId, TimeRange timeRange) {
+    List<TopHelperResult> computeTopHelpersDescending(long guildId, TimeRange timeRange) {
+        Condition inTimeRange = DSL.noCondition();
+        if (timeRange.start() != null) {
+            inTimeRange = inTimeRange.and(TOP_HELPER_ROLLUPS.YEAR_MONTH
+                .greaterOrEqual(TopHelpersMessageListener.toRollupKey(timeRange.start())));
+        }
+        if (timeRange.end() != null) {
+            inTimeRange = inTimeRange.and(TOP_HELPER_ROLLUPS.YEAR_MONTH
+                .lessOrEqual(TopHelpersMessageListener.toRollupKey(timeRange.end())));
+        }
+
+        Condition condition = TOP_HELPER_ROLLUPS.GUILD_ID.eq(guildId).and(inTimeRange);
         return database.read(context -> context
-            .select(HELP_CHANNEL_MESSAGES.AUTHOR_ID, DSL.sum(HELP_CHANNEL_MESSAGES.MESSAGE_LENGTH))
-            .from(HELP_CHANNEL_MESSAGES)
-            .where(HELP_CHANNEL_MESSAGES.GUILD_ID.eq(guildId)
-                .and(HELP_CHANNEL_MESSAGES.SENT_AT.between(timeRange.start(), timeRange.end())))
-            .groupBy(HELP_CHANNEL_MESSAGES.AUTHOR_ID)
+            .select(TOP_HELPER_ROLLUPS.AUTHOR_ID, DSL.sum(TOP_HELPER_ROLLUPS.TOTAL_LENGTH))
+            .from(TOP_HELPER_ROLLUPS)
+            .where(condition)
+            .groupBy(TOP_HELPER_ROLLUPS.AUTHOR_ID)
             .orderBy(DSL.two().desc())
             .limit(TOP_HELPER_LIMIT)
             .fetch(Records.mapping(TopHelperResult::new)));
@@ -197,10 +229,33 @@ public final class TopHelpersCommand extends SlashCommandAdapter {
         return AsciiTable.getTable(AsciiTable.BASIC_ASCII_NO_DATA_SEPARATORS, dataTable, columns);
     }
 
-    private record TimeRange(Instant start, Instant end, String description) {
+    /**
+     * Range of months to compute top helpers for, both ends inclusive.
+     *
+     * @param start the first month of the range, or {@code null} if unbounded
+     * @param end the last month of the range, or {@code null} if unbounded
+     * @param description a human-readable description of the range
+     */
+    record TimeRange(@Nullable YearMonth start, @Nullable YearMonth end, String description) {
+    }
+
+    private enum Period {
+        MONTH("Month"),
+        YEAR("Year"),
+        ALL_TIME("All time");
+
+        private final String displayName;
+
+        Period(String displayName) {
+            this.displayName = displayName;
+        }
+
+        String getDisplayName() {
+            return displayName;
+        }
     }
 
-    private record TopHelperResult(long authorId, BigDecimal messageLengths) {
+    record TopHelperResult(long authorId, BigDecimal messageLengths) {
     }
 
     private record ColumnSetting(String headerName, HorizontalAlign alignment) {
@@ -7,26 +7,27 @@ import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import org.togetherjava.tjbot.config.Config;
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiverAdapter;
 
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 
 import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HELP_CHANNEL_MESSAGES;
+import static org.togetherjava.tjbot.db.generated.tables.TopHelperRollups.TOP_HELPER_ROLLUPS;
 
 /**
  * Listener that receives all sent help messages and puts them into the database for
  * {@link TopHelpersCommand} to pick them up.
+ * <p>
+ * Next to the raw message records, which are purged after a while, the listener also maintains
+ * monthly rollups per author. Those are kept forever and allow computing leaderboards over longer
+ * time ranges.
  */
 public final class TopHelpersMessageListener extends MessageReceiverAdapter {
-    /**
-     * Matches invisible control characters and unused code points
-     *
-     * @see <a href="https://www.regular-expressions.info/unicode.html#category">Unicode
-     *      Categories</a>
-     */
-    private static final Pattern INVALID_CHARACTERS = Pattern.compile("\\p{C}");
-
     private final Database database;
 
     private final Predicate<String> isHelpForumName;
@@ -45,25 +46,78 @@ public final class TopHelpersMessageListener extends MessageReceiverAdapter {
     }
 
     @Override
-    public void onMessageReceived(MessageReceivedEvent event) {
+    public void onMessageReceived(MessageReceivedEvent event, MessageAnalysis analysis) {
         if (shouldIgnoreMessage(event)) {
             return;
         }
 
-        addMessageRecord(event);
+        addMessageRecord(event, analysis);
+    }
+
+    private void addMessageRecord(MessageReceivedEvent event, MessageAnalysis analysis) {
+        addMessageRecord(event.getMessage().getIdLong(), event.getGuild().getIdLong(),
+                event.getChannel().getIdLong(), event.getAuthor().getIdLong(),
+                event.getMessage().getTimeCreated().toInstant(),
+                analysis.getPrintableContent().length());
     }
 
-    private void addMessageRecord(MessageReceivedEvent event) {
-        long messageLength = countValidCharacters(event.getMessage().getContentRaw());
-
-        database.write(context -> context.newRecord(HELP_CHANNEL_MESSAGES)
-            .setMessageId(event.getMessage().getIdLong())
-            .setGuildId(event.getGuild().getIdLong())
-            .setChannelId(event.getChannel().getIdLong())
-            .setAuthorId(event.getAuthor().getIdLong())
-            .setSentAt(event.getMessage().getTimeCreated().toInstant())
-            .setMessageLength(messageLength)
-            .insert());
+    /**
+     * Stores the given help message and adds it to the monthly rollup of its author.
+     *
+     * @param messageId the id of the message
+     * @param guildId the id of the guild the message was sent in
+     * @param channelId the id of the channel the message was sent in
+     * @param authorId the id of the author of the message
+     * @param sentAt the time the message was sent at
+     * @param messageLength the length of the printable content of the message
+     */
+    void addMessageRecord(long messageId, long guildId, long channelId, long authorId,
+            Instant sentAt, long messageLength) {
+        database.writeTransaction(context -> {
+            context.newRecord(HELP_CHANNEL_MESSAGES)
+                .setMessageId(messageId)
+                .setGuildId(guildId)
+                .setChannelId(channelId)
+                .setAuthorId(authorId)
+                .setSentAt(sentAt)
+                .setMessageLength(messageLength)
+                .insert();
+
+            context
+                .insertInto(TOP_HELPER_ROLLUPS, TOP_HELPER_ROLLUPS.GUILD_ID,
+                        TOP_HELPER_ROLLUPS.YEAR_MONTH, TOP_HELPER_ROLLUPS.AUTHOR_ID,
+                        TOP_HELPER_ROLLUPS.TOTAL_LENGTH, TOP_HELPER_ROLLUPS.MESSAGE_COUNT)
+                .values(guildId, toRollupKey(sentAt), authorId, messageLength, 1)
+                .onConflict(TOP_HELPER_ROLLUPS.GUILD_ID, TOP_HELPER_ROLLUPS.YEAR_MONTH,
+                        TOP_HELPER_ROLLUPS.AUTHOR_ID)
+                .doUpdate()
+                .set(TOP_HELPER_ROLLUPS.TOTAL_LENGTH,
+                        TOP_HELPER_ROLLUPS.TOTAL_LENGTH.plus(messageLength))
+                .set(TOP_HELPER_ROLLUPS.MESSAGE_COUNT, TOP_HELPER_ROLLUPS.MESSAGE_COUNT.plus(1))
+                .execute();
+        });
+    }
+
+    /**
+     * Computes the key under which messages sent at the given time are aggregated in the monthly
+     * rollups, for example {@code "2022-03"}.
+     *
+     * @param sentAt the time the message was sent at
+     * @return the rollup key of the month the message was sent in, sortable lexicographically
+     */
+    static String toRollupKey(Instant sentAt) {
+        return toRollupKey(YearMonth.from(sentAt.atOffset(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Computes the key under which messages of the given month are aggregated in the monthly
+     * rollups, for example {@code "2022-03"}.
+     *
+     * @param yearMonth the month to get the key for
+     * @return the rollup key of the given month, sortable lexicographically
+     */
+    static String toRollupKey(YearMonth yearMonth) {
+        return yearMonth.toString();
     }
 
     boolean shouldIgnoreMessage(MessageReceivedEvent event) {
@@ -86,7 +140,7 @@ public final class TopHelpersMessageListener extends MessageReceiverAdapter {
     }
 
     static long countValidCharacters(String messageContent) {
-        return INVALID_CHARACTERS.matcher(messageContent).replaceAll("").length();
+        return MessageAnalysis.removeInvisibleCharacters(messageContent).length();
     }
 
 }
@@ -5,7 +5,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.generated.tables.records.HelpChannelMessagesRecord;
 import org.togetherjava.tjbot.features.Routine;
+import org.togetherjava.tjbot.features.retention.RetentionPolicy;
+import org.togetherjava.tjbot.features.retention.RetentionPurger;
 
 import java.time.Instant;
 import java.time.Period;
@@ -15,13 +18,20 @@ import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HEL
 
 /**
  * Cleanup routine to get rid of old database top-helper message entries.
+ * <p>
+ * Only the raw message records are purged, the monthly rollups maintained by
+ * {@link TopHelpersMessageListener} are kept.
  */
 public final class TopHelpersPurgeMessagesRoutine implements Routine {
     private static final Logger logger =
             LoggerFactory.getLogger(TopHelpersPurgeMessagesRoutine.class);
     private static final Period DELETE_MESSAGE_RECORDS_AFTER = Period.ofDays(90);
+    private static final RetentionPolicy<HelpChannelMessagesRecord> RETENTION_POLICY =
+            RetentionPolicy.of("help_channel_messages", HELP_CHANNEL_MESSAGES,
+                    () -> HELP_CHANNEL_MESSAGES.SENT_AT
+                        .lessOrEqual(Instant.now().minus(DELETE_MESSAGE_RECORDS_AFTER)));
 
-    private final Database database;
+    private final RetentionPurger purger;
 
     /**
      * Creates a new cleanup routine.
@@ -29,7 +39,7 @@ public final class TopHelpersPurgeMessagesRoutine implements Routine {
      * @param database the database that contains the messages to purge
      */
     public TopHelpersPurgeMessagesRoutine(Database database) {
-        this.database = database;
+        purger = new RetentionPurger(database);
     }
 
     @Override
@@ -37,13 +47,14 @@ public final class TopHelpersPurgeMessagesRoutine implements Routine {
         return new Schedule(ScheduleMode.FIXED_RATE, 0, 4, TimeUnit.HOURS);
     }
 
+    @Override
+    public Priority getPriority() {
+        return Priority.BULK;
+    }
+
     @Override
     public void runRoutine(JDA jda) {
-        int recordsDeleted =
-                database.writeAndProvide(context -> context.deleteFrom(HELP_CHANNEL_MESSAGES)
-                    .where(HELP_CHANNEL_MESSAGES.SENT_AT
-                        .lessOrEqual(Instant.now().minus(DELETE_MESSAGE_RECORDS_AFTER)))
-                    .execute());
+        int recordsDeleted = purger.purge(RETENTION_POLICY);
 
         if (recordsDeleted > 0) {
             logger.debug(
@@ -6,8 +6,6 @@ import net.dv8tion.jda.api.utils.FileUpload;
 
 import javax.annotation.Nullable;
 
-import java.io.InputStream;
-
 /**
  * Preview of a URL for display as embed in Discord.
  * <p>
@@ -25,10 +23,10 @@ public record LinkPreview(@Nullable FileUpload attachment, MessageEmbed embed) {
      * Any previous thumbnail is overridden and replaced.
      *
      * @param thumbnailName the name of the thumbnail, with extension, e.g. {@code foo.png}
-     * @param thumbnail the thumbnails data as raw data stream
+     * @param thumbnail the thumbnails raw data
      * @return this preview, but with a thumbnail
      */
-    LinkPreview withThumbnail(String thumbnailName, InputStream thumbnail) {
+    LinkPreview withThumbnail(String thumbnailName, byte[] thumbnail) {
         return createWithThumbnail(embed, thumbnailName, thumbnail);
     }
 
@@ -36,17 +34,17 @@ public record LinkPreview(@Nullable FileUpload attachment, MessageEmbed embed) {
      * Creates a link preview that only has a thumbnail and no other text.
      * 
      * @param thumbnailName the name of the thumbnail, with extension, e.g. {@code foo.png}
-     * @param thumbnail the thumbnails data as raw data stream
+     * @param thumbnail the thumbnails raw data
      * @return the thumbnail as link preview
      */
-    static LinkPreview ofThumbnail(String thumbnailName, InputStream thumbnail) {
+    static LinkPreview ofThumbnail(String thumbnailName, byte[] thumbnail) {
         return createWithThumbnail(null, thumbnailName, thumbnail);
     }
 
     /**
      * Creates a link preview that consists of the given text.
      * <p>
-     * Use {@link #withThumbnail(String, InputStream)} to decorate the preview also with a thumbnail
+     * Use {@link #withThumbnail(String, byte[])} to decorate the preview also with a thumbnail
      * image.
      *
      * @param title the title of the preview, if present
@@ -62,7 +60,7 @@ public record LinkPreview(@Nullable FileUpload attachment, MessageEmbed embed) {
     }
 
     private static LinkPreview createWithThumbnail(@Nullable MessageEmbed embedToDecorate,
-            String thumbnailName, InputStream thumbnail) {
+            String thumbnailName, byte[] thumbnail) {
         FileUpload attachment = FileUpload.fromData(thumbnail, thumbnailName);
         MessageEmbed embed =
                 new EmbedBuilder(embedToDecorate).setThumbnail("attachment://" + thumbnailName)
@@ -1,23 +1,33 @@
 package org.togetherjava.tjbot.features.utils;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.togetherjava.tjbot.metrics.Metrics;
+
 import javax.annotation.Nullable;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
@@ -27,6 +37,11 @@ import java.util.stream.IntStream;
  * Provides means to create previews of links. See
  * {@link LinkDetection#extractLinks(String, boolean, boolean)} and
  * {@link #createLinkPreviews(List)}.
+ * <p>
+ * Previews are cached by their link for a while, hence repeatedly previewing the same link is
+ * cheap. Concurrent requests for the same link share a single fetch. Downloads are bounded in size,
+ * websites are only read until the end of their {@code <head>} section, since that is where all
+ * relevant meta data is located.
  */
 public final class LinkPreviews {
     private static final Logger logger = LoggerFactory.getLogger(LinkPreviews.class);
@@ -34,9 +49,32 @@ public final class LinkPreviews {
     private static final String IMAGE_CONTENT_TYPE_PREFIX = "image";
     private static final String IMAGE_META_NAME = "image";
 
+    static final int MAX_HEAD_BYTES = 256 * 1024;
+    private static final int MAX_IMAGE_BYTES = 4 * 1024 * 1024;
+    private static final int READ_CHUNK_BYTES = 8 * 1024;
+    private static final byte[] HEAD_END_TAG = "</head".getBytes(StandardCharsets.US_ASCII);
+
+    private static final long PREVIEW_CACHE_MAX_BYTES = 32L * 1024 * 1024;
+    private static final Duration PREVIEW_CACHE_DURATION = Duration.ofHours(1);
+    private static final Duration PREVIEW_TIMEOUT = Duration.ofSeconds(10);
+
     private static final HttpClient CLIENT =
             HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
 
+    /**
+     * Previews of links that have been created already, weighted by their approximate size in
+     * bytes. Failed previews, for example because the site responded with an error, are not cached.
+     * Previews that have no content are.
+     */
+    private static final AsyncCache<String, Optional<PreviewData>> PREVIEW_CACHE =
+            Metrics.monitorCache("link_previews", Caffeine.newBuilder()
+                .maximumWeight(PREVIEW_CACHE_MAX_BYTES)
+                .weigher((String link, Optional<PreviewData> preview) -> link.length()
+                        + preview.map(PreviewData::weight).orElse(0))
+                .expireAfterWrite(PREVIEW_CACHE_DURATION)
+                .recordStats()
+                .buildAsync());
+
     private LinkPreviews() {
         throw new UnsupportedOperationException("Utility class");
     }
@@ -80,6 +118,15 @@ public final class LinkPreviews {
 
     private static CompletableFuture<Optional<LinkPreview>> createLinkPreview(String link,
             String attachmentName) {
+        return PREVIEW_CACHE.get(link, (any, executor) -> fetchPreviewData(link))
+            .thenApply(maybeData -> maybeData.map(data -> data.toLinkPreview(attachmentName)))
+            .exceptionally(e -> {
+                logger.warn("Failed to create link preview for {}", link, e);
+                return Optional.empty();
+            });
+    }
+
+    private static CompletableFuture<Optional<PreviewData>> fetchPreviewData(String link) {
         return readLinkContent(link).thenCompose(maybeContent -> {
             if (maybeContent.isEmpty()) {
                 return noResult();
@@ -87,17 +134,17 @@ public final class LinkPreviews {
             HttpContent content = maybeContent.orElseThrow();
 
             if (content.type.startsWith(IMAGE_CONTENT_TYPE_PREFIX)) {
-                return result(LinkPreview.ofThumbnail(attachmentName, content.dataStream));
+                return CompletableFuture.completedFuture(
+                        readImage(link, content).map(PreviewData::ofThumbnail));
             }
 
             if (content.type.startsWith("text/html")) {
-                return parseWebsite(link, attachmentName, content.dataStream);
+                return parseWebsite(link, content.dataStream);
             }
+
+            closeQuietly(content.dataStream);
             return noResult();
-        }).orTimeout(10, TimeUnit.SECONDS).exceptionally(e -> {
-            logger.warn("Failed to create link preview for {}", link, e);
-            return Optional.empty();
-        });
+        }).orTimeout(PREVIEW_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
     }
 
     private static CompletableFuture<Optional<HttpContent>> readLinkContent(String link) {
@@ -117,24 +164,25 @@ public final class LinkPreviews {
             int statusCode = response.statusCode();
             if (statusCode < HttpURLConnection.HTTP_OK
                     || statusCode >= HttpURLConnection.HTTP_MULT_CHOICE) {
-                logger.warn("Attempted to create a preview for {}, but the site returned code {}.",
-                        link, statusCode);
-                return Optional.empty();
+                closeQuietly(response.body());
+                throw new UncheckedIOException(
+                        new IOException("The site returned code %d".formatted(statusCode)));
             }
 
             String contentType = response.headers().firstValue("Content-Type").orElse("");
-            return Optional.of(new HttpContent(contentType, response.body()));
+            OptionalLong contentLength = response.headers().firstValueAsLong("Content-Length");
+            return Optional.of(new HttpContent(contentType, contentLength, response.body()));
         });
     }
 
-    private record HttpContent(String type, InputStream dataStream) {
+    private record HttpContent(String type, OptionalLong length, InputStream dataStream) {
     }
 
-    private static CompletableFuture<Optional<LinkPreview>> parseWebsite(String link,
-            String attachmentName, InputStream websiteContent) {
+    private static CompletableFuture<Optional<PreviewData>> parseWebsite(String link,
+            InputStream websiteContent) {
         Document doc;
         try {
-            doc = Jsoup.parse(websiteContent, null, link);
+            doc = parseHead(link, websiteContent);
         } catch (IOException e) {
             logger.warn("Attempted to create a preview for {}, but the content is invalid.", link,
                     e);
@@ -145,28 +193,126 @@ public final class LinkPreviews {
         String description =
                 parseOpenGraphTwitterMeta(doc, "description", doc.title()).orElse(null);
 
-        LinkPreview textPreview = LinkPreview.ofText(title, link, description);
+        PreviewData textPreview = PreviewData.ofText(title, link, description);
 
         String image = parseOpenGraphTwitterMeta(doc, IMAGE_META_NAME, null).orElse(null);
         if (image == null) {
             return result(textPreview);
         }
 
-        return readLinkContent(image).thenCompose(maybeContent -> {
+        return readLinkContent(image).thenApply(maybeContent -> {
             if (maybeContent.isEmpty()) {
-                return result(textPreview);
+                return Optional.of(textPreview);
             }
             HttpContent content = maybeContent.orElseThrow();
 
             if (!content.type.startsWith(IMAGE_CONTENT_TYPE_PREFIX)) {
-                return result(textPreview);
+                closeQuietly(content.dataStream);
+                return Optional.of(textPreview);
             }
 
-            return result(textPreview.withThumbnail(attachmentName, content.dataStream));
+            return Optional.of(readImage(image, content).map(textPreview::withThumbnail)
+                .orElse(textPreview));
+        }).exceptionally(e -> {
+            logger.debug("Skipped the image for the preview of {}, it could not be loaded.", link,
+                    e);
+            return Optional.of(textPreview);
         });
     }
 
-    private static Optional<String> parseOpenGraphTwitterMeta(Document doc, String metaProperty,
+    /**
+     * Parses the head section of the given website content, see {@link #readHead(InputStream)}.
+     *
+     * @param link the link of the website, used to resolve relative links
+     * @param websiteContent the raw content of the website, closed afterwards
+     * @return the parsed website, containing at most its head section
+     * @throws IOException if the content could not be read
+     */
+    static Document parseHead(String link, InputStream websiteContent) throws IOException {
+        byte[] head = readHead(websiteContent);
+        return Jsoup.parse(new ByteArrayInputStream(head), null, link);
+    }
+
+    /**
+     * Reads the given website content up to the end of its {@code <head>} section, or at most
+     * {@link #MAX_HEAD_BYTES}. The stream is closed afterwards, discarding the rest of the website.
+     *
+     * @param websiteContent the raw content of the website
+     * @return the beginning of the website, including its head section if it was small enough
+     * @throws IOException if the content could not be read
+     */
+    static byte[] readHead(InputStream websiteContent) throws IOException {
+        try (websiteContent) {
+            byte[] head = new byte[READ_CHUNK_BYTES];
+            int length = 0;
+
+            while (length < MAX_HEAD_BYTES) {
+                if (length == head.length) {
+                    head = Arrays.copyOf(head, Math.min(2 * head.length, MAX_HEAD_BYTES));
+                }
+
+                int bytesRead = websiteContent.read(head, length, head.length - length);
+                if (bytesRead == -1) {
+                    break;
+                }
+
+                // The end tag might have been split between two reads
+                int searchFrom = Math.max(0, length - HEAD_END_TAG.length + 1);
+                length += bytesRead;
+                if (containsIgnoreCase(head, searchFrom, length, HEAD_END_TAG)) {
+                    break;
+                }
+            }
+
+            return Arrays.copyOf(head, length);
+        }
+    }
+
+    private static boolean containsIgnoreCase(byte[] data, int from, int to, byte[] asciiNeedle) {
+        for (int start = from; start <= to - asciiNeedle.length; start++) {
+            int i = 0;
+            while (i < asciiNeedle.length
+                    && Character.toLowerCase(data[start + i]) == asciiNeedle[i]) {
+                i++;
+            }
+            if (i == asciiNeedle.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Optional<byte[]> readImage(String link, HttpContent content) {
+        try (InputStream dataStream = content.dataStream) {
+            if (content.length.orElse(0) > MAX_IMAGE_BYTES) {
+                logger.debug("Skipped the image for the preview of {}, it is too large ({} bytes).",
+                        link, content.length.orElseThrow());
+                return Optional.empty();
+            }
+
+            byte[] data = dataStream.readNBytes(MAX_IMAGE_BYTES + 1);
+            if (data.length > MAX_IMAGE_BYTES) {
+                logger.debug("Skipped the image for the preview of {}, it exceeds {} bytes.", link,
+                        MAX_IMAGE_BYTES);
+                return Optional.empty();
+            }
+            return Optional.of(data);
+        } catch (IOException e) {
+            logger.warn("Attempted to create a preview for {}, but the image could not be read.",
+                    link, e);
+            return Optional.empty();
+        }
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close a link preview stream", e);
+        }
+    }
+
+    static Optional<String> parseOpenGraphTwitterMeta(Document doc, String metaProperty,
             @Nullable String fallback) {
         String value = parseMetaProperty(doc, "og:" + metaProperty)
             .or(() -> parseMetaProperty(doc, "twitter:" + metaProperty))
@@ -196,4 +342,49 @@ public final class LinkPreviews {
     private static <T> CompletableFuture<Optional<T>> result(T content) {
         return CompletableFuture.completedFuture(Optional.of(content));
     }
+
+    /**
+     * The cacheable raw data of a link preview. Unlike {@link LinkPreview}, which holds a
+     * single-use attachment, this can be turned into previews any amount of times.
+     */
+    private static final class PreviewData {
+        private static final int BASE_WEIGHT = 64;
+
+        @Nullable
+        private final LinkPreview textPreview;
+        @Nullable
+        private final byte[] thumbnail;
+
+        private PreviewData(@Nullable LinkPreview textPreview, @Nullable byte[] thumbnail) {
+            this.textPreview = textPreview;
+            this.thumbnail = thumbnail;
+        }
+
+        static PreviewData ofThumbnail(byte[] thumbnail) {
+            return new PreviewData(null, thumbnail);
+        }
+
+        static PreviewData ofText(@Nullable String title, String url,
+                @Nullable String description) {
+            return new PreviewData(LinkPreview.ofText(title, url, description), null);
+        }
+
+        PreviewData withThumbnail(byte[] thumbnail) {
+            return new PreviewData(textPreview, thumbnail);
+        }
+
+        LinkPreview toLinkPreview(String attachmentName) {
+            if (textPreview == null) {
+                return LinkPreview.ofThumbnail(attachmentName, Objects.requireNonNull(thumbnail));
+            }
+            return thumbnail == null ? textPreview
+                    : textPreview.withThumbnail(attachmentName, thumbnail);
+        }
+
+        int weight() {
+            int textWeight = textPreview == null ? 0 : textPreview.embed().getLength() * 2;
+            int thumbnailWeight = thumbnail == null ? 0 : thumbnail.length;
+            return BASE_WEIGHT + textWeight + thumbnailWeight;
+        }
+    }
 }
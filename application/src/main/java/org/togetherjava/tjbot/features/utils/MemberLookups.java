@@ -0,0 +1,103 @@
+package org.togetherjava.tjbot.features.utils;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.internal.requests.CompletedRestAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.metrics.Counter;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Looks up members in the cache of JDA first, and only requests them from Discord if they are not
+ * cached.
+ * <p>
+ * How often members are found in the cache is reported as metrics. Together with the configured
+ * member cache policy, this shows how many requests caching more members would save.
+ */
+public final class MemberLookups {
+    private static final Logger logger = LoggerFactory.getLogger(MemberLookups.class);
+    private static final int MAX_MEMBERS_PER_REQUEST = 100;
+    private static final String LOOKUPS_METRIC = "tjbot_member_lookups_total";
+    private static final String LOOKUPS_HELP = "Amount of members looked up, by cache hit or miss";
+
+    private static final Counter cacheHits =
+            Metrics.counter(LOOKUPS_METRIC, LOOKUPS_HELP, "result", "hit");
+    private static final Counter cacheMisses =
+            Metrics.counter(LOOKUPS_METRIC, LOOKUPS_HELP, "result", "miss");
+
+    private MemberLookups() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Retrieves the given member, requesting it only if it is not cached.
+     *
+     * @param guild the guild of the member
+     * @param memberId the id of the member
+     * @return the member, fails if the user is not a member of the guild
+     */
+    public static RestAction<Member> retrieveMember(Guild guild, long memberId) {
+        Member member = guild.getMemberById(memberId);
+        if (member != null) {
+            cacheHits.increment();
+            return new CompletedRestAction<>(guild.getJDA(), member);
+        }
+
+        cacheMisses.increment();
+        return guild.retrieveMemberById(memberId);
+    }
+
+    /**
+     * Retrieves the given members, members that are not cached are requested in bulk.
+     *
+     * @param guild the guild of the members
+     * @param memberIds the ids of the members, may contain duplicates
+     * @return the retrieved members by their id, members who left the guild or failed to be
+     *         requested are not contained
+     */
+    public static CompletableFuture<Map<Long, Member>> retrieveMembers(Guild guild,
+            Collection<Long> memberIds) {
+        Map<Long, Member> idToMember = new ConcurrentHashMap<>();
+        List<Long> uncachedMemberIds = new ArrayList<>();
+        memberIds.stream().distinct().forEach(memberId -> {
+            Member member = guild.getMemberById(memberId);
+            if (member == null) {
+                uncachedMemberIds.add(memberId);
+            } else {
+                idToMember.put(memberId, member);
+            }
+        });
+        cacheHits.add(idToMember.size());
+        cacheMisses.add(uncachedMemberIds.size());
+
+        List<CompletableFuture<Void>> retrieveTasks = new ArrayList<>();
+        for (int i = 0; i < uncachedMemberIds.size(); i += MAX_MEMBERS_PER_REQUEST) {
+            List<Long> chunk = uncachedMemberIds.subList(i,
+                    Math.min(i + MAX_MEMBERS_PER_REQUEST, uncachedMemberIds.size()));
+
+            CompletableFuture<Void> retrieveTask = new CompletableFuture<>();
+            guild.retrieveMembersByIds(chunk).onSuccess(members -> {
+                members.forEach(member -> idToMember.put(member.getIdLong(), member));
+                retrieveTask.complete(null);
+            }).onError(failure -> {
+                logger.warn("Failed to retrieve {} members, continuing without them",
+                        chunk.size(), failure);
+                retrieveTask.complete(null);
+            });
+            retrieveTasks.add(retrieveTask);
+        }
+
+        return CompletableFuture.allOf(retrieveTasks.toArray(CompletableFuture[]::new))
+            .thenApply(any -> idToMember);
+    }
+}
@@ -6,39 +6,49 @@ import club.minnced.discord.webhook.send.WebhookEmbedBuilder;
 import club.minnced.discord.webhook.send.WebhookMessage;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.LogEvent;
-import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.togetherjava.tjbot.features.utils.MessageUtils;
+import org.togetherjava.tjbot.features.utils.RateLimiter;
 import org.togetherjava.tjbot.logging.LogMarkers;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Forwards log events to a Discord channel via a webhook. See {@link #forwardLogEvent(LogEvent)}.
  * <p>
  * Logs are forwarded in correct order, based on their timestamp. They are not forwarded
- * immediately, but at a fixed schedule in batches of {@value MAX_BATCH_SIZE} logs.
+ * immediately, but collected for {@link #COALESCE_WINDOW} first. Logs with the same message and
+ * stack trace that occur within that window are merged into a single entry, annotated with how
+ * often they occurred. Entries are sent in batches of up to {@value MAX_BATCH_SIZE}, as often as
+ * the rate limits of the webhook allow.
  * <p>
- * Although unlikely to hit, the class maximally buffers {@value MAX_PENDING_LOGS} logs until
- * discarding further logs. Under normal circumstances, the class can easily handle high loads of
- * logs.
+ * Forwarding a log never blocks the logging thread, all heavy work, such as rendering stack traces
+ * and embeds, is done by a dedicated sender thread. The class maximally buffers
+ * {@value MAX_PENDING_LOGS} logs until discarding further logs. Under normal circumstances, the
+ * class can easily handle high loads of logs.
  * <p>
  * The class is thread-safe.
  */
@@ -51,7 +61,7 @@ final class DiscordLogForwarder {
     private static final ScheduledExecutorService SERVICE =
             Executors.newSingleThreadScheduledExecutor();
 
-    private static final int MAX_BATCH_SIZE = WebhookMessage.MAX_EMBEDS;
+    static final int MAX_BATCH_SIZE = WebhookMessage.MAX_EMBEDS;
     /**
      * The max total length of all descriptions contained in a batch of embeds sent to Discord.
      */
@@ -71,6 +81,17 @@ final class DiscordLogForwarder {
      * Used when {@link #MAX_EMBED_DESCRIPTION} lead to exceeding the limit.
      */
     private static final int MAX_EMBED_DESCRIPTION_SHORT = 400;
+    /**
+     * How long logs are held back before being forwarded, in order to merge identical logs that
+     * occur in quick succession.
+     */
+    static final Duration COALESCE_WINDOW = Duration.ofSeconds(5);
+    private static final Duration FLUSH_INTERVAL = Duration.ofSeconds(1);
+    /**
+     * Discord allows sending roughly 30 messages per minute to a channel via webhooks.
+     */
+    static final Duration WEBHOOK_RATE_LIMIT_WINDOW = Duration.ofMinutes(1);
+    static final int WEBHOOK_RATE_LIMIT_REQUESTS = 30;
 
     private static final Map<Level, Integer> LEVEL_TO_AMBIENT_COLOR =
             Map.of(Level.TRACE, 0x00B362, Level.DEBUG, 0x00A5CE, Level.INFO, 0xAC59FF, Level.WARN,
@@ -78,121 +99,272 @@ final class DiscordLogForwarder {
 
     private final WebhookClient webhookClient;
     private final String sourceCodeBaseUrl;
+    private final Supplier<Instant> now;
+    private final RateLimiter webhookRateLimiter =
+            new RateLimiter(WEBHOOK_RATE_LIMIT_WINDOW, WEBHOOK_RATE_LIMIT_REQUESTS);
+
+    /**
+     * Logs that have been received but not yet picked up by the sender thread. Lock-free, producers
+     * only have to reserve a slot in {@link #pendingLogsCount} before adding to it.
+     */
+    private final Queue<LogEvent> pendingLogs = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingLogsCount = new AtomicInteger();
+    private final LongAdder discardedLogsCount = new LongAdder();
+
+    /**
+     * Logs picked up by the sender thread, merged by their signature, in order of arrival. Must
+     * only be accessed by the sender thread.
+     */
+    private final Map<LogSignature, LogGroup> signatureToPendingGroup = new LinkedHashMap<>();
     /**
-     * Internal buffer of logs that still have to be forwarded to Discord. Actions are synchronized
-     * using {@link #pendingLogsLock} to ensure thread safety.
+     * The last batch sent to Discord, if any. Must only be accessed by the sender thread.
      */
-    private final Queue<LogMessage> pendingLogs = new PriorityQueue<>();
-    private final Object pendingLogsLock = new Object();
+    private CompletableFuture<?> lastSendTask = CompletableFuture.completedFuture(null);
 
     DiscordLogForwarder(URI webhook, String sourceCodeBaseUrl) {
-        webhookClient = WebhookClient.withUrl(webhook.toString());
+        this(WebhookClient.withUrl(webhook.toString()), sourceCodeBaseUrl, Instant::now);
+
+        SERVICE.scheduleWithFixedDelay(this::processPendingLogs, FLUSH_INTERVAL.toMillis(),
+                FLUSH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance that does not forward logs on its own, they are only forwarded when
+     * calling {@link #processPendingLogs()}.
+     *
+     * @param webhookClient the client to send logs with
+     * @param sourceCodeBaseUrl the base url of the source code, used to link the origin of logs
+     * @param now the source of the current time
+     */
+    DiscordLogForwarder(WebhookClient webhookClient, String sourceCodeBaseUrl,
+            Supplier<Instant> now) {
+        this.webhookClient = webhookClient;
+        this.now = now;
 
         if (!sourceCodeBaseUrl.endsWith("/")) {
             this.sourceCodeBaseUrl = sourceCodeBaseUrl + "/";
         } else {
             this.sourceCodeBaseUrl = sourceCodeBaseUrl;
         }
-
-        SERVICE.scheduleWithFixedDelay(this::processPendingLogs, 5, 5, TimeUnit.SECONDS);
     }
 
-
     /**
      * Forwards the given log message to Discord.
      * <p>
      * Logs are not immediately forwarded, but on a schedule. If the maximal buffer size of
      * {@value MAX_PENDING_LOGS} is exceeded, logs are discarded.
      * <p>
-     * This method is thread-safe.
+     * This method is thread-safe and never blocks.
      *
      * @param event the log to forward
      */
     void forwardLogEvent(LogEvent event) {
-        if (pendingLogs.size() >= MAX_PENDING_LOGS) {
-            logger.warn(LogMarkers.NO_DISCORD,
-                    """
-                            Exceeded the max amount of logs that can be buffered. \
-                            Logs are forwarded to Discord slower than they pile up. Discarding the latest log...""");
+        if (pendingLogsCount.incrementAndGet() > MAX_PENDING_LOGS) {
+            pendingLogsCount.decrementAndGet();
+            discardedLogsCount.increment();
             return;
         }
-        if (pendingLogs.size() >= MAX_PENDING_LOGS_WARNING_THRESHOLD) {
-            logger.warn("""
-                    Nearing the max amount of logs that can be buffered. \
-                    Logs are forwarded to Discord slower than they pile up. \
-                    Look into the issue, logs will soon be discarded otherwise...
-                    """);
-        }
-
-        LogMessage log = LogMessage.ofEvent(event, sourceCodeBaseUrl);
 
-        synchronized (pendingLogsLock) {
-            pendingLogs.add(log);
-        }
+        // The source location can only be computed on the logging thread, the event caches it
+        event.getSource();
+        // Events might be reused by the logging framework once this method returns
+        pendingLogs.add(event.toImmutable());
     }
 
-    private void processPendingLogs() {
+    /**
+     * Forwards a batch of pending logs whose {@link #COALESCE_WINDOW} has passed, if the rate
+     * limits of the webhook allow it. Called every {@link #FLUSH_INTERVAL} by the sender thread.
+     * <p>
+     * Must only be called by the sender thread.
+     */
+    void processPendingLogs() {
         try {
-            // Process batch
-            List<LogMessage> logsToProcess = pollLogsToProcessBatch();
-            if (logsToProcess.isEmpty()) {
+            collectPendingLogs();
+
+            if (!lastSendTask.isDone()) {
+                // Still busy, the webhook client is likely waiting for a rate limit
                 return;
             }
-            logsToProcess = validateBatch(logsToProcess);
 
-            List<WebhookEmbed> logBatch = logsToProcess.stream().map(LogMessage::embed).toList();
+            Instant currentTime = now.get();
+            List<LogGroup> logsToProcess = selectLogsToProcessBatch(currentTime);
+            if (logsToProcess.isEmpty() || !webhookRateLimiter.allowRequest(currentTime)) {
+                return;
+            }
 
-            webhookClient.send(logBatch);
+            logsToProcess.forEach(group -> {
+                signatureToPendingGroup.remove(group.signature);
+                pendingLogsCount.decrementAndGet();
+            });
+            lastSendTask = webhookClient.send(createBatch(logsToProcess));
         } catch (Exception e) {
             logger.warn(LogMarkers.NO_DISCORD,
                     "Unknown error when forwarding pending logs to Discord.", e);
         }
     }
 
-    private List<LogMessage> pollLogsToProcessBatch() {
-        int batchSize = Math.min(pendingLogs.size(), MAX_BATCH_SIZE);
-        synchronized (pendingLogsLock) {
-            return Stream.generate(pendingLogs::remove).limit(batchSize).toList();
+    private void collectPendingLogs() {
+        LogEvent event = pendingLogs.poll();
+        while (event != null) {
+            LogSignature signature = LogSignature.ofEvent(event);
+            LogGroup group = signatureToPendingGroup.get(signature);
+
+            if (group != null) {
+                group.add(event);
+                pendingLogsCount.decrementAndGet();
+            } else if (signatureToPendingGroup.size() < MAX_PENDING_LOGS) {
+                // The slot stays reserved until the group has been sent
+                signatureToPendingGroup.put(signature, new LogGroup(signature, event));
+            } else {
+                pendingLogsCount.decrementAndGet();
+                discardedLogsCount.increment();
+            }
+
+            event = pendingLogs.poll();
+        }
+
+        long discardedLogs = discardedLogsCount.sumThenReset();
+        if (discardedLogs > 0) {
+            logger.warn(LogMarkers.NO_DISCORD, """
+                    Exceeded the max amount of logs that can be buffered. \
+                    Logs are forwarded to Discord slower than they pile up. Discarded {} logs.""",
+                    discardedLogs);
+        }
+        if (signatureToPendingGroup.size() >= MAX_PENDING_LOGS_WARNING_THRESHOLD) {
+            logger.warn("""
+                    Nearing the max amount of logs that can be buffered. \
+                    Logs are forwarded to Discord slower than they pile up. \
+                    Look into the issue, logs will soon be discarded otherwise...
+                    """);
         }
     }
 
-    private List<LogMessage> validateBatch(List<LogMessage> logBatch) {
-        int totalDescriptionLength = logBatch.stream()
-            .map(LogMessage::embed)
+    private List<LogGroup> selectLogsToProcessBatch(Instant now) {
+        Instant readyBefore = now.minus(COALESCE_WINDOW);
+
+        return signatureToPendingGroup.values()
+            .stream()
+            .filter(group -> !group.firstTimestamp.isAfter(readyBefore))
+            .sorted(Comparator.comparing(group -> group.firstTimestamp))
+            .limit(MAX_BATCH_SIZE)
+            .toList();
+    }
+
+    private List<WebhookEmbed> createBatch(List<LogGroup> logBatch) {
+        List<WebhookEmbed> embeds =
+                logBatch.stream().map(group -> group.render(MAX_EMBED_DESCRIPTION)).toList();
+
+        int totalDescriptionLength = embeds.stream()
             .map(WebhookEmbed::getDescription)
             .mapToInt(description -> description == null ? 0 : description.length())
             .sum();
 
         if (totalDescriptionLength >= MAX_BATCH_DESCRIPTION_TOTAL) {
             // Shorten logs further to go below limit
-            return logBatch.stream().map(LogMessage::shortened).toList();
+            return logBatch.stream()
+                .map(group -> group.render(MAX_EMBED_DESCRIPTION_SHORT))
+                .toList();
         }
 
-        return new ArrayList<>(logBatch);
+        return embeds;
     }
 
-    private record LogMessage(WebhookEmbed embed,
-            Instant timestamp) implements Comparable<LogMessage> {
+    /**
+     * Identifies logs that are considered identical, i.e. have the same level, origin, message and
+     * stack trace.
+     *
+     * @param level the level of the log
+     * @param loggerName the name of the logger that created the log
+     * @param message the formatted message of the log
+     * @param stackTrace a signature of the stack trace attached to the log, if any
+     */
+    private record LogSignature(Level level, String loggerName, String message,
+            @Nullable String stackTrace) {
+        private static final int MAX_CAUSE_DEPTH = 16;
+
+        private static LogSignature ofEvent(LogEvent event) {
+            return new LogSignature(event.getLevel(), event.getLoggerName(),
+                    event.getMessage().getFormattedMessage(),
+                    describeStackTrace(event.getThrown()));
+        }
 
+        @Nullable
+        private static String describeStackTrace(@Nullable Throwable exception) {
+            if (exception == null) {
+                return null;
+            }
+
+            // Exception messages often contain varying details, such as ids, which are ignored
+            StringBuilder signature = new StringBuilder();
+            Throwable current = exception;
+            for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+                signature.append(current.getClass().getName())
+                    .append('@')
+                    .append(Arrays.hashCode(current.getStackTrace()))
+                    .append(';');
+                current = current.getCause();
+            }
+            return signature.toString();
+        }
+    }
+
+    /**
+     * Logs with the same {@link LogSignature}, waiting to be forwarded. Must only be accessed by
+     * the sender thread.
+     */
+    private final class LogGroup {
         private static final String BASE_PACKAGE = "org.togetherjava.tjbot.";
 
-        private static LogMessage ofEvent(LogEvent event, String sourceCodeBaseUrl) {
-            String authorName = event.getLoggerName();
-            String authorUrl = linkToSource(event.getSource(), sourceCodeBaseUrl).orElse(null);
-            String title = event.getLevel().name();
-            int colorDecimal = Objects.requireNonNull(LEVEL_TO_AMBIENT_COLOR.get(event.getLevel()));
+        private final LogSignature signature;
+        private final LogEvent firstEvent;
+        private final Instant firstTimestamp;
+        private Instant lastTimestamp;
+        private int count;
+
+        private LogGroup(LogSignature signature, LogEvent firstEvent) {
+            this.signature = signature;
+            this.firstEvent = firstEvent;
+            firstTimestamp = timestampOf(firstEvent);
+            lastTimestamp = firstTimestamp;
+            count = 1;
+        }
+
+        private void add(LogEvent event) {
+            Instant timestamp = timestampOf(event);
+            if (timestamp.isAfter(lastTimestamp)) {
+                lastTimestamp = timestamp;
+            }
+            count++;
+        }
+
+        private WebhookEmbed render(int maxDescriptionLength) {
+            String authorName = firstEvent.getLoggerName();
+            String authorUrl = linkToSource(firstEvent.getSource()).orElse(null);
+            String title = firstEvent.getLevel().name();
+            int colorDecimal =
+                    Objects.requireNonNull(LEVEL_TO_AMBIENT_COLOR.get(firstEvent.getLevel()));
             String description =
-                    MessageUtils.abbreviate(describeLogEvent(event), MAX_EMBED_DESCRIPTION);
-            Instant timestamp = Instant.ofEpochMilli(event.getInstant().getEpochMillisecond());
+                    MessageUtils.abbreviate(describeLogEvent(firstEvent), maxDescriptionLength);
 
-            WebhookEmbed embed = new WebhookEmbedBuilder()
+            WebhookEmbedBuilder embed = new WebhookEmbedBuilder()
                 .setAuthor(new WebhookEmbed.EmbedAuthor(authorName, null, authorUrl))
                 .setTitle(new WebhookEmbed.EmbedTitle(title, null))
                 .setDescription(description)
                 .setColor(colorDecimal)
-                .setTimestamp(timestamp)
-                .build();
-            return new LogMessage(embed, timestamp);
+                .setTimestamp(lastTimestamp);
+
+            if (count > 1) {
+                long seconds = Math.max(1,
+                        Duration.between(firstTimestamp, lastTimestamp).toSeconds());
+                embed.setFooter(new WebhookEmbed.EmbedFooter(
+                        "×%d in last %ds".formatted(count, seconds), null));
+            }
+
+            return embed.build();
+        }
+
+        private static Instant timestampOf(LogEvent event) {
+            return Instant.ofEpochMilli(event.getInstant().getEpochMillisecond());
         }
 
         private static String describeLogEvent(LogEvent event) {
@@ -209,8 +381,7 @@ final class DiscordLogForwarder {
             return logMessage + "\n" + exceptionWriter.toString().replace("\t", "> ");
         }
 
-        private static Optional<String> linkToSource(@Nullable StackTraceElement sourceElement,
-                String sourceCodeBaseUrl) {
+        private Optional<String> linkToSource(@Nullable StackTraceElement sourceElement) {
             if (sourceElement == null) {
                 return Optional.empty();
             }
@@ -223,19 +394,5 @@ final class DiscordLogForwarder {
             String link = "%s%s.java".formatted(sourceCodeBaseUrl, source.replace('.', '/'));
             return Optional.of(link);
         }
-
-        private LogMessage shortened() {
-            String shortDescription = MessageUtils.abbreviate(
-                    Objects.requireNonNull(embed.getDescription()), MAX_EMBED_DESCRIPTION_SHORT);
-            WebhookEmbed shortEmbed =
-                    new WebhookEmbedBuilder(embed).setDescription(shortDescription).build();
-
-            return new LogMessage(shortEmbed, timestamp);
-        }
-
-        @Override
-        public int compareTo(@NotNull LogMessage o) {
-            return timestamp.compareTo(o.timestamp);
-        }
     }
 }
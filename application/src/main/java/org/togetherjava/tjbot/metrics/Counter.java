@@ -0,0 +1,50 @@
+package org.togetherjava.tjbot.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A monotonically increasing count, for example the amount of failed routine runs.
+ * <p>
+ * Create instances using {@link Metrics#counter(String, String, String...)}. Instances are
+ * thread-safe and cheap to update from hot paths.
+ */
+public final class Counter implements MetricSample {
+    private final LongAdder count = new LongAdder();
+
+    Counter() {
+        // Created by Metrics only
+    }
+
+    /**
+     * Increments the counter by one.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Increments the counter by the given amount.
+     *
+     * @param amount the amount to add, must not be negative
+     */
+    public void add(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counters can only increase, but got " + amount);
+        }
+        count.add(amount);
+    }
+
+    /**
+     * Gets the current count.
+     *
+     * @return the current count
+     */
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public void writeTo(StringBuilder out, String name, String labels) {
+        MetricSample.writeLine(out, name, labels, get());
+    }
+}
@@ -0,0 +1,53 @@
+package org.togetherjava.tjbot.metrics;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseMetricsListener;
+
+/**
+ * Records the lock wait and execution time of all {@link Database} accesses, as well as how often
+ * prepared statements are reused.
+ * <p>
+ * Register it using {@link Database#setMetricsListener(DatabaseMetricsListener)}.
+ */
+public final class DatabaseMetrics implements DatabaseMetricsListener {
+    private static final String EXECUTION_METRIC = "tjbot_database_execution_seconds";
+    private static final String EXECUTION_HELP =
+            "Time spent executing database actions, excluding lock wait";
+
+    private final LatencyHistogram lockWait = Metrics.histogram(
+            "tjbot_database_lock_wait_seconds", "Time spent waiting for the database write lock");
+    private final LatencyHistogram readExecution =
+            Metrics.histogram(EXECUTION_METRIC, EXECUTION_HELP, "access", "read");
+    private final LatencyHistogram writeExecution =
+            Metrics.histogram(EXECUTION_METRIC, EXECUTION_HELP, "access", "write");
+    private final Counter statementCacheHits =
+            Metrics.counter("tjbot_database_statement_cache_hits_total",
+                    "Amount of statements executed with a previously prepared statement");
+    private final LatencyHistogram statementPrepare =
+            Metrics.histogram("tjbot_database_statement_prepare_seconds",
+                    "Time spent preparing statements that were not cached");
+
+    @Override
+    public void onWriteLockAcquired(long waitNanos) {
+        lockWait.recordNanos(waitNanos);
+    }
+
+    @Override
+    public void onActionCompleted(AccessType accessType, long executionNanos) {
+        LatencyHistogram execution = switch (accessType) {
+            case READ -> readExecution;
+            case WRITE -> writeExecution;
+        };
+        execution.recordNanos(executionNanos);
+    }
+
+    @Override
+    public void onStatementCacheHit() {
+        statementCacheHits.increment();
+    }
+
+    @Override
+    public void onStatementPrepared(long prepareNanos) {
+        statementPrepare.recordNanos(prepareNanos);
+    }
+}
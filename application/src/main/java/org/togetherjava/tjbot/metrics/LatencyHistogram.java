@@ -0,0 +1,162 @@
+package org.togetherjava.tjbot.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of latencies, for example the time it takes to handle a slash command.
+ * <p>
+ * Create instances using {@link Metrics#histogram(String, String, String...)}. Instances are
+ * thread-safe and recording is lock-free.
+ * <p>
+ * Similar to an HDR histogram, values are recorded into log-linear buckets. Each power of two is
+ * split into {@value #SUB_BUCKET_COUNT} linear sub-buckets, which bounds the relative error of
+ * reported quantiles to about 6%, regardless of whether the latencies are in the range of
+ * microseconds or minutes. The histogram is exported as Prometheus summary, with a fixed set of
+ * quantiles computed over the whole lifetime of the histogram.
+ */
+public final class LatencyHistogram implements MetricSample {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values below {@link #SUB_BUCKET_COUNT} have their own bucket, all others are grouped by their
+     * highest bit (exponents {@value #SUB_BUCKET_BITS} to 62) and then split into sub-buckets.
+     */
+    private static final int BUCKET_COUNT =
+            SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+    private static final double[] EXPORTED_QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {
+        // Created by Metrics only
+    }
+
+    /**
+     * Records the given latency.
+     *
+     * @param latency the latency to record, negative values are treated as zero
+     */
+    public void record(Duration latency) {
+        recordNanos(latency.toNanos());
+    }
+
+    /**
+     * Records the given latency.
+     *
+     * @param latencyNanos the latency to record, in nanoseconds. Negative values are treated as
+     *        zero.
+     */
+    public void recordNanos(long latencyNanos) {
+        long value = Math.max(0, latencyNanos);
+        buckets.incrementAndGet(bucketIndexOf(value));
+        count.increment();
+        sumNanos.add(value);
+    }
+
+    /**
+     * Runs the given action and records how long it took, also if it failed.
+     *
+     * @param action the action to run and measure
+     */
+    public void time(Runnable action) {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            recordNanos(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the amount of recorded latencies.
+     *
+     * @return the amount of recorded latencies
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Estimates the latency at the given quantile, for example {@code 0.99} for the latency that
+     * 99% of all recorded latencies are below of.
+     *
+     * @param quantile the quantile to estimate, between {@code 0} and {@code 1}
+     * @return the estimated latency, zero if nothing was recorded yet
+     */
+    public Duration getValueAtQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1, was " + quantile);
+        }
+        return Duration.ofNanos(valueAtQuantile(snapshotBuckets(), quantile));
+    }
+
+    @Override
+    public void writeTo(StringBuilder out, String name, String labels) {
+        long[] snapshot = snapshotBuckets();
+        String labelPrefix = labels.isEmpty() ? "" : labels + ",";
+
+        for (double quantile : EXPORTED_QUANTILES) {
+            MetricSample.writeLine(out, name, labelPrefix + "quantile=\"" + quantile + "\"",
+                    valueAtQuantile(snapshot, quantile) / NANOS_PER_SECOND);
+        }
+        MetricSample.writeLine(out, name + "_sum", labels, sumNanos.sum() / NANOS_PER_SECOND);
+        MetricSample.writeLine(out, name + "_count", labels, count.sum());
+    }
+
+    private long[] snapshotBuckets() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    private static long valueAtQuantile(long[] snapshot, double quantile) {
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return bucketMidpointOf(i);
+            }
+        }
+        return bucketMidpointOf(snapshot.length - 1);
+    }
+
+    static int bucketIndexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long bucketMidpointOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowerBound = (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+        long bucketWidth = 1L << shift;
+        return lowerBound + bucketWidth / 2;
+    }
+}
@@ -0,0 +1,43 @@
+package org.togetherjava.tjbot.metrics;
+
+/**
+ * A single labeled sample of a metric, as it is rendered in the Prometheus text format.
+ */
+@FunctionalInterface
+interface MetricSample {
+    /**
+     * Appends the current value of this sample in the Prometheus text format.
+     *
+     * @param out the output to append to
+     * @param name the name of the metric
+     * @param labels the rendered labels of the sample, for example {@code cache="tags"}, empty if
+     *        the sample has no labels
+     */
+    void writeTo(StringBuilder out, String name, String labels);
+
+    /**
+     * Appends a single sample line in the Prometheus text format.
+     *
+     * @param out the output to append to
+     * @param name the name of the sample
+     * @param labels the rendered labels of the sample, empty if none
+     * @param value the value of the sample
+     */
+    static void writeLine(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ');
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+    }
+}
@@ -0,0 +1,258 @@
+package org.togetherjava.tjbot.metrics;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Registry of all metrics recorded by the bot, such as the latency of event handlers, executor
+ * queue depths or cache hit rates.
+ * <p>
+ * Metrics are identified by their name and an optional set of labels, given as alternating label
+ * names and values. For example:
+ *
+ * <pre>
+ * {@code
+ * Metrics.histogram("tjbot_routine_duration_seconds", "Duration of routine runs",
+ *         "routine", routineName).time(() -> routine.runRoutine(jda));
+ * }
+ * </pre>
+ *
+ * Requesting the same name and labels again returns the same instance. All recorded metrics can be
+ * exported using {@link #scrape()}, which is served by {@link MetricsServer}.
+ */
+public final class Metrics {
+    private static final Pattern NAME_PATTERN = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+    private static final ConcurrentMap<String, MetricFamily> nameToFamily =
+            new ConcurrentHashMap<>();
+
+    private Metrics() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Gets or creates the counter with the given name and labels.
+     *
+     * @param name the name of the metric, conventionally ending with {@code _total}
+     * @param help a short human-readable description of the metric
+     * @param labels alternating label names and values, for example
+     *        {@code "routine", "RemindRoutine"}
+     * @return the counter with the given name and labels
+     */
+    public static Counter counter(String name, String help, String... labels) {
+        return (Counter) family(name, help, MetricType.COUNTER)
+            .computeIfAbsent(renderLabels(labels), any -> new Counter());
+    }
+
+    /**
+     * Gets or creates the latency histogram with the given name and labels.
+     *
+     * @param name the name of the metric, conventionally ending with {@code _seconds}
+     * @param help a short human-readable description of the metric
+     * @param labels alternating label names and values, for example
+     *        {@code "routine", "RemindRoutine"}
+     * @return the histogram with the given name and labels
+     */
+    public static LatencyHistogram histogram(String name, String help, String... labels) {
+        return (LatencyHistogram) family(name, help, MetricType.SUMMARY)
+            .computeIfAbsent(renderLabels(labels), any -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a gauge, whose value is computed by the given supplier whenever metrics are
+     * scraped. Registering a gauge with the same name and labels again replaces the previous one.
+     *
+     * @param name the name of the metric
+     * @param help a short human-readable description of the metric
+     * @param value supplies the current value, must be cheap and thread-safe
+     * @param labels alternating label names and values
+     */
+    public static void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, MetricType.GAUGE).put(renderLabels(labels), supplierSample(value));
+    }
+
+    /**
+     * Registers a counter, whose value is maintained elsewhere and computed by the given supplier
+     * whenever metrics are scraped. Registering a counter with the same name and labels again
+     * replaces the previous one.
+     *
+     * @param name the name of the metric, conventionally ending with {@code _total}
+     * @param help a short human-readable description of the metric
+     * @param value supplies the current value, must be cheap, thread-safe and never decrease
+     * @param labels alternating label names and values
+     */
+    public static void counterFunction(String name, String help, DoubleSupplier value,
+            String... labels) {
+        family(name, help, MetricType.COUNTER).put(renderLabels(labels), supplierSample(value));
+    }
+
+    /**
+     * Exports hit, miss and eviction counts as well as the size of the given cache.
+     * <p>
+     * The cache must have been built with {@code recordStats()}, otherwise only its size is
+     * meaningful. Monitoring another cache under the same name replaces the previous one.
+     *
+     * @param cacheName the name to identify the cache by, for example {@code "tag_names"}
+     * @param cache the cache to monitor
+     * @param <C> the type of the cache
+     * @return the given cache, for chaining
+     */
+    public static <C extends Cache<?, ?>> C monitorCache(String cacheName, C cache) {
+        counterFunction("tjbot_cache_hits_total", "Amount of cache lookups that hit",
+                () -> cache.stats().hitCount(), "cache", cacheName);
+        counterFunction("tjbot_cache_misses_total", "Amount of cache lookups that missed",
+                () -> cache.stats().missCount(), "cache", cacheName);
+        counterFunction("tjbot_cache_evictions_total", "Amount of entries evicted from caches",
+                () -> cache.stats().evictionCount(), "cache", cacheName);
+        gauge("tjbot_cache_size", "Estimated amount of entries in caches", cache::estimatedSize,
+                "cache", cacheName);
+        return cache;
+    }
+
+    /**
+     * Exports hit, miss and eviction counts as well as the size of the given cache.
+     *
+     * @param cacheName the name to identify the cache by, for example {@code "link_previews"}
+     * @param cache the cache to monitor
+     * @param <C> the type of the cache
+     * @return the given cache, for chaining
+     * @see #monitorCache(String, Cache)
+     */
+    public static <C extends AsyncCache<?, ?>> C monitorCache(String cacheName, C cache) {
+        monitorCache(cacheName, cache.synchronous());
+        return cache;
+    }
+
+    /**
+     * Exports the amount of active threads and queued tasks of the given executor.
+     * <p>
+     * Only {@link ThreadPoolExecutor} and {@link ForkJoinPool} expose these numbers, other
+     * executors are ignored.
+     *
+     * @param executorName the name to identify the executor by, for example {@code "commands"}
+     * @param executor the executor to monitor
+     */
+    public static void monitorExecutor(String executorName, ExecutorService executor) {
+        DoubleSupplier activeThreads;
+        DoubleSupplier queuedTasks;
+        if (executor instanceof ThreadPoolExecutor threadPool) {
+            activeThreads = threadPool::getActiveCount;
+            queuedTasks = () -> threadPool.getQueue().size();
+        } else if (executor instanceof ForkJoinPool forkJoinPool) {
+            activeThreads = forkJoinPool::getActiveThreadCount;
+            queuedTasks = () -> forkJoinPool.getQueuedSubmissionCount()
+                    + forkJoinPool.getQueuedTaskCount();
+        } else {
+            return;
+        }
+
+        gauge("tjbot_executor_active_threads", "Amount of threads actively executing tasks",
+                activeThreads, "executor", executorName);
+        gauge("tjbot_executor_queued_tasks", "Amount of tasks waiting for execution", queuedTasks,
+                "executor", executorName);
+    }
+
+    /**
+     * Exports all registered metrics in the Prometheus text format.
+     *
+     * @return the current state of all metrics in the Prometheus text format
+     */
+    public static String scrape() {
+        StringBuilder out = new StringBuilder();
+        nameToFamily.values()
+            .stream()
+            .sorted((first, second) -> first.name().compareTo(second.name()))
+            .forEach(family -> family.writeTo(out));
+        return out.toString();
+    }
+
+    private static Map<String, MetricSample> family(String name, String help, MetricType type) {
+        MetricFamily family = nameToFamily.computeIfAbsent(name, any -> {
+            if (!NAME_PATTERN.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid metric name: " + name);
+            }
+            return new MetricFamily(name, help, type, new ConcurrentHashMap<>());
+        });
+
+        if (family.type() != type) {
+            throw new IllegalArgumentException("The metric %s is already registered as %s"
+                .formatted(name, family.type()));
+        }
+        return family.labelsToSample();
+    }
+
+    private static String renderLabels(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "Labels must be given as pairs of names and values, but got an odd amount");
+        }
+
+        StringBuilder rendered = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            String labelName = Objects.requireNonNull(labels[i]);
+            if (!NAME_PATTERN.matcher(labelName).matches()) {
+                throw new IllegalArgumentException("Invalid label name: " + labelName);
+            }
+            if (!rendered.isEmpty()) {
+                rendered.append(',');
+            }
+            rendered.append(labelName)
+                .append("=\"")
+                .append(escapeLabelValue(Objects.requireNonNull(labels[i + 1])))
+                .append('"');
+        }
+        return rendered.toString();
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static MetricSample supplierSample(DoubleSupplier value) {
+        return (out, name, labels) -> MetricSample.writeLine(out, name, labels,
+                value.getAsDouble());
+    }
+
+    private enum MetricType {
+        COUNTER,
+        GAUGE,
+        SUMMARY;
+
+        String getPrometheusName() {
+            return name().toLowerCase(Locale.US);
+        }
+    }
+
+    private record MetricFamily(String name, String help, MetricType type,
+            ConcurrentMap<String, MetricSample> labelsToSample) {
+        void writeTo(StringBuilder out) {
+            if (labelsToSample.isEmpty()) {
+                return;
+            }
+
+            out.append("# HELP ")
+                .append(name)
+                .append(' ')
+                .append(help.replace("\\", "\\\\").replace("\n", "\\n"))
+                .append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(type.getPrometheusName());
+            out.append('\n');
+
+            labelsToSample.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(labelsAndSample -> labelsAndSample.getValue()
+                    .writeTo(out, name, labelsAndSample.getKey()));
+        }
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * This package offers a lightweight metrics system for the bot, see
+ * {@link org.togetherjava.tjbot.metrics.Metrics}. Recorded metrics can be scraped in the Prometheus
+ * text format from {@link org.togetherjava.tjbot.metrics.MetricsServer}.
+ */
+@MethodsReturnNonnullByDefault
+@ParametersAreNonnullByDefault
+package org.togetherjava.tjbot.metrics;
+
+import org.togetherjava.tjbot.annotations.MethodsReturnNonnullByDefault;
+
+import javax.annotation.ParametersAreNonnullByDefault;
@@ -0,0 +1,101 @@
+package org.togetherjava.tjbot.rest;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.requests.RestRateLimiter;
+import net.dv8tion.jda.api.requests.Route;
+import okhttp3.Response;
+
+import javax.annotation.Nullable;
+
+/**
+ * Rate limiter of JDA that leaves rate limiting to the given delegate, but reports the responses of
+ * all requests to {@link RestHeadroom}.
+ */
+final class HeadroomTrackingRateLimiter implements RestRateLimiter {
+    private final RestRateLimiter delegate;
+    private final RestHeadroom headroom;
+
+    /**
+     * Creates a new rate limiter.
+     *
+     * @param delegate the rate limiter to leave rate limiting to
+     * @param headroom the headroom to report responses to
+     */
+    HeadroomTrackingRateLimiter(RestRateLimiter delegate, RestHeadroom headroom) {
+        this.delegate = delegate;
+        this.headroom = headroom;
+    }
+
+    @Override
+    public void enqueue(Work task) {
+        delegate.enqueue(new TrackedWork(task));
+    }
+
+    @Override
+    public void stop(boolean shutdown, Runnable callback) {
+        delegate.stop(shutdown, callback);
+    }
+
+    @Override
+    public boolean isStopped() {
+        return delegate.isStopped();
+    }
+
+    @Override
+    public int cancelRequests() {
+        return delegate.cancelRequests();
+    }
+
+    private final class TrackedWork implements Work {
+        private final Work work;
+
+        TrackedWork(Work work) {
+            this.work = work;
+        }
+
+        @Override
+        public Route.CompiledRoute getRoute() {
+            return work.getRoute();
+        }
+
+        @Override
+        public JDA getJDA() {
+            return work.getJDA();
+        }
+
+        @Nullable
+        @Override
+        public Response execute() {
+            Response response = work.execute();
+            if (response != null) {
+                headroom.onResponse(response);
+            }
+            return response;
+        }
+
+        @Override
+        public boolean isSkipped() {
+            return work.isSkipped();
+        }
+
+        @Override
+        public boolean isDone() {
+            return work.isDone();
+        }
+
+        @Override
+        public boolean isPriority() {
+            return work.isPriority();
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return work.isCancelled();
+        }
+
+        @Override
+        public void cancel() {
+            work.cancel();
+        }
+    }
+}
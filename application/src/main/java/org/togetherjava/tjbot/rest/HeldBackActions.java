@@ -0,0 +1,182 @@
+package org.togetherjava.tjbot.rest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.metrics.Counter;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Low-priority REST actions that are held back while the rate limits are under pressure, as decided
+ * by {@link RestHeadroom}.
+ * <p>
+ * Actions are released in the order they were offered, a few at a time. Cosmetic actions are
+ * dropped once too many are held back or if they were held back for too long. Bulk actions are
+ * never dropped. If too many are held back, they still wait in line and the overflow is reported.
+ * Bulk actions that were held back for too long are released also if the pressure persists.
+ */
+final class HeldBackActions {
+    private static final Logger logger = LoggerFactory.getLogger(HeldBackActions.class);
+    static final int MAX_HELD_BACK_ACTIONS = 500;
+    static final int MAX_RELEASED_ACTIONS = 5;
+    static final Duration MAX_COSMETIC_HOLD_BACK = Duration.ofMinutes(1);
+    static final Duration MAX_BULK_HOLD_BACK = Duration.ofMinutes(1);
+    private static final List<RestPriority> HELD_BACK_PRIORITIES =
+            List.of(RestPriority.BULK, RestPriority.COSMETIC);
+
+    private final RestHeadroom headroom;
+    private final LongSupplier nanoTime;
+    /**
+     * Actions held back, by their priority. Each queue is guarded by itself.
+     */
+    private final Map<RestPriority, Deque<HeldBackAction>> priorityToActions =
+            new EnumMap<>(RestPriority.class);
+    private final Counter droppedActions = Metrics.counter("tjbot_rest_dropped_actions_total",
+            "Amount of cosmetic REST actions dropped instead of being sent");
+    private final Counter overflowedActions =
+            Metrics.counter("tjbot_rest_overflowed_actions_total",
+                    "Amount of bulk REST actions held back while too many were held back already");
+
+    /**
+     * Creates a new instance.
+     *
+     * @param headroom the headroom that decides whether actions are held back
+     * @param nanoTime the source of the current time, as given by {@link System#nanoTime()}
+     */
+    HeldBackActions(RestHeadroom headroom, LongSupplier nanoTime) {
+        this.headroom = headroom;
+        this.nanoTime = nanoTime;
+
+        for (RestPriority priority : HELD_BACK_PRIORITIES) {
+            Deque<HeldBackAction> actions = new ArrayDeque<>();
+            priorityToActions.put(priority, actions);
+            Metrics.gauge("tjbot_rest_held_back_actions", "Amount of REST actions held back",
+                    () -> count(actions), "priority", priority.name().toLowerCase(Locale.US));
+        }
+    }
+
+    /**
+     * Holds back the given action if required by its priority and the headroom. Actions are also
+     * held back if other actions of the same priority are held back already, so that they keep
+     * their order.
+     *
+     * @param priority the priority of the action
+     * @param queueInJda queues the action in JDA once released
+     * @return {@code true} if the action was held back or dropped, {@code false} if it should be
+     *         queued in JDA right away
+     */
+    boolean offer(RestPriority priority, Runnable queueInJda) {
+        Deque<HeldBackAction> actions = priorityToActions.get(priority);
+        if (actions == null) {
+            return false;
+        }
+
+        int heldBackBefore;
+        boolean isOverflow;
+        synchronized (actions) {
+            if (actions.isEmpty() && !headroom.isUnderPressure()) {
+                return false;
+            }
+
+            heldBackBefore = actions.size();
+            isOverflow = heldBackBefore >= MAX_HELD_BACK_ACTIONS;
+            if (!isOverflow || priority == RestPriority.BULK) {
+                actions.addLast(new HeldBackAction(nanoTime.getAsLong(), queueInJda));
+            }
+        }
+
+        if (isOverflow) {
+            if (priority == RestPriority.BULK) {
+                overflowedActions.increment();
+                if (heldBackBefore == MAX_HELD_BACK_ACTIONS) {
+                    logger.warn(
+                            "More than {} bulk REST actions are held back, the rate limits are saturated",
+                            MAX_HELD_BACK_ACTIONS);
+                }
+            } else {
+                droppedActions.increment();
+                logger.debug("Dropped a cosmetic REST action, too many are held back already");
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Takes the actions that are due to be released. That are the oldest actions, if the rate
+     * limits are not under pressure, and bulk actions that were held back for too long otherwise.
+     * Cosmetic actions that were held back for too long are dropped.
+     *
+     * @return the actions to queue in JDA, at most {@link #MAX_RELEASED_ACTIONS}
+     */
+    List<Runnable> release() {
+        long now = nanoTime.getAsLong();
+        dropStaleCosmeticActions(now);
+
+        boolean isUnderPressure = headroom.isUnderPressure();
+        List<Runnable> releasedActions = new ArrayList<>();
+        for (RestPriority priority : HELD_BACK_PRIORITIES) {
+            Deque<HeldBackAction> actions = priorityToActions.get(priority);
+            synchronized (actions) {
+                while (!actions.isEmpty() && releasedActions.size() < MAX_RELEASED_ACTIONS
+                        && (!isUnderPressure
+                                || isOverdueBulk(priority, actions.getFirst(), now))) {
+                    releasedActions.add(actions.removeFirst().queueInJda());
+                }
+            }
+        }
+        return releasedActions;
+    }
+
+    private void dropStaleCosmeticActions(long now) {
+        Deque<HeldBackAction> actions = priorityToActions.get(RestPriority.COSMETIC);
+        int droppedStaleActions = 0;
+        synchronized (actions) {
+            while (!actions.isEmpty()
+                    && now - actions.getFirst().heldBackAt() > MAX_COSMETIC_HOLD_BACK.toNanos()) {
+                actions.removeFirst();
+                droppedStaleActions++;
+            }
+        }
+
+        if (droppedStaleActions > 0) {
+            droppedActions.add(droppedStaleActions);
+            logger.debug("Dropped {} cosmetic REST actions that were held back for too long",
+                    droppedStaleActions);
+        }
+    }
+
+    private static boolean isOverdueBulk(RestPriority priority, HeldBackAction action, long now) {
+        return priority == RestPriority.BULK
+                && now - action.heldBackAt() > MAX_BULK_HOLD_BACK.toNanos();
+    }
+
+    /**
+     * Counts the actions of the given priority that are currently held back.
+     *
+     * @param priority the priority to count actions of
+     * @return the amount of held back actions
+     */
+    int count(RestPriority priority) {
+        Deque<HeldBackAction> actions = priorityToActions.get(priority);
+        return actions == null ? 0 : count(actions);
+    }
+
+    private static int count(Deque<HeldBackAction> actions) {
+        synchronized (actions) {
+            return actions.size();
+        }
+    }
+
+    private record HeldBackAction(long heldBackAt, Runnable queueInJda) {
+    }
+}
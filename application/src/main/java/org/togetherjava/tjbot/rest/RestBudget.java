@@ -0,0 +1,156 @@
+package org.togetherjava.tjbot.rest;
+
+import net.dv8tion.jda.api.JDABuilder;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.requests.RestConfig;
+import net.dv8tion.jda.api.requests.SequentialRestRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.metrics.LatencyHistogram;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Sends REST actions to Discord according to their {@link RestPriority}, so that low-priority
+ * actions do not delay urgent ones under rate limits.
+ * <p>
+ * Urgent and normal actions are queued in JDA right away. Bulk and cosmetic actions are held back
+ * while the rate limits are under pressure, as tracked from the rate limit headers of all
+ * responses, and are then released a few at a time. Cosmetic actions that were held back for too
+ * long are dropped, without calling their callbacks. Bulk actions are never dropped and are
+ * released after a while, also if the pressure persists.
+ * <p>
+ * Use {@link #trackHeadroom(JDABuilder)} when building JDA, otherwise only urgent actions are
+ * considered to put pressure on the rate limits.
+ * <p>
+ * The time actions were held back and the time until they completed are reported as metrics,
+ * labeled by priority.
+ */
+public final class RestBudget {
+    private static final Logger logger = LoggerFactory.getLogger(RestBudget.class);
+    private static final Duration RELEASE_INTERVAL = Duration.ofMillis(250);
+
+    private static final RestHeadroom headroom = new RestHeadroom(System::nanoTime);
+    private static final HeldBackActions heldBackActions =
+            new HeldBackActions(headroom, System::nanoTime);
+    private static final Map<RestPriority, LatencyHistogram> priorityToHoldBack =
+            new EnumMap<>(RestPriority.class);
+    private static final Map<RestPriority, LatencyHistogram> priorityToCompletion =
+            new EnumMap<>(RestPriority.class);
+    private static final ScheduledExecutorService releaseService =
+            Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "rest-budget");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    static {
+        for (RestPriority priority : RestPriority.values()) {
+            String priorityName = priority.name().toLowerCase(Locale.US);
+            priorityToHoldBack.put(priority, Metrics.histogram("tjbot_rest_hold_back_seconds",
+                    "Time REST actions were held back before being queued in JDA", "priority",
+                    priorityName));
+            priorityToCompletion.put(priority, Metrics.histogram("tjbot_rest_completion_seconds",
+                    "Time from submitting REST actions until they completed, including rate limits",
+                    "priority", priorityName));
+        }
+
+        releaseService.scheduleWithFixedDelay(RestBudget::releaseHeldBackActions,
+                RELEASE_INTERVAL.toMillis(), RELEASE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private RestBudget() {
+        throw new UnsupportedOperationException("Utility class, construction not supported");
+    }
+
+    /**
+     * Configures the given builder to report the rate limit headers of all responses, which
+     * determine whether low-priority actions are held back.
+     *
+     * @param builder the builder to configure
+     * @return the given builder, for chaining
+     */
+    public static JDABuilder trackHeadroom(JDABuilder builder) {
+        return builder.setRestConfig(new RestConfig()
+            .setRateLimiterFactory(rateLimitConfig -> new HeadroomTrackingRateLimiter(
+                    new SequentialRestRateLimiter(rateLimitConfig), headroom)));
+    }
+
+    /**
+     * Queues the given action according to its priority, using the default callbacks of JDA.
+     *
+     * @param priority the priority of the action
+     * @param action the action to queue
+     */
+    public static void queue(RestPriority priority, RestAction<?> action) {
+        queue(priority, action, null, null);
+    }
+
+    /**
+     * Queues the given action according to its priority.
+     * <p>
+     * The callbacks are not called if the action is dropped.
+     *
+     * @param priority the priority of the action
+     * @param action the action to queue
+     * @param success called with the result of the action once it succeeded, the default callback
+     *        of JDA if {@code null}
+     * @param failure called with the failure of the action once it failed, the default callback of
+     *        JDA if {@code null}
+     * @param <T> the type of the result of the action
+     */
+    public static <T> void queue(RestPriority priority, RestAction<T> action,
+            @Nullable Consumer<? super T> success, @Nullable Consumer<? super Throwable> failure) {
+        long submittedAt = System.nanoTime();
+        Runnable queueInJda = () -> queueInJda(priority, action, success, failure, submittedAt);
+
+        if (priority == RestPriority.URGENT) {
+            headroom.onUrgentAction();
+        }
+        if (!heldBackActions.offer(priority, queueInJda)) {
+            queueInJda.run();
+        }
+    }
+
+    private static <T> void queueInJda(RestPriority priority, RestAction<T> action,
+            @Nullable Consumer<? super T> success, @Nullable Consumer<? super Throwable> failure,
+            long submittedAt) {
+        priorityToHoldBack.get(priority).recordNanos(System.nanoTime() - submittedAt);
+        LatencyHistogram completion = priorityToCompletion.get(priority);
+
+        action.queue(result -> {
+            completion.recordNanos(System.nanoTime() - submittedAt);
+            if (success == null) {
+                RestAction.getDefaultSuccess().accept(result);
+            } else {
+                success.accept(result);
+            }
+        }, error -> {
+            completion.recordNanos(System.nanoTime() - submittedAt);
+            if (failure == null) {
+                RestAction.getDefaultFailure().accept(error);
+            } else {
+                failure.accept(error);
+            }
+        });
+    }
+
+    private static void releaseHeldBackActions() {
+        try {
+            heldBackActions.release().forEach(Runnable::run);
+        } catch (RuntimeException e) {
+            logger.error("Unknown error while releasing held back REST actions", e);
+        }
+    }
+}
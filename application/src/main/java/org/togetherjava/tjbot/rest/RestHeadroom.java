@@ -0,0 +1,160 @@
+package org.togetherjava.tjbot.rest;
+
+import okhttp3.Response;
+
+import org.togetherjava.tjbot.metrics.Counter;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import javax.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks how much headroom the rate limits of Discord have left, based on the rate limit headers of
+ * the responses to REST requests.
+ * <p>
+ * Rate limits are considered under pressure shortly after a request was rate limited or an urgent
+ * action was sent. If the global rate limit was hit, the pressure lasts until Discord accepts
+ * requests again.
+ * <p>
+ * Exhausted rate limit buckets are tracked and reported as metric, but do not put the rate limits
+ * under pressure. Many routes have a small limit that is exhausted by regular use, for example
+ * adding reactions, which says nothing about the headroom of other buckets.
+ */
+final class RestHeadroom {
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    private static final String RESET_AFTER_HEADER = "X-RateLimit-Reset-After";
+    private static final String BUCKET_HEADER = "X-RateLimit-Bucket";
+    private static final String GLOBAL_HEADER = "X-RateLimit-Global";
+    private static final String SCOPE_HEADER = "X-RateLimit-Scope";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+    private static final String GLOBAL_SCOPE = "global";
+    private static final Duration PRESSURE_AFTER_RATE_LIMIT = Duration.ofSeconds(5);
+    private static final Duration PRESSURE_AFTER_URGENT_ACTION = Duration.ofSeconds(2);
+    private static final String RATE_LIMIT_HITS_METRIC = "tjbot_rest_rate_limit_hits_total";
+    private static final String RATE_LIMIT_HITS_HELP =
+            "Amount of REST requests that were rejected by a rate limit";
+
+    private final LongSupplier nanoTime;
+    private final Map<String, Long> bucketToExhaustedUntil = new ConcurrentHashMap<>();
+    private final Counter globalRateLimitHits =
+            Metrics.counter(RATE_LIMIT_HITS_METRIC, RATE_LIMIT_HITS_HELP, "scope", "global");
+    private final Counter routeRateLimitHits =
+            Metrics.counter(RATE_LIMIT_HITS_METRIC, RATE_LIMIT_HITS_HELP, "scope", "route");
+
+    private volatile long underPressureUntil;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nanoTime the source of the current time, as given by {@link System#nanoTime()}
+     */
+    RestHeadroom(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        underPressureUntil = nanoTime.getAsLong();
+
+        Metrics.gauge("tjbot_rest_exhausted_buckets",
+                "Amount of rate limit buckets without remaining requests",
+                this::countExhaustedBuckets);
+    }
+
+    /**
+     * Records the rate limit state given by the response to a REST request.
+     *
+     * @param response the response to the request
+     */
+    void onResponse(Response response) {
+        long now = nanoTime.getAsLong();
+        if (response.code() == HTTP_TOO_MANY_REQUESTS) {
+            onRateLimitHit(response, now);
+        }
+
+        String bucket = response.header(BUCKET_HEADER);
+        String remaining = response.header(REMAINING_HEADER);
+        Long resetAfterNanos = parseSecondsAsNanos(response.header(RESET_AFTER_HEADER));
+        if (bucket == null || remaining == null || resetAfterNanos == null) {
+            return;
+        }
+
+        try {
+            if (Integer.parseInt(remaining) > 0) {
+                bucketToExhaustedUntil.remove(bucket);
+            } else {
+                bucketToExhaustedUntil.put(bucket, now + resetAfterNanos);
+            }
+        } catch (NumberFormatException e) {
+            // Malformed headers carry no information about the headroom, ignore them
+        }
+    }
+
+    private void onRateLimitHit(Response response, long now) {
+        boolean isGlobal = Boolean.parseBoolean(response.header(GLOBAL_HEADER))
+                || GLOBAL_SCOPE.equalsIgnoreCase(response.header(SCOPE_HEADER));
+        long pressureNanos = PRESSURE_AFTER_RATE_LIMIT.toNanos();
+
+        if (isGlobal) {
+            globalRateLimitHits.increment();
+            // Nothing can be sent until the global rate limit is over
+            Long retryAfterNanos = parseSecondsAsNanos(response.header(RETRY_AFTER_HEADER));
+            if (retryAfterNanos != null) {
+                pressureNanos = Math.max(pressureNanos, retryAfterNanos);
+            }
+        } else {
+            routeRateLimitHits.increment();
+        }
+
+        extendPressure(now + pressureNanos);
+    }
+
+    /**
+     * Records that an urgent action is about to be sent, low-priority actions should make way for
+     * it.
+     */
+    void onUrgentAction() {
+        extendPressure(nanoTime.getAsLong() + PRESSURE_AFTER_URGENT_ACTION.toNanos());
+    }
+
+    private synchronized void extendPressure(long until) {
+        if (until - underPressureUntil > 0) {
+            underPressureUntil = until;
+        }
+    }
+
+    /**
+     * Whether the rate limits are currently under pressure, low-priority actions should be held
+     * back.
+     *
+     * @return whether the rate limits are under pressure
+     */
+    boolean isUnderPressure() {
+        return underPressureUntil - nanoTime.getAsLong() > 0;
+    }
+
+    /**
+     * Counts the rate limit buckets that currently have no requests remaining.
+     *
+     * @return the amount of exhausted buckets
+     */
+    int countExhaustedBuckets() {
+        long now = nanoTime.getAsLong();
+        bucketToExhaustedUntil.values().removeIf(exhaustedUntil -> exhaustedUntil - now <= 0);
+        return bucketToExhaustedUntil.size();
+    }
+
+    @Nullable
+    private static Long parseSecondsAsNanos(@Nullable String seconds) {
+        if (seconds == null) {
+            return null;
+        }
+
+        try {
+            return Math.round(Double.parseDouble(seconds) * 1e9);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.togetherjava.tjbot.rest;
+
+/**
+ * How urgently a REST action has to be sent to Discord, see {@link RestBudget}.
+ */
+public enum RestPriority {
+    /**
+     * Actions that have to take effect right away, such as deleting scam or banning users. Sent
+     * right away, low-priority actions are held back for a moment after them.
+     */
+    URGENT,
+    /**
+     * Actions without special requirements. Sent right away.
+     */
+    NORMAL,
+    /**
+     * Actions that may take effect later, such as archiving inactive threads. Held back while rate
+     * limits are under pressure, but never dropped.
+     */
+    BULK,
+    /**
+     * Actions that are only cosmetic, such as adding reactions or renaming channels. Held back
+     * while rate limits are under pressure, and dropped if they were held back for too long.
+     */
+    COSMETIC
+}
@@ -0,0 +1,12 @@
+/**
+ * This package schedules Discord REST actions by priority, see
+ * {@link org.togetherjava.tjbot.rest.RestBudget}. Urgent actions are sent right away, while
+ * low-priority actions are held back while the rate limits of Discord are under pressure.
+ */
+@MethodsReturnNonnullByDefault
+@ParametersAreNonnullByDefault
+package org.togetherjava.tjbot.rest;
+
+import org.togetherjava.tjbot.annotations.MethodsReturnNonnullByDefault;
+
+import javax.annotation.ParametersAreNonnullByDefault;
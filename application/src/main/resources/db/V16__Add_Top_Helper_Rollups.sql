@@ -0,0 +1,15 @@
+CREATE TABLE top_helper_rollups
+(
+    guild_id      BIGINT  NOT NULL,
+    year_month    TEXT    NOT NULL,
+    author_id     BIGINT  NOT NULL,
+    total_length  BIGINT  NOT NULL,
+    message_count INTEGER NOT NULL,
+
+    PRIMARY KEY (guild_id, year_month, author_id)
+);
+
+INSERT INTO top_helper_rollups (guild_id, year_month, author_id, total_length, message_count)
+SELECT guild_id, substr(sent_at, 1, 7), author_id, SUM(message_length), COUNT(*)
+FROM help_channel_messages
+GROUP BY guild_id, substr(sent_at, 1, 7), author_id;
@@ -0,0 +1,2 @@
+CREATE INDEX moderation_actions_by_target
+    ON moderation_actions (guild_id, target_id, issued_at, case_id);
@@ -0,0 +1,2 @@
+CREATE INDEX bookmarks_by_author_and_creation
+    ON bookmarks (author_id, created_at, channel_id);
@@ -0,0 +1,16 @@
+CREATE TABLE component_ids_binary
+(
+    uuid         TEXT      NOT NULL UNIQUE PRIMARY KEY,
+    component_id BLOB      NOT NULL,
+    last_used    TIMESTAMP NOT NULL,
+    lifespan     TEXT      NOT NULL
+);
+
+-- Existing component ids keep their CSV text, which is still understood when reading them
+INSERT INTO component_ids_binary (uuid, component_id, last_used, lifespan)
+SELECT uuid, component_id, last_used, lifespan
+FROM component_ids;
+
+DROP TABLE component_ids;
+
+ALTER TABLE component_ids_binary RENAME TO component_ids;
@@ -0,0 +1,5 @@
+-- Lets the maintenance routine reclaim free pages in small steps. Existing databases only pick up
+-- the setting once rebuilt, which happens here once, before the bot starts using the database.
+PRAGMA auto_vacuum = INCREMENTAL;
+
+VACUUM;
@@ -0,0 +1,65 @@
+package org.togetherjava.tjbot.features;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class MessageAnalysisTest {
+    private static final String CONTENT =
+            "Free NITRO, claim it at https://example.com/gift \u0000now\n```java\nint x;\n```";
+
+    private Message message;
+    private MessageAnalysis analysis;
+
+    @BeforeEach
+    void setUp() {
+        message = mock(Message.class);
+        when(message.getContentRaw()).thenReturn(CONTENT);
+        when(message.getContentDisplay()).thenReturn(CONTENT);
+
+        analysis = new MessageAnalysis(message);
+    }
+
+    @Test
+    @DisplayName("Views are derived from the content of the message")
+    void derivesViews() {
+        // GIVEN a message
+        // WHEN analyzing it
+        // THEN the views reflect its content
+        assertEquals(List.of("free", "nitro", "claim", "it", "at", "https://example.com/gift"),
+                analysis.getLowercaseTokens().subList(0, 6));
+        assertEquals(List.of("https://example.com/gift"), analysis.getLinks());
+        assertEquals("int x;", analysis.getCode().orElseThrow().code().strip());
+        assertEquals(CONTENT.replace("\u0000", "").replace("\n", ""),
+                analysis.getPrintableContent());
+    }
+
+    @Test
+    @DisplayName("Each view is computed only once, however often it is requested")
+    void computesViewsOnce() {
+        // GIVEN a message
+        // WHEN requesting the same views repeatedly
+        List<String> firstTokens = analysis.getTokens();
+        List<String> secondTokens = analysis.getTokens();
+        analysis.getLowercaseTokens();
+        analysis.getLowercaseTokens();
+        List<String> firstLinks = analysis.getLinks();
+        List<String> secondLinks = analysis.getLinks();
+
+        // THEN they are computed once and then reused
+        assertSame(firstTokens, secondTokens);
+        assertSame(firstLinks, secondLinks);
+        verify(message, times(1)).getContentDisplay();
+        verify(message, times(1)).getContentRaw();
+    }
+}
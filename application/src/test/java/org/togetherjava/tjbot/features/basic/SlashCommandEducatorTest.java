@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.features.MessageReceiver;
 import org.togetherjava.tjbot.jda.JdaTester;
 
@@ -35,7 +36,7 @@ final class SlashCommandEducatorTest {
         MessageReceivedEvent event =
                 jdaTester.createMessageReceiveEvent(message, List.of(), ChannelType.TEXT);
 
-        messageReceiver.onMessageReceived(event);
+        messageReceiver.onMessageReceived(event, new MessageAnalysis(event.getMessage()));
 
         return event;
     }
@@ -0,0 +1,77 @@
+package org.togetherjava.tjbot.features.bookmarks;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.generated.tables.records.BookmarksRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.togetherjava.tjbot.db.generated.tables.Bookmarks.BOOKMARKS;
+
+final class BookmarksSystemTest {
+    private static final long AUTHOR_ID = 1;
+    private static final long OTHER_AUTHOR_ID = 2;
+
+    private Config config;
+    private Database database;
+    private BookmarksSystem bookmarksSystem;
+
+    @BeforeEach
+    void setUp() {
+        config = mock(Config.class, RETURNS_DEEP_STUBS);
+        when(config.getHelpSystem().getHelpForumPattern()).thenReturn("questions");
+
+        database = Database.createMemoryDatabase(BOOKMARKS);
+        bookmarksSystem = new BookmarksSystem(config, database);
+    }
+
+    @Test
+    @DisplayName("Bookmark counts are loaded at startup and kept in sync with changes")
+    void countsBookmarks() {
+        // GIVEN existing bookmarks of two users
+        bookmarksSystem.addBookmark(AUTHOR_ID, 10, null);
+        bookmarksSystem.addBookmark(AUTHOR_ID, 11, null);
+        bookmarksSystem.addBookmark(OTHER_AUTHOR_ID, 10, null);
+
+        // WHEN restarting and removing bookmarks
+        BookmarksSystem restartedSystem = new BookmarksSystem(config, database);
+        restartedSystem.removeBookmarks(AUTHOR_ID, Set.of(10L, 12L));
+
+        // THEN the counts reflect the current bookmarks
+        assertEquals(2, restartedSystem.getTotalBookmarkCount());
+        assertEquals(1, restartedSystem.getUserBookmarkCount(AUTHOR_ID));
+        assertEquals(1, restartedSystem.getUserBookmarkCount(OTHER_AUTHOR_ID));
+    }
+
+    @Test
+    @DisplayName("Paging through bookmarks visits each bookmark once, newest first")
+    void pagesThroughBookmarks() {
+        // GIVEN a user with several bookmarks
+        LongStream.rangeClosed(1, 7)
+            .forEach(channelId -> bookmarksSystem.addBookmark(AUTHOR_ID, channelId, null));
+
+        // WHEN paging through them
+        List<Long> visitedChannelIds = new ArrayList<>();
+        List<BookmarksRecord> page =
+                bookmarksSystem.getUsersBookmarksStartingAt(AUTHOR_ID, null, 3);
+        while (!page.isEmpty()) {
+            page.forEach(bookmark -> visitedChannelIds.add(bookmark.getChannelId()));
+            page = bookmarksSystem.getUsersBookmarksOlderThan(AUTHOR_ID,
+                    BookmarksSystem.BookmarkPosition.of(page.getLast()), 3);
+        }
+
+        // THEN all bookmarks are visited once, newest first
+        assertEquals(List.of(7L, 6L, 5L, 4L, 3L, 2L, 1L), visitedChannelIds);
+    }
+}
@@ -0,0 +1,80 @@
+package org.togetherjava.tjbot.features.componentids;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ComponentIdCodecTest {
+    private static final ComponentId COMPONENT_ID = new ComponentId("scam-blocker",
+            List.of("AUTO_DELETE_BUT_APPROVE_QUARANTINE", "", "ünïcödé, with; separators",
+                    "x".repeat(300)));
+
+    @Test
+    @DisplayName("Encoded component IDs decode to the original and are smaller than CSV")
+    void roundTrips() throws JsonProcessingException {
+        // GIVEN a component ID
+        // WHEN encoding and decoding it
+        byte[] encoded = ComponentIdCodec.encode(COMPONENT_ID);
+        ComponentId decoded = ComponentIdCodec.decode(encoded);
+
+        // THEN it is unchanged and smaller than its legacy CSV form
+        assertEquals(COMPONENT_ID, decoded);
+        assertTrue(encoded.length < toLegacyCsv(COMPONENT_ID).length);
+    }
+
+    @Test
+    @DisplayName("Component IDs persisted as CSV are still decoded")
+    void decodesLegacyCsv() throws JsonProcessingException {
+        // GIVEN a component ID persisted in the legacy CSV format
+        ComponentId componentId = new ComponentId("bookmarks", List.of("1", "2"));
+        byte[] legacy = toLegacyCsv(componentId);
+
+        // WHEN decoding it
+        ComponentId decoded = ComponentIdCodec.decode(legacy);
+
+        // THEN it is decoded correctly
+        assertEquals(componentId, decoded);
+    }
+
+    @Test
+    @DisplayName("Names of user interactors are shared between decoded component IDs")
+    void internsNames() {
+        // GIVEN the same component ID encoded twice
+        // WHEN decoding both
+        ComponentId first = ComponentIdCodec.decode(ComponentIdCodec.encode(COMPONENT_ID));
+        ComponentId second = ComponentIdCodec.decode(ComponentIdCodec.encode(COMPONENT_ID));
+
+        // THEN both share the same name instance
+        assertSame(first.userInteractorName(), second.userInteractorName());
+    }
+
+    @Test
+    @DisplayName("Truncated component IDs are rejected")
+    void rejectsTruncated() {
+        // GIVEN a truncated component ID
+        byte[] encoded = ComponentIdCodec.encode(COMPONENT_ID);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 10);
+
+        // WHEN decoding it, THEN it is rejected
+        assertThrows(InvalidComponentIdFormatException.class,
+                () -> ComponentIdCodec.decode(truncated));
+    }
+
+    private static byte[] toLegacyCsv(ComponentId componentId) throws JsonProcessingException {
+        CsvMapper csv = new CsvMapper();
+        return csv.writerFor(ComponentId.class)
+            .with(csv.schemaFor(ComponentId.class))
+            .writeValueAsString(componentId)
+            .getBytes(StandardCharsets.UTF_8);
+    }
+}
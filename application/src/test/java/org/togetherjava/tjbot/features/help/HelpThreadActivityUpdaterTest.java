@@ -0,0 +1,177 @@
+package org.togetherjava.tjbot.features.help;
+
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.entities.channel.concrete.ThreadChannel;
+import net.dv8tion.jda.api.entities.channel.forums.ForumTag;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import net.dv8tion.jda.api.utils.messages.MessageCreateData;
+import net.dv8tion.jda.internal.requests.CompletedRestAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.features.MessageAnalysis;
+import org.togetherjava.tjbot.features.help.HelpSystemHelper.ThreadActivity;
+import org.togetherjava.tjbot.jda.JdaTester;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class HelpThreadActivityUpdaterTest {
+    private static final int HIGH_ACTIVITY_MESSAGE_THRESHOLD = 11;
+
+    private JdaTester jdaTester;
+    private ThreadChannel thread;
+    private HelpSystemHelper helper;
+    private HelpThreadActivityUpdater updater;
+    private List<ThreadActivity> appliedActivities;
+    private boolean failActivityChanges;
+    private User asker;
+    private User helpingUser;
+
+    @BeforeEach
+    void setUp() {
+        jdaTester = new JdaTester();
+        thread = jdaTester.getThreadChannelSpy();
+        asker = jdaTester.createMemberSpy(100).getUser();
+        helpingUser = jdaTester.createMemberSpy(101).getUser();
+        appliedActivities = new ArrayList<>();
+        failActivityChanges = false;
+
+        helper = mock(HelpSystemHelper.class);
+        when(helper.isHelpForumName(any())).thenReturn(true);
+        when(helper.getActivityTagOfChannel(any())).thenReturn(Optional.empty());
+        doAnswer(invocation -> {
+            appliedActivities.add(invocation.getArgument(1));
+            if (failActivityChanges) {
+                return new CompletedRestAction<>(jdaTester.getJdaMock(), null,
+                        jdaTester.createErrorResponseException(ErrorResponse.UNKNOWN_CHANNEL));
+            }
+            return new CompletedRestAction<>(jdaTester.getJdaMock(), null);
+        }).when(helper).changeChannelActivity(any(), any());
+
+        updater = new HelpThreadActivityUpdater(helper);
+    }
+
+    private void sendMessage(User author) {
+        try (MessageCreateData message = new MessageCreateBuilder().setContent("help").build()) {
+            MessageReceivedEvent event = jdaTester.createMessageReceiveEvent(message, List.of(),
+                    ChannelType.GUILD_PUBLIC_THREAD);
+            doReturn(author).when(event.getMessage()).getAuthor();
+
+            updater.onMessageReceived(event, new MessageAnalysis(event.getMessage()));
+        }
+    }
+
+    private void sendMessages(User author, int amount) {
+        for (int i = 0; i < amount; i++) {
+            sendMessage(author);
+        }
+    }
+
+    @Test
+    @DisplayName("A thread nobody helped in yet has low activity")
+    void lowActivityWithoutHelp() {
+        // GIVEN a new help thread
+        // WHEN the asker sends several messages
+        sendMessages(asker, 5);
+
+        // THEN the thread gets low activity once
+        assertEquals(List.of(ThreadActivity.LOW), appliedActivities);
+    }
+
+    @Test
+    @DisplayName("A thread gets medium activity once someone helped and one of them wrote again")
+    void mediumActivityOnceHelped() {
+        // GIVEN a help thread in which someone answered the asker
+        sendMessage(asker);
+        sendMessage(helpingUser);
+        assertEquals(List.of(ThreadActivity.LOW), appliedActivities);
+
+        // WHEN the asker writes again
+        sendMessage(asker);
+
+        // THEN the thread gets medium activity
+        assertEquals(List.of(ThreadActivity.LOW, ThreadActivity.MEDIUM), appliedActivities);
+    }
+
+    @Test
+    @DisplayName("A thread gets high activity once it has enough messages, regardless of authors")
+    void highActivityWithManyMessages() {
+        // GIVEN a help thread with one message less than needed for high activity
+        sendMessages(asker, HIGH_ACTIVITY_MESSAGE_THRESHOLD - 1);
+        assertEquals(List.of(ThreadActivity.LOW), appliedActivities);
+
+        // WHEN sending one more message
+        sendMessage(asker);
+
+        // THEN the thread gets high activity
+        assertEquals(List.of(ThreadActivity.LOW, ThreadActivity.HIGH), appliedActivities);
+    }
+
+    @Test
+    @DisplayName("Threads that were not tracked yet continue from their message count and tag")
+    void continuesUntrackedThreads() {
+        // GIVEN a thread with medium activity, that was not tracked yet, for example after a
+        // restart
+        ForumTag mediumTag = mock(ForumTag.class);
+        when(mediumTag.getName()).thenReturn(ThreadActivity.MEDIUM.getTagName());
+        when(helper.getActivityTagOfChannel(any())).thenReturn(Optional.of(mediumTag));
+        doReturn(HIGH_ACTIVITY_MESSAGE_THRESHOLD - 1).when(thread).getMessageCount();
+
+        // WHEN sending one more message
+        sendMessage(asker);
+
+        // THEN the thread gets high activity
+        assertEquals(List.of(ThreadActivity.HIGH), appliedActivities);
+    }
+
+    @Test
+    @DisplayName("After a reset, only messages sent afterwards determine the activity")
+    void resetActivity() {
+        // GIVEN a thread with medium activity that was reset
+        sendMessage(asker);
+        sendMessage(helpingUser);
+        sendMessage(asker);
+        updater.resetActivity(thread.getIdLong());
+
+        // WHEN the asker and helper write again
+        sendMessage(asker);
+        sendMessage(helpingUser);
+        List<ThreadActivity> appliedActivitiesBeforeHelp = List.copyOf(appliedActivities);
+        sendMessage(helpingUser);
+
+        // THEN the thread gets medium activity again, only after the new messages qualify for it
+        assertEquals(List.of(ThreadActivity.LOW, ThreadActivity.MEDIUM),
+                appliedActivitiesBeforeHelp);
+        assertEquals(List.of(ThreadActivity.LOW, ThreadActivity.MEDIUM, ThreadActivity.MEDIUM),
+                appliedActivities);
+    }
+
+    @Test
+    @DisplayName("Failed activity changes are sent again with the next message")
+    void retriesFailedActivityChanges() {
+        // GIVEN a thread whose activity could not be changed
+        failActivityChanges = true;
+        sendMessage(asker);
+
+        // WHEN sending another message, once changing the activity works again
+        failActivityChanges = false;
+        sendMessage(asker);
+        sendMessage(asker);
+
+        // THEN the activity is changed once more
+        assertEquals(List.of(ThreadActivity.LOW, ThreadActivity.LOW), appliedActivities);
+    }
+}
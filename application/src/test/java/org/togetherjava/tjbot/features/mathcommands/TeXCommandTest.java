@@ -27,7 +27,7 @@ final class TeXCommandTest {
     @BeforeEach
     void setUp() {
         jdaTester = new JdaTester();
-        command = jdaTester.spySlashCommand(new TeXCommand());
+        command = jdaTester.spySlashCommand(new TeXCommand(new TeXRenderer(Runnable::run)));
     }
 
     private SlashCommandInteractionEvent triggerSlashCommand(String latex) {
@@ -0,0 +1,121 @@
+package org.togetherjava.tjbot.features.mathcommands;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.scilab.forge.jlatexmath.ParseException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+final class TeXRendererTest {
+    private AtomicInteger renderCount;
+    private Executor renderService;
+    private TeXRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderCount = new AtomicInteger();
+        renderService = task -> {
+            renderCount.incrementAndGet();
+            task.run();
+        };
+        renderer = new TeXRenderer(renderService);
+    }
+
+    @Test
+    @DisplayName("Rendering the same formula again reuses the previously rendered image")
+    void rendersSameFormulaOnce() {
+        // GIVEN a formula that was rendered before
+        String latex = "\\frac{x}{2}";
+        byte[] firstImage = renderer.render(latex).join();
+
+        // WHEN rendering it again
+        byte[] secondImage = renderer.render(latex).join();
+
+        // THEN the image is the same and was only rendered once
+        assertArrayEquals(firstImage, secondImage);
+        assertEquals(1, renderCount.get());
+    }
+
+    @Test
+    @DisplayName("Formulas that would result in overly large images are rejected")
+    void rejectsTooLargeFormula() {
+        // GIVEN a short formula whose image would exceed the pixel budget
+        String latex = "\\rule{2000pt}{2000pt}";
+
+        // WHEN rendering it
+        CompletableFuture<byte[]> image = renderer.render(latex);
+
+        // THEN the render fails due to its budget
+        CompletionException failure = assertThrows(CompletionException.class, image::join);
+        assertInstanceOf(TeXRenderer.RenderBudgetExceededException.class, failure.getCause());
+        assertEquals(1, renderCount.get());
+    }
+
+    @Test
+    @DisplayName("Invalid formulas are rejected before rendering")
+    void rejectsInvalidFormula() {
+        // GIVEN an invalid formula
+        String latex = "\\left(x + y)";
+
+        // WHEN rendering it, THEN it fails to parse without rendering anything
+        assertThrows(ParseException.class, () -> renderer.render(latex));
+        assertEquals(0, renderCount.get());
+    }
+
+    @Test
+    @DisplayName("Overly long formulas are rejected without parsing or rendering them")
+    void rejectsTooLongFormula() {
+        // GIVEN a formula that exceeds the length budget, and would not even parse
+        String latex = "\\left(" + "x".repeat(TeXRenderer.MAX_LATEX_LENGTH);
+
+        // WHEN rendering it
+        CompletableFuture<byte[]> image = renderer.render(latex);
+
+        // THEN it fails due to its budget, without rendering anything
+        CompletionException failure = assertThrows(CompletionException.class, image::join);
+        assertInstanceOf(TeXRenderer.RenderBudgetExceededException.class, failure.getCause());
+        assertEquals(0, renderCount.get());
+    }
+
+    @Test
+    @DisplayName("Formulas that took too long to render are rejected without rendering them again")
+    void rejectsRecentlyTimedOutFormula() {
+        // GIVEN a formula whose render timed out
+        ScheduledExecutorService immediateTimeouts = mock(ScheduledExecutorService.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return mock(ScheduledFuture.class);
+        }).when(immediateTimeouts).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        renderer = new TeXRenderer(renderService, immediateTimeouts);
+
+        String latex = "\\frac{x}{2}";
+        CompletionException firstFailure =
+                assertThrows(CompletionException.class, renderer.render(latex)::join);
+        assertInstanceOf(TimeoutException.class, firstFailure.getCause());
+
+        // WHEN rendering it again
+        CompletableFuture<byte[]> image = renderer.render(latex);
+
+        // THEN it fails right away, without rendering it again
+        CompletionException failure = assertThrows(CompletionException.class, image::join);
+        assertInstanceOf(TimeoutException.class, failure.getCause());
+        assertEquals(1, renderCount.get());
+    }
+}
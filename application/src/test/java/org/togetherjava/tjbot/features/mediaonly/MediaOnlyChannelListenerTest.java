@@ -11,6 +11,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.features.MessageAnalysis;
 import org.togetherjava.tjbot.jda.JdaTester;
 
 import java.util.List;
@@ -109,7 +110,8 @@ final class MediaOnlyChannelListenerTest {
             List<Message.Attachment> attachments) {
         MessageReceivedEvent event =
                 jdaTester.createMessageReceiveEvent(message, attachments, ChannelType.TEXT);
-        mediaOnlyChannelListener.onMessageReceived(event);
+        mediaOnlyChannelListener.onMessageReceived(event,
+                new MessageAnalysis(event.getMessage()));
         return event;
     }
 }
@@ -0,0 +1,110 @@
+package org.togetherjava.tjbot.features.moderation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.togetherjava.tjbot.db.generated.tables.ModerationActions.MODERATION_ACTIONS;
+
+final class ModerationActionsStoreTest {
+    private static final long GUILD_ID = 1;
+    private static final long OTHER_GUILD_ID = 2;
+    private static final long AUTHOR_ID = 10;
+    private static final long TARGET_ID = 20;
+    private static final long OTHER_TARGET_ID = 21;
+    private static final int PAGE_LENGTH = 10;
+
+    private ModerationActionsStore store;
+    private List<Integer> targetCaseIds;
+
+    @BeforeEach
+    void setUp() {
+        store = new ModerationActionsStore(Database.createMemoryDatabase(MODERATION_ACTIONS));
+
+        // Actions against the target, interleaved with actions that must not show up
+        targetCaseIds = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            ModerationAction type = i % 5 == 0 ? ModerationAction.BAN : ModerationAction.WARN;
+            targetCaseIds.add(addAction(GUILD_ID, TARGET_ID, type));
+            addAction(GUILD_ID, OTHER_TARGET_ID, ModerationAction.WARN);
+            addAction(OTHER_GUILD_ID, TARGET_ID, ModerationAction.WARN);
+        }
+    }
+
+    private int addAction(long guildId, long targetId, ModerationAction type) {
+        return store.addAction(guildId, AUTHOR_ID, targetId, type, null, "reason");
+    }
+
+    private static List<Integer> toCaseIds(List<ActionRecord> actions) {
+        return actions.stream().map(ActionRecord::caseId).toList();
+    }
+
+    @Test
+    @DisplayName("Actions against a target are counted per type")
+    void countsActionsPerType() {
+        // GIVEN actions of different types against the target
+        // WHEN counting them
+        Map<ModerationAction, Integer> typeToCount =
+                store.countActionsByTargetPerType(GUILD_ID, TARGET_ID);
+
+        // THEN only the actions in the guild against the target are counted
+        assertEquals(Map.of(ModerationAction.BAN, 5, ModerationAction.WARN, 20), typeToCount);
+    }
+
+    @Test
+    @DisplayName("The latest actions against a target are retrieved chronologically ascending")
+    void getsLatestActions() {
+        // GIVEN actions against the target
+        // WHEN retrieving the latest of them
+        List<ActionRecord> actions = store.getLatestActionsByTarget(GUILD_ID, TARGET_ID, 5);
+
+        // THEN these are the latest actions, earliest first
+        assertEquals(targetCaseIds.subList(20, 25), toCaseIds(actions));
+    }
+
+    @Test
+    @DisplayName("Paging backwards from the latest actions visits all actions against a target")
+    void pagesBackwards() {
+        // GIVEN the latest page of actions against the target
+        List<ActionRecord> page = store.getLatestActionsByTarget(GUILD_ID, TARGET_ID, 5);
+        List<Integer> visitedCaseIds = new ArrayList<>(toCaseIds(page));
+
+        // WHEN paging backwards until there are no actions left
+        while (!(page = store.getActionsByTargetBefore(GUILD_ID, TARGET_ID, page.getFirst(),
+                PAGE_LENGTH)).isEmpty()) {
+            assertTrue(page.size() <= PAGE_LENGTH);
+            visitedCaseIds.addAll(0, toCaseIds(page));
+        }
+
+        // THEN each action was visited once, in order
+        assertEquals(targetCaseIds, visitedCaseIds);
+    }
+
+    @Test
+    @DisplayName("Paging forwards from the earliest actions visits all actions against a target")
+    void pagesForwards() {
+        // GIVEN the earliest action against the target
+        ActionRecord earliestAction =
+                store.findActionByCaseId(targetCaseIds.getFirst()).orElseThrow();
+        List<ActionRecord> page = List.of(earliestAction);
+        List<Integer> visitedCaseIds = new ArrayList<>(toCaseIds(page));
+
+        // WHEN paging forwards until there are no actions left
+        while (!(page = store.getActionsByTargetAfter(GUILD_ID, TARGET_ID, page.getLast(),
+                PAGE_LENGTH)).isEmpty()) {
+            assertTrue(page.size() <= PAGE_LENGTH);
+            visitedCaseIds.addAll(toCaseIds(page));
+        }
+
+        // THEN each action was visited once, in order
+        assertEquals(targetCaseIds, visitedCaseIds);
+    }
+}
@@ -0,0 +1,65 @@
+package org.togetherjava.tjbot.features.moderation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.features.chatgpt.ChatGptService;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+final class QuestionTitleSuggesterTest {
+    private static final Duration DEADLINE = Duration.ofMillis(50);
+    private static final String MESSAGE_ID = "1";
+    private static final String MESSAGE = "How do I sort a list of records by two fields?";
+    private static final String FALLBACK_TITLE = "How do I sort a list";
+
+    private ChatGptService chatGptService;
+    private CompletableFuture<Optional<String>> answer;
+    private QuestionTitleSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        chatGptService = mock(ChatGptService.class);
+        answer = new CompletableFuture<>();
+        when(chatGptService.askAsync(anyString(), anyString())).thenReturn(answer);
+
+        suggester = new QuestionTitleSuggester(chatGptService, DEADLINE);
+    }
+
+    @Test
+    @DisplayName("The fallback title is suggested if ChatGPT does not answer in time")
+    void suggestsFallbackAfterDeadline() {
+        // GIVEN ChatGPT that does not answer
+
+        // WHEN suggesting a title
+        String title = suggester.suggestTitle(MESSAGE_ID, MESSAGE, FALLBACK_TITLE).join();
+
+        // THEN the fallback is suggested
+        assertEquals(FALLBACK_TITLE, title);
+    }
+
+    @Test
+    @DisplayName("A title suggested by ChatGPT after the deadline is used for the next transfer")
+    void reusesLateSuggestion() {
+        // GIVEN a transfer that ran into the deadline, after which ChatGPT answered
+        suggester.suggestTitle(MESSAGE_ID, MESSAGE, FALLBACK_TITLE).join();
+        answer.complete(Optional.of(" Sorting records by two fields "));
+
+        // WHEN suggesting a title for the same message again
+        String title = suggester.suggestTitle(MESSAGE_ID, MESSAGE, FALLBACK_TITLE).join();
+
+        // THEN the late answer is used, without asking ChatGPT again
+        assertEquals("Sorting records by two fields", title);
+        verify(chatGptService, times(1)).askAsync(anyString(), anyString());
+    }
+}
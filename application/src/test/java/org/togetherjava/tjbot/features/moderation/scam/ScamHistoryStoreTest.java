@@ -0,0 +1,149 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import net.dv8tion.jda.api.entities.Message;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseException;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.togetherjava.tjbot.db.generated.tables.ScamHistory.SCAM_HISTORY;
+
+final class ScamHistoryStoreTest {
+    private static final long GUILD_ID = 1;
+    private static final long CHANNEL_ID = 2;
+    private static final long AUTHOR_ID = 3;
+    private static final long OTHER_AUTHOR_ID = 4;
+    private static final String SCAM_CONTENT = "Free nitro at https://discord-nitro.example";
+
+    private Database database;
+    private ScamHistoryStore store;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(SCAM_HISTORY);
+        store = new ScamHistoryStore(database);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    private int countScamInDatabase() {
+        return database.read(context -> context.fetchCount(SCAM_HISTORY));
+    }
+
+    private static Message createMessage(long messageId, long authorId) {
+        Message message = mock(Message.class, RETURNS_DEEP_STUBS);
+        when(message.getIdLong()).thenReturn(messageId);
+        when(message.getGuild().getIdLong()).thenReturn(GUILD_ID);
+        when(message.getChannel().getIdLong()).thenReturn(CHANNEL_ID);
+        when(message.getAuthor().getIdLong()).thenReturn(authorId);
+        when(message.getContentRaw()).thenReturn(SCAM_CONTENT);
+        when(message.getTimeCreated()).thenReturn(OffsetDateTime.now());
+        return message;
+    }
+
+    @Test
+    @DisplayName("Recent duplicates of the same author are detected, others are not")
+    void detectsRecentDuplicate() {
+        // GIVEN scam sent by an author
+        Message scam = createMessage(10, AUTHOR_ID);
+        store.addScam(scam, false, ScamHistoryStore.hashMessageContent(scam));
+
+        // WHEN the same content is sent again by the same and by another author
+        Message duplicate = createMessage(11, AUTHOR_ID);
+        Message otherAuthorScam = createMessage(12, OTHER_AUTHOR_ID);
+
+        // THEN only the message by the same author is a duplicate
+        assertTrue(store.hasRecentScamDuplicate(duplicate,
+                ScamHistoryStore.hashMessageContent(duplicate)));
+        assertFalse(store.hasRecentScamDuplicate(otherAuthorScam,
+                ScamHistoryStore.hashMessageContent(otherAuthorScam)));
+    }
+
+    @Test
+    @DisplayName("Scam that was just added, but not written yet, is marked deleted")
+    void marksPendingScamDeleted() {
+        // GIVEN two duplicate scam messages that were just added
+        Message scam = createMessage(10, AUTHOR_ID);
+        String contentHash = ScamHistoryStore.hashMessageContent(scam);
+        store.addScam(scam, false, contentHash);
+        store.addScam(createMessage(11, AUTHOR_ID), false, contentHash);
+
+        // WHEN marking the duplicates deleted
+        Collection<ScamHistoryStore.ScamIdentification> markedScam =
+                store.markScamDuplicatesDeleted(GUILD_ID, AUTHOR_ID, contentHash);
+
+        // THEN both messages are marked
+        assertEquals(2, markedScam.size());
+    }
+
+    @Test
+    @DisplayName("Pending scam is written when the store is closed")
+    void writesPendingScamOnClose() {
+        // GIVEN scam that was just added
+        Message scam = createMessage(10, AUTHOR_ID);
+        store.addScam(scam, false, ScamHistoryStore.hashMessageContent(scam));
+
+        // WHEN closing the store
+        store.close();
+
+        // THEN the scam is written
+        assertEquals(1, countScamInDatabase());
+    }
+
+    @Test
+    @DisplayName("Scam that failed to be written is retried instead of being lost")
+    void retriesFailedWrites() {
+        // GIVEN scam that can not be written, since the database is unavailable
+        database.write(context -> context.dropTable(SCAM_HISTORY).execute());
+        Message scam = createMessage(10, AUTHOR_ID);
+        String contentHash = ScamHistoryStore.hashMessageContent(scam);
+        store.addScam(scam, false, contentHash);
+        assertThrows(DatabaseException.class,
+                () -> store.markScamDuplicatesDeleted(GUILD_ID, AUTHOR_ID, contentHash));
+
+        // WHEN the database is available again
+        database.write(context -> context.ddl(SCAM_HISTORY).executeBatch());
+        Collection<ScamHistoryStore.ScamIdentification> markedScam =
+                store.markScamDuplicatesDeleted(GUILD_ID, AUTHOR_ID, contentHash);
+
+        // THEN the scam is written after all
+        assertEquals(1, markedScam.size());
+        assertEquals(1, countScamInDatabase());
+    }
+
+    @Test
+    @DisplayName("Scam that can not be written does not hold back other scam")
+    void writesAroundBadScam() {
+        // GIVEN scam and, in between, scam that violates a constraint of the database
+        Message scam = createMessage(10, AUTHOR_ID);
+        String contentHash = ScamHistoryStore.hashMessageContent(scam);
+        store.addScam(scam, false, contentHash);
+        store.addScam(createMessage(11, AUTHOR_ID), false, null);
+        store.addScam(createMessage(12, AUTHOR_ID), false, contentHash);
+
+        // WHEN writing the scam, also repeatedly
+        Collection<ScamHistoryStore.ScamIdentification> markedScam =
+                store.markScamDuplicatesDeleted(GUILD_ID, AUTHOR_ID, contentHash);
+        store.close();
+
+        // THEN the other scam is written anyway
+        assertEquals(2, markedScam.size());
+        assertEquals(2, countScamInDatabase());
+    }
+}
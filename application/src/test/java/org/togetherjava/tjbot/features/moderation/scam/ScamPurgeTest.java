@@ -0,0 +1,190 @@
+package org.togetherjava.tjbot.features.moderation.scam;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.channel.concrete.TextChannel;
+import net.dv8tion.jda.api.requests.ErrorResponse;
+import net.dv8tion.jda.api.utils.TimeUtil;
+import net.dv8tion.jda.internal.requests.CompletedRestAction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.features.moderation.scam.ScamHistoryStore.ScamIdentification;
+import org.togetherjava.tjbot.jda.JdaTester;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+final class ScamPurgeTest {
+    private static final long CHANNEL_ID = 10;
+    private static final long OTHER_CHANNEL_ID = 11;
+    private static final long AUTHOR_ID = 3;
+
+    private JDA jda;
+    private Guild guild;
+    private Map<Long, ChannelDeletions> channelIdToDeletions;
+    private Set<String> alreadyDeletedMessageIds;
+
+    @BeforeEach
+    void setUp() {
+        JdaTester jdaTester = new JdaTester();
+        jda = jdaTester.getJdaMock();
+        guild = jda.getGuildById(1);
+        alreadyDeletedMessageIds = Set.of();
+
+        channelIdToDeletions = Map.of(CHANNEL_ID, new ChannelDeletions(), OTHER_CHANNEL_ID,
+                new ChannelDeletions());
+        channelIdToDeletions.forEach((channelId, deletions) -> {
+            TextChannel channel = jdaTester.createTextChannelSpy(channelId);
+            doReturn(channel).when(guild).getTextChannelById(channelId);
+
+            doAnswer(invocation -> {
+                Collection<String> messageIds = invocation.getArgument(0);
+                deletions.bulkDeletions().add(List.copyOf(messageIds));
+                return new CompletedRestAction<>(jda, null);
+            }).when(channel).deleteMessagesByIds(anyCollection());
+            doAnswer(invocation -> {
+                String messageId = invocation.getArgument(0);
+                if (alreadyDeletedMessageIds.contains(messageId)) {
+                    return new CompletedRestAction<>(jda, null, jdaTester
+                        .createErrorResponseException(ErrorResponse.UNKNOWN_MESSAGE));
+                }
+                deletions.singleDeletions().add(messageId);
+                return new CompletedRestAction<>(jda, null);
+            }).when(channel).deleteMessageById(anyString());
+        });
+    }
+
+    private static List<ScamIdentification> createScam(long channelId, Duration age, int amount) {
+        long firstMessageId =
+                TimeUtil.getDiscordTimestamp(Instant.now().minus(age).toEpochMilli());
+        return LongStream.range(firstMessageId, firstMessageId + amount)
+            .mapToObj(messageId -> new ScamIdentification(1, channelId, messageId, AUTHOR_ID,
+                    "hash"))
+            .toList();
+    }
+
+    private List<Integer> getBulkDeletionSizes(long channelId) {
+        return channelIdToDeletions.get(channelId)
+            .bulkDeletions()
+            .stream()
+            .map(List::size)
+            .toList();
+    }
+
+    private ScamPurge.Result purge(Collection<ScamIdentification> scamMessages) {
+        AtomicReference<ScamPurge.Result> result = new AtomicReference<>();
+        ScamPurge.purge(guild, scamMessages).queue(result::set);
+        return result.get();
+    }
+
+    @Test
+    @DisplayName("More than 100 young messages are bulk-deleted in chunks of at most 100")
+    void bulkDeletesInChunks() {
+        // GIVEN more than 100 young scam messages in a channel
+        List<ScamIdentification> scamMessages = createScam(CHANNEL_ID, Duration.ofMinutes(1), 250);
+
+        // WHEN purging them
+        ScamPurge.Result result = purge(scamMessages);
+
+        // THEN they are deleted in as few bulk-deletions as possible
+        assertEquals(List.of(100, 100, 50), getBulkDeletionSizes(CHANNEL_ID));
+        assertTrue(channelIdToDeletions.get(CHANNEL_ID).singleDeletions().isEmpty());
+        assertEquals(new ScamPurge.Result(Map.of(CHANNEL_ID, 250), 0), result);
+    }
+
+    @Test
+    @DisplayName("A single remaining young message is deleted on its own")
+    void deletesSingleRemainingMessage() {
+        // GIVEN a chunk of young scam messages plus one more
+        List<ScamIdentification> scamMessages = createScam(CHANNEL_ID, Duration.ofMinutes(1), 101);
+
+        // WHEN purging them
+        ScamPurge.Result result = purge(scamMessages);
+
+        // THEN the remaining message is deleted on its own, as bulk-deletions need two messages
+        assertEquals(List.of(100), getBulkDeletionSizes(CHANNEL_ID));
+        assertEquals(toMessageIds(List.of(scamMessages.getLast())),
+                channelIdToDeletions.get(CHANNEL_ID).singleDeletions());
+        assertEquals(101, result.deletedMessages());
+    }
+
+    @Test
+    @DisplayName("Messages in multiple channels are deleted per channel")
+    void deletesPerChannel() {
+        // GIVEN young scam messages spread over multiple channels
+        List<ScamIdentification> scamMessages = new ArrayList<>();
+        scamMessages.addAll(createScam(CHANNEL_ID, Duration.ofMinutes(1), 5));
+        scamMessages.addAll(createScam(OTHER_CHANNEL_ID, Duration.ofMinutes(2), 3));
+
+        // WHEN purging them
+        ScamPurge.Result result = purge(scamMessages);
+
+        // THEN each channel deletes its own messages with one bulk-deletion
+        assertEquals(List.of(5), getBulkDeletionSizes(CHANNEL_ID));
+        assertEquals(List.of(3), getBulkDeletionSizes(OTHER_CHANNEL_ID));
+        assertEquals(new ScamPurge.Result(Map.of(CHANNEL_ID, 5, OTHER_CHANNEL_ID, 3), 0), result);
+    }
+
+    @Test
+    @DisplayName("Messages older than the bulk-delete window are deleted one by one")
+    void deletesOldMessagesOneByOne() {
+        // GIVEN old and young scam messages in a channel
+        List<ScamIdentification> oldMessages = createScam(CHANNEL_ID, Duration.ofDays(20), 3);
+        List<ScamIdentification> youngMessages =
+                createScam(CHANNEL_ID, Duration.ofMinutes(1), 4);
+        List<ScamIdentification> scamMessages = new ArrayList<>(oldMessages);
+        scamMessages.addAll(youngMessages);
+
+        // WHEN purging them
+        ScamPurge.Result result = purge(scamMessages);
+
+        // THEN only the young messages are bulk-deleted, the old ones one by one
+        ChannelDeletions deletions = channelIdToDeletions.get(CHANNEL_ID);
+        assertEquals(List.of(toMessageIds(youngMessages)), deletions.bulkDeletions());
+        assertEquals(toMessageIds(oldMessages), deletions.singleDeletions());
+        assertEquals(7, result.deletedMessages());
+    }
+
+    @Test
+    @DisplayName("Messages that could not be deleted are reported as failed")
+    void reportsFailedDeletions() {
+        // GIVEN old scam messages, one of which has already been deleted by someone else
+        List<ScamIdentification> scamMessages = createScam(CHANNEL_ID, Duration.ofDays(20), 3);
+        alreadyDeletedMessageIds = Set.of(String.valueOf(scamMessages.getFirst().messageId()));
+
+        // WHEN purging them
+        ScamPurge.Result result = purge(scamMessages);
+
+        // THEN the already deleted message is reported as failed
+        assertEquals(new ScamPurge.Result(Map.of(CHANNEL_ID, 2), 1), result);
+    }
+
+    private static List<String> toMessageIds(List<ScamIdentification> scamMessages) {
+        return scamMessages.stream()
+            .map(scamMessage -> String.valueOf(scamMessage.messageId()))
+            .toList();
+    }
+
+    private record ChannelDeletions(List<List<String>> bulkDeletions,
+            List<String> singleDeletions) {
+        ChannelDeletions() {
+            this(new ArrayList<>(), new ArrayList<>());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.togetherjava.tjbot.features.retention;
+
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.generated.tables.records.HelpChannelMessagesRecord;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HELP_CHANNEL_MESSAGES;
+
+final class RetentionPurgerTest {
+    private static final int EXPIRED_MESSAGES = 1_234;
+    private static final int RECENT_MESSAGES = 5;
+
+    private Database database;
+    private RetentionPurger purger;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(HELP_CHANNEL_MESSAGES);
+        purger = new RetentionPurger(database);
+    }
+
+    private void insertMessages(long firstMessageId, int amount, Instant sentAt) {
+        List<HelpChannelMessagesRecord> messages =
+                LongStream.range(firstMessageId, firstMessageId + amount)
+                    .mapToObj(messageId -> new HelpChannelMessagesRecord(messageId, 1L, 2L, 3L,
+                            sentAt))
+                    .toList();
+        database.write(context -> context.batchInsert(messages).execute());
+    }
+
+    @Test
+    @DisplayName("All expired rows are deleted over multiple chunks, other rows are kept")
+    void purgesExpiredRowsInChunks() {
+        // GIVEN a backlog of expired messages and a few recent ones
+        Instant now = Instant.now();
+        insertMessages(0, EXPIRED_MESSAGES, now.minus(100, ChronoUnit.DAYS));
+        insertMessages(EXPIRED_MESSAGES, RECENT_MESSAGES, now);
+
+        AtomicInteger purgedMessages = new AtomicInteger();
+        RetentionPolicy<HelpChannelMessagesRecord> policy =
+                new RetentionPolicy<>("test", HELP_CHANNEL_MESSAGES,
+                        () -> HELP_CHANNEL_MESSAGES.SENT_AT
+                            .lessOrEqual(now.minus(90, ChronoUnit.DAYS)),
+                        purgedRows -> purgedMessages.addAndGet(purgedRows.size()));
+
+        // WHEN purging
+        int deletedMessages = purger.purge(policy);
+
+        // THEN only the expired messages are deleted, and the listener saw all of them
+        assertEquals(EXPIRED_MESSAGES, deletedMessages);
+        assertEquals(EXPIRED_MESSAGES, purgedMessages.get());
+        assertEquals(RECENT_MESSAGES,
+                database.read(context -> context.fetchCount(HELP_CHANNEL_MESSAGES)));
+    }
+
+    @Test
+    @DisplayName("Every chunk is purged through the given guard")
+    void purgesChunksThroughGuard() {
+        // GIVEN a backlog of expired messages, spanning multiple chunks
+        Instant now = Instant.now();
+        insertMessages(0, EXPIRED_MESSAGES, now.minus(100, ChronoUnit.DAYS));
+        RetentionPolicy<HelpChannelMessagesRecord> policy =
+                RetentionPolicy.of("test", HELP_CHANNEL_MESSAGES, DSL::trueCondition);
+
+        // WHEN purging through a guard
+        AtomicInteger guardedChunks = new AtomicInteger();
+        AtomicInteger guardedRows = new AtomicInteger();
+        int deletedMessages = purger.purge(policy, purgeChunk -> {
+            guardedChunks.incrementAndGet();
+            int chunkRows = purgeChunk.getAsInt();
+            guardedRows.addAndGet(chunkRows);
+            return chunkRows;
+        });
+
+        // THEN each chunk, including the last partial one, went through the guard
+        assertEquals(EXPIRED_MESSAGES, deletedMessages);
+        assertEquals(EXPIRED_MESSAGES, guardedRows.get());
+        assertEquals(3, guardedChunks.get());
+    }
+}
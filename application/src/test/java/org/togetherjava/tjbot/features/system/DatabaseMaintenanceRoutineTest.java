@@ -0,0 +1,120 @@
+package org.togetherjava.tjbot.features.system;
+
+import net.dv8tion.jda.api.JDA;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseMaintenance;
+import org.togetherjava.tjbot.db.generated.tables.records.TagsRecord;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.togetherjava.tjbot.db.generated.tables.Tags.TAGS;
+
+final class DatabaseMaintenanceRoutineTest {
+    private static final int TAGS_AMOUNT = 1_000;
+    private static final String TAG_CONTENT = "x".repeat(2_000);
+
+    @TempDir
+    private Path directory;
+    private String jdbcUrl;
+    private Database database;
+    private DatabaseMaintenance maintenance;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        jdbcUrl = "jdbc:sqlite:" + directory.resolve("database.db").toAbsolutePath();
+        database = new Database(jdbcUrl);
+        maintenance = new DatabaseMaintenance(database);
+    }
+
+    private void insertTags() {
+        List<TagsRecord> tags = IntStream.range(0, TAGS_AMOUNT)
+            .mapToObj(i -> new TagsRecord("tag-" + i, TAG_CONTENT))
+            .toList();
+        database.write(context -> context.batchInsert(tags).execute());
+    }
+
+    @Test
+    @DisplayName("Databases are migrated to incremental vacuum")
+    void enablesIncrementalVacuum() {
+        // GIVEN a freshly migrated database
+        // WHEN checking the vacuum mode
+        // THEN it allows reclaiming free pages step-wise
+        assertTrue(maintenance.isIncrementalVacuumEnabled());
+    }
+
+    @Test
+    @DisplayName("Running the routine reclaims free pages")
+    void reclaimsFreePages() {
+        // GIVEN a database with many free pages
+        insertTags();
+        database.write(context -> context.deleteFrom(TAGS).execute());
+        assertTrue(maintenance.readSize().freeBytes() > 0);
+
+        // WHEN running the routine
+        new DatabaseMaintenanceRoutine(database).runRoutine(mock(JDA.class));
+
+        // THEN the free pages are reclaimed
+        assertEquals(0, maintenance.readSize().freeBytes());
+    }
+
+    @Test
+    @DisplayName("Checkpoints copy the write-ahead log and truncate it if nobody reads it")
+    void truncatesLogWithoutReaders() {
+        // GIVEN a database with changes in the write-ahead log
+        insertTags();
+
+        // WHEN checkpointing
+        DatabaseMaintenance.Checkpoint checkpoint = maintenance.checkpoint();
+
+        // THEN the whole log was copied and truncated
+        assertTrue(checkpoint.logBytes() > 0);
+        assertEquals(checkpoint.logBytes(), checkpoint.checkpointedBytes());
+        assertTrue(checkpoint.isTruncated());
+        assertEquals(0, maintenance.checkpoint().logBytes());
+    }
+
+    @Test
+    @DisplayName("Checkpoints do not wait for readers of the write-ahead log")
+    void doesNotWaitForReaders() throws SQLException {
+        // GIVEN a database with changes in the write-ahead log and a reader using it
+        insertTags();
+
+        try (Connection reader = DriverManager.getConnection(jdbcUrl);
+                Statement statement = reader.createStatement()) {
+            reader.setAutoCommit(false);
+            try (ResultSet tags = statement.executeQuery("SELECT count(*) FROM tags")) {
+                assertTrue(tags.next());
+            }
+
+            // WHEN checkpointing while the reader still has its transaction open
+            long start = System.nanoTime();
+            DatabaseMaintenance.Checkpoint checkpoint = maintenance.checkpoint();
+            Duration checkpointDuration = Duration.ofNanos(System.nanoTime() - start);
+
+            // THEN the log is copied, but not truncated, and the checkpoint did not wait
+            assertEquals(checkpoint.logBytes(), checkpoint.checkpointedBytes());
+            assertFalse(checkpoint.isTruncated());
+            assertTrue(checkpointDuration.compareTo(Duration.ofSeconds(1)) < 0,
+                    "Checkpoint waited for %d ms".formatted(checkpointDuration.toMillis()));
+
+            reader.rollback();
+        }
+    }
+}
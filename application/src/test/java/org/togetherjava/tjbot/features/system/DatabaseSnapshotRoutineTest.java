@@ -0,0 +1,155 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseSnapshots;
+import org.togetherjava.tjbot.db.generated.tables.records.TagsRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class DatabaseSnapshotRoutineTest {
+    private static final Duration INTERVAL = Duration.ofHours(24);
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    @TempDir
+    private Path directory;
+    private Path databaseFile;
+    private Path snapshotDirectory;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        databaseFile = directory.resolve("database.db");
+        snapshotDirectory = directory.resolve("snapshots");
+
+        Database database = new Database("jdbc:sqlite:" + databaseFile.toAbsolutePath());
+        database.write(context -> context.executeInsert(new TagsRecord("tag", "content")));
+    }
+
+    private DatabaseSnapshots createSnapshots(int retainedSnapshots) {
+        return new DatabaseSnapshots(databaseFile, snapshotDirectory, retainedSnapshots);
+    }
+
+    private void createFile(String name) throws IOException {
+        Files.createDirectories(snapshotDirectory);
+        Files.createFile(snapshotDirectory.resolve(name));
+    }
+
+    private List<String> listSnapshotDirectory() throws IOException {
+        try (Stream<Path> files = Files.list(snapshotDirectory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots contain the data of the database")
+    void snapshotContainsData() throws SQLException {
+        // GIVEN a database with data
+        // WHEN creating a snapshot
+        Path snapshot = createSnapshots(3).createSnapshot();
+
+        // THEN the snapshot is a database with that data
+        try (Connection connection =
+                DriverManager.getConnection("jdbc:sqlite:" + snapshot.toAbsolutePath());
+                Statement statement = connection.createStatement();
+                ResultSet result = statement.executeQuery("SELECT content FROM tags")) {
+            assertTrue(result.next());
+            assertEquals("content", result.getString(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Only the latest snapshots are retained, other files are left alone")
+    void retainsLatestSnapshots() throws IOException {
+        // GIVEN older snapshots and unrelated files
+        createFile("snapshot-2020-01-01T00-00-00Z.db");
+        createFile("snapshot-2020-01-02T00-00-00Z.db");
+        createFile("snapshot-2020-01-03T00-00-00Z.db");
+        createFile("notes.txt");
+
+        // WHEN creating a snapshot that retains two snapshots
+        Path snapshot = createSnapshots(2).createSnapshot();
+
+        // THEN only the new and the latest older snapshot are left, besides the unrelated file
+        assertEquals(List.of("notes.txt", "snapshot-2020-01-03T00-00-00Z.db",
+                snapshot.getFileName().toString()), listSnapshotDirectory());
+    }
+
+    @Test
+    @DisplayName("The latest snapshot time is taken from the snapshot names")
+    void findsLatestSnapshotTime() throws IOException {
+        // GIVEN no snapshots, WHEN finding the latest snapshot time, THEN there is none
+        DatabaseSnapshots snapshots = createSnapshots(3);
+        assertEquals(Optional.empty(), snapshots.findLatestSnapshotTime());
+
+        // GIVEN snapshots and files that only look like snapshots
+        createFile("snapshot-2020-01-01T00-00-00Z.db");
+        createFile("snapshot-2020-01-02T06-30-15Z.db");
+        createFile("snapshot-2020-01-03T00-00-00Z.db.pending");
+        createFile("snapshot-copy.db");
+
+        // WHEN finding the latest snapshot time
+        // THEN it is the time of the latest complete snapshot
+        assertEquals(Optional.of(Instant.parse("2020-01-02T06:30:15Z")),
+                snapshots.findLatestSnapshotTime());
+    }
+
+    @Test
+    @DisplayName("Without snapshots, the first snapshot is created soon after a start")
+    void createsFirstSnapshotSoon() {
+        // GIVEN no snapshots
+        // WHEN computing the initial delay
+        Duration delay =
+                DatabaseSnapshotRoutine.computeInitialDelay(Optional.empty(), NOW, INTERVAL);
+
+        // THEN the snapshot is created soon
+        assertEquals(DatabaseSnapshotRoutine.MIN_INITIAL_DELAY, delay);
+    }
+
+    @Test
+    @DisplayName("The first snapshot after a start is due one interval after the latest snapshot")
+    void continuesInterval() {
+        // GIVEN a snapshot created some hours ago
+        Instant latestSnapshotTime = NOW.minus(Duration.ofHours(10));
+
+        // WHEN computing the initial delay
+        Duration delay = DatabaseSnapshotRoutine
+            .computeInitialDelay(Optional.of(latestSnapshotTime), NOW, INTERVAL);
+
+        // THEN the next snapshot is due one interval after it
+        assertEquals(Duration.ofHours(14), delay);
+    }
+
+    @Test
+    @DisplayName("Overdue and future snapshots do not lead to unreasonable initial delays")
+    void boundsInitialDelay() {
+        // GIVEN snapshots that are overdue or from the future
+        Instant overdueSnapshotTime = NOW.minus(INTERVAL.multipliedBy(3));
+        Instant futureSnapshotTime = NOW.plus(INTERVAL);
+
+        // WHEN computing the initial delay
+        // THEN overdue snapshots are created soon and future snapshots are not waited for
+        assertEquals(DatabaseSnapshotRoutine.MIN_INITIAL_DELAY, DatabaseSnapshotRoutine
+            .computeInitialDelay(Optional.of(overdueSnapshotTime), NOW, INTERVAL));
+        assertEquals(INTERVAL, DatabaseSnapshotRoutine
+            .computeInitialDelay(Optional.of(futureSnapshotTime), NOW, INTERVAL));
+    }
+}
@@ -0,0 +1,119 @@
+package org.togetherjava.tjbot.features.system;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.features.system.RoutineScheduler.NextRun;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.random.RandomGenerator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RoutineSchedulerTest {
+    private static final long PERIOD = Duration.ofMinutes(5).toNanos();
+    /**
+     * An arbitrary start time, as {@link System#nanoTime()} may also be negative.
+     */
+    private static final long START = -123_456_789L;
+
+    @Test
+    @DisplayName("Routines that finish within their period run again at the next planned start")
+    void keepsRate() {
+        // GIVEN a run that finished before its period ended
+        long now = START + PERIOD / 4;
+
+        // WHEN computing the next run
+        NextRun nextRun = RoutineScheduler.computeNextFixedRateRun(START, now, PERIOD);
+
+        // THEN it is planned one period after the previous run
+        assertEquals(new NextRun(START + PERIOD, PERIOD - PERIOD / 4, 0), nextRun);
+    }
+
+    @Test
+    @DisplayName("Routines that finish exactly at the end of their period run again right away")
+    void finishesAtEndOfPeriod() {
+        // GIVEN a run that finished exactly when its period ended
+        long now = START + PERIOD;
+
+        // WHEN computing the next run
+        NextRun nextRun = RoutineScheduler.computeNextFixedRateRun(START, now, PERIOD);
+
+        // THEN it runs right away, as planned, without skipping any run
+        assertEquals(new NextRun(START + PERIOD, 0, 0), nextRun);
+    }
+
+    @Test
+    @DisplayName("Routines that overran by a fraction of their period run right away")
+    void overrunsWithinPeriod() {
+        // GIVEN a run that took longer than its period, but less than two periods
+        long now = START + PERIOD + PERIOD / 2;
+
+        // WHEN computing the next run
+        NextRun nextRun = RoutineScheduler.computeNextFixedRateRun(START, now, PERIOD);
+
+        // THEN it runs right away, without skipping any run
+        assertEquals(new NextRun(now, 0, 0), nextRun);
+    }
+
+    @Test
+    @DisplayName("Routines that overran by exact multiples of their period skip the missed runs")
+    void overrunsByExactPeriods() {
+        // GIVEN a run that took exactly three periods
+        long now = START + 3 * PERIOD;
+
+        // WHEN computing the next run
+        NextRun nextRun = RoutineScheduler.computeNextFixedRateRun(START, now, PERIOD);
+
+        // THEN it runs right away, in place of one missed run, skipping the other
+        assertEquals(new NextRun(now, 0, 1), nextRun);
+    }
+
+    @Test
+    @DisplayName("Routines that overran by several periods skip the missed runs and keep the rate")
+    void overrunsBySeveralPeriods() {
+        // GIVEN a run that took more than four periods
+        long now = START + 4 * PERIOD + PERIOD / 3;
+
+        // WHEN computing the next run and the one after, which finishes in time
+        NextRun nextRun = RoutineScheduler.computeNextFixedRateRun(START, now, PERIOD);
+        NextRun runAfter = RoutineScheduler.computeNextFixedRateRun(nextRun.plannedStart(),
+                now + PERIOD / 4, PERIOD);
+
+        // THEN it runs right away, skipping the missed runs, and continues from then on
+        assertEquals(new NextRun(now, 0, 3), nextRun);
+        assertEquals(new NextRun(now + PERIOD, PERIOD - PERIOD / 4, 0), runAfter);
+    }
+
+    @Test
+    @DisplayName("The start jitter is bounded by a fraction of the period and a maximum")
+    void boundsStartJitter() {
+        RandomGenerator random = new Random(42);
+        long maxJitterOfShortPeriod = PERIOD / RoutineScheduler.MAX_START_JITTER_PERIOD_DIVISOR;
+        long longPeriod = Duration.ofDays(1).toNanos();
+
+        // GIVEN routines with short and long periods
+        // WHEN drawing their start jitter
+        // THEN it is bounded by a fraction of the short period and the maximum for the long period
+        for (int i = 0; i < 1_000; i++) {
+            long shortJitter = RoutineScheduler.drawStartJitterNanos(PERIOD, random);
+            assertTrue(shortJitter >= 0 && shortJitter < maxJitterOfShortPeriod);
+
+            long longJitter = RoutineScheduler.drawStartJitterNanos(longPeriod, random);
+            assertTrue(longJitter >= 0 && longJitter < RoutineScheduler.MAX_START_JITTER.toNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("Routines with tiny periods are not jittered")
+    void noJitterForTinyPeriods() {
+        // GIVEN a routine whose period is too short for any jitter
+        long period = RoutineScheduler.MAX_START_JITTER_PERIOD_DIVISOR - 1;
+
+        // WHEN drawing its start jitter
+        // THEN there is none
+        assertEquals(0, RoutineScheduler.drawStartJitterNanos(period, new Random(42)));
+    }
+}
@@ -15,6 +15,8 @@ import org.togetherjava.tjbot.config.HelpSystemConfig;
 import org.togetherjava.tjbot.db.Database;
 import org.togetherjava.tjbot.jda.JdaTester;
 
+import java.time.Instant;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -24,6 +26,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HELP_CHANNEL_MESSAGES;
+import static org.togetherjava.tjbot.db.generated.tables.TopHelperRollups.TOP_HELPER_ROLLUPS;
 
 final class TopHelperMessageListenerTest {
 
@@ -34,7 +37,8 @@ final class TopHelperMessageListenerTest {
 
     @BeforeAll
     static void setUp() {
-        Database database = Database.createMemoryDatabase(HELP_CHANNEL_MESSAGES);
+        Database database =
+                Database.createMemoryDatabase(HELP_CHANNEL_MESSAGES, TOP_HELPER_ROLLUPS);
         Config config = mock(Config.class);
         HelpSystemConfig helpSystemConfig = mock(HelpSystemConfig.class);
 
@@ -103,6 +107,21 @@ final class TopHelperMessageListenerTest {
         assertTrue(ignoresWrongParentNames, "Failed to ignore wrong parent channel names");
     }
 
+    @Test
+    void rollupKeysAreMonthsInUtc() {
+        // GIVEN messages sent at the edges of a month
+        Instant firstOfMonth = Instant.parse("2022-03-01T00:00:00Z");
+        Instant endOfMonth = Instant.parse("2022-03-31T23:59:59Z");
+
+        // WHEN computing their rollup keys
+        String firstKey = TopHelpersMessageListener.toRollupKey(firstOfMonth);
+        String endKey = TopHelpersMessageListener.toRollupKey(endOfMonth);
+
+        // THEN both are aggregated into the same month
+        assertEquals("2022-03", firstKey);
+        assertEquals(firstKey, endKey);
+        assertEquals(firstKey, TopHelpersMessageListener.toRollupKey(YearMonth.of(2022, 3)));
+    }
 
     MessageReceivedEvent createMessageReceivedEvent(boolean isBot, boolean isWebhook,
             boolean isThread, String parentChannelName) {
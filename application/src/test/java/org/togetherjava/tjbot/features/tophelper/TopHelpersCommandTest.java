@@ -0,0 +1,120 @@
+package org.togetherjava.tjbot.features.tophelper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.config.HelpSystemConfig;
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.generated.tables.records.TopHelperRollupsRecord;
+import org.togetherjava.tjbot.features.tophelper.TopHelpersCommand.TimeRange;
+import org.togetherjava.tjbot.features.tophelper.TopHelpersCommand.TopHelperResult;
+
+import javax.annotation.Nullable;
+
+import java.time.Instant;
+import java.time.Month;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.togetherjava.tjbot.db.generated.tables.HelpChannelMessages.HELP_CHANNEL_MESSAGES;
+import static org.togetherjava.tjbot.db.generated.tables.TopHelperRollups.TOP_HELPER_ROLLUPS;
+
+final class TopHelpersCommandTest {
+    private static final long GUILD_ID = 1;
+    private static final long OTHER_GUILD_ID = 2;
+    private static final long CHANNEL_ID = 10;
+    private static final long ALICE_ID = 100;
+    private static final long BOB_ID = 101;
+
+    private Database database;
+    private TopHelpersMessageListener listener;
+    private TopHelpersCommand command;
+    private long nextMessageId;
+
+    @BeforeEach
+    void setUp() {
+        database = Database.createMemoryDatabase(HELP_CHANNEL_MESSAGES, TOP_HELPER_ROLLUPS);
+
+        Config config = mock(Config.class);
+        HelpSystemConfig helpSystemConfig = mock(HelpSystemConfig.class);
+        when(helpSystemConfig.getHelpForumPattern()).thenReturn("questions");
+        when(config.getHelpSystem()).thenReturn(helpSystemConfig);
+
+        listener = new TopHelpersMessageListener(database, config);
+        command = new TopHelpersCommand(database);
+    }
+
+    private void addMessage(long guildId, long authorId, String sentAt, long messageLength) {
+        listener.addMessageRecord(nextMessageId++, guildId, CHANNEL_ID, authorId,
+                Instant.parse(sentAt), messageLength);
+    }
+
+    private List<TopHelperResult> computeTopHelpers(@Nullable YearMonth start,
+            @Nullable YearMonth end) {
+        return command.computeTopHelpersDescending(GUILD_ID, new TimeRange(start, end, "test"));
+    }
+
+    private static List<List<Long>> toIdsAndLengths(List<TopHelperResult> topHelpers) {
+        return topHelpers.stream()
+            .map(topHelper -> List.of(topHelper.authorId(), topHelper.messageLengths().longValue()))
+            .toList();
+    }
+
+    @Test
+    @DisplayName("Messages of an author within a month are aggregated into a single rollup")
+    void aggregatesMessagesPerMonth() {
+        // GIVEN several messages of an author within a month, and messages in other months
+        addMessage(GUILD_ID, ALICE_ID, "2022-03-01T00:00:00Z", 10);
+        addMessage(GUILD_ID, ALICE_ID, "2022-03-15T12:00:00Z", 20);
+        addMessage(GUILD_ID, ALICE_ID, "2022-03-31T23:59:59Z", 30);
+        addMessage(GUILD_ID, ALICE_ID, "2022-04-01T00:00:00Z", 40);
+
+        // WHEN reading the rollups of the author
+        List<TopHelperRollupsRecord> rollups = database.read(context -> context
+            .selectFrom(TOP_HELPER_ROLLUPS)
+            .where(TOP_HELPER_ROLLUPS.AUTHOR_ID.eq(ALICE_ID))
+            .orderBy(TOP_HELPER_ROLLUPS.YEAR_MONTH)
+            .fetch());
+
+        // THEN there is one rollup per month, with the totals of that month
+        assertEquals(2, rollups.size());
+        assertEquals("2022-03", rollups.getFirst().getYearMonth());
+        assertEquals(60, rollups.getFirst().getTotalLength());
+        assertEquals(3, rollups.getFirst().getMessageCount());
+        assertEquals("2022-04", rollups.getLast().getYearMonth());
+        assertEquals(40, rollups.getLast().getTotalLength());
+        assertEquals(1, rollups.getLast().getMessageCount());
+    }
+
+    @Test
+    @DisplayName("Top helpers are computed for the requested months only, most helpful first")
+    void computesTopHelpersOfPeriod() {
+        // GIVEN messages of several authors across months and guilds
+        addMessage(GUILD_ID, ALICE_ID, "2021-12-31T23:59:59Z", 1_000);
+        addMessage(GUILD_ID, ALICE_ID, "2022-03-10T00:00:00Z", 50);
+        addMessage(GUILD_ID, BOB_ID, "2022-03-20T00:00:00Z", 70);
+        addMessage(GUILD_ID, ALICE_ID, "2022-07-01T00:00:00Z", 30);
+        addMessage(GUILD_ID, BOB_ID, "2023-01-01T00:00:00Z", 500);
+        addMessage(OTHER_GUILD_ID, ALICE_ID, "2022-03-10T00:00:00Z", 2_000);
+
+        // WHEN computing the top helpers of a month, a year and all time
+        YearMonth march = YearMonth.of(2022, Month.MARCH);
+        List<TopHelperResult> monthTopHelpers = computeTopHelpers(march, march);
+        List<TopHelperResult> yearTopHelpers = computeTopHelpers(YearMonth.of(2022, Month.JANUARY),
+                YearMonth.of(2022, Month.DECEMBER));
+        List<TopHelperResult> allTimeTopHelpers = computeTopHelpers(null, null);
+
+        // THEN only the messages of the guild within the months are counted
+        assertEquals(List.of(List.of(BOB_ID, 70L), List.of(ALICE_ID, 50L)),
+                toIdsAndLengths(monthTopHelpers));
+        assertEquals(List.of(List.of(ALICE_ID, 80L), List.of(BOB_ID, 70L)),
+                toIdsAndLengths(yearTopHelpers));
+        assertEquals(List.of(List.of(ALICE_ID, 1_080L), List.of(BOB_ID, 570L)),
+                toIdsAndLengths(allTimeTopHelpers));
+    }
+}
@@ -0,0 +1,156 @@
+package org.togetherjava.tjbot.features.utils;
+
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class LinkPreviewsTest {
+    private static final String LINK = "https://example.com";
+    private static final String HEAD = "<html><head><title>Example</title></head>";
+    private static final String BODY = "<body>" + "lorem ipsum ".repeat(100_000) + "</body></html>";
+
+    @Test
+    @DisplayName("Reading a website stops at the end of its head section")
+    void readHeadStopsAtEndOfHead() throws IOException {
+        // GIVEN a website with a small head and a large body
+        TrackingInputStream website = new TrackingInputStream(HEAD + BODY, Integer.MAX_VALUE);
+
+        // WHEN reading its head
+        byte[] head = LinkPreviews.readHead(website);
+
+        // THEN the head is read, but not the body
+        String headText = new String(head, StandardCharsets.UTF_8);
+        assertTrue(headText.startsWith(HEAD));
+        assertTrue(head.length < BODY.length());
+        assertTrue(website.closed);
+    }
+
+    @Test
+    @DisplayName("The end of the head section is found even if it is split between reads")
+    void readHeadFindsSplitEndTag() throws IOException {
+        // GIVEN a website with an upper case end tag, that is only read a few bytes at a time
+        TrackingInputStream website = new TrackingInputStream("<HTML><HEAD></HEAD>" + BODY, 3);
+
+        // WHEN reading its head
+        byte[] head = LinkPreviews.readHead(website);
+
+        // THEN reading stops right after the end tag
+        String headText = new String(head, StandardCharsets.UTF_8);
+        assertTrue(headText.startsWith("<HTML><HEAD></HEAD"));
+        assertTrue(head.length <= "<HTML><HEAD></HEAD>".length());
+        assertTrue(website.closed);
+    }
+
+    @Test
+    @DisplayName("Reading a website without the end of its head section stops at the byte limit")
+    void readHeadIsLimited() throws IOException {
+        // GIVEN a website that never ends its head section
+        TrackingInputStream website =
+                new TrackingInputStream("<html><head>" + BODY, Integer.MAX_VALUE);
+
+        // WHEN reading its head
+        byte[] head = LinkPreviews.readHead(website);
+
+        // THEN only the maximal amount of bytes is read
+        assertEquals(LinkPreviews.MAX_HEAD_BYTES, head.length);
+        assertTrue(website.closed);
+    }
+
+    @Test
+    @DisplayName("Open Graph meta data is preferred over Twitter meta data and the title")
+    void prefersOpenGraphMeta() throws IOException {
+        // GIVEN a website with Open Graph, Twitter and a title
+        Document doc = parseHead("""
+                <html><head>
+                <title>Title</title>
+                <meta name="twitter:title" content="Twitter title">
+                <meta property="og:title" content="Open Graph title">
+                </head>""");
+
+        // WHEN parsing its title
+        Optional<String> title = LinkPreviews.parseOpenGraphTwitterMeta(doc, "title", doc.title());
+
+        // THEN the Open Graph title is used
+        assertEquals(Optional.of("Open Graph title"), title);
+    }
+
+    @Test
+    @DisplayName("Blank or missing meta data falls back to Twitter meta data and then the title")
+    void fallsBackForMissingMeta() throws IOException {
+        // GIVEN a website with a blank Open Graph description and a Twitter title
+        Document doc = parseHead("""
+                <html><head>
+                <title>Title</title>
+                <meta property="og:description" content=" ">
+                <meta name="twitter:title" content="Twitter title">
+                </head>""");
+
+        // WHEN parsing its title and description
+        Optional<String> title = LinkPreviews.parseOpenGraphTwitterMeta(doc, "title", doc.title());
+        Optional<String> description =
+                LinkPreviews.parseOpenGraphTwitterMeta(doc, "description", doc.title());
+        Optional<String> image = LinkPreviews.parseOpenGraphTwitterMeta(doc, "image", null);
+
+        // THEN the Twitter title, the website title and no image are used
+        assertEquals(Optional.of("Twitter title"), title);
+        assertEquals(Optional.of("Title"), description);
+        assertEquals(Optional.empty(), image);
+    }
+
+    @Test
+    @DisplayName("Meta data in the body of a website is ignored")
+    void ignoresBody() throws IOException {
+        // GIVEN a website with meta data only in its body
+        Document doc = parseHead(HEAD + "<body>" + "lorem ipsum ".repeat(10_000)
+                + "<meta property=\"og:title\" content=\"Body title\"></body>");
+
+        // WHEN parsing its title
+        Optional<String> title = LinkPreviews.parseOpenGraphTwitterMeta(doc, "title", doc.title());
+
+        // THEN the title of the head is used
+        assertEquals(Optional.of("Example"), title);
+    }
+
+    private static Document parseHead(String website) throws IOException {
+        return LinkPreviews.parseHead(LINK, new TrackingInputStream(website, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Website content that only provides a limited amount of bytes per read and remembers whether
+     * it was closed.
+     */
+    private static final class TrackingInputStream extends InputStream {
+        private final InputStream content;
+        private final int maxBytesPerRead;
+        private boolean closed;
+
+        TrackingInputStream(String content, int maxBytesPerRead) {
+            this.content = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+            this.maxBytesPerRead = maxBytesPerRead;
+        }
+
+        @Override
+        public int read() {
+            return content.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            return content.read(buffer, offset, Math.min(length, maxBytesPerRead));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
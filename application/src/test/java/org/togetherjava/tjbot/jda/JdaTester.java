@@ -619,7 +619,7 @@ public final class JdaTester {
 
     /**
      * Creates a Mockito mocked message receive event, which can be used for
-     * {@link org.togetherjava.tjbot.features.MessageReceiver#onMessageReceived(MessageReceivedEvent)}.
+     * {@link org.togetherjava.tjbot.features.MessageReceiver#onMessageReceived(MessageReceivedEvent, org.togetherjava.tjbot.features.MessageAnalysis)}.
      *
      * @param message the message that has been received
      * @param attachments attachments of the message, empty if none
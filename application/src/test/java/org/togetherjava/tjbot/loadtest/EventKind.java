@@ -0,0 +1,34 @@
+package org.togetherjava.tjbot.loadtest;
+
+import java.util.Locale;
+
+/**
+ * The kinds of synthetic events generated by {@link LoadHarness}.
+ */
+public enum EventKind {
+    /**
+     * A message sent in a guild text channel.
+     */
+    MESSAGE,
+    /**
+     * A slash command used by a member.
+     */
+    SLASH_COMMAND,
+    /**
+     * A button clicked by a member, routed back to the slash command that created it.
+     */
+    BUTTON_CLICK,
+    /**
+     * A member joining the guild.
+     */
+    MEMBER_JOIN;
+
+    /**
+     * Gets the name of this kind as used in metric labels, for example {@code "slash_command"}.
+     *
+     * @return the label of this kind
+     */
+    public String getLabel() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,344 @@
+package org.togetherjava.tjbot.loadtest;
+
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.channel.ChannelType;
+import net.dv8tion.jda.api.events.GenericEvent;
+import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.events.interaction.command.SlashCommandInteractionEvent;
+import net.dv8tion.jda.api.events.interaction.component.ButtonInteractionEvent;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.interactions.components.buttons.Button;
+import net.dv8tion.jda.api.utils.messages.MessageCreateBuilder;
+import org.jooq.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.Config;
+import org.togetherjava.tjbot.db.Database;
+import org.togetherjava.tjbot.db.DatabaseMetricsListener;
+import org.togetherjava.tjbot.db.generated.DefaultSchema;
+import org.togetherjava.tjbot.features.EventReceiver;
+import org.togetherjava.tjbot.features.SlashCommand;
+import org.togetherjava.tjbot.features.UserInteractionType;
+import org.togetherjava.tjbot.features.componentids.ComponentId;
+import org.togetherjava.tjbot.features.componentids.ComponentIdStore;
+import org.togetherjava.tjbot.features.componentids.Lifespan;
+import org.togetherjava.tjbot.features.system.BotCore;
+import org.togetherjava.tjbot.jda.JdaTester;
+import org.togetherjava.tjbot.metrics.DatabaseMetrics;
+import org.togetherjava.tjbot.metrics.LatencyHistogram;
+import org.togetherjava.tjbot.metrics.Metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mockingDetails;
+
+/**
+ * Generates synthetic Discord traffic against the bot and measures how it copes.
+ * <p>
+ * The harness wires up the actual {@link BotCore}, including all features of
+ * {@link org.togetherjava.tjbot.features.Features}, against the mocked JDA of {@link JdaTester} and
+ * an in-memory {@link Database} holding all tables. It then generates a stream of events as
+ * described by a {@link LoadProfile} and dispatches them the same way JDA would, on a pool of
+ * dispatch threads.
+ * <p>
+ * Events are created up front and reused round-robin, so creating the mocks does not distort the
+ * measurement. Latencies are read from the same metrics that are exported in production, so the
+ * handler latencies of a load run can be compared with the ones of the actual bot. As metrics are
+ * global, a run should be the only one in its JVM.
+ * <p>
+ * Discord is entirely mocked, handlers that depend on the result of a REST request might hence fail
+ * or take shortcuts. Failed events are counted and reported, but do not abort the run.
+ */
+public final class LoadHarness implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarness.class);
+    private static final long SEED = 42;
+    private static final int EVENT_POOL_SIZE = 32;
+    private static final long JOINING_MEMBER_ID_OFFSET = 1_000;
+    private static final Duration COMMAND_COMPLETION_TIMEOUT = Duration.ofMinutes(1);
+
+    static final String DISPATCH_DURATION_METRIC = "tjbot_load_dispatch_seconds";
+    static final String EVENT_RECEIVER_DURATION_METRIC =
+            "tjbot_load_event_receiver_duration_seconds";
+    static final String INTERACTOR_DURATION_METRIC = "tjbot_interactor_duration_seconds";
+    static final String RECEIVER_DURATION_METRIC = "tjbot_message_receiver_duration_seconds";
+
+    private static final List<String> MESSAGE_CONTENTS = List.of(
+            "Hello everyone, how is it going?",
+            "Can someone help me with my NullPointerException? It happens on the second call.",
+            """
+                    ```java
+                    public class Main {
+                        public static void main(String[] args) {
+                            System.out.println("Hello World");
+                        }
+                    }
+                    ```""",
+            "The docs are at https://docs.oracle.com/en/java/javase/21/ if you need them",
+            "Free nitro for everyone at https://discord-nitro.example/claim");
+
+    private final LoadProfile profile;
+    private final BotCore botCore;
+    private final List<EventReceiver> eventReceivers;
+    private final SlashCommand slashCommand;
+    private final ComponentIdStore componentIdStore;
+    private final LockContentionListener lockContention = new LockContentionListener();
+
+    private final List<MessageReceivedEvent> messageEvents;
+    private final List<SlashCommandInteractionEvent> slashCommandEvents;
+    private final List<ButtonInteractionEvent> buttonClickEvents;
+    private final List<GuildMemberJoinEvent> memberJoinEvents;
+
+    private final Map<EventKind, LongAdder> kindToDispatched = new EnumMap<>(EventKind.class);
+    private final Map<EventKind, LongAdder> kindToFailed = new EnumMap<>(EventKind.class);
+
+    /**
+     * Wires up the bot and prepares the events described by the given profile.
+     *
+     * @param profile the traffic to generate
+     * @param config the configuration the features of the bot are created with
+     */
+    public LoadHarness(LoadProfile profile, Config config) {
+        this.profile = profile;
+        for (EventKind kind : EventKind.values()) {
+            kindToDispatched.put(kind, new LongAdder());
+            kindToFailed.put(kind, new LongAdder());
+        }
+
+        JdaTester jdaTester = new JdaTester();
+        JDA jda = jdaTester.getJdaMock();
+        doReturn(profile.channelName()).when(jdaTester.getTextChannelSpy()).getName();
+
+        Database database = Database.createMemoryDatabase(
+                DefaultSchema.DEFAULT_SCHEMA.getTables().toArray(new Table<?>[0]));
+        database.setMetricsListener(lockContention);
+
+        botCore = new BotCore(jda, database, config);
+        eventReceivers = captureEventReceivers(jda);
+        slashCommand = botCore.getInteractors()
+            .stream()
+            .filter(SlashCommand.class::isInstance)
+            .map(SlashCommand.class::cast)
+            .filter(command -> command.getName().equals(profile.slashCommandName()))
+            .findAny()
+            .orElseThrow(() -> new IllegalArgumentException(
+                    "There is no slash command named " + profile.slashCommandName()));
+        // Shares the database with the store of the core, which hence resolves the buttons
+        componentIdStore = new ComponentIdStore(database);
+
+        messageEvents = createEventPool(
+                i -> jdaTester.createMessageReceiveEvent(new MessageCreateBuilder()
+                    .setContent(MESSAGE_CONTENTS.get(i % MESSAGE_CONTENTS.size()))
+                    .build(), List.of(), ChannelType.TEXT));
+        slashCommandEvents = createEventPool(
+                i -> jdaTester.createSlashCommandInteractionEvent(slashCommand).build());
+        buttonClickEvents = createEventPool(i -> createButtonClickEvent(jdaTester));
+        memberJoinEvents = createEventPool(i -> new GuildMemberJoinEvent(jda, i,
+                jdaTester.createMemberSpy(JOINING_MEMBER_ID_OFFSET + i)));
+    }
+
+    private static List<EventReceiver> captureEventReceivers(JDA jda) {
+        // The core registers event receivers at the mocked JDA, which does not dispatch anything
+        return mockingDetails(jda).getInvocations()
+            .stream()
+            .filter(invocation -> invocation.getMethod().getName().equals("addEventListener"))
+            .flatMap(invocation -> Arrays.stream(invocation.getArguments()))
+            .filter(EventReceiver.class::isInstance)
+            .map(EventReceiver.class::cast)
+            .toList();
+    }
+
+    private ButtonInteractionEvent createButtonClickEvent(JdaTester jdaTester) {
+        UUID uuid = UUID.randomUUID();
+        ComponentId componentId = new ComponentId(
+                UserInteractionType.SLASH_COMMAND.getPrefixedName(slashCommand.getName()),
+                List.of());
+        componentIdStore.putOrThrow(uuid, componentId, Lifespan.REGULAR);
+
+        return jdaTester.createButtonInteractionEvent()
+            .setActionRow(Button.primary(uuid.toString(), "Click"))
+            .buildWithSingleButton();
+    }
+
+    private static <T> List<T> createEventPool(IntFunction<? extends T> eventFactory) {
+        return IntStream.range(0, EVENT_POOL_SIZE).<T>mapToObj(eventFactory::apply).toList();
+    }
+
+    /**
+     * Generates the traffic described by the profile, waits until all events have been handled and
+     * reports the results.
+     *
+     * @return the report of the run
+     * @throws InterruptedException if interrupted while waiting for events to be handled
+     */
+    public LoadReport run() throws InterruptedException {
+        Random random = new Random(SEED);
+        long intervalNanos = profile.eventsPerSecond() == 0 ? 0
+                : TimeUnit.SECONDS.toNanos(1) / profile.eventsPerSecond();
+        LatencyHistogram slashCommandDuration = interactorDuration("slash_command");
+        LatencyHistogram buttonClickDuration = interactorDuration("button");
+        long handledCommandsBefore =
+                slashCommandDuration.getCount() + buttonClickDuration.getCount();
+
+        ExecutorService dispatchService =
+                Executors.newFixedThreadPool(profile.dispatchThreads());
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < profile.events(); i++) {
+                EventKind kind = profile.drawEventKind(random);
+                int sequenceNumber = i;
+                // Latency is measured from when the event was due, so that a backlog of events
+                // waiting for a dispatch thread shows up in the measurement
+                long dueAt = start + i * intervalNanos;
+                waitUntil(dueAt);
+
+                dispatchService.execute(() -> dispatch(kind, sequenceNumber, dueAt));
+            }
+        } finally {
+            dispatchService.shutdown();
+        }
+        if (!dispatchService.awaitTermination(COMMAND_COMPLETION_TIMEOUT.toMillis(),
+                TimeUnit.MILLISECONDS)) {
+            logger.warn("Not all events were dispatched in time");
+        }
+
+        // Slash commands and button clicks are handled asynchronously by the core
+        long expectedHandledCommands = handledCommandsBefore
+                + countSucceeded(EventKind.SLASH_COMMAND) + countSucceeded(EventKind.BUTTON_CLICK);
+        long completionDeadline = System.nanoTime() + COMMAND_COMPLETION_TIMEOUT.toNanos();
+        while (slashCommandDuration.getCount() + buttonClickDuration.getCount()
+                < expectedHandledCommands && System.nanoTime() < completionDeadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        long pendingCommands = expectedHandledCommands
+                - (slashCommandDuration.getCount() + buttonClickDuration.getCount());
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        return new LoadReport(profile, elapsed, countsOf(kindToDispatched), countsOf(kindToFailed),
+                Math.max(0, pendingCommands),
+                LoadReport.HandlerLatency.fromScrape(Metrics.scrape()), lockContention.toReport());
+    }
+
+    private void dispatch(EventKind kind, int sequenceNumber, long dueAt) {
+        try {
+            switch (kind) {
+                case MESSAGE ->
+                    botCore.onMessageReceived(pickEvent(messageEvents, sequenceNumber));
+                case SLASH_COMMAND -> botCore
+                    .onSlashCommandInteraction(pickEvent(slashCommandEvents, sequenceNumber));
+                case BUTTON_CLICK ->
+                    botCore.onButtonInteraction(pickEvent(buttonClickEvents, sequenceNumber));
+                case MEMBER_JOIN -> dispatchToEventReceivers(
+                        pickEvent(memberJoinEvents, sequenceNumber), kind.getLabel());
+            }
+        } catch (RuntimeException e) {
+            kindToFailed.get(kind).increment();
+            logger.debug("Failed to handle synthetic event {} of kind {}", sequenceNumber, kind, e);
+        } finally {
+            kindToDispatched.get(kind).increment();
+            Metrics
+                .histogram(DISPATCH_DURATION_METRIC,
+                        "Time from when a synthetic event was due until it was dispatched", "kind",
+                        kind.getLabel())
+                .recordNanos(System.nanoTime() - dueAt);
+        }
+    }
+
+    private void dispatchToEventReceivers(GenericEvent event, String eventType) {
+        // JDA informs all listeners, the core does not time event receivers itself
+        for (EventReceiver eventReceiver : eventReceivers) {
+            Metrics
+                .histogram(EVENT_RECEIVER_DURATION_METRIC,
+                        "Time spent by event receivers handling synthetic events", "receiver",
+                        eventReceiver.getClass().getSimpleName(), "event", eventType)
+                .time(() -> eventReceiver.onEvent(event));
+        }
+    }
+
+    private static <T> T pickEvent(List<T> events, int sequenceNumber) {
+        return events.get(sequenceNumber % events.size());
+    }
+
+    private LatencyHistogram interactorDuration(String eventType) {
+        return Metrics.histogram(INTERACTOR_DURATION_METRIC,
+                "Time spent by user interactors handling events", "interactor",
+                slashCommand.getName(), "event", eventType);
+    }
+
+    private long countSucceeded(EventKind kind) {
+        return kindToDispatched.get(kind).sum() - kindToFailed.get(kind).sum();
+    }
+
+    private static Map<EventKind, Long> countsOf(Map<EventKind, LongAdder> kindToCount) {
+        Map<EventKind, Long> counts = new EnumMap<>(EventKind.class);
+        kindToCount.forEach((kind, count) -> counts.put(kind, count.sum()));
+        return counts;
+    }
+
+    private static void waitUntil(long nanoTime) {
+        long remainingNanos;
+        while ((remainingNanos = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remainingNanos);
+        }
+    }
+
+    @Override
+    public void close() {
+        componentIdStore.close();
+        botCore.close();
+    }
+
+    /**
+     * Records the regular database metrics and additionally sums up the time spent waiting for the
+     * write lock.
+     */
+    private static final class LockContentionListener implements DatabaseMetricsListener {
+        private final DatabaseMetrics databaseMetrics = new DatabaseMetrics();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        @Override
+        public void onWriteLockAcquired(long waitNanos) {
+            databaseMetrics.onWriteLockAcquired(waitNanos);
+            acquisitions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+
+        @Override
+        public void onActionCompleted(AccessType accessType, long executionNanos) {
+            databaseMetrics.onActionCompleted(accessType, executionNanos);
+        }
+
+        @Override
+        public void onStatementCacheHit() {
+            databaseMetrics.onStatementCacheHit();
+        }
+
+        @Override
+        public void onStatementPrepared(long prepareNanos) {
+            databaseMetrics.onStatementPrepared(prepareNanos);
+        }
+
+        LoadReport.LockContention toReport() {
+            return new LoadReport.LockContention(acquisitions.sum(),
+                    Duration.ofNanos(totalWaitNanos.sum()), Duration.ofNanos(maxWaitNanos.get()));
+        }
+    }
+}
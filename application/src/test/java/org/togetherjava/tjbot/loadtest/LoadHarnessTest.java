@@ -0,0 +1,42 @@
+package org.togetherjava.tjbot.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.togetherjava.tjbot.config.Config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Entry point to run the {@link LoadHarness}. Excluded from regular test runs, run it with
+ * {@code gradle :application:loadTest}, configured by system properties as described in
+ * {@link LoadProfile#fromSystemProperties()}.
+ */
+@Tag("load")
+final class LoadHarnessTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadHarnessTest.class);
+
+    @Test
+    @DisplayName("The bot handles all events of the synthetic traffic")
+    void handlesSyntheticTraffic() throws IOException, InterruptedException {
+        // GIVEN the bot wired against mocked Discord and the traffic to generate
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        Config config = Config.load(Path.of("config.json.template"));
+
+        try (LoadHarness harness = new LoadHarness(profile, config)) {
+            // WHEN generating the traffic
+            LoadReport report = harness.run();
+            logger.info("Load report:\n{}", report.format());
+
+            // THEN all events were dispatched and all commands handled
+            assertEquals(profile.events(), report.totalDispatched());
+            assertEquals(0, report.pendingCommands());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.togetherjava.tjbot.loadtest;
+
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Configuration of the synthetic traffic generated by {@link LoadHarness}.
+ * <p>
+ * The kind of each event is drawn randomly according to the weights of the kinds. The draw uses a
+ * fixed seed, so runs with the same profile generate the same traffic.
+ *
+ * @param events the total amount of events to generate
+ * @param eventsPerSecond the rate to generate events at, {@code 0} to generate them as fast as
+ *        possible
+ * @param dispatchThreads the amount of threads events are dispatched on, similar to the event
+ *        threads of JDA
+ * @param messageWeight the weight of {@link EventKind#MESSAGE}
+ * @param slashCommandWeight the weight of {@link EventKind#SLASH_COMMAND}
+ * @param buttonClickWeight the weight of {@link EventKind#BUTTON_CLICK}
+ * @param memberJoinWeight the weight of {@link EventKind#MEMBER_JOIN}
+ * @param channelName the name of the channel messages are sent in, decides which message receivers
+ *        are triggered
+ * @param slashCommandName the name of the slash command that is used, and that clicked buttons are
+ *        routed back to. It must not require any options.
+ */
+public record LoadProfile(int events, int eventsPerSecond, int dispatchThreads, int messageWeight,
+        int slashCommandWeight, int buttonClickWeight, int memberJoinWeight, String channelName,
+        String slashCommandName) {
+    private static final String PROPERTY_PREFIX = "loadtest.";
+
+    /**
+     * Creates a new profile.
+     */
+    public LoadProfile {
+        if (events <= 0) {
+            throw new IllegalArgumentException("Events must be positive, was " + events);
+        }
+        if (eventsPerSecond < 0) {
+            throw new IllegalArgumentException(
+                    "Events per second must not be negative, was " + eventsPerSecond);
+        }
+        if (dispatchThreads <= 0) {
+            throw new IllegalArgumentException(
+                    "Dispatch threads must be positive, was " + dispatchThreads);
+        }
+        if (messageWeight < 0 || slashCommandWeight < 0 || buttonClickWeight < 0
+                || memberJoinWeight < 0) {
+            throw new IllegalArgumentException("Weights must not be negative");
+        }
+        if (messageWeight + slashCommandWeight + buttonClickWeight + memberJoinWeight == 0) {
+            throw new IllegalArgumentException("At least one weight must be positive");
+        }
+        Objects.requireNonNull(channelName);
+        Objects.requireNonNull(slashCommandName);
+    }
+
+    /**
+     * Creates a profile from the system properties prefixed with {@value PROPERTY_PREFIX}, for
+     * example {@code -Dloadtest.eventsPerSecond=500}. Properties that are not set fall back to a
+     * mix dominated by messages, as on the actual server.
+     *
+     * @return the profile described by the system properties
+     */
+    public static LoadProfile fromSystemProperties() {
+        return new LoadProfile(Integer.getInteger(PROPERTY_PREFIX + "events", 10_000),
+                Integer.getInteger(PROPERTY_PREFIX + "eventsPerSecond", 0),
+                Integer.getInteger(PROPERTY_PREFIX + "dispatchThreads", 4),
+                Integer.getInteger(PROPERTY_PREFIX + "messageWeight", 85),
+                Integer.getInteger(PROPERTY_PREFIX + "slashCommandWeight", 8),
+                Integer.getInteger(PROPERTY_PREFIX + "buttonClickWeight", 5),
+                Integer.getInteger(PROPERTY_PREFIX + "memberJoinWeight", 2),
+                System.getProperty(PROPERTY_PREFIX + "channelName", "off-topic"),
+                System.getProperty(PROPERTY_PREFIX + "slashCommandName", "ping"));
+    }
+
+    /**
+     * Draws the kind of the next event, according to the weights of this profile.
+     *
+     * @param random the source of randomness to draw with
+     * @return the drawn kind
+     */
+    EventKind drawEventKind(RandomGenerator random) {
+        int totalWeight = messageWeight + slashCommandWeight + buttonClickWeight + memberJoinWeight;
+        int draw = random.nextInt(totalWeight);
+
+        for (EventKind kind : EventKind.values()) {
+            draw -= weightOf(kind);
+            if (draw < 0) {
+                return kind;
+            }
+        }
+        throw new AssertionError("Draw exceeded the total weight");
+    }
+
+    private int weightOf(EventKind kind) {
+        return switch (kind) {
+            case MESSAGE -> messageWeight;
+            case SLASH_COMMAND -> slashCommandWeight;
+            case BUTTON_CLICK -> buttonClickWeight;
+            case MEMBER_JOIN -> memberJoinWeight;
+        };
+    }
+}
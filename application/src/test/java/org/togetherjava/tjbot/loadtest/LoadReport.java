@@ -0,0 +1,171 @@
+package org.togetherjava.tjbot.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Results of a run of the {@link LoadHarness}.
+ *
+ * @param profile the profile of the generated traffic
+ * @param elapsed the time from the first event until all events were handled
+ * @param kindToDispatched the amount of dispatched events, by their kind
+ * @param kindToFailed the amount of events whose handling failed, by their kind
+ * @param pendingCommands the amount of slash commands and button clicks that were still not handled
+ *        when the run gave up waiting for them
+ * @param handlerLatencies the latencies of all handlers, sorted by their 99th percentile, highest
+ *        first
+ * @param lockContention the contention on the write lock of the database
+ */
+public record LoadReport(LoadProfile profile, Duration elapsed,
+        Map<EventKind, Long> kindToDispatched, Map<EventKind, Long> kindToFailed,
+        long pendingCommands, List<HandlerLatency> handlerLatencies,
+        LockContention lockContention) {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Gets the total amount of dispatched events.
+     *
+     * @return the total amount of dispatched events
+     */
+    public long totalDispatched() {
+        return kindToDispatched.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Gets the amount of events handled per second, over the whole run.
+     *
+     * @return the throughput of the run, in events per second
+     */
+    public double throughput() {
+        return totalDispatched() * NANOS_PER_SECOND / Math.max(1, elapsed.toNanos());
+    }
+
+    /**
+     * Formats this report as human-readable table.
+     *
+     * @return the formatted report
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append("%d events in %.2f s, %.1f events/s (%s)%n".formatted(totalDispatched(),
+                elapsed.toNanos() / NANOS_PER_SECOND, throughput(), profile));
+
+        for (EventKind kind : EventKind.values()) {
+            out.append("  %-15s %8d dispatched, %6d failed%n".formatted(kind.getLabel(),
+                    kindToDispatched.getOrDefault(kind, 0L), kindToFailed.getOrDefault(kind, 0L)));
+        }
+        if (pendingCommands > 0) {
+            out.append("  %d commands were still pending at the end%n".formatted(pendingCommands));
+        }
+
+        out.append("Database write lock: %d acquisitions, %.1f ms waited in total".formatted(
+                lockContention.acquisitions(), toMillis(lockContention.totalWait())));
+        out.append(" (%.2f%% of the run), at most %.1f ms%n".formatted(
+                100 * lockContention.waitShareOf(elapsed), toMillis(lockContention.maxWait())));
+
+        out.append("%10s %10s %10s %8s  %s%n".formatted("p50 [ms]", "p99 [ms]", "p99.9 [ms]",
+                "count", "handler"));
+        for (HandlerLatency latency : handlerLatencies) {
+            out.append("%10.3f %10.3f %10.3f %8d  %s{%s}%n".formatted(toMillis(latency.p50()),
+                    toMillis(latency.p99()), toMillis(latency.p999()), latency.count(),
+                    latency.metric(), latency.labels()));
+        }
+        return out.toString();
+    }
+
+    private static double toMillis(Duration duration) {
+        return duration.toNanos() / 1_000_000.0;
+    }
+
+    /**
+     * Latency of a single handler, for example of a message receiver handling received messages.
+     *
+     * @param metric the name of the metric the latency was read from
+     * @param labels the labels identifying the handler within the metric, in the Prometheus format
+     * @param count the amount of handled events
+     * @param p50 the median latency
+     * @param p99 the 99th percentile of the latency
+     * @param p999 the 99.9th percentile of the latency
+     */
+    public record HandlerLatency(String metric, String labels, long count, Duration p50,
+            Duration p99, Duration p999) {
+        private static final Set<String> HANDLER_METRICS = Set.of(
+                LoadHarness.DISPATCH_DURATION_METRIC, LoadHarness.EVENT_RECEIVER_DURATION_METRIC,
+                LoadHarness.INTERACTOR_DURATION_METRIC, LoadHarness.RECEIVER_DURATION_METRIC);
+        private static final Pattern SAMPLE_PATTERN = Pattern.compile(
+                "(?<metric>[a-z_]+?)(?<count>_count)?\\{(?<labels>[^}]*?)(?:,?quantile=\"(?<quantile>[^\"]+)\")?} (?<value>\\S+)");
+
+        /**
+         * Reads the latencies of all handlers from the given metrics.
+         *
+         * @param scrape all metrics, in the Prometheus text format, see
+         *        {@link org.togetherjava.tjbot.metrics.Metrics#scrape()}
+         * @return the latencies of all handlers, sorted by their 99th percentile, highest first
+         */
+        static List<HandlerLatency> fromScrape(String scrape) {
+            Map<String, Long> handlerToCount = new HashMap<>();
+            Map<String, Map<String, Duration>> handlerToQuantiles = new TreeMap<>();
+
+            scrape.lines().map(SAMPLE_PATTERN::matcher).filter(Matcher::matches).forEach(sample -> {
+                String metric = sample.group("metric");
+                if (!HANDLER_METRICS.contains(metric)) {
+                    return;
+                }
+
+                String handler = metric + "{" + sample.group("labels") + "}";
+                double value = Double.parseDouble(sample.group("value"));
+                if (sample.group("count") != null) {
+                    handlerToCount.put(handler, (long) value);
+                } else if (sample.group("quantile") != null) {
+                    handlerToQuantiles.computeIfAbsent(handler, any -> new HashMap<>())
+                        .put(sample.group("quantile"),
+                                Duration.ofNanos(Math.round(value * NANOS_PER_SECOND)));
+                }
+            });
+
+            List<HandlerLatency> latencies = new ArrayList<>();
+            handlerToQuantiles.forEach((handler, quantiles) -> {
+                int labelsStart = handler.indexOf('{');
+                latencies.add(new HandlerLatency(handler.substring(0, labelsStart),
+                        handler.substring(labelsStart + 1, handler.length() - 1),
+                        handlerToCount.getOrDefault(handler, 0L),
+                        quantiles.getOrDefault("0.5", Duration.ZERO),
+                        quantiles.getOrDefault("0.99", Duration.ZERO),
+                        quantiles.getOrDefault("0.999", Duration.ZERO)));
+            });
+
+            latencies.sort(Comparator.comparing(HandlerLatency::p99).reversed());
+            return latencies;
+        }
+    }
+
+    /**
+     * Contention on the write lock of the database.
+     *
+     * @param acquisitions the amount of times the lock was acquired
+     * @param totalWait the total time spent waiting for the lock, over all threads
+     * @param maxWait the longest time a single access waited for the lock
+     */
+    public record LockContention(long acquisitions, Duration totalWait, Duration maxWait) {
+        /**
+         * Gets the share of the given time that was spent waiting for the lock, summed up over all
+         * threads. Values above {@code 1} hence indicate that multiple threads were waiting most of
+         * the time.
+         *
+         * @param elapsed the time to relate the wait time to
+         * @return the share of the time spent waiting, {@code 0.5} for half of the time
+         */
+        public double waitShareOf(Duration elapsed) {
+            return (double) totalWait.toNanos() / Math.max(1, elapsed.toNanos());
+        }
+    }
+}
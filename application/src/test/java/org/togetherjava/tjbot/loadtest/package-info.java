@@ -0,0 +1,12 @@
+/**
+ * Provides a harness that generates synthetic Discord traffic against the bot, to measure its
+ * throughput and latency offline. See {@link org.togetherjava.tjbot.loadtest.LoadHarness} as entry
+ * point.
+ */
+@MethodsReturnNonnullByDefault
+@ParametersAreNonnullByDefault
+package org.togetherjava.tjbot.loadtest;
+
+import org.togetherjava.tjbot.annotations.MethodsReturnNonnullByDefault;
+
+import javax.annotation.ParametersAreNonnullByDefault;
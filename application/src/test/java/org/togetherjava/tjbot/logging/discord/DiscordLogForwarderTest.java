@@ -0,0 +1,159 @@
+package org.togetherjava.tjbot.logging.discord;
+
+import club.minnced.discord.webhook.WebhookClient;
+import club.minnced.discord.webhook.send.WebhookEmbed;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.SimpleMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+final class DiscordLogForwarderTest {
+    private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private Instant now = START;
+    private final List<List<WebhookEmbed>> sentBatches = new ArrayList<>();
+    private DiscordLogForwarder forwarder;
+
+    @BeforeEach
+    void setUp() {
+        WebhookClient webhookClient = mock(WebhookClient.class);
+        when(webhookClient.send(anyCollection())).thenAnswer(invocation -> {
+            Collection<WebhookEmbed> batch = invocation.getArgument(0);
+            sentBatches.add(List.copyOf(batch));
+            return CompletableFuture.completedFuture(null);
+        });
+
+        forwarder = new DiscordLogForwarder(webhookClient, "https://example.com", () -> now);
+    }
+
+    private void forward(String message) {
+        LogEvent event = Log4jLogEvent.newBuilder()
+            .setLoggerName("org.togetherjava.tjbot.Example")
+            .setLevel(Level.ERROR)
+            .setMessage(new SimpleMessage(message))
+            .setTimeMillis(now.toEpochMilli())
+            .build();
+        forwarder.forwardLogEvent(event);
+    }
+
+    private void advanceTime(Duration duration) {
+        now = now.plus(duration);
+    }
+
+    private void tick() {
+        forwarder.processPendingLogs();
+    }
+
+    private List<WebhookEmbed> sentEmbeds() {
+        return sentBatches.stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    @DisplayName("Logs are only forwarded once their coalesce window has passed")
+    void forwardsAfterCoalesceWindow() {
+        // GIVEN a log that was just forwarded
+        forward("foo");
+
+        // WHEN ticking before and after its coalesce window passed
+        advanceTime(DiscordLogForwarder.COALESCE_WINDOW.minusSeconds(1));
+        tick();
+        List<List<WebhookEmbed>> sentBatchesBeforeWindow = List.copyOf(sentBatches);
+        advanceTime(Duration.ofSeconds(1));
+        tick();
+
+        // THEN the log is only sent after the window
+        assertTrue(sentBatchesBeforeWindow.isEmpty());
+        assertEquals(1, sentBatches.size());
+        assertEquals("foo", sentEmbeds().getFirst().getDescription());
+        assertNull(sentEmbeds().getFirst().getFooter());
+    }
+
+    @Test
+    @DisplayName("Identical logs within the coalesce window are merged into a single entry")
+    void coalescesRepeatedLogs() {
+        // GIVEN identical logs within the coalesce window, and another log in between
+        forward("foo");
+        advanceTime(Duration.ofSeconds(1));
+        forward("bar");
+        forward("foo");
+        advanceTime(Duration.ofSeconds(2));
+        forward("foo");
+
+        // WHEN ticking once the window passed
+        advanceTime(DiscordLogForwarder.COALESCE_WINDOW);
+        tick();
+
+        // THEN the identical logs are sent as one entry with their count, in order of arrival
+        List<WebhookEmbed> embeds = sentEmbeds();
+        assertEquals(1, sentBatches.size());
+        assertEquals(2, embeds.size());
+        assertEquals("foo", embeds.get(0).getDescription());
+        assertEquals("×3 in last 3s", embeds.get(0).getFooter().getText());
+        assertEquals("bar", embeds.get(1).getDescription());
+        assertNull(embeds.get(1).getFooter());
+    }
+
+    @Test
+    @DisplayName("Logs are sent in batches of limited size")
+    void sendsLimitedBatches() {
+        // GIVEN more different logs than fit into a batch
+        int logs = DiscordLogForwarder.MAX_BATCH_SIZE + 1;
+        IntStream.range(0, logs).forEach(i -> forward("log-" + i));
+        advanceTime(DiscordLogForwarder.COALESCE_WINDOW);
+
+        // WHEN ticking twice
+        tick();
+        tick();
+
+        // THEN the logs are split into two batches
+        assertEquals(2, sentBatches.size());
+        assertEquals(DiscordLogForwarder.MAX_BATCH_SIZE, sentBatches.get(0).size());
+        assertEquals(1, sentBatches.get(1).size());
+    }
+
+    @Test
+    @DisplayName("Batches are not sent more often than the webhook rate limit allows")
+    void respectsWebhookRateLimit() {
+        // GIVEN more logs than can be sent within the rate limit
+        int sendableLogs = DiscordLogForwarder.WEBHOOK_RATE_LIMIT_REQUESTS
+                * DiscordLogForwarder.MAX_BATCH_SIZE;
+        IntStream.range(0, sendableLogs).forEach(i -> forward("log-" + i));
+        forward("limited");
+        advanceTime(DiscordLogForwarder.COALESCE_WINDOW);
+
+        // WHEN ticking until the rate limit is reached, and again once its window passed
+        for (int i = 0; i <= DiscordLogForwarder.WEBHOOK_RATE_LIMIT_REQUESTS; i++) {
+            tick();
+        }
+        int sentBatchesWhileLimited = sentBatches.size();
+
+        advanceTime(DiscordLogForwarder.WEBHOOK_RATE_LIMIT_WINDOW.plusSeconds(1));
+        tick();
+
+        // THEN the remaining log is only sent once the rate limit window passed
+        assertEquals(DiscordLogForwarder.WEBHOOK_RATE_LIMIT_REQUESTS, sentBatchesWhileLimited);
+        assertEquals(DiscordLogForwarder.WEBHOOK_RATE_LIMIT_REQUESTS + 1, sentBatches.size());
+        assertEquals(List.of("limited"), sentBatches.getLast()
+            .stream()
+            .map(WebhookEmbed::getDescription)
+            .toList());
+    }
+}
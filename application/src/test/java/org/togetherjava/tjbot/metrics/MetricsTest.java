@@ -0,0 +1,63 @@
+package org.togetherjava.tjbot.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MetricsTest {
+
+    @Test
+    @DisplayName("Quantiles of a latency histogram are within the bucket precision")
+    void histogramQuantilesAreAccurate() {
+        // GIVEN a histogram with latencies from 1ms to 1000ms
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int millis = 1; millis <= 1_000; millis++) {
+            histogram.record(Duration.ofMillis(millis));
+        }
+
+        // WHEN estimating quantiles
+        long median = histogram.getValueAtQuantile(0.5).toMillis();
+        long p99 = histogram.getValueAtQuantile(0.99).toMillis();
+
+        // THEN they are within the relative error of the buckets
+        assertEquals(1_000, histogram.getCount());
+        assertTrue(Math.abs(median - 500) <= 500 * 0.07, "Median was " + median);
+        assertTrue(Math.abs(p99 - 990) <= 990 * 0.07, "99th percentile was " + p99);
+    }
+
+    @Test
+    @DisplayName("Bucket indices grow monotonically with the recorded value")
+    void bucketIndicesAreMonotonic() {
+        int previousIndex = -1;
+        for (long value = 0; value < 100_000; value++) {
+            int index = LatencyHistogram.bucketIndexOf(value);
+            assertTrue(index >= previousIndex, "Index decreased at value " + value);
+            previousIndex = index;
+        }
+
+        assertTrue(LatencyHistogram.bucketIndexOf(Long.MAX_VALUE) >= previousIndex);
+    }
+
+    @Test
+    @DisplayName("Metrics are exported in the Prometheus text format")
+    void scrapeUsesPrometheusFormat() {
+        // GIVEN a counter with labels
+        Counter counter = Metrics.counter("tjbot_test_events_total", "Test events", "kind",
+                "a\"b");
+        counter.add(3);
+
+        // WHEN scraping
+        String scraped = Metrics.scrape();
+
+        // THEN the counter is exported with escaped labels, and requesting it again is the same
+        assertTrue(scraped.contains("# TYPE tjbot_test_events_total counter\n"), scraped);
+        assertTrue(scraped.contains("tjbot_test_events_total{kind=\"a\\\"b\"} 3\n"), scraped);
+        assertSame(counter,
+                Metrics.counter("tjbot_test_events_total", "Test events", "kind", "a\"b"));
+    }
+}
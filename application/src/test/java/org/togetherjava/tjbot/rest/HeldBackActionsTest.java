@@ -0,0 +1,167 @@
+package org.togetherjava.tjbot.rest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class HeldBackActionsTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+    private final List<String> sentActions = new ArrayList<>();
+    private RestHeadroom headroom;
+    private HeldBackActions heldBackActions;
+
+    @BeforeEach
+    void setUp() {
+        headroom = new RestHeadroom(nanoTime::get);
+        heldBackActions = new HeldBackActions(headroom, nanoTime::get);
+    }
+
+    private boolean offer(RestPriority priority, String name) {
+        return heldBackActions.offer(priority, () -> sentActions.add(name));
+    }
+
+    private void releaseAll() {
+        List<Runnable> releasedActions;
+        while (!(releasedActions = heldBackActions.release()).isEmpty()) {
+            releasedActions.forEach(Runnable::run);
+        }
+    }
+
+    private void advanceTime(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+
+    private void endPressure() {
+        advanceTime(Duration.ofSeconds(10));
+    }
+
+    @Test
+    @DisplayName("Actions are not held back without pressure")
+    void sendsRightAwayWithoutPressure() {
+        // GIVEN rate limits without pressure
+        // WHEN offering low-priority actions
+        // THEN they are not held back
+        assertFalse(offer(RestPriority.BULK, "bulk"));
+        assertFalse(offer(RestPriority.COSMETIC, "cosmetic"));
+    }
+
+    @Test
+    @DisplayName("Urgent and normal actions are never held back")
+    void neverHoldsBackHighPriority() {
+        // GIVEN rate limits under pressure
+        headroom.onUrgentAction();
+
+        // WHEN offering high-priority actions
+        // THEN they are not held back
+        assertFalse(offer(RestPriority.URGENT, "urgent"));
+        assertFalse(offer(RestPriority.NORMAL, "normal"));
+    }
+
+    @Test
+    @DisplayName("Held back actions are released in order, a few at a time, once the pressure ends")
+    void releasesInOrderAfterPressure() {
+        // GIVEN actions held back under pressure
+        headroom.onUrgentAction();
+        List<String> offeredActions = IntStream.range(0, 12).mapToObj(i -> "bulk-" + i).toList();
+        offeredActions.forEach(action -> assertTrue(offer(RestPriority.BULK, action)));
+        assertTrue(heldBackActions.release().isEmpty());
+
+        // WHEN the pressure ends
+        endPressure();
+
+        // THEN the actions are released in order, a few at a time
+        List<Runnable> firstReleasedActions = heldBackActions.release();
+        assertEquals(HeldBackActions.MAX_RELEASED_ACTIONS, firstReleasedActions.size());
+        firstReleasedActions.forEach(Runnable::run);
+        releaseAll();
+        assertEquals(offeredActions, sentActions);
+    }
+
+    @Test
+    @DisplayName("Actions are held back behind others of their priority, also without pressure")
+    void keepsOrderWithoutPressure() {
+        // GIVEN an action that was held back under pressure, which ended since
+        headroom.onUrgentAction();
+        offer(RestPriority.COSMETIC, "first");
+        endPressure();
+
+        // WHEN offering another action
+        boolean isHeldBack = offer(RestPriority.COSMETIC, "second");
+
+        // THEN it is held back behind the first one
+        assertTrue(isHeldBack);
+        releaseAll();
+        assertEquals(List.of("first", "second"), sentActions);
+    }
+
+    @Test
+    @DisplayName("Cosmetic actions are dropped if too many are held back")
+    void dropsCosmeticOverflow() {
+        // GIVEN the maximal amount of cosmetic actions held back
+        headroom.onUrgentAction();
+        for (int i = 0; i < HeldBackActions.MAX_HELD_BACK_ACTIONS; i++) {
+            offer(RestPriority.COSMETIC, "cosmetic-" + i);
+        }
+
+        // WHEN offering another one
+        boolean isTakenOver = offer(RestPriority.COSMETIC, "overflow");
+
+        // THEN it is dropped, without being sent
+        assertTrue(isTakenOver);
+        assertEquals(HeldBackActions.MAX_HELD_BACK_ACTIONS,
+                heldBackActions.count(RestPriority.COSMETIC));
+        endPressure();
+        releaseAll();
+        assertFalse(sentActions.contains("overflow"));
+    }
+
+    @Test
+    @DisplayName("Bulk actions wait in line also if too many are held back")
+    void keepsBulkOverflowInLine() {
+        // GIVEN the maximal amount of bulk actions held back
+        headroom.onUrgentAction();
+        for (int i = 0; i < HeldBackActions.MAX_HELD_BACK_ACTIONS; i++) {
+            offer(RestPriority.BULK, "bulk-" + i);
+        }
+
+        // WHEN offering another one
+        boolean isHeldBack = offer(RestPriority.BULK, "overflow");
+
+        // THEN it is held back behind all others, instead of being sent right away
+        assertTrue(isHeldBack);
+        assertTrue(sentActions.isEmpty());
+        assertEquals(HeldBackActions.MAX_HELD_BACK_ACTIONS + 1,
+                heldBackActions.count(RestPriority.BULK));
+        endPressure();
+        releaseAll();
+        assertEquals("overflow", sentActions.getLast());
+    }
+
+    @Test
+    @DisplayName("Under lasting pressure, old cosmetic actions are dropped and old bulk actions released")
+    void handlesOldActionsUnderLastingPressure() {
+        // GIVEN actions held back under pressure
+        headroom.onUrgentAction();
+        offer(RestPriority.BULK, "bulk");
+        offer(RestPriority.COSMETIC, "cosmetic");
+
+        // WHEN the pressure lasts longer than actions are held back at most
+        advanceTime(HeldBackActions.MAX_BULK_HOLD_BACK.plusSeconds(1));
+        headroom.onUrgentAction();
+        releaseAll();
+
+        // THEN the bulk action is released anyway, while the cosmetic action is dropped
+        assertEquals(List.of("bulk"), sentActions);
+        assertEquals(0, heldBackActions.count(RestPriority.COSMETIC));
+    }
+}
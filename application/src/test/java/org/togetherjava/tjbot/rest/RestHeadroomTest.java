@@ -0,0 +1,136 @@
+package org.togetherjava.tjbot.rest;
+
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RestHeadroomTest {
+    private final AtomicLong nanoTime = new AtomicLong();
+    private RestHeadroom headroom;
+
+    @BeforeEach
+    void setUp() {
+        headroom = new RestHeadroom(nanoTime::get);
+    }
+
+    private static Response.Builder createResponse(int code) {
+        return new Response.Builder()
+            .request(new Request.Builder().url("https://discord.com/api/v10/channels/1").build())
+            .protocol(Protocol.HTTP_1_1)
+            .code(code)
+            .message("Status " + code);
+    }
+
+    private static Response createBucketResponse(String bucket, int remaining) {
+        return createResponse(200).header("X-RateLimit-Bucket", bucket)
+            .header("X-RateLimit-Remaining", Integer.toString(remaining))
+            .header("X-RateLimit-Reset-After", "1.5")
+            .build();
+    }
+
+    private void advanceTime(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    @DisplayName("Exhausted buckets are tracked until they reset, but do not put pressure")
+    void tracksExhaustedBuckets() {
+        // GIVEN a bucket that is exhausted by regular use and one with headroom left
+        headroom.onResponse(createBucketResponse("reactions", 0));
+        headroom.onResponse(createBucketResponse("messages", 4));
+
+        // WHEN checking the headroom
+        // THEN only the exhausted bucket is counted, until it resets, and there is no pressure
+        assertEquals(1, headroom.countExhaustedBuckets());
+        assertFalse(headroom.isUnderPressure());
+
+        advanceTime(Duration.ofSeconds(2));
+        assertEquals(0, headroom.countExhaustedBuckets());
+    }
+
+    @Test
+    @DisplayName("A bucket with requests remaining again is no longer exhausted")
+    void bucketRecovers() {
+        // GIVEN an exhausted bucket
+        headroom.onResponse(createBucketResponse("reactions", 0));
+
+        // WHEN a later response has requests remaining for it
+        headroom.onResponse(createBucketResponse("reactions", 1));
+
+        // THEN it is no longer exhausted
+        assertEquals(0, headroom.countExhaustedBuckets());
+    }
+
+    @Test
+    @DisplayName("Hitting a route rate limit puts pressure for a few seconds")
+    void routeRateLimitPutsPressure() {
+        // GIVEN a request that hit the rate limit of its route
+        headroom.onResponse(createResponse(429).header("X-RateLimit-Scope", "user")
+            .header("Retry-After", "30")
+            .build());
+
+        // WHEN checking the pressure over time
+        // THEN there is pressure for a few seconds, independent of the retry of the route
+        assertTrue(headroom.isUnderPressure());
+        advanceTime(Duration.ofSeconds(6));
+        assertFalse(headroom.isUnderPressure());
+    }
+
+    @Test
+    @DisplayName("Hitting the global rate limit puts pressure until it is over")
+    void globalRateLimitPutsPressure() {
+        // GIVEN a request that hit the global rate limit
+        headroom.onResponse(createResponse(429).header("X-RateLimit-Global", "true")
+            .header("Retry-After", "30")
+            .build());
+
+        // WHEN checking the pressure over time
+        // THEN there is pressure until the global rate limit is over
+        advanceTime(Duration.ofSeconds(29));
+        assertTrue(headroom.isUnderPressure());
+        advanceTime(Duration.ofSeconds(2));
+        assertFalse(headroom.isUnderPressure());
+    }
+
+    @Test
+    @DisplayName("Urgent actions put pressure shortly")
+    void urgentActionPutsPressure() {
+        // GIVEN an urgent action
+        headroom.onUrgentAction();
+
+        // WHEN checking the pressure over time
+        // THEN there is pressure shortly
+        assertTrue(headroom.isUnderPressure());
+        advanceTime(Duration.ofSeconds(3));
+        assertFalse(headroom.isUnderPressure());
+    }
+
+    @Test
+    @DisplayName("Malformed rate limit headers are ignored")
+    void ignoresMalformedHeaders() {
+        // GIVEN responses with malformed rate limit headers
+        headroom.onResponse(createResponse(200).header("X-RateLimit-Bucket", "reactions")
+            .header("X-RateLimit-Remaining", "none")
+            .header("X-RateLimit-Reset-After", "1.5")
+            .build());
+        headroom.onResponse(createResponse(200).header("X-RateLimit-Bucket", "messages")
+            .header("X-RateLimit-Remaining", "0")
+            .header("X-RateLimit-Reset-After", "soon")
+            .build());
+
+        // WHEN checking the headroom
+        // THEN the responses had no effect
+        assertEquals(0, headroom.countExhaustedBuckets());
+        assertFalse(headroom.isUnderPressure());
+    }
+}
@@ -4,15 +4,18 @@ import org.flywaydb.core.Flyway;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
 import org.jooq.Table;
+import org.jooq.conf.Settings;
 import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
 import org.sqlite.SQLiteConfig;
 import org.sqlite.SQLiteDataSource;
 
+import org.togetherjava.tjbot.db.DatabaseMetricsListener.AccessType;
 import org.togetherjava.tjbot.db.util.CheckedConsumer;
 import org.togetherjava.tjbot.db.util.CheckedFunction;
 
 import java.sql.SQLException;
+import java.util.Objects;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -23,6 +26,9 @@ import java.util.concurrent.locks.ReentrantLock;
  * connections are handled automatically by the system.
  * <p>
  * Instances of this class are thread-safe and can be used to concurrently write to the database.
+ * <p>
+ * Prepared statements are reused for queries of the same shape, see
+ * {@link StatementCachingConnection}.
  */
 public final class Database {
 
@@ -31,12 +37,14 @@ public final class Database {
         System.setProperty("org.jooq.no-tips", "true");
     }
 
+    private final StatementCachingConnection connection;
     private final DSLContext dslContext;
     /**
      * Lock used to implement thread-safety across this class. Any database modifying method must
      * use this lock.
      */
     private final Lock writeLock = new ReentrantLock();
+    private volatile DatabaseMetricsListener metricsListener = DatabaseMetricsListener.NONE;
 
     /**
      * Creates an instance of a new database.
@@ -57,7 +65,10 @@ public final class Database {
                 Flyway.configure().dataSource(dataSource).locations("classpath:/db/").load();
         flyway.migrate();
 
-        dslContext = DSL.using(dataSource.getConnection(), SQLDialect.SQLITE);
+        connection = new StatementCachingConnection(dataSource.getConnection());
+        // Padding IN-lists lets queries with differently sized lists share statements
+        Settings settings = new Settings().withInListPadding(true);
+        dslContext = DSL.using(connection, SQLDialect.SQLITE, settings);
     }
 
     /**
@@ -76,6 +87,18 @@ public final class Database {
         }
     }
 
+    /**
+     * Sets the listener that is informed about the timing of all accesses to this database,
+     * replacing any previous listener.
+     *
+     * @param metricsListener the listener to inform, {@link DatabaseMetricsListener#NONE} to stop
+     *        informing a listener
+     */
+    public void setMetricsListener(DatabaseMetricsListener metricsListener) {
+        this.metricsListener = Objects.requireNonNull(metricsListener);
+        connection.setMetricsListener(metricsListener);
+    }
+
     /**
      * Acquires read-only access to the database.
      *
@@ -86,10 +109,13 @@ public final class Database {
      */
     public <T> T read(
             CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
+        long executionStart = System.nanoTime();
         try {
             return action.accept(getDslContext());
         } catch (DataAccessException e) {
             throw new DatabaseException(e);
+        } finally {
+            onActionCompleted(AccessType.READ, executionStart);
         }
     }
 
@@ -118,13 +144,14 @@ public final class Database {
      */
     public <T> T writeAndProvide(
             CheckedFunction<? super DSLContext, T, ? extends DataAccessException> action) {
-        writeLock.lock();
+        long executionStart = lockForWrite();
         try {
             return action.accept(getDslContext());
         } catch (DataAccessException e) {
             throw new DatabaseException(e);
         } finally {
             writeLock.unlock();
+            onActionCompleted(AccessType.WRITE, executionStart);
         }
     }
 
@@ -155,10 +182,13 @@ public final class Database {
             CheckedFunction<? super DSLContext, T, DataAccessException> handler) {
         var holder = new ResultHolder<T>();
 
+        long executionStart = System.nanoTime();
         try {
             getDslContext().transaction(config -> holder.result = handler.accept(config.dsl()));
         } catch (DataAccessException e) {
             throw new DatabaseException(e);
+        } finally {
+            onActionCompleted(AccessType.READ, executionStart);
         }
 
         return holder.result;
@@ -194,13 +224,14 @@ public final class Database {
             CheckedFunction<? super DSLContext, T, DataAccessException> handler) {
         var holder = new ResultHolder<T>();
 
-        writeLock.lock();
+        long executionStart = lockForWrite();
         try {
             getDslContext().transaction(config -> holder.result = handler.accept(config.dsl()));
         } catch (DataAccessException e) {
             throw new DatabaseException(e);
         } finally {
             writeLock.unlock();
+            onActionCompleted(AccessType.WRITE, executionStart);
         }
 
         return holder.result;
@@ -222,6 +253,24 @@ public final class Database {
         });
     }
 
+    /**
+     * Acquires the write lock and informs the metrics listener about the time spent waiting for it.
+     *
+     * @return the time the lock was acquired at, in nanoseconds as given by
+     *         {@link System#nanoTime()}
+     */
+    private long lockForWrite() {
+        long lockRequestedAt = System.nanoTime();
+        writeLock.lock();
+        long lockAcquiredAt = System.nanoTime();
+        metricsListener.onWriteLockAcquired(lockAcquiredAt - lockRequestedAt);
+        return lockAcquiredAt;
+    }
+
+    private void onActionCompleted(AccessType accessType, long executionStart) {
+        metricsListener.onActionCompleted(accessType, System.nanoTime() - executionStart);
+    }
+
     private DSLContext getDslContext() {
         return dslContext;
     }
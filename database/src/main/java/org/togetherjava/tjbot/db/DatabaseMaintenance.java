@@ -0,0 +1,167 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.DSLContext;
+import org.jooq.Record;
+
+/**
+ * Housekeeping for a {@link Database}, such as checkpointing the write-ahead log, refreshing the
+ * statistics of the query planner and reclaiming free pages.
+ * <p>
+ * Every method is a single, short step that holds the write lock only while it runs. Callers
+ * wanting to do more work, for example reclaiming many pages, call the step repeatedly, giving
+ * other accesses the chance to acquire the lock in between.
+ */
+public final class DatabaseMaintenance {
+    /**
+     * Bounds the amount of rows {@code PRAGMA optimize} looks at per index, keeping it fast also
+     * for large tables.
+     */
+    private static final int ANALYSIS_LIMIT = 1_000;
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final Database database;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param database the database to maintain
+     */
+    public DatabaseMaintenance(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Copies the content of the write-ahead log into the database file, as far as possible without
+     * waiting for readers. If everything was copied, the log is also truncated, unless a reader is
+     * still using it.
+     * <p>
+     * The cost grows with the size of the log, calling it regularly hence keeps every single
+     * checkpoint short.
+     *
+     * @return the state of the log at the time of the checkpoint
+     * @throws DatabaseException if the checkpoint failed
+     */
+    public Checkpoint checkpoint() {
+        return database.writeAndProvide(context -> {
+            Record passive = context.fetchOne("PRAGMA wal_checkpoint(PASSIVE)");
+            long logFrames = passive == null ? 0 : Math.max(0, passive.get(1, Long.class));
+            long checkpointedFrames =
+                    passive == null ? 0 : Math.max(0, passive.get(2, Long.class));
+            long pageSize = fetchLong(context, "PRAGMA page_size");
+
+            boolean isTruncated = false;
+            if (logFrames > 0 && checkpointedFrames == logFrames) {
+                isTruncated = truncateLogWithoutWaiting(context);
+            }
+            return new Checkpoint(logFrames * pageSize, checkpointedFrames * pageSize,
+                    isTruncated);
+        });
+    }
+
+    private static boolean truncateLogWithoutWaiting(DSLContext context) {
+        // Truncating has to wait for all readers of the log, but should not stall writes for it.
+        // Without busy timeout, the checkpoint gives up right away if a reader is active.
+        long busyTimeout = fetchLong(context, "PRAGMA busy_timeout");
+        context.fetch("PRAGMA busy_timeout = 0");
+        try {
+            Record truncate = context.fetchOne("PRAGMA wal_checkpoint(TRUNCATE)");
+            return truncate != null && truncate.get(0, Integer.class) == 0;
+        } finally {
+            context.fetch("PRAGMA busy_timeout = " + busyTimeout);
+        }
+    }
+
+    /**
+     * Refreshes the statistics the query planner uses, for tables that changed considerably since
+     * the last time.
+     *
+     * @throws DatabaseException if refreshing the statistics failed
+     */
+    public void optimize() {
+        database.write(context -> {
+            context.execute("PRAGMA analysis_limit = " + ANALYSIS_LIMIT);
+            context.execute("PRAGMA optimize");
+        });
+    }
+
+    /**
+     * Whether free pages can be reclaimed step-wise by {@link #vacuumIncrementally(int)}. The
+     * setting is enabled by a migration, since it requires rebuilding the database, which must not
+     * happen while the database is in use.
+     *
+     * @return whether incremental vacuum is enabled
+     * @throws DatabaseException if the setting could not be read
+     */
+    public boolean isIncrementalVacuumEnabled() {
+        return database.read(
+                context -> fetchLong(context, "PRAGMA auto_vacuum") == AUTO_VACUUM_INCREMENTAL);
+    }
+
+    /**
+     * Reclaims up to the given amount of free pages, shrinking the database file accordingly.
+     * Requires incremental vacuum to be enabled, see {@link #isIncrementalVacuumEnabled()}.
+     *
+     * @param maxPages the maximal amount of pages to reclaim
+     * @return the amount of free pages that remain
+     * @throws DatabaseException if reclaiming failed
+     */
+    public long vacuumIncrementally(int maxPages) {
+        return database.writeAndProvide(context -> {
+            long freePages = fetchLong(context, "PRAGMA freelist_count");
+            long remainingPagesTarget = Math.max(0, freePages - maxPages);
+
+            // The pragma reclaims one page per step, depending on the driver only a single step
+            // may be executed though, hence it is repeated until it stops making progress
+            while (freePages > remainingPagesTarget) {
+                context.fetch("PRAGMA incremental_vacuum(%d)"
+                    .formatted(freePages - remainingPagesTarget));
+
+                long remainingPages = fetchLong(context, "PRAGMA freelist_count");
+                if (remainingPages >= freePages) {
+                    break;
+                }
+                freePages = remainingPages;
+            }
+            return freePages;
+        });
+    }
+
+    /**
+     * Reads the current size of the database.
+     *
+     * @return the size of the database
+     * @throws DatabaseException if the size could not be read
+     */
+    public Size readSize() {
+        return database.read(context -> {
+            long pageSize = fetchLong(context, "PRAGMA page_size");
+            return new Size(pageSize * fetchLong(context, "PRAGMA page_count"),
+                    pageSize * fetchLong(context, "PRAGMA freelist_count"));
+        });
+    }
+
+    private static long fetchLong(DSLContext context, String pragma) {
+        return ((Number) context.fetchValue(pragma)).longValue();
+    }
+
+    /**
+     * The state of the write-ahead log at the time of a checkpoint.
+     *
+     * @param logBytes the size of the log before the checkpoint, in bytes
+     * @param checkpointedBytes the size of the part of the log that was copied into the database
+     *        file, in bytes
+     * @param isTruncated whether the log was truncated afterwards
+     */
+    public record Checkpoint(long logBytes, long checkpointedBytes, boolean isTruncated) {
+    }
+
+    /**
+     * The size of a database.
+     *
+     * @param fileBytes the size of the database file, excluding the write-ahead log, in bytes
+     * @param freeBytes the size of unused pages within the database file, which can be reclaimed,
+     *        in bytes
+     */
+    public record Size(long fileBytes, long freeBytes) {
+    }
+}
@@ -0,0 +1,74 @@
+package org.togetherjava.tjbot.db;
+
+/**
+ * Listener that is informed about the timing of all accesses to a {@link Database}, for example to
+ * record metrics. It is also informed about how well statements are reused.
+ * <p>
+ * Register it using {@link Database#setMetricsListener(DatabaseMetricsListener)}. Methods are
+ * called on the thread accessing the database, implementations must hence be fast and thread-safe.
+ */
+public interface DatabaseMetricsListener {
+    /**
+     * Listener that ignores all events.
+     */
+    DatabaseMetricsListener NONE = new DatabaseMetricsListener() {
+        @Override
+        public void onWriteLockAcquired(long waitNanos) {
+            // Ignore
+        }
+
+        @Override
+        public void onActionCompleted(AccessType accessType, long executionNanos) {
+            // Ignore
+        }
+    };
+
+    /**
+     * Called after a writing access acquired the write lock.
+     *
+     * @param waitNanos the time spent waiting for the lock, in nanoseconds
+     */
+    void onWriteLockAcquired(long waitNanos);
+
+    /**
+     * Called after an action has been executed on the database, also if it failed.
+     *
+     * @param accessType whether the action had read-only or read and write access, transactions
+     *        included
+     * @param executionNanos the time spent executing the action, excluding any lock wait, in
+     *        nanoseconds
+     */
+    void onActionCompleted(AccessType accessType, long executionNanos);
+
+    /**
+     * Called when a statement is executed with a previously prepared statement of the same SQL,
+     * instead of preparing it again.
+     */
+    default void onStatementCacheHit() {
+        // Ignore by default
+    }
+
+    /**
+     * Called after a statement has been prepared, because no previously prepared statement of the
+     * same SQL was available.
+     *
+     * @param prepareNanos the time spent preparing the statement, in nanoseconds
+     */
+    default void onStatementPrepared(long prepareNanos) {
+        // Ignore by default
+    }
+
+    /**
+     * The type of access an action had to the database.
+     */
+    enum AccessType {
+        /**
+         * Read-only access, see for example {@link Database#read}.
+         */
+        READ,
+        /**
+         * Read and write access, see for example {@link Database#write}.
+         */
+        WRITE
+    }
+}
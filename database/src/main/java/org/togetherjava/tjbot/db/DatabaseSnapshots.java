@@ -0,0 +1,156 @@
+package org.togetherjava.tjbot.db;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Creates snapshots of a live database, without interrupting its regular use.
+ * <p>
+ * Snapshots are created from a separate, read-only connection using {@code VACUUM INTO}. In WAL
+ * mode, this connection reads a consistent state of the database, while writes of all other
+ * connections continue unhindered. In particular, the write lock of {@link Database} is never
+ * acquired.
+ * <p>
+ * Snapshots are written to a directory, named by the time they were created at. Only the latest
+ * snapshots are retained, older ones are deleted.
+ */
+public final class DatabaseSnapshots {
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".db";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final DateTimeFormatter SNAPSHOT_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH-mm-ss'Z'").withZone(ZoneOffset.UTC);
+
+    private final SQLiteDataSource dataSource;
+    private final Path directory;
+    private final int retainedSnapshots;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param databaseFile the file of the database to create snapshots of
+     * @param directory the directory to write snapshots to, is created if it does not exist
+     * @param retainedSnapshots the amount of latest snapshots to keep, must be positive
+     */
+    public DatabaseSnapshots(Path databaseFile, Path directory, int retainedSnapshots) {
+        if (retainedSnapshots <= 0) {
+            throw new IllegalArgumentException(
+                    "At least one snapshot must be retained, but was: " + retainedSnapshots);
+        }
+
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setReadOnly(true);
+        dataSource = new SQLiteDataSource(sqliteConfig);
+        dataSource.setUrl("jdbc:sqlite:" + databaseFile.toAbsolutePath());
+
+        this.directory = directory;
+        this.retainedSnapshots = retainedSnapshots;
+    }
+
+    /**
+     * Creates a snapshot of the current state of the database and deletes outdated snapshots.
+     * <p>
+     * The snapshot is first written to a pending file and only renamed once it is complete, so that
+     * incomplete snapshots are never mistaken for valid ones.
+     *
+     * @return the file the snapshot was written to
+     * @throws DatabaseException if the snapshot could not be created
+     * @throws UncheckedIOException if the snapshot files could not be managed
+     */
+    public Path createSnapshot() {
+        Path snapshot = directory.resolve(
+                SNAPSHOT_PREFIX + SNAPSHOT_TIME_FORMAT.format(Instant.now()) + SNAPSHOT_SUFFIX);
+        Path pendingSnapshot = snapshot.resolveSibling(snapshot.getFileName() + PENDING_SUFFIX);
+
+        try {
+            Files.createDirectories(directory);
+            Files.deleteIfExists(pendingSnapshot);
+
+            try (Connection connection = dataSource.getConnection();
+                    PreparedStatement vacuumInto = connection.prepareStatement("VACUUM INTO ?")) {
+                vacuumInto.setString(1, pendingSnapshot.toAbsolutePath().toString());
+                vacuumInto.execute();
+            }
+
+            Files.move(pendingSnapshot, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            deleteOutdatedSnapshots();
+        } catch (SQLException e) {
+            throw new DatabaseException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Finds the time the latest snapshot was created at, as given by its name.
+     *
+     * @return the creation time of the latest snapshot, if any
+     * @throws UncheckedIOException if the snapshot directory could not be read
+     */
+    public Optional<Instant> findLatestSnapshotTime() {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(DatabaseSnapshots::isSnapshot)
+                .map(DatabaseSnapshots::parseSnapshotTime)
+                .flatMap(Optional::stream)
+                .max(Comparator.naturalOrder());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void deleteOutdatedSnapshots() throws IOException {
+        List<Path> outdatedSnapshots;
+        try (Stream<Path> files = Files.list(directory)) {
+            // The time format sorts chronologically, latest first
+            outdatedSnapshots = files.filter(DatabaseSnapshots::isSnapshot)
+                .sorted(Comparator.comparing(Path::getFileName).reversed())
+                .skip(retainedSnapshots)
+                .toList();
+        }
+
+        for (Path outdatedSnapshot : outdatedSnapshots) {
+            Files.deleteIfExists(outdatedSnapshot);
+        }
+    }
+
+    private static boolean isSnapshot(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+    }
+
+    private static Optional<Instant> parseSnapshotTime(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        String time = name.substring(SNAPSHOT_PREFIX.length(),
+                name.length() - SNAPSHOT_SUFFIX.length());
+
+        try {
+            return Optional.of(SNAPSHOT_TIME_FORMAT.parse(time, Instant::from));
+        } catch (DateTimeParseException e) {
+            // Not a snapshot created by this class, ignore it
+            return Optional.empty();
+        }
+    }
+}
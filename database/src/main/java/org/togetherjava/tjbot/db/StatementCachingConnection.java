@@ -0,0 +1,138 @@
+package org.togetherjava.tjbot.db;
+
+import org.jooq.tools.jdbc.DefaultConnection;
+import org.jooq.tools.jdbc.DefaultPreparedStatement;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connection that reuses prepared statements, keyed by their SQL.
+ * <p>
+ * Queries of the same shape render to the same SQL, with bind values as placeholders, so only the
+ * first execution of a shape pays for preparing the statement. Later executions only bind and
+ * execute.
+ * <p>
+ * Statements that are closed are kept open and returned to the cache instead. A cached statement is
+ * handed out to at most one user at a time. If the same SQL is used concurrently, additional
+ * statements are prepared and closed for real once they are closed. At most
+ * {@value MAX_CACHED_STATEMENTS} statements are cached, least recently used statements are closed
+ * first.
+ * <p>
+ * Only statements prepared with {@link #prepareStatement(String)} are cached, all other variants
+ * are delegated as-is.
+ */
+final class StatementCachingConnection extends DefaultConnection {
+    private static final int MAX_CACHED_STATEMENTS = 256;
+
+    /**
+     * Statements that are currently not in use, by their SQL. Guarded by itself.
+     */
+    private final Map<String, PreparedStatement> sqlToIdleStatement =
+            new LinkedHashMap<>(16, 0.75F, true);
+    private volatile DatabaseMetricsListener metricsListener = DatabaseMetricsListener.NONE;
+
+    StatementCachingConnection(Connection delegate) {
+        super(delegate);
+    }
+
+    void setMetricsListener(DatabaseMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement idleStatement;
+        synchronized (sqlToIdleStatement) {
+            idleStatement = sqlToIdleStatement.remove(sql);
+        }
+
+        if (idleStatement != null) {
+            metricsListener.onStatementCacheHit();
+            return new CachedStatement(sql, idleStatement);
+        }
+
+        long prepareStart = System.nanoTime();
+        PreparedStatement statement = getDelegate().prepareStatement(sql);
+        metricsListener.onStatementPrepared(System.nanoTime() - prepareStart);
+
+        return new CachedStatement(sql, statement);
+    }
+
+    private void release(String sql, PreparedStatement statement) throws SQLException {
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+
+        List<PreparedStatement> statementsToClose = new ArrayList<>();
+        synchronized (sqlToIdleStatement) {
+            PreparedStatement otherIdleStatement = sqlToIdleStatement.putIfAbsent(sql, statement);
+            if (otherIdleStatement != null) {
+                // Used concurrently, one idle statement per SQL is enough
+                statementsToClose.add(statement);
+            }
+
+            Iterator<PreparedStatement> leastRecentlyUsed =
+                    sqlToIdleStatement.values().iterator();
+            while (sqlToIdleStatement.size() > MAX_CACHED_STATEMENTS) {
+                statementsToClose.add(leastRecentlyUsed.next());
+                leastRecentlyUsed.remove();
+            }
+        }
+
+        for (PreparedStatement statementToClose : statementsToClose) {
+            statementToClose.close();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        List<PreparedStatement> statementsToClose;
+        synchronized (sqlToIdleStatement) {
+            statementsToClose = new ArrayList<>(sqlToIdleStatement.values());
+            sqlToIdleStatement.clear();
+        }
+
+        for (PreparedStatement statement : statementsToClose) {
+            statement.close();
+        }
+        super.close();
+    }
+
+    /**
+     * Statement that is returned to the cache when closed, instead of being closed.
+     */
+    private final class CachedStatement extends DefaultPreparedStatement {
+        private final String sql;
+        private boolean isReleased;
+
+        private CachedStatement(String sql, PreparedStatement delegate) {
+            super(delegate, StatementCachingConnection.this);
+            this.sql = sql;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (isReleased) {
+                return;
+            }
+            isReleased = true;
+
+            release(sql, getDelegate());
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return isReleased || super.isClosed();
+        }
+    }
+}